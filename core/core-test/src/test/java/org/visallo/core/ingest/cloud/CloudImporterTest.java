@@ -0,0 +1,379 @@
+package org.visallo.core.ingest.cloud;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.vertexium.Authorizations;
+import org.vertexium.Graph;
+import org.vertexium.Vertex;
+import org.vertexium.inmemory.InMemoryGraph;
+import org.vertexium.property.StreamingPropertyValue;
+import org.visallo.core.config.Configuration;
+import org.visallo.core.exception.VisalloException;
+import org.visallo.core.ingest.FileImport;
+import org.visallo.core.ingest.FileImportSupportingFileHandler;
+import org.visallo.core.ingest.PostFileImportHandler;
+import org.visallo.core.model.WorkQueueNames;
+import org.visallo.core.model.ontology.OntologyRepository;
+import org.visallo.core.model.properties.VisalloProperties;
+import org.visallo.core.model.workQueue.Priority;
+import org.visallo.core.model.workQueue.WorkQueueRepository;
+import org.visallo.core.model.workspace.Workspace;
+import org.visallo.core.model.workspace.WorkspaceRepository;
+import org.visallo.core.security.DirectVisibilityTranslator;
+import org.visallo.core.user.User;
+import org.visallo.core.util.JSONUtil;
+import org.visallo.core.util.RowKeyHelper;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.vertexium.util.IterableUtils.count;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CloudImporterTest {
+    private Graph graph;
+    private Authorizations authorizations;
+    private FileImport fileImport;
+    private File root;
+    private FileSystemCloudResourceSource source;
+
+    @Mock
+    private WorkQueueRepository workQueueRepository;
+
+    @Mock
+    private WorkspaceRepository workspaceRepository;
+
+    @Mock
+    private WorkQueueNames workQueueNames;
+
+    @Mock
+    private OntologyRepository ontologyRepository;
+
+    @Mock
+    private Configuration configuration;
+
+    @Mock
+    private User user;
+
+    @Mock
+    private Workspace workspace;
+
+    @Before
+    public void setup() throws IOException {
+        graph = InMemoryGraph.create();
+        authorizations = graph.createAuthorizations();
+        fileImport = createFileImport(graph);
+        root = Files.createTempDirectory("cloudImporterTest").toFile();
+        source = new FileSystemCloudResourceSource();
+    }
+
+    @After
+    public void teardown() throws IOException {
+        FileUtils.deleteDirectory(root);
+    }
+
+    @Test
+    public void testImportInBatches() throws IOException {
+        JSONObject configuration = createFiles(5);
+        TestCallback callback = new TestCallback(Integer.MAX_VALUE);
+        CloudImportCheckpoint checkpoint = new CloudImportCheckpoint("import1");
+
+        CloudImporter.Result result = importItems(configuration, checkpoint, callback);
+
+        assertEquals(CloudImporter.StopReason.COMPLETE, result.getStopReason());
+        assertEquals(5, result.getImportedCount());
+        assertEquals(5, checkpoint.getImportedCount());
+        assertEquals(3, callback.checkpointCount);
+        verify(workspaceRepository, times(3)).updateEntitiesOnWorkspace(eq(workspace), anyCollectionOf(String.class), eq(user));
+        verify(workQueueRepository, times(5)).pushGraphVisalloPropertyQueue(any(), any(), any(), any(), any(Priority.class));
+
+        for (String vertexId : checkpoint.getVertexIds()) {
+            Vertex vertex = graph.getVertex(vertexId, authorizations);
+            String fileName = VisalloProperties.FILE_NAME.getOnlyPropertyValue(vertex);
+            String expectedContents = "contents of " + fileName;
+            StreamingPropertyValue raw = VisalloProperties.RAW.getPropertyValue(vertex);
+            try (InputStream in = raw.getInputStream()) {
+                assertEquals(expectedContents, IOUtils.toString(in, StandardCharsets.UTF_8));
+            }
+            String expectedHash = RowKeyHelper.buildSHA256KeyString(expectedContents.getBytes(StandardCharsets.UTF_8));
+            assertEquals(expectedHash, VisalloProperties.CONTENT_HASH.getOnlyPropertyValue(vertex));
+        }
+    }
+
+    @Test
+    public void testResumeCanceledImport() throws IOException {
+        JSONObject configuration = createFiles(7);
+        TestCallback callback = new TestCallback(3);
+        CloudImportCheckpoint checkpoint = new CloudImportCheckpoint("import1");
+
+        CloudImporter.Result result = importItems(configuration, checkpoint, callback);
+
+        assertEquals(CloudImporter.StopReason.CANCELED, result.getStopReason());
+        int importedBeforeCancel = checkpoint.getImportedCount();
+        assertTrue(importedBeforeCancel >= 3 && importedBeforeCancel < 7);
+
+        checkpoint = CloudImportCheckpoint.fromJson(new JSONObject(checkpoint.toJson().toString()), "import2");
+        result = importItems(configuration, checkpoint, new TestCallback(Integer.MAX_VALUE));
+
+        assertEquals(CloudImporter.StopReason.COMPLETE, result.getStopReason());
+        assertEquals(7 - importedBeforeCancel, result.getImportedCount());
+        assertEquals(7, checkpoint.getImportedCount());
+        assertEquals(7, count(graph.getVertices(authorizations)));
+    }
+
+    @Test
+    public void testResumeAfterImportDied() throws IOException {
+        JSONObject configuration = createFiles(7);
+        CloudImportCheckpoint checkpoint = new CloudImportCheckpoint("import1");
+        TestCallback callback = new TestCallback(Integer.MAX_VALUE) {
+            private int progressCount;
+
+            @Override
+            public void progress(double progressPercent, String message) {
+                // dies after the first batch is finished while the next items are saved but not finished
+                if (++progressCount == 3) {
+                    throw new VisalloException("import died");
+                }
+            }
+        };
+
+        try {
+            importItems(configuration, checkpoint, callback);
+            fail("expected the import to die");
+        } catch (VisalloException ex) {
+            assertEquals("import died", ex.getMessage());
+        }
+        assertEquals(2, checkpoint.getImportedCount());
+
+        checkpoint = CloudImportCheckpoint.fromJson(new JSONObject(checkpoint.toJson().toString()), "import2");
+        assertEquals("import1", checkpoint.getImportId());
+        CloudImporter.Result result = importItems(configuration, checkpoint, new TestCallback(Integer.MAX_VALUE));
+
+        assertEquals(5, result.getImportedCount());
+        assertEquals(0, result.getDuplicateCount());
+        assertEquals(7, checkpoint.getImportedCount());
+        assertEquals(7, count(graph.getVertices(authorizations)));
+
+        ArgumentCaptor<Collection<String>> workspaceVertexIds = ArgumentCaptor.forClass((Class) Collection.class);
+        verify(workspaceRepository, atLeastOnce()).updateEntitiesOnWorkspace(eq(workspace), workspaceVertexIds.capture(), eq(user));
+        Set<String> vertexIdsOnWorkspace = new HashSet<>();
+        workspaceVertexIds.getAllValues().forEach(vertexIdsOnWorkspace::addAll);
+        assertEquals(new HashSet<>(checkpoint.getVertexIds()), vertexIdsOnWorkspace);
+    }
+
+    @Test
+    public void testFailedItemKeepsOtherItems() throws IOException {
+        JSONObject configuration = createFiles(4);
+        configuration.getJSONArray("paths").put("missing.txt");
+        CloudImportCheckpoint checkpoint = new CloudImportCheckpoint("import1");
+
+        try {
+            importItems(configuration, checkpoint, new TestCallback(Integer.MAX_VALUE));
+            fail("expected the missing file to fail the import");
+        } catch (VisalloException ex) {
+            // expected
+        }
+
+        assertEquals(4, checkpoint.getImportedCount());
+        assertFalse(checkpoint.isImported("missing.txt"));
+    }
+
+    @Test
+    public void testDuplicateContentsImportedOnce() throws IOException {
+        FileUtils.writeStringToFile(new File(root, "a.txt"), "same");
+        FileUtils.writeStringToFile(new File(root, "b.txt"), "same");
+        JSONObject configuration = new JSONObject();
+        configuration.put("root", root.getAbsolutePath());
+        configuration.put("paths", new JSONArray(Arrays.asList("a.txt", "b.txt")));
+        CloudImportCheckpoint checkpoint = new CloudImportCheckpoint("import1");
+
+        CloudImporter.Result result = new CloudImporter(fileImport, 1, 10).importItems(
+                source.getItems(configuration),
+                checkpoint,
+                "",
+                workspace,
+                true,
+                Priority.NORMAL,
+                user,
+                authorizations,
+                new TestCallback(Integer.MAX_VALUE)
+        );
+
+        assertEquals(1, result.getDuplicateCount());
+        assertEquals(checkpoint.getVertexIds().get(0), checkpoint.getVertexIds().get(1));
+        assertEquals(1, count(graph.getVertices(authorizations)));
+    }
+
+    @Test
+    public void testDuplicateContentsInSameBatchImportedOnce() throws IOException {
+        for (String fileName : Arrays.asList("a.txt", "b.txt", "c.txt", "d.txt")) {
+            FileUtils.writeStringToFile(new File(root, fileName), "same");
+        }
+        JSONObject configuration = new JSONObject();
+        configuration.put("root", root.getAbsolutePath());
+        configuration.put("paths", new JSONArray(Arrays.asList("a.txt", "b.txt", "c.txt", "d.txt")));
+        CloudImportCheckpoint checkpoint = new CloudImportCheckpoint("import1");
+        // the vertices of a batch are not flushed, so the search index does not find them
+        Graph unflushedGraph = spy(graph);
+        doAnswer(invocation -> graph.query((Authorizations) invocation.getArguments()[0]).has("unflushed", "true"))
+                .when(unflushedGraph).query(any(Authorizations.class));
+
+        CloudImporter.Result result = new CloudImporter(createFileImport(unflushedGraph), 3, 10).importItems(
+                source.getItems(configuration),
+                checkpoint,
+                "",
+                workspace,
+                true,
+                Priority.NORMAL,
+                user,
+                authorizations,
+                new TestCallback(Integer.MAX_VALUE)
+        );
+
+        assertEquals(3, result.getDuplicateCount());
+        assertEquals(1, new HashSet<>(checkpoint.getVertexIds()).size());
+        assertEquals(1, count(graph.getVertices(authorizations)));
+    }
+
+    private FileImport createFileImport(Graph graph) {
+        return new FileImport(
+                new DirectVisibilityTranslator(),
+                graph,
+                workQueueRepository,
+                workspaceRepository,
+                workQueueNames,
+                ontologyRepository,
+                configuration
+        ) {
+            @Override
+            protected List<PostFileImportHandler> getPostFileImportHandlers() {
+                return new ArrayList<>();
+            }
+
+            @Override
+            protected List<FileImportSupportingFileHandler> getFileImportSupportingFileHandlers() {
+                return new ArrayList<>();
+            }
+        };
+    }
+
+    private CloudImporter.Result importItems(JSONObject configuration, CloudImportCheckpoint checkpoint, TestCallback callback) {
+        return new CloudImporter(fileImport, 3, 2).importItems(
+                source.getItems(configuration),
+                checkpoint,
+                "",
+                workspace,
+                true,
+                Priority.NORMAL,
+                user,
+                authorizations,
+                callback
+        );
+    }
+
+    private JSONObject createFiles(int count) throws IOException {
+        List<String> paths = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String path = "dir/file" + i + ".txt";
+            FileUtils.writeStringToFile(new File(root, path), "contents of file" + i + ".txt", StandardCharsets.UTF_8);
+            paths.add(path);
+        }
+        JSONObject configuration = new JSONObject();
+        configuration.put("root", root.getAbsolutePath());
+        configuration.put("paths", new JSONArray(paths));
+        return configuration;
+    }
+
+    private static class TestCallback implements CloudImporter.Callback {
+        private final int cancelAfterStarted;
+        private int startedCount;
+        private int checkpointCount;
+
+        public TestCallback(int cancelAfterStarted) {
+            this.cancelAfterStarted = cancelAfterStarted;
+        }
+
+        @Override
+        public boolean isCanceled() {
+            return startedCount++ >= cancelAfterStarted;
+        }
+
+        @Override
+        public void progress(double progressPercent, String message) {
+        }
+
+        @Override
+        public void checkpoint(CloudImportCheckpoint checkpoint) {
+            checkpointCount++;
+        }
+    }
+
+    /**
+     * Stands in for an object store, the items are files below a root directory.
+     */
+    private static class FileSystemCloudResourceSource implements CloudResourceSource {
+        @Override
+        public Collection<CloudResourceSourceItem> getItems(JSONObject configuration) {
+            File root = new File(configuration.getString("root"));
+            return JSONUtil.toList(configuration.getJSONArray("paths"))
+                    .stream()
+                    .map(path -> new FileSystemCloudResourceSourceItem(root, (String) path))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static class FileSystemCloudResourceSourceItem implements CloudResourceSourceItem {
+        private final File root;
+        private final String path;
+
+        public FileSystemCloudResourceSourceItem(File root, String path) {
+            this.root = root;
+            this.path = path;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            try {
+                return new FileInputStream(new File(root, path));
+            } catch (FileNotFoundException ex) {
+                throw new VisalloException("Could not find " + path, ex);
+            }
+        }
+
+        @Override
+        public String getName() {
+            return new File(path).getName();
+        }
+
+        @Override
+        public Long getSize() {
+            return new File(root, path).length();
+        }
+
+        @Override
+        public String getId() {
+            return path;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package org.visallo.core.ingest.graphProperty;
+
+import org.json.JSONObject;
+import org.junit.Test;
+import org.visallo.core.model.workQueue.Priority;
+import org.visallo.core.util.JSONUtil;
+
+import static org.junit.Assert.*;
+
+public class GraphPropertyMessageCodecTest {
+    @Test
+    public void testBinaryRoundTrip() {
+        GraphPropertyMessage message = createMessage(3);
+        GraphPropertyMessageCodec codec = new GraphPropertyMessageCodec(GraphPropertyMessageCodec.Format.BINARY, 0);
+        byte[] data = codec.encode(message);
+        assertTrue(GraphPropertyMessageCodec.isBinary(data));
+        assertTrue("binary should be smaller than json", data.length < message.toBytes().length);
+
+        assertMessagesEqual(message, GraphPropertyMessage.create(data));
+    }
+
+    @Test
+    public void testBinaryRoundTripCompressed() {
+        GraphPropertyMessage message = createMessage(100);
+        GraphPropertyMessageCodec codec = new GraphPropertyMessageCodec(GraphPropertyMessageCodec.Format.BINARY, 64);
+        byte[] compressed = codec.encode(message);
+        byte[] uncompressed = new GraphPropertyMessageCodec(GraphPropertyMessageCodec.Format.BINARY, 0).encode(message);
+        assertTrue(compressed.length < uncompressed.length);
+
+        assertMessagesEqual(message, GraphPropertyMessageCodec.decode(compressed));
+    }
+
+    @Test
+    public void testNullFieldsRoundTrip() {
+        GraphPropertyMessage message = new GraphPropertyMessage();
+        message.setPriority(Priority.LOW);
+        message.setGraphVertexId(new String[]{"v1"});
+        byte[] data = new GraphPropertyMessageCodec(GraphPropertyMessageCodec.Format.BINARY, 0).encode(message);
+
+        assertMessagesEqual(message, GraphPropertyMessage.create(data));
+    }
+
+    @Test
+    public void testJsonFormat() {
+        GraphPropertyMessage message = createMessage(1);
+        byte[] data = new GraphPropertyMessageCodec(GraphPropertyMessageCodec.Format.JSON, 0).encode(message);
+        assertFalse(GraphPropertyMessageCodec.isBinary(data));
+
+        assertMessagesEqual(message, GraphPropertyMessageCodec.decode(data));
+    }
+
+    private GraphPropertyMessage createMessage(int propertyCount) {
+        GraphPropertyMessage.Property[] properties = new GraphPropertyMessage.Property[propertyCount];
+        for (int i = 0; i < propertyCount; i++) {
+            properties[i] = new GraphPropertyMessage.Property()
+                    .setPropertyKey("")
+                    .setPropertyName("http://visallo.org/test#property" + (i % 5))
+                    .setStatus(i % 2 == 0 ? ElementOrPropertyStatus.UPDATE : ElementOrPropertyStatus.DELETION)
+                    .setBeforeActionTimestamp(i % 2 == 0 ? null : 123456789L + i);
+        }
+        GraphPropertyMessage message = new GraphPropertyMessage()
+                .setPriority(Priority.HIGH)
+                .setWorkspaceId("ws1")
+                .setVisibilitySource("a&b")
+                .setGraphVertexId(new String[]{"v1", "v2"})
+                .setProperties(properties);
+        message.setTraceEnabled(true);
+        return message;
+    }
+
+    private void assertMessagesEqual(GraphPropertyMessage expected, GraphPropertyMessage found) {
+        assertTrue(
+                new JSONObject(found.toJsonString()).toString(2),
+                JSONUtil.areEqual(new JSONObject(expected.toJsonString()), new JSONObject(found.toJsonString()))
+        );
+    }
+}
@@ -0,0 +1,205 @@
+package org.visallo.core.ingest.graphProperty;
+
+import org.junit.After;
+import org.junit.Test;
+import org.vertexium.Element;
+import org.vertexium.Property;
+import org.visallo.core.config.Configuration;
+import org.visallo.core.config.HashMapConfigurationLoader;
+import org.visallo.core.model.workQueue.Priority;
+import org.visallo.core.status.JmxMetricsManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class GraphPropertyThreadedWrapperTest {
+    private GraphPropertyThreadedWrapper wrapper;
+
+    @After
+    public void after() {
+        if (wrapper != null) {
+            wrapper.stop();
+        }
+    }
+
+    @Test
+    public void testExecutionWithinBudget() throws Exception {
+        SleepingWorker worker = new SleepingWorker(0, false);
+        wrapper = start(worker, 2);
+
+        wrapper.enqueueWork(null, createWorkData());
+        GraphPropertyThreadedWrapper.WorkResult result = wrapper.dequeueResult(true);
+
+        assertNull(result.getError());
+        assertEquals(GraphPropertyWorkerCircuitBreaker.State.CLOSED, wrapper.getCircuitBreaker().getState());
+    }
+
+    @Test
+    public void testCloseFailureAddsNoResult() throws Exception {
+        SleepingWorker worker = new SleepingWorker(0, false);
+        wrapper = start(worker, 2);
+        InputStream in = new ByteArrayInputStream(new byte[0]) {
+            @Override
+            public void close() throws IOException {
+                throw new IOException("close failed");
+            }
+        };
+
+        wrapper.enqueueWork(in, createWorkData());
+        assertNull(wrapper.dequeueResult(true).getError());
+
+        worker.error = new IllegalStateException("second work failed");
+        wrapper.enqueueWork(null, createWorkData());
+        assertSame(worker.error, wrapper.dequeueResult(true).getError());
+    }
+
+    @Test
+    public void testInterruptibleWorkerTimesOut() throws Exception {
+        SleepingWorker worker = new SleepingWorker(60 * 1000, false);
+        wrapper = start(worker, 2);
+
+        wrapper.enqueueWork(null, createWorkData());
+        GraphPropertyThreadedWrapper.WorkResult result = wrapper.dequeueResult(true);
+        assertTrue(result.getError() instanceof GraphPropertyWorkerTimeoutException);
+        assertTrue(worker.interrupted.await(5, TimeUnit.SECONDS));
+
+        worker.sleepMs = 0;
+        wrapper.enqueueWork(null, createWorkData());
+        assertNull(wrapper.dequeueResult(true).getError());
+        assertEquals(2, worker.executions.get());
+    }
+
+    @Test
+    public void testHungWorkerIsAbandoned() throws Exception {
+        SleepingWorker worker = new SleepingWorker(2000, true);
+        wrapper = start(worker, 2);
+
+        wrapper.enqueueWork(null, createWorkData());
+        assertTrue(wrapper.dequeueResult(true).getError() instanceof GraphPropertyWorkerTimeoutException);
+
+        worker.sleepMs = 0;
+        wrapper.enqueueWork(null, createWorkData());
+        long startTime = System.currentTimeMillis();
+        assertNull(wrapper.dequeueResult(true).getError());
+        assertTrue("replacement thread should pick up work before the hung thread returns", System.currentTimeMillis() - startTime < 1500);
+    }
+
+    @Test
+    public void testCircuitBreakerOpensAfterRepeatedTimeouts() throws Exception {
+        SleepingWorker worker = new SleepingWorker(60 * 1000, false);
+        wrapper = start(worker, 2);
+
+        for (int i = 0; i < 2; i++) {
+            assertTrue(wrapper.isAcceptingWork());
+            wrapper.enqueueWork(null, createWorkData());
+            assertTrue(wrapper.dequeueResult(true).getError() instanceof GraphPropertyWorkerTimeoutException);
+        }
+
+        assertEquals(GraphPropertyWorkerCircuitBreaker.State.OPEN, wrapper.getCircuitBreaker().getState());
+        assertFalse(wrapper.isAcceptingWork());
+        assertEquals("OPEN", wrapper.getStatus().getCircuitBreakerState());
+    }
+
+    @Test
+    public void testCircuitBreakerClosesAfterFailedTrial() throws Exception {
+        SleepingWorker worker = new SleepingWorker(60 * 1000, false);
+        wrapper = start(worker, 1, 100);
+
+        wrapper.enqueueWork(null, createWorkData());
+        assertTrue(wrapper.dequeueResult(true).getError() instanceof GraphPropertyWorkerTimeoutException);
+        assertEquals(GraphPropertyWorkerCircuitBreaker.State.OPEN, wrapper.getCircuitBreaker().getState());
+
+        Thread.sleep(150);
+        assertTrue(wrapper.isAcceptingWork());
+        assertEquals(GraphPropertyWorkerCircuitBreaker.State.HALF_OPEN, wrapper.getCircuitBreaker().getState());
+        worker.sleepMs = 0;
+        worker.error = new IllegalStateException("trial failed");
+        wrapper.enqueueWork(null, createWorkData());
+        assertSame(worker.error, wrapper.dequeueResult(true).getError());
+
+        assertEquals(GraphPropertyWorkerCircuitBreaker.State.CLOSED, wrapper.getCircuitBreaker().getState());
+        assertTrue(wrapper.isAcceptingWork());
+    }
+
+    @Test
+    public void testCircuitBreakerReopensAfterRejectedTrial() {
+        GraphPropertyWorkerCircuitBreaker circuitBreaker = new GraphPropertyWorkerCircuitBreaker(1, 0);
+        circuitBreaker.recordTimeout();
+        assertTrue(circuitBreaker.allowExecution());
+        assertFalse(circuitBreaker.allowExecution());
+
+        circuitBreaker.recordRejected();
+        assertEquals(GraphPropertyWorkerCircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertTrue(circuitBreaker.allowExecution());
+    }
+
+    private GraphPropertyThreadedWrapper start(GraphPropertyWorker worker, int timeoutThreshold) {
+        return start(worker, timeoutThreshold, 5 * 60 * 1000);
+    }
+
+    private GraphPropertyThreadedWrapper start(GraphPropertyWorker worker, int timeoutThreshold, long openDurationMs) {
+        Map<String, String> config = new HashMap<>();
+        config.put("graphPropertyWorker.executionTimeoutMs", "100");
+        config.put("graphPropertyWorker.abandonGraceMs", "100");
+        config.put("graphPropertyWorker.circuitBreaker.timeoutThreshold", Integer.toString(timeoutThreshold));
+        config.put("graphPropertyWorker.circuitBreaker.openDurationMs", Long.toString(openDurationMs));
+        Configuration configuration = new HashMapConfigurationLoader(config).createConfiguration();
+
+        GraphPropertyThreadedWrapper wrapper = new GraphPropertyThreadedWrapper(worker);
+        wrapper.setMetricsManager(new JmxMetricsManager());
+        wrapper.setConfiguration(configuration);
+        Thread thread = new Thread(wrapper);
+        thread.setDaemon(true);
+        thread.start();
+        return wrapper;
+    }
+
+    private GraphPropertyWorkData createWorkData() {
+        return new GraphPropertyWorkData(null, null, null, null, null, Priority.NORMAL, false);
+    }
+
+    private static class SleepingWorker extends GraphPropertyWorker {
+        private final boolean ignoreInterrupts;
+        private final CountDownLatch interrupted = new CountDownLatch(1);
+        private final AtomicInteger executions = new AtomicInteger();
+        private volatile long sleepMs;
+        private volatile Exception error;
+
+        private SleepingWorker(long sleepMs, boolean ignoreInterrupts) {
+            this.sleepMs = sleepMs;
+            this.ignoreInterrupts = ignoreInterrupts;
+        }
+
+        @Override
+        public boolean isHandled(Element element, Property property) {
+            return true;
+        }
+
+        @Override
+        public void execute(InputStream in, GraphPropertyWorkData data) throws Exception {
+            executions.incrementAndGet();
+            long endTime = System.currentTimeMillis() + sleepMs;
+            while (System.currentTimeMillis() < endTime) {
+                try {
+                    Thread.sleep(Math.max(1, endTime - System.currentTimeMillis()));
+                } catch (InterruptedException ex) {
+                    interrupted.countDown();
+                    if (!ignoreInterrupts) {
+                        throw ex;
+                    }
+                }
+            }
+            if (error != null) {
+                throw error;
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package org.visallo.core.ingest.graphProperty;
+
+import org.junit.Test;
+import org.vertexium.Element;
+import org.vertexium.Metadata;
+import org.vertexium.Property;
+import org.vertexium.Vertex;
+import org.vertexium.Visibility;
+import org.visallo.core.model.properties.VisalloProperties;
+
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class GraphPropertyWorkerRoutingIndexTest {
+    private final GraphPropertyThreadedWrapper any = new GraphPropertyThreadedWrapper(new InterestWorker(null));
+    private final GraphPropertyThreadedWrapper elementOnly = new GraphPropertyThreadedWrapper(new InterestWorker(
+            GraphPropertyWorkerInterest.elementOnly()
+    ));
+    private final GraphPropertyThreadedWrapper namedProperty = new GraphPropertyThreadedWrapper(new InterestWorker(
+            GraphPropertyWorkerInterest.properties("name")
+    ));
+    private final GraphPropertyThreadedWrapper text = new GraphPropertyThreadedWrapper(new InterestWorker(
+            GraphPropertyWorkerInterest.anyProperty().withMimeTypePrefixes("text")
+    ));
+    private final GraphPropertyThreadedWrapper person = new GraphPropertyThreadedWrapper(new InterestWorker(
+            GraphPropertyWorkerInterest.elementOnly().withConceptIris("person")
+    ));
+    private final GraphPropertyWorkerRoutingIndex index = new GraphPropertyWorkerRoutingIndex(
+            Arrays.asList(any, elementOnly, namedProperty, text, person)
+    );
+
+    @Test
+    public void testElementMessage() {
+        Vertex vertex = createVertex("person");
+        assertEquals(Arrays.asList(any, elementOnly, person), index.findCandidates(vertex, null));
+
+        vertex = createVertex("place");
+        assertEquals(Arrays.asList(any, elementOnly), index.findCandidates(vertex, null));
+    }
+
+    @Test
+    public void testPropertyMessage() {
+        Vertex vertex = createVertex("person");
+        assertEquals(Arrays.asList(any, namedProperty), index.findCandidates(vertex, createProperty("name", null)));
+        assertEquals(Arrays.asList(any, namedProperty, text), index.findCandidates(vertex, createProperty("name", "text/plain")));
+        assertEquals(Arrays.asList(any, text), index.findCandidates(vertex, createProperty("other", "text/html")));
+        assertEquals(Arrays.asList(any), index.findCandidates(vertex, createProperty("other", "image/png")));
+    }
+
+    @Test
+    public void testUnion() {
+        GraphPropertyWorkerInterest union = GraphPropertyWorkerInterest.union(Arrays.asList(
+                GraphPropertyWorkerInterest.properties("a"),
+                GraphPropertyWorkerInterest.properties("b").withMimeTypePrefixes("text")
+        ));
+        assertEquals(2, union.getPropertyNames().size());
+        assertEquals(null, union.getMimeTypePrefixes());
+
+        List<GraphPropertyWorkerInterest> withNull = Arrays.asList(GraphPropertyWorkerInterest.elementOnly(), null);
+        assertEquals(null, GraphPropertyWorkerInterest.union(withNull));
+    }
+
+    private Vertex createVertex(String conceptType) {
+        Vertex vertex = mock(Vertex.class);
+        when(vertex.getPropertyValue(VisalloProperties.CONCEPT_TYPE.getPropertyName())).thenReturn(conceptType);
+        return vertex;
+    }
+
+    private Property createProperty(String name, String mimeType) {
+        Property property = mock(Property.class);
+        Metadata metadata = new Metadata();
+        if (mimeType != null) {
+            VisalloProperties.MIME_TYPE_METADATA.setMetadata(metadata, mimeType, new Visibility(""));
+        }
+        when(property.getName()).thenReturn(name);
+        when(property.getMetadata()).thenReturn(metadata);
+        return property;
+    }
+
+    private static class InterestWorker extends GraphPropertyWorker {
+        private final GraphPropertyWorkerInterest interest;
+
+        private InterestWorker(GraphPropertyWorkerInterest interest) {
+            this.interest = interest;
+        }
+
+        @Override
+        public GraphPropertyWorkerInterest getInterest() {
+            return interest;
+        }
+
+        @Override
+        public boolean isHandled(Element element, Property property) {
+            return true;
+        }
+
+        @Override
+        public void execute(InputStream in, GraphPropertyWorkData data) {
+        }
+    }
+}
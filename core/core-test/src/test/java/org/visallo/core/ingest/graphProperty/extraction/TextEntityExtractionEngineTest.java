@@ -0,0 +1,87 @@
+package org.visallo.core.ingest.graphProperty.extraction;
+
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class TextEntityExtractionEngineTest {
+    private static final Pattern EMAIL = Pattern.compile("(?i)\\b[A-Z0-9._%+-]+@[A-Z0-9.-]+\\.[A-Z]{2,4}\\b", Pattern.MULTILINE);
+    private static final Pattern ZIP_CODE = Pattern.compile("\\b\\d{5}-\\d{4}\\b|\\b\\d{5}\\b", Pattern.MULTILINE);
+    private static final Pattern URL = Pattern.compile("http://[a-z0-9./]+\\b", Pattern.MULTILINE);
+
+    @Test
+    public void testFindLiteralPrefix() {
+        assertEquals("http://", RegexTextEntityExtractor.findLiteralPrefix(URL));
+        assertEquals("ab", RegexTextEntityExtractor.findLiteralPrefix(Pattern.compile("abc?d")));
+        assertEquals("a.b", RegexTextEntityExtractor.findLiteralPrefix(Pattern.compile("a\\.b\\d+")));
+        assertNull(RegexTextEntityExtractor.findLiteralPrefix(Pattern.compile("abc|def")));
+        assertNull(RegexTextEntityExtractor.findLiteralPrefix(ZIP_CODE));
+        assertNull(RegexTextEntityExtractor.findLiteralPrefix(EMAIL));
+    }
+
+    @Test
+    public void testSingleWindow() throws Exception {
+        String text = "Send mail to joe@example.com or visit http://example.com/contact in 20500-0001.";
+        List<String> results = extract(text, 64 * 1024, 1024);
+        assertEquals(3, results.size());
+        assertEquals(findAll(text), results);
+    }
+
+    @Test
+    public void testMatchesSpanningWindows() throws Exception {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            text.append("line ").append(i).append(" user").append(i).append("@example.com ")
+                    .append(String.format("%05d", i * 7)).append(" http://host").append(i).append(".org/page\n");
+        }
+        List<String> results = extract(text.toString(), 256, 64);
+        assertEquals(1500, results.size());
+        assertEquals(findAll(text.toString()), results);
+    }
+
+    private List<String> extract(String text, int windowSize, int maxMatchLength) throws Exception {
+        List<TextEntityExtractor> extractors = createExtractors();
+        TextEntityExtractionEngine engine = new TextEntityExtractionEngine(extractors, windowSize, maxMatchLength);
+        List<List<String>> resultsByExtractor = new ArrayList<>();
+        for (int i = 0; i < extractors.size(); i++) {
+            resultsByExtractor.add(new ArrayList<>());
+        }
+        engine.extract(new StringReader(text), (extractor, match) -> {
+            assertEquals(text.substring((int) match.getStart(), (int) match.getEnd()), match.getTitle());
+            resultsByExtractor.get(extractors.indexOf(extractor)).add(toString(extractor.getConceptIri(), match.getStart(), match.getEnd(), match.getTitle()));
+        });
+        List<String> results = new ArrayList<>();
+        resultsByExtractor.forEach(results::addAll);
+        return results;
+    }
+
+    private List<String> findAll(String text) {
+        List<String> results = new ArrayList<>();
+        for (TextEntityExtractor extractor : createExtractors()) {
+            Matcher matcher = ((RegexTextEntityExtractor) extractor).getPattern().matcher(text);
+            while (matcher.find()) {
+                results.add(toString(extractor.getConceptIri(), matcher.start(), matcher.end(), matcher.group()));
+            }
+        }
+        return results;
+    }
+
+    private List<TextEntityExtractor> createExtractors() {
+        List<TextEntityExtractor> extractors = new ArrayList<>();
+        extractors.add(new RegexTextEntityExtractor("email", EMAIL));
+        extractors.add(new RegexTextEntityExtractor("zipCode", ZIP_CODE));
+        extractors.add(new RegexTextEntityExtractor("url", URL));
+        return extractors;
+    }
+
+    private String toString(String conceptIri, long start, long end, String title) {
+        return conceptIri + ":" + start + "-" + end + ":" + title;
+    }
+}
@@ -8,17 +8,22 @@ import org.mockito.runners.MockitoJUnitRunner;
 import org.visallo.core.config.Configuration;
 import org.visallo.core.exception.VisalloException;
 import org.visallo.core.ingest.WorkerSpout;
+import org.visallo.core.ingest.WorkerTuple;
 import org.visallo.core.ingest.graphProperty.WorkerItem;
 import org.visallo.core.model.workQueue.WorkQueueRepository;
 import org.visallo.core.status.JmxMetricsManager;
 import org.visallo.core.status.StatusServer;
 import org.visallo.core.util.VisalloLogger;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
 import static junit.framework.TestCase.fail;
-import static org.mockito.Matchers.anyBoolean;
-import static org.mockito.Matchers.eq;
-import static org.mockito.Mockito.when;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
 
 @RunWith(MockitoJUnitRunner.class)
 public class WorkerBaseTest {
@@ -67,6 +72,74 @@ public class WorkerBaseTest {
         assertEquals(1, nextTupleExceptionCount);
     }
 
+    @Test
+    public void testDeferredFlushAcksAfterFlush() throws Exception {
+        String prefix = DeferredFlushTestWorker.class.getName();
+        when(configuration.getBoolean(eq(Configuration.STATUS_ENABLED), anyBoolean())).thenReturn(false);
+        when(configuration.getInt(eq(prefix + ".tupleQueueSize"), anyInt())).thenReturn(10);
+        when(configuration.getLong(eq(prefix + WorkerFlushPolicy.CONFIG_MAX_LATENCY_MS), anyLong())).thenReturn(50L);
+        when(configuration.getInt(eq(prefix + WorkerFlushPolicy.CONFIG_MAX_MUTATIONS), anyInt())).thenReturn(1000);
+        when(configuration.getLong(eq(prefix + WorkerFlushPolicy.CONFIG_MAX_BYTES), anyLong())).thenReturn(1000000L);
+        when(workQueueRepository.createWorkerSpout(eq("test"))).thenReturn(workerSpout);
+        when(workerSpout.nextTuple())
+                .thenReturn(new WorkerTuple("1", "1".getBytes()), new WorkerTuple("2", "2".getBytes()))
+                .thenAnswer(invocation -> {
+                    Thread.sleep(10);
+                    return null;
+                });
+        List<String> events = Collections.synchronizedList(new ArrayList<>());
+        doAnswer(invocation -> events.add("ack" + invocation.getArguments()[0])).when(workerSpout).ack(any());
+
+        DeferredFlushTestWorker testWorker = new DeferredFlushTestWorker(workQueueRepository, configuration, events);
+        Thread runThread = new Thread(() -> {
+            try {
+                testWorker.run();
+            } catch (Exception ex) {
+                throw new VisalloException("run failed", ex);
+            }
+        });
+        runThread.start();
+        try {
+            verify(workerSpout, timeout(5000)).ack("1");
+            verify(workerSpout, timeout(5000)).ack("2");
+            verify(workerSpout, never()).fail(any());
+            for (String id : new String[]{"1", "2"}) {
+                int processIndex = events.indexOf("process" + id);
+                int ackIndex = events.indexOf("ack" + id);
+                assertTrue("should flush between process and ack: " + events, events.subList(processIndex, ackIndex).contains("flush"));
+            }
+        } finally {
+            testWorker.stop();
+            runThread.join(5000);
+        }
+    }
+
+    private class DeferredFlushTestWorker extends TestWorker {
+        private final List<String> events;
+
+        protected DeferredFlushTestWorker(WorkQueueRepository workQueueRepository, Configuration configuration, List<String> events) {
+            super(workQueueRepository, configuration);
+            this.events = events;
+        }
+
+        @Override
+        protected boolean isDeferredFlushSupported() {
+            return true;
+        }
+
+        @Override
+        protected void process(TestWorkerItem workerItem) throws Exception {
+            assertTrue(isFlushDeferred());
+            recordPendingWrites(1, 0);
+            events.add("process" + new String(workerItem.data));
+        }
+
+        @Override
+        protected void flush() throws Exception {
+            events.add("flush");
+        }
+    }
+
     private class TestWorker extends WorkerBase<TestWorkerItem> {
         protected TestWorker(WorkQueueRepository workQueueRepository, Configuration configuration) {
             super(workQueueRepository, configuration, new JmxMetricsManager());
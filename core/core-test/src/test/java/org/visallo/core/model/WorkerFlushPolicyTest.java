@@ -0,0 +1,59 @@
+package org.visallo.core.model;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class WorkerFlushPolicyTest {
+    @Test
+    public void testFlushOnMaxLatency() {
+        WorkerFlushPolicy policy = new WorkerFlushPolicy(100, 1000, 1000, 10);
+        assertFalse(policy.shouldFlush(0));
+
+        policy.recordMessage(1000);
+        assertTrue(policy.hasPending());
+        assertFalse(policy.shouldFlush(1050));
+        assertEquals(50, policy.getRemainingLatencyMs(1050));
+        assertTrue(policy.shouldFlush(1100));
+
+        policy.flushCompleted(1, 1100);
+        assertFalse(policy.hasPending());
+    }
+
+    @Test
+    public void testFlushOnMutationsAndBytes() {
+        WorkerFlushPolicy policy = new WorkerFlushPolicy(10000, 100, 1000, 10);
+        assertEquals(10, policy.getMutationLimit());
+
+        policy.recordMessage(0);
+        policy.recordMutations(9, 0);
+        assertFalse(policy.shouldFlush(0));
+        policy.recordMutations(1, 0);
+        assertTrue(policy.shouldFlush(0));
+        policy.flushCompleted(0, 0);
+
+        policy.recordMessage(0);
+        policy.recordMutations(1, 1000);
+        assertTrue(policy.shouldFlush(0));
+    }
+
+    @Test
+    public void testMutationLimitAdapts() {
+        WorkerFlushPolicy policy = new WorkerFlushPolicy(10000, 100, 1000, 10);
+        long now = 0;
+
+        // flushes taking half of the time grow the batches up to maxMutations
+        for (int i = 0; i < 10; i++) {
+            now += 100;
+            policy.flushCompleted(50, now);
+        }
+        assertEquals(100, policy.getMutationLimit());
+
+        // cheap flushes shrink the batches to reduce latency
+        for (int i = 0; i < 100; i++) {
+            now += 100;
+            policy.flushCompleted(0, now);
+        }
+        assertEquals(1, policy.getMutationLimit());
+    }
+}
@@ -0,0 +1,165 @@
+package org.visallo.core.model.artifactThumbnails;
+
+import com.v5analytics.simpleorm.InMemorySimpleOrmSession;
+import com.v5analytics.simpleorm.SimpleOrmContext;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.vertexium.*;
+import org.vertexium.inmemory.InMemoryGraph;
+import org.vertexium.property.StreamingPropertyValue;
+import org.visallo.core.config.Configuration;
+import org.visallo.core.config.HashMapConfigurationLoader;
+import org.visallo.core.exception.VisalloServiceUnavailableException;
+import org.visallo.core.model.ontology.OntologyRepository;
+import org.visallo.core.model.properties.VisalloProperties;
+import org.visallo.core.model.user.UserRepository;
+import org.visallo.core.user.User;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ArtifactThumbnailRepositoryTest {
+    private InMemorySimpleOrmSession simpleOrmSession;
+    private ArtifactThumbnailRepository artifactThumbnailRepository;
+    private Graph graph;
+    private Authorizations authorizations;
+    private Vertex vertex;
+    private byte[] imageData;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private OntologyRepository ontologyRepository;
+
+    @Mock
+    private SimpleOrmContext simpleOrmContext;
+
+    @Mock
+    private User user;
+
+    @Before
+    public void before() throws IOException {
+        simpleOrmSession = spy(new InMemorySimpleOrmSession());
+        when(userRepository.getSimpleOrmContext(user)).thenReturn(simpleOrmContext);
+        Configuration configuration = new HashMapConfigurationLoader(new HashMap()).createConfiguration();
+        artifactThumbnailRepository = new ArtifactThumbnailRepository(simpleOrmSession, userRepository, ontologyRepository, configuration);
+
+        imageData = createImage(1000, 600);
+        graph = InMemoryGraph.create();
+        authorizations = graph.createAuthorizations();
+        Visibility visibility = new Visibility("");
+        VertexBuilder vertexBuilder = graph.prepareVertex("v1", visibility);
+        VisalloProperties.RAW.setProperty(vertexBuilder, new StreamingPropertyValue(new ByteArrayInputStream(imageData), byte[].class), visibility);
+        vertex = vertexBuilder.save(authorizations);
+        graph.flush();
+    }
+
+    @Test
+    public void testReadSubsampledImage() throws IOException {
+        BufferedImage image = ImageUtils.readSubsampledImage(new ByteArrayInputStream(imageData), 150);
+        assertTrue(image.getWidth() < 1000);
+        assertTrue(image.getHeight() >= 150);
+        assertEquals(1000 / 600.0, (double) image.getWidth() / image.getHeight(), 0.05);
+
+        image = ImageUtils.readSubsampledImage(new ByteArrayInputStream(imageData), 800);
+        assertEquals(1000, image.getWidth());
+        assertEquals(600, image.getHeight());
+    }
+
+    @Test
+    public void testCreateThumbnails() {
+        List<int[]> boundaryDimsList = ArtifactThumbnailGraphPropertyWorker.getBoundaryDimsList("80, 150");
+        artifactThumbnailRepository.createThumbnails(vertex, "", "raw", new ByteArrayInputStream(imageData), boundaryDimsList, user);
+
+        BufferedImage small = artifactThumbnailRepository.getThumbnail("v1", "raw", 80, 80, user).getImage();
+        assertEquals(80, small.getWidth());
+        assertEquals(48, small.getHeight());
+        BufferedImage medium = artifactThumbnailRepository.getThumbnail("v1", "raw", 150, 150, user).getImage();
+        assertEquals(150, medium.getWidth());
+        assertEquals(90, medium.getHeight());
+        assertNull(artifactThumbnailRepository.getThumbnail("v1", "raw", 200, 200, user));
+    }
+
+    @Test
+    public void testGetOrCreateThumbnailGeneratesOnce() throws Exception {
+        Property rawProperty = VisalloProperties.RAW.getProperty(vertex);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<ArtifactThumbnail>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> artifactThumbnailRepository.getOrCreateThumbnail(vertex, rawProperty, "raw", new int[]{200, 200}, user)));
+            }
+            for (Future<ArtifactThumbnail> future : futures) {
+                assertEquals(200, future.get().getImage().getWidth());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        verify(simpleOrmSession, times(1)).save(any(ArtifactThumbnail.class), anyString(), any(SimpleOrmContext.class));
+    }
+
+    @Test
+    public void testGetOrCreateThumbnailTimesOut() throws Exception {
+        Map<String, String> config = new HashMap<>();
+        config.put(ArtifactThumbnailRepository.CONFIG_GENERATION_TIMEOUT_MS, "100");
+        Configuration configuration = new HashMapConfigurationLoader(config).createConfiguration();
+        artifactThumbnailRepository = new ArtifactThumbnailRepository(simpleOrmSession, userRepository, ontologyRepository, configuration);
+
+        CountDownLatch imageAvailable = new CountDownLatch(1);
+        InputStream slowImage = new ByteArrayInputStream(imageData) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                try {
+                    imageAvailable.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.read(b, off, len);
+            }
+        };
+        Property rawProperty = mock(Property.class);
+        when(rawProperty.getKey()).thenReturn("");
+        when(rawProperty.getValue()).thenReturn(new StreamingPropertyValue(slowImage, byte[].class));
+
+        try {
+            artifactThumbnailRepository.getOrCreateThumbnail(vertex, rawProperty, "raw", new int[]{200, 200}, user);
+            fail("expected the generation to time out");
+        } catch (VisalloServiceUnavailableException ex) {
+            // expected
+        } finally {
+            imageAvailable.countDown();
+        }
+    }
+
+    private static byte[] createImage(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.RED);
+        g.fillRect(0, 0, width / 2, height);
+        g.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+}
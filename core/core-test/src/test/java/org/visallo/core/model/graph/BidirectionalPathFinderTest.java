@@ -0,0 +1,131 @@
+package org.visallo.core.model.graph;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.vertexium.*;
+import org.vertexium.inmemory.InMemoryGraph;
+
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BidirectionalPathFinderTest {
+    private Graph graph;
+    private Authorizations authorizations;
+    private Visibility visibility;
+
+    @Before
+    public void before() {
+        graph = InMemoryGraph.create();
+        authorizations = graph.createAuthorizations();
+        visibility = new Visibility("");
+
+        // a small graph with cycles and paths of several lengths between v1 and v6
+        addEdges("v1-v2", "v2-v3", "v3-v6", "v1-v4", "v4-v6", "v2-v4", "v4-v5", "v5-v6", "v3-v5", "v1-v7", "v7-v8");
+        graph.flush();
+    }
+
+    @Test
+    public void testFindsSamePathsAsGraph() {
+        for (int hops = 1; hops <= 5; hops++) {
+            Set<List<String>> expected = new HashSet<>();
+            for (Path path : graph.findPaths(new FindPathOptions("v1", "v6", hops), authorizations)) {
+                List<String> vertexIds = new ArrayList<>();
+                for (String vertexId : path) {
+                    vertexIds.add(vertexId);
+                }
+                expected.add(vertexIds);
+            }
+
+            CollectingCallback callback = new CollectingCallback();
+            BidirectionalPathFinder.Result result = new BidirectionalPathFinder(graph, 0, 0, 100000, 100000)
+                    .findPaths("v1", "v6", null, hops, authorizations, callback);
+            assertEquals(BidirectionalPathFinder.StopReason.COMPLETE, result.getStopReason());
+            assertEquals("hops " + hops, expected, new HashSet<>(callback.paths));
+            assertEquals(expected.size(), callback.paths.size());
+        }
+    }
+
+    @Test
+    public void testShortestPathsAreFoundFirst() {
+        CollectingCallback callback = new CollectingCallback();
+        new BidirectionalPathFinder(graph, 0, 0, 100000, 100000)
+                .findPaths("v1", "v6", null, 4, authorizations, callback);
+        int lastLength = 0;
+        for (List<String> path : callback.paths) {
+            assertTrue(path.size() >= lastLength);
+            lastLength = path.size();
+        }
+    }
+
+    @Test
+    public void testHighDegreeVerticesAreNotExpanded() {
+        // v4 has four neighbors, paths it would have to be expanded for are not found
+        CollectingCallback callback = new CollectingCallback();
+        BidirectionalPathFinder.Result result = new BidirectionalPathFinder(graph, 3, 0, 100000, 100000)
+                .findPaths("v1", "v6", null, 3, authorizations, callback);
+        Set<List<String>> expected = new HashSet<>();
+        expected.add(Arrays.asList("v1", "v2", "v3", "v6"));
+        expected.add(Arrays.asList("v1", "v2", "v4", "v6"));
+        assertEquals(expected, new HashSet<>(callback.paths));
+        assertEquals(1, result.getSkippedVertexCount());
+    }
+
+    @Test
+    public void testLimits() {
+        CollectingCallback callback = new CollectingCallback();
+        BidirectionalPathFinder.Result result = new BidirectionalPathFinder(graph, 0, 0, 100000, 2)
+                .findPaths("v1", "v6", null, 5, authorizations, callback);
+        assertEquals(BidirectionalPathFinder.StopReason.PATH_LIMIT, result.getStopReason());
+        assertEquals(2, callback.paths.size());
+
+        // the first two hops from v1 build more than 3 partial paths
+        result = new BidirectionalPathFinder(graph, 0, 0, 3, 100000)
+                .findPaths("v1", "v6", null, 5, authorizations, new CollectingCallback());
+        assertEquals(BidirectionalPathFinder.StopReason.PARTIAL_PATH_LIMIT, result.getStopReason());
+
+        callback = new CollectingCallback();
+        callback.canceled = true;
+        result = new BidirectionalPathFinder(graph, 0, 0, 100000, 100000)
+                .findPaths("v1", "v6", null, 5, authorizations, callback);
+        assertEquals(BidirectionalPathFinder.StopReason.CANCELED, result.getStopReason());
+        assertEquals(0, callback.paths.size());
+    }
+
+    private void addEdges(String... edges) {
+        for (String edge : edges) {
+            String[] vertexIds = edge.split("-");
+            Vertex out = addVertex(vertexIds[0]);
+            Vertex in = addVertex(vertexIds[1]);
+            graph.addEdge(edge, out, in, "label", visibility, authorizations);
+        }
+    }
+
+    private Vertex addVertex(String vertexId) {
+        Vertex vertex = graph.getVertex(vertexId, authorizations);
+        if (vertex == null) {
+            vertex = graph.addVertex(vertexId, visibility, authorizations);
+        }
+        return vertex;
+    }
+
+    private static class CollectingCallback implements BidirectionalPathFinder.Callback {
+        private final List<List<String>> paths = new ArrayList<>();
+        private boolean canceled;
+
+        @Override
+        public boolean isCanceled() {
+            return canceled;
+        }
+
+        @Override
+        public void pathFound(List<String> path) {
+            paths.add(path);
+        }
+
+        @Override
+        public void progress(double progressPercent, String message) {
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package org.visallo.core.model.longRunningProcess;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.visallo.core.exception.VisalloException;
+import org.visallo.core.user.User;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class LongRunningProcessRepositoryTest {
+    private LongRunningProcessRepository longRunningProcessRepository;
+
+    @Mock
+    private User user;
+
+    @Before
+    public void before() {
+        longRunningProcessRepository = mock(LongRunningProcessRepository.class, CALLS_REAL_METHODS);
+    }
+
+    @Test
+    public void testReportProgress() {
+        doReturn(false).when(longRunningProcessRepository).isCanceled("lrp1", user);
+        doNothing().when(longRunningProcessRepository).reportProgress("lrp1", 0.5, "half");
+
+        assertTrue(longRunningProcessRepository.reportProgressUnlessCanceled("lrp1", 0.5, "half", user));
+        verify(longRunningProcessRepository).reportProgress("lrp1", 0.5, "half");
+    }
+
+    @Test
+    public void testCanceledBeforeReport() {
+        doReturn(true).when(longRunningProcessRepository).isCanceled("lrp1", user);
+
+        assertFalse(longRunningProcessRepository.reportProgressUnlessCanceled("lrp1", 0.5, "half", user));
+        verify(longRunningProcessRepository, never()).reportProgress("lrp1", 0.5, "half");
+    }
+
+    @Test
+    public void testCanceledWhileReporting() {
+        doReturn(false).doReturn(true).when(longRunningProcessRepository).isCanceled("lrp1", user);
+        doThrow(new VisalloException("Unable to update progress of cancelled process"))
+                .when(longRunningProcessRepository).reportProgress("lrp1", 0.5, "half");
+
+        assertFalse(longRunningProcessRepository.reportProgressUnlessCanceled("lrp1", 0.5, "half", user));
+    }
+
+    @Test(expected = VisalloException.class)
+    public void testFailedReportOfRunningProcess() {
+        doReturn(false).when(longRunningProcessRepository).isCanceled("lrp1", user);
+        doThrow(new VisalloException("could not save"))
+                .when(longRunningProcessRepository).reportProgress("lrp1", 0.5, "half");
+
+        longRunningProcessRepository.reportProgressUnlessCanceled("lrp1", 0.5, "half", user);
+    }
+}
@@ -0,0 +1,143 @@
+package org.visallo.core.model.search;
+
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.vertexium.Authorizations;
+import org.vertexium.Graph;
+import org.vertexium.Visibility;
+import org.visallo.core.model.properties.VisalloProperties;
+import org.visallo.core.model.workQueue.WorkQueueRepository;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ConceptTypeCountCacheTest extends SearchRunnerTestBase {
+    private ConceptTypeCountCache conceptTypeCountCache;
+    private WorkQueueRepository.BroadcastConsumer broadcastConsumer;
+    private Visibility secretVisibility;
+    private Authorizations secretAuthorizations;
+
+    @Mock
+    private WorkQueueRepository workQueueRepository;
+
+    @Before
+    public void before() {
+        super.before();
+
+        conceptTypeCountCache = new ConceptTypeCountCache(configuration, graph, workQueueRepository);
+        ArgumentCaptor<WorkQueueRepository.BroadcastConsumer> broadcastConsumerCaptor =
+                ArgumentCaptor.forClass(WorkQueueRepository.BroadcastConsumer.class);
+        verify(workQueueRepository).subscribeToBroadcastMessages(broadcastConsumerCaptor.capture());
+        broadcastConsumer = broadcastConsumerCaptor.getValue();
+
+        authorizations = graph.createAuthorizations();
+        secretVisibility = new Visibility("secret");
+        secretAuthorizations = graph.createAuthorizations("secret");
+        addVertex("v1", "person", visibility);
+        addVertex("v2", "person", visibility);
+        addVertex("v3", "place", secretVisibility);
+        graph.flush();
+    }
+
+    @Test
+    public void testCountsAreServedFromBucket() {
+        Map<Object, Long> counts = conceptTypeCountCache.getCounts(authorizations);
+        assertEquals(2L, (long) counts.get("person"));
+        assertNull(counts.get("place"));
+
+        addVertex("v4", "person", visibility);
+        graph.flush();
+        assertEquals(2L, (long) conceptTypeCountCache.getCounts(authorizations).get("person"));
+
+        broadcast(ConceptTypeCountCache.createChangeJson("v4:k1:1", System.currentTimeMillis(), visibility, null, null, "person", visibility));
+        assertEquals(3L, (long) conceptTypeCountCache.getCounts(authorizations).get("person"));
+    }
+
+    @Test
+    public void testChangesAreAppliedToReadableBuckets() {
+        conceptTypeCountCache.getCounts(authorizations);
+        assertEquals(1L, (long) conceptTypeCountCache.getCounts(secretAuthorizations).get("place"));
+
+        broadcast(ConceptTypeCountCache.createChangeJson("v5:k1:1", System.currentTimeMillis(), secretVisibility, null, null, "place", visibility));
+        assertNull(conceptTypeCountCache.getCounts(authorizations).get("place"));
+        assertEquals(2L, (long) conceptTypeCountCache.getCounts(secretAuthorizations).get("place"));
+    }
+
+    @Test
+    public void testConceptChangeAndDelete() {
+        conceptTypeCountCache.getCounts(authorizations);
+
+        broadcast(ConceptTypeCountCache.createChangeJson("v1:k1:2", System.currentTimeMillis(), visibility, "person", visibility, "place", visibility));
+        Map<Object, Long> counts = conceptTypeCountCache.getCounts(authorizations);
+        assertEquals(1L, (long) counts.get("person"));
+        assertEquals(1L, (long) counts.get("place"));
+
+        broadcast(ConceptTypeCountCache.createChangeJson("v1:k1:deleted:3", System.currentTimeMillis(), visibility, "place", visibility, null, null));
+        assertNull(conceptTypeCountCache.getCounts(authorizations).get("place"));
+    }
+
+    @Test
+    public void testDuplicateChangesAreCountedOnce() {
+        conceptTypeCountCache.getCounts(authorizations);
+
+        JSONObject change = ConceptTypeCountCache.createChangeJson("v4:k1:1", System.currentTimeMillis(), visibility, null, null, "person", visibility);
+        broadcast(change);
+        broadcast(change);
+        assertEquals(3L, (long) conceptTypeCountCache.getCounts(authorizations).get("person"));
+    }
+
+    @Test
+    public void testChangesMadeWhileFillingAreKept() {
+        Graph spyGraph = spy(graph);
+        doAnswer(invocation -> {
+            Object counts = invocation.callRealMethod();
+            // saved after the aggregation started, so it is not in its counts
+            broadcast(ConceptTypeCountCache.createChangeJson("v4:k1:1", System.currentTimeMillis(), visibility, null, null, "person", visibility));
+            return counts;
+        }).when(spyGraph).getVertexPropertyCountByValue(anyString(), any(Authorizations.class));
+        ConceptTypeCountCache spyGraphCache = new ConceptTypeCountCache(configuration, spyGraph, workQueueRepository);
+        ArgumentCaptor<WorkQueueRepository.BroadcastConsumer> broadcastConsumerCaptor =
+                ArgumentCaptor.forClass(WorkQueueRepository.BroadcastConsumer.class);
+        verify(workQueueRepository, times(2)).subscribeToBroadcastMessages(broadcastConsumerCaptor.capture());
+        broadcastConsumer = broadcastConsumerCaptor.getAllValues().get(1);
+
+        assertEquals(3L, (long) spyGraphCache.getCounts(authorizations).get("person"));
+    }
+
+    @Test
+    public void testChangesCountedByAggregationAreDropped() {
+        long changeTime = System.currentTimeMillis() - 1000;
+        conceptTypeCountCache.getCounts(authorizations);
+
+        // v1 saved before the aggregation, which already counted it
+        broadcast(ConceptTypeCountCache.createChangeJson("v1:k1:1", changeTime, visibility, null, null, "person", visibility));
+        assertEquals(2L, (long) conceptTypeCountCache.getCounts(authorizations).get("person"));
+    }
+
+    private void addVertex(String vertexId, String conceptType, Visibility visibility) {
+        graph.prepareVertex(vertexId, visibility)
+                .addPropertyValue("k1", VisalloProperties.CONCEPT_TYPE.getPropertyName(), conceptType, visibility)
+                .save(graph.createAuthorizations("secret"));
+    }
+
+    private void broadcast(JSONObject data) {
+        JSONObject json = new JSONObject();
+        json.put("type", ConceptTypeCountCache.BROADCAST_TYPE);
+        json.put("data", data);
+        broadcastConsumer.broadcastReceived(json);
+    }
+}
@@ -0,0 +1,141 @@
+package org.visallo.core.model.search;
+
+import org.json.JSONArray;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.vertexium.Element;
+import org.vertexium.ElementBuilder;
+import org.vertexium.Vertex;
+import org.vertexium.query.SortDirection;
+import org.visallo.core.exception.VisalloException;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SearchCursorTest extends SearchRunnerTestBase {
+    private static final int VERTEX_COUNT = 25;
+    private VertexSearchRunner vertexSearchRunner;
+
+    @Before
+    public void before() {
+        super.before();
+
+        vertexSearchRunner = new VertexSearchRunner(
+                ontologyRepository,
+                graph,
+                configuration,
+                directoryRepository
+        );
+
+        for (int i = 0; i < VERTEX_COUNT; i++) {
+            ElementBuilder<Vertex> vertexBuilder = graph.prepareVertex("v" + i, visibility)
+                    .addPropertyValue("k1", "name", "vertex " + i, visibility);
+            // groups of three vertices share a rank and every seventh vertex has no rank
+            if (i % 7 != 0) {
+                vertexBuilder.addPropertyValue("k1", "rank", i / 3, visibility);
+            }
+            vertexBuilder.save(authorizations);
+        }
+        graph.flush();
+    }
+
+    @Test
+    public void testSortedCursorReadsEveryElementOnce() throws Exception {
+        assertSorted(readAll("rank:ASCENDING", 4), true);
+        assertSorted(readAll("rank:DESCENDING", 3), false);
+    }
+
+    @Test
+    public void testUnsortedCursorUsesOffsets() throws Exception {
+        Set<String> ids = new HashSet<>();
+        for (Element element : readAll(null, 10)) {
+            assertTrue("duplicate " + element.getId(), ids.add(element.getId()));
+        }
+        assertEquals(VERTEX_COUNT, ids.size());
+    }
+
+    @Test
+    public void testTotalHitsSameOnEveryPage() throws Exception {
+        String cursor = "";
+        for (int page = 1; page <= 3; page++) {
+            try (QueryResultsIterableSearchResults results = runPage("rank:ASCENDING", 4, cursor)) {
+                assertEquals("page " + page, VERTEX_COUNT, results.getQueryResultsIterable().getTotalHits());
+                cursor = results.getNextCursor();
+            }
+        }
+        assertEquals(SearchCursor.Mode.KEYSET, SearchCursor.decode(cursor).getMode());
+    }
+
+    @Test
+    public void testEncodeDecode() {
+        List<Element> elements = new ArrayList<>();
+        for (Element element : graph.getVertices(Arrays.asList("v1", "v2"), authorizations)) {
+            elements.add(element);
+        }
+        elements.sort(Comparator.comparing(Element::getId));
+        ElementSearchRunnerBase.SortField sort = new ElementSearchRunnerBase.SortField("rank", SortDirection.ASCENDING);
+        SearchCursor cursor = SearchCursor.readPage(elements, null, sort, 2).getNextCursor();
+        SearchCursor decoded = SearchCursor.decode(cursor.encode());
+        assertEquals(SearchCursor.Mode.KEYSET, decoded.getMode());
+        assertEquals(0, decoded.getValue());
+        assertEquals(new HashSet<>(Arrays.asList("v1", "v2")), decoded.getTieElementIds());
+        assertEquals(2, decoded.getOffset());
+    }
+
+    @Test(expected = VisalloException.class)
+    public void testInvalidCursor() {
+        SearchCursor.decode("not a cursor");
+    }
+
+    private void assertSorted(List<Element> elements, boolean ascending) {
+        Set<String> ids = new HashSet<>();
+        Integer previousRank = null;
+        boolean missing = false;
+        for (Element element : elements) {
+            assertTrue("duplicate " + element.getId(), ids.add(element.getId()));
+            Integer rank = (Integer) element.getPropertyValue("rank");
+            if (rank == null) {
+                missing = true;
+                continue;
+            }
+            assertFalse("elements without a rank should be last", missing);
+            if (previousRank != null) {
+                assertTrue("out of order " + element.getId(), ascending ? rank >= previousRank : rank <= previousRank);
+            }
+            previousRank = rank;
+        }
+        assertEquals(VERTEX_COUNT, ids.size());
+    }
+
+    private List<Element> readAll(String sort, int size) throws Exception {
+        List<Element> elements = new ArrayList<>();
+        String cursor = "";
+        int pages = 0;
+        while (cursor != null) {
+            try (QueryResultsIterableSearchResults results = runPage(sort, size, cursor)) {
+                for (Element element : results.getElements()) {
+                    elements.add(element);
+                }
+                cursor = results.getNextCursor();
+            }
+            assertTrue("too many pages", ++pages < VERTEX_COUNT * 2);
+        }
+        return elements;
+    }
+
+    private QueryResultsIterableSearchResults runPage(String sort, int size, String cursor) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("q", "*");
+        parameters.put("filter", new JSONArray());
+        parameters.put("size", size);
+        parameters.put(SearchCursor.PARAMETER_NAME, cursor);
+        if (sort != null) {
+            parameters.put("sort[]", new String[]{sort});
+        }
+        return vertexSearchRunner.run(new SearchOptions(parameters, "workspace1"), user, authorizations);
+    }
+}
@@ -0,0 +1,231 @@
+package org.visallo.core.model.search;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.vertexium.Authorizations;
+import org.vertexium.Element;
+import org.vertexium.Graph;
+import org.vertexium.Vertex;
+import org.vertexium.query.TermsResult;
+import org.visallo.core.config.Configuration;
+import org.visallo.core.ingest.WorkerSpout;
+import org.visallo.core.model.WorkQueueNames;
+import org.visallo.core.model.workQueue.Priority;
+import org.visallo.core.model.workQueue.WorkQueueRepository;
+import org.visallo.core.status.model.Status;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.collect.Iterables.size;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.verify;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SearchResultCacheTest extends SearchRunnerTestBase {
+    private ElementSearchRunner elementSearchRunner;
+    private SearchResultCache searchResultCache;
+    private WorkQueueRepository.BroadcastConsumer broadcastConsumer;
+
+    @Mock
+    private WorkQueueRepository workQueueRepository;
+
+    @Mock
+    private WorkQueueNames workQueueNames;
+
+    @Before
+    public void before() {
+        super.before();
+
+        searchResultCache = new SearchResultCache(configuration, graph, workQueueRepository);
+        ArgumentCaptor<WorkQueueRepository.BroadcastConsumer> broadcastConsumerCaptor =
+                ArgumentCaptor.forClass(WorkQueueRepository.BroadcastConsumer.class);
+        verify(workQueueRepository).subscribeToBroadcastMessages(broadcastConsumerCaptor.capture());
+        broadcastConsumer = broadcastConsumerCaptor.getValue();
+
+        elementSearchRunner = new ElementSearchRunner(
+                ontologyRepository,
+                graph,
+                configuration,
+                directoryRepository
+        );
+        elementSearchRunner.setSearchResultCache(searchResultCache);
+
+        graph.prepareVertex("v1", visibility)
+                .addPropertyValue("k1", "name", "Tom", visibility)
+                .save(authorizations);
+        graph.prepareVertex("v2", visibility)
+                .addPropertyValue("k1", "name", "Jack", visibility)
+                .save(authorizations);
+        graph.flush();
+    }
+
+    @Test
+    public void testRepeatedSearchIsCached() throws Exception {
+        assertEquals(2, search("workspace1", authorizations));
+        assertEquals(2, search("workspace1", authorizations));
+        assertEquals(1, searchResultCache.getMissCount());
+        assertEquals(1, searchResultCache.getHitCount());
+    }
+
+    @Test
+    public void testEquivalentParametersShareEntry() throws Exception {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("q", "*");
+        parameters.put("filter", "[{\"propertyName\":\"name\",\"predicate\":\"has\"}]");
+        elementSearchRunner.run(new SearchOptions(parameters, "workspace1"), user, authorizations).close();
+
+        parameters = new HashMap<>();
+        parameters.put("filter", "[{\"predicate\":\"has\", \"propertyName\":\"name\"}]");
+        parameters.put("q", "*");
+        elementSearchRunner.run(new SearchOptions(parameters, "workspace1"), user, authorizations).close();
+
+        assertEquals(1, searchResultCache.getHitCount());
+    }
+
+    @Test
+    public void testKeyIncludesAuthorizationsAndWorkspace() throws Exception {
+        search("workspace1", authorizations);
+        search("workspace2", authorizations);
+        search("workspace1", graph.createAuthorizations("a"));
+        assertEquals(3, searchResultCache.getMissCount());
+        assertEquals(0, searchResultCache.getHitCount());
+    }
+
+    @Test
+    public void testWriteEpochInvalidates() throws Exception {
+        search("workspace1", authorizations);
+        graph.prepareVertex("v3", visibility)
+                .addPropertyValue("k1", "name", "Phil", visibility)
+                .save(authorizations);
+        graph.flush();
+        assertEquals(2, search("workspace1", authorizations));
+
+        JSONObject json = new JSONObject();
+        json.put("type", "propertyChange");
+        json.put("data", new JSONObject().put("graphVertexId", "v3"));
+        broadcastConsumer.broadcastReceived(json);
+        assertEquals(3, search("workspace1", authorizations));
+    }
+
+    @Test
+    public void testLowPriorityPropertyChangeInvalidates() throws Exception {
+        BroadcastingWorkQueueRepository broadcastingWorkQueueRepository =
+                new BroadcastingWorkQueueRepository(graph, workQueueNames, configuration);
+        searchResultCache = new SearchResultCache(configuration, graph, broadcastingWorkQueueRepository);
+        elementSearchRunner.setSearchResultCache(searchResultCache);
+
+        assertEquals(2, search("workspace1", authorizations));
+        Vertex v3 = graph.prepareVertex("v3", visibility)
+                .addPropertyValue("k1", "name", "Phil", visibility)
+                .save(authorizations);
+        broadcastingWorkQueueRepository.pushGraphPropertyQueue(v3, "k1", "name", Priority.LOW);
+        assertEquals(3, search("workspace1", authorizations));
+    }
+
+    @Test
+    public void testWorkspaceChangeInvalidatesOnlyThatWorkspace() throws Exception {
+        search("workspace1", authorizations);
+        search("workspace2", authorizations);
+
+        JSONObject json = new JSONObject();
+        json.put("type", "propertyChange");
+        json.put("data", new JSONObject().put("graphVertexId", "v1").put("workspaceId", "workspace1"));
+        broadcastConsumer.broadcastReceived(json);
+
+        search("workspace1", authorizations);
+        search("workspace2", authorizations);
+        assertEquals(3, searchResultCache.getMissCount());
+        assertEquals(1, searchResultCache.getHitCount());
+    }
+
+    @Test
+    public void testDeletedElementsAreSkippedOnHit() throws Exception {
+        search("workspace1", authorizations);
+        graph.deleteVertex("v1", authorizations);
+        graph.flush();
+        assertEquals(1, search("workspace1", authorizations));
+    }
+
+    @Test
+    public void testAggregationResultsAreCached() throws Exception {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("q", "*");
+        parameters.put("filter", new JSONArray());
+        parameters.put("aggregations[]", new String[]{"{\"name\":\"names\",\"type\":\"term\",\"field\":\"name\"}"});
+        parameters.put("size", 0);
+        SearchOptions searchOptions = new SearchOptions(parameters, "workspace1");
+
+        elementSearchRunner.run(searchOptions, user, authorizations).close();
+        try (QueryResultsIterableSearchResults results = elementSearchRunner.run(searchOptions, user, authorizations)) {
+            TermsResult terms = results.getQueryResultsIterable().getAggregationResult("names", TermsResult.class);
+            assertEquals(2, size(terms.getBuckets()));
+            assertEquals(2, results.getQueryResultsIterable().getTotalHits());
+        }
+        assertEquals(1, searchResultCache.getHitCount());
+    }
+
+    private int search(String workspaceId, Authorizations authorizations) throws Exception {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("q", "*");
+        parameters.put("filter", new JSONArray());
+        SearchOptions searchOptions = new SearchOptions(parameters, workspaceId);
+        try (QueryResultsIterableSearchResults results = elementSearchRunner.run(searchOptions, user, authorizations)) {
+            int count = 0;
+            for (Element ignored : results.getElements()) {
+                count++;
+            }
+            return count;
+        }
+    }
+
+    private static class BroadcastingWorkQueueRepository extends WorkQueueRepository {
+        private final List<BroadcastConsumer> broadcastConsumers = new ArrayList<>();
+
+        BroadcastingWorkQueueRepository(Graph graph, WorkQueueNames workQueueNames, Configuration configuration) {
+            super(graph, workQueueNames, configuration);
+        }
+
+        @Override
+        protected void broadcastJson(JSONObject json) {
+            for (BroadcastConsumer broadcastConsumer : broadcastConsumers) {
+                broadcastConsumer.broadcastReceived(json);
+            }
+        }
+
+        @Override
+        public void pushOnQueue(String queueName, byte[] data, Priority priority) {
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        protected void deleteQueue(String queueName) {
+        }
+
+        @Override
+        public void subscribeToBroadcastMessages(BroadcastConsumer broadcastConsumer) {
+            broadcastConsumers.add(broadcastConsumer);
+        }
+
+        @Override
+        public WorkerSpout createWorkerSpout(String queueName) {
+            return null;
+        }
+
+        @Override
+        public Map<String, Status> getQueuesStatus() {
+            return null;
+        }
+    }
+}
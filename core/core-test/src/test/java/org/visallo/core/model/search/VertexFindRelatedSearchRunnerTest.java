@@ -6,6 +6,8 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.vertexium.Vertex;
+import org.visallo.core.config.Configuration;
+import org.visallo.core.config.HashMapConfigurationLoader;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -23,7 +25,8 @@ public class VertexFindRelatedSearchRunnerTest extends SearchRunnerTestBase {
 
         vertexFindRelatedSearchRunner = new VertexFindRelatedSearchRunner(
                 graph,
-                ontologyRepository
+                ontologyRepository,
+                configuration
         );
     }
 
@@ -45,4 +48,38 @@ public class VertexFindRelatedSearchRunnerTest extends SearchRunnerTestBase {
         VertexFindRelatedSearchResults results = vertexFindRelatedSearchRunner.run(searchOptions, user, authorizations);
         assertEquals(2, size(results.getElements()));
     }
+
+    @Test
+    public void testSearchWithMoreRelatedVerticesThanIdsPerQuery() throws Exception {
+        Map<String, String> config = new HashMap<>();
+        config.put(VertexFindRelatedSearchRunner.CONFIG_MAX_IDS_PER_QUERY, "2");
+        config.put(VertexFindRelatedSearchRunner.CONFIG_SOURCE_BATCH_SIZE, "1");
+        vertexFindRelatedSearchRunner = new VertexFindRelatedSearchRunner(
+                graph,
+                ontologyRepository,
+                new Configuration(new HashMapConfigurationLoader(config), new HashMap<>())
+        );
+
+        Vertex v1 = graph.prepareVertex("v1", visibility).save(authorizations);
+        Vertex v2 = graph.prepareVertex("v2", visibility).save(authorizations);
+        for (int i = 0; i < 5; i++) {
+            Vertex related = graph.prepareVertex("r" + i, visibility).save(authorizations);
+            graph.addEdge("e1" + i, v1, related, "label1", visibility, authorizations);
+            graph.addEdge("e2" + i, v2, related, i % 2 == 0 ? "label1" : "label2", visibility, authorizations);
+        }
+        graph.flush();
+
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("graphVertexIds[]", new String[]{"v1", "v2"});
+        parameters.put("maxVerticesToReturn", 3L);
+        VertexFindRelatedSearchResults results = vertexFindRelatedSearchRunner.run(new SearchOptions(parameters, "workspace1"), user, authorizations);
+        assertEquals(3, size(results.getElements()));
+        assertEquals(5, results.getCount());
+
+        parameters.put("graphVertexIds[]", new String[]{"v2"});
+        parameters.put("limitEdgeLabel", "label2");
+        results = vertexFindRelatedSearchRunner.run(new SearchOptions(parameters, "workspace1"), user, authorizations);
+        assertEquals(2, size(results.getElements()));
+        assertEquals(2, results.getCount());
+    }
 }
\ No newline at end of file
@@ -4,7 +4,12 @@ import org.junit.Before;
 import org.junit.Test;
 import org.visallo.core.time.MockTimeRepository;
 
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static junit.framework.TestCase.assertEquals;
 
@@ -69,4 +74,58 @@ public class InMemoryUserSessionCounterRepositoryTest {
         timeRepository.setNow(t3);
         assertEquals(0, sessionCounterRepository.getSessionCount(USER1_ID));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testUpdateSessionDelaysExpiration() {
+        long t1 = System.currentTimeMillis();
+        timeRepository.setNow(new Date(t1));
+        assertEquals(1, sessionCounterRepository.updateSession(USER1_ID, "session1", true));
+        assertEquals(2, sessionCounterRepository.updateSession(USER1_ID, "session2", false));
+
+        timeRepository.setNow(new Date(t1 + 200000));
+        assertEquals(2, sessionCounterRepository.updateSession(USER1_ID, "session1", true));
+
+        timeRepository.setNow(new Date(t1 + InMemoryUserSessionCounterRepository.UNSEEN_SESSION_DURATION + 100));
+        assertEquals(2, sessionCounterRepository.getSessionCount(USER1_ID));
+
+        timeRepository.setNow(new Date(t1 + 200000 + InMemoryUserSessionCounterRepository.UNSEEN_SESSION_DURATION + 100));
+        assertEquals(1, sessionCounterRepository.getSessionCount(USER1_ID));
+    }
+
+    @Test
+    public void testUpdateSessionClearsAutoDelete() {
+        long t1 = System.currentTimeMillis();
+        timeRepository.setNow(new Date(t1));
+        assertEquals(1, sessionCounterRepository.updateSession(USER1_ID, "session1", true));
+        assertEquals(1, sessionCounterRepository.updateSession(USER1_ID, "session1", false));
+
+        timeRepository.setNow(new Date(t1 + 10 * InMemoryUserSessionCounterRepository.UNSEEN_SESSION_DURATION));
+        assertEquals(1, sessionCounterRepository.getSessionCount(USER1_ID));
+    }
+
+    @Test
+    public void testConcurrentUpdates() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                int threadNumber = thread;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 1000; i++) {
+                        String sessionId = "session" + threadNumber + "-" + i;
+                        sessionCounterRepository.updateSession(USER1_ID, sessionId, true);
+                        if (i % 2 == 1) {
+                            sessionCounterRepository.deleteSession(USER1_ID, sessionId);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(4000, sessionCounterRepository.getSessionCount(USER1_ID));
+    }
+}
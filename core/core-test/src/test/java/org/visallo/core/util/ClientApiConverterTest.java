@@ -0,0 +1,91 @@
+package org.visallo.core.util;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.vertexium.*;
+import org.vertexium.inmemory.InMemoryGraph;
+import org.visallo.web.clientapi.model.ClientApiVertex;
+
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+public class ClientApiConverterTest {
+    private Graph graph;
+    private Authorizations authorizations;
+
+    @Before
+    public void before() {
+        graph = InMemoryGraph.create();
+        authorizations = graph.createAuthorizations("secret");
+        Visibility visibility = new Visibility("");
+
+        Vertex v1 = graph.addVertex("v1", visibility, authorizations);
+        Vertex v2 = graph.addVertex("v2", visibility, authorizations);
+        Vertex v3 = graph.addVertex("v3", visibility, authorizations);
+        graph.addVertex("v4", visibility, authorizations);
+        graph.addEdge("e1", v1, v2, "knows", visibility, authorizations);
+        graph.addEdge("e2", v1, v3, "knows", visibility, authorizations);
+        graph.addEdge("e3", v3, v1, "worksWith", visibility, authorizations);
+        graph.addEdge("e4", v2, v3, "worksWith", new Visibility("secret"), authorizations);
+        graph.flush();
+    }
+
+    @Test
+    public void testToClientApiVerticesMatchesSingleConversion() {
+        List<Vertex> vertices = new ArrayList<>();
+        for (Vertex vertex : graph.getVertices(Arrays.asList("v1", "v2", "v3", "v4"), authorizations)) {
+            vertices.add(vertex);
+        }
+        Graph spyGraph = spy(graph);
+        List<ClientApiVertex> batch = ClientApiConverter.toClientApiVertices(spyGraph, vertices, null, false, null, authorizations);
+        // without counts the labels are read from the vertices instead of their edge references
+        verify(spyGraph, never()).getVertices(any(Iterable.class), any(EnumSet.class), any(Authorizations.class));
+        assertEquals(vertices.size(), batch.size());
+        for (int i = 0; i < vertices.size(); i++) {
+            ClientApiVertex single = ClientApiConverter.toClientApiVertex(vertices.get(i), null, authorizations);
+            assertEquals(single.getId(), batch.get(i).getId());
+            assertEquals(toSet(single.getEdgeLabels()), toSet(batch.get(i).getEdgeLabels()));
+            assertNull(batch.get(i).getEdgeLabelCounts());
+        }
+    }
+
+    @Test
+    public void testEdgeLabelCounts() {
+        List<Vertex> vertices = new ArrayList<>();
+        for (Vertex vertex : graph.getVertices(Arrays.asList("v1", "v2"), authorizations)) {
+            vertices.add(vertex);
+        }
+        Map<String, ClientApiVertex> results = new HashMap<>();
+        for (ClientApiVertex v : ClientApiConverter.toClientApiVertices(graph, vertices, null, true, null, authorizations)) {
+            results.put(v.getId(), v);
+        }
+
+        Map<String, Integer> expected = new HashMap<>();
+        expected.put("knows", 2);
+        expected.put("worksWith", 1);
+        assertEquals(expected, results.get("v1").getEdgeLabelCounts());
+
+        expected = new HashMap<>();
+        expected.put("knows", 1);
+        expected.put("worksWith", 1);
+        assertEquals(expected, results.get("v2").getEdgeLabelCounts());
+
+        // the edges the user cannot see are not counted
+        Map<String, Map<String, Integer>> publicCounts = ClientApiConverter.getEdgeLabelCounts(
+                graph,
+                Collections.singletonList("v2"),
+                graph.createAuthorizations()
+        );
+        assertEquals(Collections.singletonMap("knows", 1), publicCounts.get("v2"));
+    }
+
+    private static Set<String> toSet(List<String> list) {
+        return list == null ? new HashSet<>() : new HashSet<>(list);
+    }
+}
@@ -0,0 +1,125 @@
+package org.visallo.core.util;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.vertexium.*;
+import org.vertexium.inmemory.InMemoryGraph;
+import org.vertexium.type.GeoPoint;
+import org.visallo.core.config.Configuration;
+import org.visallo.core.config.HashMapConfigurationLoader;
+import org.visallo.core.exception.VisalloInvalidParameterException;
+import org.visallo.core.model.properties.VisalloProperties;
+import org.visallo.web.clientapi.model.ClientApiProperty;
+import org.visallo.web.clientapi.model.ClientApiVertex;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class ClientApiFetchProfilesTest {
+    private static final String LOCATION = "http://visallo.org/test#location";
+    private static final String DESCRIPTION = "http://visallo.org/test#description";
+    private static final String SUMMARY = "http://visallo.org/test#summary";
+    private Graph graph;
+    private Authorizations authorizations;
+    private ClientApiFetchProfiles fetchProfiles;
+
+    @Before
+    public void before() {
+        graph = InMemoryGraph.create();
+        authorizations = graph.createAuthorizations();
+        Visibility visibility = new Visibility("");
+
+        Map<String, String> config = new HashMap<>();
+        config.put(ClientApiFetchProfiles.CONFIG_CARD_ADDITIONAL_PROPERTY_NAMES, SUMMARY);
+        Configuration configuration = new HashMapConfigurationLoader(config).createConfiguration();
+        fetchProfiles = new ClientApiFetchProfiles(configuration);
+
+        Vertex v1 = graph.prepareVertex("v1", visibility)
+                .addPropertyValue("", VisalloProperties.CONCEPT_TYPE.getPropertyName(), "person", visibility)
+                .addPropertyValue("k1", VisalloProperties.TITLE.getPropertyName(), "Joe", visibility)
+                .addPropertyValue("k1", LOCATION, new GeoPoint(38.9, -77.0), visibility)
+                .addPropertyValue("k1", DESCRIPTION, "a long description", visibility)
+                .addPropertyValue("k1", SUMMARY, "short", visibility)
+                .save(authorizations);
+        Vertex v2 = graph.addVertex("v2", visibility, authorizations);
+        graph.addEdge("e1", v1, v2, "knows", visibility, authorizations);
+        graph.flush();
+    }
+
+    @Test
+    public void testGet() {
+        assertEquals(ClientApiFetchProfiles.DETAIL, fetchProfiles.get(null).getName());
+        assertEquals(ClientApiFetchProfiles.CARD, fetchProfiles.get(ClientApiFetchProfiles.CARD).getName());
+        assertNull(fetchProfiles.get("unknown"));
+        assertFalse(fetchProfiles.get(ClientApiFetchProfiles.CARD).getFetchHints().contains(FetchHint.IN_EDGE_LABELS));
+    }
+
+    @Test
+    public void testGetRequired() {
+        assertEquals(ClientApiFetchProfiles.DETAIL, fetchProfiles.getRequired(null).getName());
+        assertEquals(ClientApiFetchProfiles.MAP, fetchProfiles.getRequired(ClientApiFetchProfiles.MAP).getName());
+        try {
+            fetchProfiles.getRequired("unknown");
+            fail("expected VisalloInvalidParameterException");
+        } catch (VisalloInvalidParameterException ex) {
+            assertEquals(ClientApiFetchProfiles.PARAMETER_NAME, ex.getParameterName());
+        }
+    }
+
+    @Test
+    public void testDetailConvertsEverything() {
+        ClientApiVertex v = toClientApiVertex(ClientApiFetchProfiles.DETAIL);
+        assertEquals(getPropertyNames(ClientApiConverter.toClientApiVertex(getVertex(ClientApiFetchProfiles.DETAIL), null, authorizations)), getPropertyNames(v));
+        assertTrue(getPropertyNames(v).contains(DESCRIPTION));
+        assertTrue(v.getEdgeLabels().contains("knows"));
+    }
+
+    @Test
+    public void testCard() {
+        ClientApiVertex v = toClientApiVertex(ClientApiFetchProfiles.CARD);
+        Set<String> expected = new HashSet<>();
+        expected.add(VisalloProperties.CONCEPT_TYPE.getPropertyName());
+        expected.add(VisalloProperties.TITLE.getPropertyName());
+        expected.add(SUMMARY);
+        assertEquals(expected, getPropertyNames(v));
+        assertEquals("person", v.getConceptType());
+        assertTrue(v.getEdgeLabels() == null || v.getEdgeLabels().isEmpty());
+    }
+
+    @Test
+    public void testMapIncludesGeoProperties() {
+        ClientApiVertex v = toClientApiVertex(ClientApiFetchProfiles.MAP);
+        assertTrue(getPropertyNames(v).contains(LOCATION));
+        assertTrue(getPropertyNames(v).contains(VisalloProperties.TITLE.getPropertyName()));
+        assertFalse(getPropertyNames(v).contains(DESCRIPTION));
+    }
+
+    @Test
+    public void testExport() {
+        ClientApiVertex v = toClientApiVertex(ClientApiFetchProfiles.EXPORT);
+        assertTrue(getPropertyNames(v).contains(DESCRIPTION));
+        assertTrue(getPropertyNames(v).contains(LOCATION));
+        assertTrue(v.getEdgeLabels() == null || v.getEdgeLabels().isEmpty());
+    }
+
+    private Vertex getVertex(String fetchProfileName) {
+        return graph.getVertex("v1", fetchProfiles.get(fetchProfileName).getFetchHints(), authorizations);
+    }
+
+    private ClientApiVertex toClientApiVertex(String fetchProfileName) {
+        ClientApiFetchProfile fetchProfile = fetchProfiles.get(fetchProfileName);
+        return ClientApiConverter.toClientApiVertex(getVertex(fetchProfileName), null, null, false, fetchProfile, authorizations);
+    }
+
+    private Set<String> getPropertyNames(ClientApiVertex v) {
+        Set<String> propertyNames = new HashSet<>();
+        for (ClientApiProperty property : v.getProperties()) {
+            propertyNames.add(property.getName());
+        }
+        return propertyNames;
+    }
+}
@@ -0,0 +1,122 @@
+package org.visallo.core.util;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.vertexium.*;
+import org.vertexium.inmemory.InMemoryGraph;
+import org.visallo.core.model.properties.VisalloProperties;
+import org.visallo.web.clientapi.model.SandboxStatus;
+import org.visallo.web.clientapi.model.VisibilityJson;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class SandboxStatusUtilTest {
+    private static final String WORKSPACE_ID = "ws1";
+    private Graph graph;
+    private Authorizations authorizations;
+    private Visibility publicVisibility;
+    private Visibility workspaceVisibility;
+
+    @Before
+    public void before() {
+        graph = InMemoryGraph.create();
+        authorizations = graph.createAuthorizations(WORKSPACE_ID);
+        publicVisibility = new Visibility("");
+        workspaceVisibility = new Visibility(WORKSPACE_ID);
+    }
+
+    @Test
+    public void testGetPropertySandboxStatuses() {
+        VertexBuilder vertexBuilder = graph.prepareVertex("v1", publicVisibility);
+        addProperty(vertexBuilder, "k1", "name", false);
+        addProperty(vertexBuilder, "k1", "name", true);
+        addProperty(vertexBuilder, "k2", "name", true);
+        addProperty(vertexBuilder, "k1", "other", true);
+        List<Property> properties = getProperties(vertexBuilder.save(authorizations));
+
+        SandboxStatus[] sandboxStatuses = SandboxStatusUtil.getPropertySandboxStatuses(properties, WORKSPACE_ID);
+        for (int i = 0; i < properties.size(); i++) {
+            Property property = properties.get(i);
+            SandboxStatus expected;
+            if (property.getVisibility().equals(publicVisibility)) {
+                expected = SandboxStatus.PUBLIC;
+            } else if (property.getKey().equals("k1") && property.getName().equals("name")) {
+                expected = SandboxStatus.PUBLIC_CHANGED;
+            } else {
+                expected = SandboxStatus.PRIVATE;
+            }
+            assertEquals(property.toString(), expected, sandboxStatuses[i]);
+        }
+
+        SandboxStatus[] otherWorkspaceStatuses = SandboxStatusUtil.getPropertySandboxStatuses(properties, "ws2");
+        for (SandboxStatus sandboxStatus : otherWorkspaceStatuses) {
+            assertEquals(SandboxStatus.PUBLIC, sandboxStatus);
+        }
+    }
+
+    @Test
+    public void testWideElementMatchesPairwiseComparison() {
+        Random random = new Random(1);
+        VertexBuilder vertexBuilder = graph.prepareVertex("v1", publicVisibility);
+        for (int i = 0; i < 2000; i++) {
+            String key = "k" + random.nextInt(500);
+            String name = "name" + random.nextInt(3);
+            addProperty(vertexBuilder, key, name, random.nextBoolean());
+        }
+        List<Property> properties = getProperties(vertexBuilder.save(authorizations));
+
+        assertArrayEquals(
+                getPropertySandboxStatusesPairwise(properties, WORKSPACE_ID),
+                SandboxStatusUtil.getPropertySandboxStatuses(properties, WORKSPACE_ID)
+        );
+    }
+
+    private void addProperty(VertexBuilder vertexBuilder, String key, String name, boolean sandboxed) {
+        VisibilityJson visibilityJson = new VisibilityJson();
+        if (sandboxed) {
+            visibilityJson.addWorkspace(WORKSPACE_ID);
+        }
+        Visibility visibility = sandboxed ? workspaceVisibility : publicVisibility;
+        Metadata metadata = new Metadata();
+        VisalloProperties.VISIBILITY_JSON_METADATA.setMetadata(metadata, visibilityJson, publicVisibility);
+        vertexBuilder.addPropertyValue(key, name, key + name + sandboxed, metadata, visibility);
+    }
+
+    private List<Property> getProperties(Element element) {
+        List<Property> properties = new ArrayList<>();
+        for (Property property : element.getProperties()) {
+            properties.add(property);
+        }
+        return properties;
+    }
+
+    /**
+     * The original implementation, comparing every property to every other property.
+     */
+    private static SandboxStatus[] getPropertySandboxStatusesPairwise(List<Property> properties, String workspaceId) {
+        SandboxStatus[] sandboxStatuses = new SandboxStatus[properties.size()];
+        for (int i = 0; i < properties.size(); i++) {
+            VisibilityJson visibilityJson = VisalloProperties.VISIBILITY_JSON_METADATA.getMetadataValue(properties.get(i).getMetadata());
+            sandboxStatuses[i] = SandboxStatus.getFromVisibilityJsonString(visibilityJson, workspaceId);
+        }
+        for (int i = 0; i < properties.size(); i++) {
+            Property property = properties.get(i);
+            for (int j = 0; j < properties.size(); j++) {
+                Property p = properties.get(j);
+                if (i != j &&
+                        sandboxStatuses[j] == SandboxStatus.PUBLIC &&
+                        sandboxStatuses[i] == SandboxStatus.PRIVATE &&
+                        property.getKey().equals(p.getKey()) &&
+                        property.getName().equals(p.getName())) {
+                    sandboxStatuses[i] = SandboxStatus.PUBLIC_CHANGED;
+                }
+            }
+        }
+        return sandboxStatuses;
+    }
+}
@@ -0,0 +1,17 @@
+package org.visallo.core.exception;
+
+/**
+ * Thrown when a request parameter has a value that is not allowed. The web layer answers it with a bad request.
+ */
+public class VisalloInvalidParameterException extends VisalloException {
+    private final String parameterName;
+
+    public VisalloInvalidParameterException(String parameterName, String message) {
+        super(message);
+        this.parameterName = parameterName;
+    }
+
+    public String getParameterName() {
+        return parameterName;
+    }
+}
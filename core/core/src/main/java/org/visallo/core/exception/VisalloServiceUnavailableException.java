@@ -0,0 +1,15 @@
+package org.visallo.core.exception;
+
+/**
+ * Thrown when a request cannot be served right now, because the server is too busy or waited too long for work it
+ * depends on. The request can be retried later.
+ */
+public class VisalloServiceUnavailableException extends VisalloException {
+    public VisalloServiceUnavailableException(String message) {
+        super(message);
+    }
+
+    public VisalloServiceUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
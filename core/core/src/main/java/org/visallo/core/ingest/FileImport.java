@@ -1,9 +1,12 @@
 package org.visallo.core.ingest;
 
 import com.google.inject.Inject;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
 import org.json.JSONObject;
 import org.vertexium.*;
+import org.vertexium.mutation.ExistingElementMutation;
 import org.vertexium.property.StreamingPropertyValue;
 import org.visallo.core.config.Configuration;
 import org.visallo.core.model.WorkQueueNames;
@@ -30,8 +33,12 @@ import org.visallo.web.clientapi.model.VisibilityJson;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
 import java.text.ParseException;
 import java.util.*;
+import java.util.concurrent.ConcurrentMap;
 
 import static org.vertexium.util.IterableUtils.toList;
 
@@ -267,57 +274,25 @@ public class FileImport {
             VisibilityJson visibilityJson = VisibilityJson.updateVisibilitySourceAndAddWorkspaceId(null, visibilitySource, workspace == null ? null : workspace.getWorkspaceId());
             VisalloVisibility visalloVisibility = this.visibilityTranslator.toVisibility(visibilityJson);
             Visibility visibility = visalloVisibility.getVisibility();
-            Visibility defaultVisibility = visibilityTranslator.getDefaultVisibility();
             PropertyMetadata propertyMetadata = new PropertyMetadata(user, visibilityJson, visibility);
             VisalloProperties.CONFIDENCE_METADATA.setMetadata(propertyMetadata, 0.1, visibilityTranslator.getDefaultVisibility());
 
-            VertexBuilder vertexBuilder;
-            if (predefinedId == null) {
-                vertexBuilder = this.graph.prepareVertex(visibility);
-            } else {
-                vertexBuilder = this.graph.prepareVertex(predefinedId, visibility);
-            }
             List<VisalloPropertyUpdate> changedProperties = new ArrayList<>();
-            VisalloProperties.RAW.updateProperty(changedProperties, null, vertexBuilder, rawValue, propertyMetadata);
-            VisalloProperties.CONTENT_HASH.updateProperty(changedProperties, null, vertexBuilder, MULTI_VALUE_KEY, hash, propertyMetadata);
-            VisalloProperties.FILE_NAME.updateProperty(changedProperties, null, vertexBuilder, MULTI_VALUE_KEY, f.getName(), propertyMetadata);
-            VisalloProperties.MODIFIED_DATE.updateProperty(
-                    changedProperties,
-                    null,
-                    vertexBuilder,
+            VertexBuilder vertexBuilder = prepareFileVertex(
+                    predefinedId,
+                    rawValue,
+                    hash,
+                    f.getName(),
                     new Date(f.lastModified()),
-                    (Metadata) null,
-                    defaultVisibility
-            );
-            VisalloProperties.MODIFIED_BY.updateProperty(
-                    changedProperties,
-                    null,
-                    vertexBuilder,
-                    user.getUserId(),
-                    (Metadata) null,
-                    defaultVisibility
-            );
-            VisalloProperties.VISIBILITY_JSON.updateProperty(
-                    changedProperties,
-                    null,
-                    vertexBuilder,
+                    conceptId,
+                    properties,
                     visibilityJson,
-                    (Metadata) null,
-                    defaultVisibility
+                    visibility,
+                    propertyMetadata,
+                    workspace,
+                    user,
+                    changedProperties
             );
-            if (conceptId != null) {
-                VisalloProperties.CONCEPT_TYPE.updateProperty(
-                        changedProperties,
-                        null,
-                        vertexBuilder,
-                        conceptId,
-                        (Metadata) null,
-                        defaultVisibility
-                );
-            }
-            if (properties != null) {
-                addProperties(properties, changedProperties, vertexBuilder, visibilityJson, workspace, user);
-            }
 
             for (FileImportSupportingFileHandler fileImportSupportingFileHandler : this.fileImportSupportingFileHandlers) {
                 FileImportSupportingFileHandler.AddSupportingFilesResult addSupportingFilesResult = fileImportSupportingFileHandler.addSupportingFiles(vertexBuilder, f, visibility);
@@ -358,6 +333,229 @@ public class FileImport {
         }
     }
 
+    /**
+     * @param hash the content hash of the file, null if it is not known yet.
+     */
+    private VertexBuilder prepareFileVertex(
+            String predefinedId,
+            StreamingPropertyValue rawValue,
+            String hash,
+            String fileName,
+            Date modifiedDate,
+            String conceptId,
+            ClientApiImportProperty[] properties,
+            VisibilityJson visibilityJson,
+            Visibility visibility,
+            PropertyMetadata propertyMetadata,
+            Workspace workspace,
+            User user,
+            List<VisalloPropertyUpdate> changedProperties
+    ) throws ParseException {
+        Visibility defaultVisibility = visibilityTranslator.getDefaultVisibility();
+        VertexBuilder vertexBuilder;
+        if (predefinedId == null) {
+            vertexBuilder = this.graph.prepareVertex(visibility);
+        } else {
+            vertexBuilder = this.graph.prepareVertex(predefinedId, visibility);
+        }
+        VisalloProperties.RAW.updateProperty(changedProperties, null, vertexBuilder, rawValue, propertyMetadata);
+        if (hash != null) {
+            VisalloProperties.CONTENT_HASH.updateProperty(changedProperties, null, vertexBuilder, MULTI_VALUE_KEY, hash, propertyMetadata);
+        }
+        VisalloProperties.FILE_NAME.updateProperty(changedProperties, null, vertexBuilder, MULTI_VALUE_KEY, fileName, propertyMetadata);
+        VisalloProperties.MODIFIED_DATE.updateProperty(
+                changedProperties,
+                null,
+                vertexBuilder,
+                modifiedDate,
+                (Metadata) null,
+                defaultVisibility
+        );
+        VisalloProperties.MODIFIED_BY.updateProperty(
+                changedProperties,
+                null,
+                vertexBuilder,
+                user.getUserId(),
+                (Metadata) null,
+                defaultVisibility
+        );
+        VisalloProperties.VISIBILITY_JSON.updateProperty(
+                changedProperties,
+                null,
+                vertexBuilder,
+                visibilityJson,
+                (Metadata) null,
+                defaultVisibility
+        );
+        if (conceptId != null) {
+            VisalloProperties.CONCEPT_TYPE.updateProperty(
+                    changedProperties,
+                    null,
+                    vertexBuilder,
+                    conceptId,
+                    (Metadata) null,
+                    defaultVisibility
+            );
+        }
+        if (properties != null) {
+            addProperties(properties, changedProperties, vertexBuilder, visibilityJson, workspace, user);
+        }
+        return vertexBuilder;
+    }
+
+    /**
+     * Saves a vertex for a file read from a stream. The stream is written straight into the raw property and hashed
+     * while it is written, so the file is never copied to disk or held in memory. The hash is only known once the
+     * vertex is saved, so when a vertex with the same hash is found the saved vertex is deleted and the existing
+     * vertex is returned as a duplicate.
+     * <p/>
+     * The vertex is not flushed, added to the workspace or queued, pass the imported files to
+     * {@link #finishImports(List, Workspace, Priority, User, Authorizations)} to do that for a batch of them at once.
+     *
+     * @param vertexId          the id of the vertex to save or null to generate one. Importing a file into a vertex
+     *                          it was imported into before replaces it, and the vertex is not a duplicate of itself,
+     *                          so an import which died before finishing its vertices can import the same files into
+     *                          the same vertices again and finish them.
+     * @param importedByHash    the vertices imported so far by the caller by their hash, which the search index does
+     *                          not find until they are flushed. Duplicates are looked up in it before searching and
+     *                          new vertices are added to it. Null to only search.
+     */
+    public ImportedFile importStream(
+            InputStream in,
+            String vertexId,
+            String fileName,
+            String conceptId,
+            ClientApiImportProperty[] properties,
+            String visibilitySource,
+            Workspace workspace,
+            boolean findExistingByFileHash,
+            ConcurrentMap<String, Vertex> importedByHash,
+            User user,
+            Authorizations authorizations
+    ) throws Exception {
+        ensureInitialized();
+
+        MessageDigest digest = DigestUtils.getSha256Digest();
+        DigestInputStream digestInputStream = new DigestInputStream(in, digest);
+        StreamingPropertyValue rawValue = new StreamingPropertyValue(digestInputStream, byte[].class);
+        rawValue.searchIndex(false);
+
+        VisibilityJson visibilityJson = VisibilityJson.updateVisibilitySourceAndAddWorkspaceId(null, visibilitySource, workspace == null ? null : workspace.getWorkspaceId());
+        VisalloVisibility visalloVisibility = this.visibilityTranslator.toVisibility(visibilityJson);
+        Visibility visibility = visalloVisibility.getVisibility();
+        PropertyMetadata propertyMetadata = new PropertyMetadata(user, visibilityJson, visibility);
+        VisalloProperties.CONFIDENCE_METADATA.setMetadata(propertyMetadata, 0.1, visibilityTranslator.getDefaultVisibility());
+
+        List<VisalloPropertyUpdate> changedProperties = new ArrayList<>();
+        VertexBuilder vertexBuilder = prepareFileVertex(
+                vertexId,
+                rawValue,
+                null,
+                fileName,
+                new Date(),
+                conceptId,
+                properties,
+                visibilityJson,
+                visibility,
+                propertyMetadata,
+                workspace,
+                user,
+                changedProperties
+        );
+        Vertex vertex = vertexBuilder.save(authorizations);
+        // the graph reads the raw value while saving the vertex, whatever it left only needs to be hashed
+        IOUtils.copy(digestInputStream, NullOutputStream.NULL_OUTPUT_STREAM);
+        String hash = RowKeyHelper.buildSHA256KeyString(digest);
+
+        if (findExistingByFileHash) {
+            Vertex existingVertex = null;
+            if (importedByHash != null) {
+                // files with the same contents imported at the same time both miss the search
+                existingVertex = importedByHash.putIfAbsent(hash, vertex);
+                if (existingVertex != null && existingVertex.getId().equals(vertex.getId())) {
+                    existingVertex = null;
+                }
+            }
+            if (existingVertex == null) {
+                existingVertex = findOtherVertexWithHash(hash, vertex.getId(), authorizations);
+                if (existingVertex != null && importedByHash != null) {
+                    importedByHash.replace(hash, vertex, existingVertex);
+                }
+            }
+            if (existingVertex != null) {
+                LOGGER.debug("vertex already exists with hash %s", hash);
+                graph.deleteVertex(vertex, authorizations);
+                return new ImportedFile(existingVertex, new ArrayList<>(), visibilitySource, propertyMetadata, visibility, true);
+            }
+        }
+
+        ExistingElementMutation<Vertex> m = vertex.prepareMutation();
+        VisalloProperties.CONTENT_HASH.updateProperty(changedProperties, vertex, m, MULTI_VALUE_KEY, hash, propertyMetadata);
+        vertex = m.save(authorizations);
+        LOGGER.debug("File %s imported. vertex id: %s", fileName, vertex.getId());
+        return new ImportedFile(vertex, changedProperties, visibilitySource, propertyMetadata, visibility, false);
+    }
+
+    /**
+     * Finishes a batch of files imported by {@link #importStream}, flushing the graph and updating the workspace once
+     * for all of them. Duplicates are left as they are.
+     */
+    public void finishImports(
+            List<ImportedFile> importedFiles,
+            Workspace workspace,
+            Priority priority,
+            User user,
+            Authorizations authorizations
+    ) {
+        ensureInitialized();
+
+        List<ImportedFile> newFiles = new ArrayList<>();
+        for (ImportedFile importedFile : importedFiles) {
+            if (importedFile.isDuplicate()) {
+                continue;
+            }
+            for (PostFileImportHandler postFileImportHandler : this.postFileImportHandlers) {
+                postFileImportHandler.handle(
+                        graph,
+                        importedFile.getVertex(),
+                        importedFile.getChangedProperties(),
+                        workspace,
+                        importedFile.getPropertyMetadata(),
+                        importedFile.getVisibility(),
+                        user,
+                        authorizations
+                );
+            }
+            newFiles.add(importedFile);
+        }
+
+        graph.flush();
+
+        String workspaceId = null;
+        if (workspace != null) {
+            workspaceId = workspace.getWorkspaceId();
+            if (newFiles.size() > 0) {
+                List<String> vertexIds = new ArrayList<>();
+                for (ImportedFile newFile : newFiles) {
+                    vertexIds.add(newFile.getVertex().getId());
+                }
+                workspaceRepository.updateEntitiesOnWorkspace(workspace, vertexIds, user);
+            }
+        }
+
+        for (ImportedFile newFile : newFiles) {
+            LOGGER.debug("pushing %s on to %s queue", newFile.getVertex().getId(), workQueueNames.getGraphPropertyQueueName());
+            this.workQueueRepository.broadcastElement(newFile.getVertex(), workspaceId);
+            this.workQueueRepository.pushGraphVisalloPropertyQueue(
+                    newFile.getVertex(),
+                    newFile.getChangedProperties(),
+                    workspaceId,
+                    newFile.getVisibilitySource(),
+                    priority
+            );
+        }
+    }
+
     private void addProperties(ClientApiImportProperty[] properties, List<VisalloPropertyUpdate> changedProperties, VertexBuilder vertexBuilder, VisibilityJson visibilityJson, Workspace workspace, User user) throws ParseException {
         for (ClientApiImportProperty property : properties) {
             OntologyProperty ontologyProperty = ontologyRepository.getPropertyByIRI(property.getName());
@@ -452,6 +650,24 @@ public class FileImport {
         return null;
     }
 
+    /**
+     * @return null if the vertex itself has the hash or no other vertex has it.
+     */
+    private Vertex findOtherVertexWithHash(String hash, String vertexId, Authorizations authorizations) {
+        Vertex result = null;
+        for (Vertex existingVertex : this.graph.query(authorizations)
+                .has(VisalloProperties.CONTENT_HASH.getPropertyName(), hash)
+                .vertices()) {
+            if (existingVertex.getId().equals(vertexId)) {
+                return null;
+            }
+            if (result == null) {
+                result = existingVertex;
+            }
+        }
+        return result;
+    }
+
     private String calculateFileHash(File f) throws IOException {
         try (FileInputStream fileInputStream = new FileInputStream(f)) {
             return RowKeyHelper.buildSHA256KeyString(fileInputStream);
@@ -496,4 +712,56 @@ public class FileImport {
             return properties;
         }
     }
+
+    public static class ImportedFile {
+        private final Vertex vertex;
+        private final List<VisalloPropertyUpdate> changedProperties;
+        private final String visibilitySource;
+        private final PropertyMetadata propertyMetadata;
+        private final Visibility visibility;
+        private final boolean duplicate;
+
+        public ImportedFile(
+                Vertex vertex,
+                List<VisalloPropertyUpdate> changedProperties,
+                String visibilitySource,
+                PropertyMetadata propertyMetadata,
+                Visibility visibility,
+                boolean duplicate
+        ) {
+            this.vertex = vertex;
+            this.changedProperties = changedProperties;
+            this.visibilitySource = visibilitySource;
+            this.propertyMetadata = propertyMetadata;
+            this.visibility = visibility;
+            this.duplicate = duplicate;
+        }
+
+        public Vertex getVertex() {
+            return vertex;
+        }
+
+        public List<VisalloPropertyUpdate> getChangedProperties() {
+            return changedProperties;
+        }
+
+        public String getVisibilitySource() {
+            return visibilitySource;
+        }
+
+        public PropertyMetadata getPropertyMetadata() {
+            return propertyMetadata;
+        }
+
+        public Visibility getVisibility() {
+            return visibility;
+        }
+
+        /**
+         * True if the file was already imported, the vertex is the one found by the hash of the file.
+         */
+        public boolean isDuplicate() {
+            return duplicate;
+        }
+    }
 }
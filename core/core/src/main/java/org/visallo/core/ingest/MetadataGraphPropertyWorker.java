@@ -2,6 +2,7 @@ package org.visallo.core.ingest;
 
 import org.visallo.core.ingest.graphProperty.GraphPropertyWorkData;
 import org.visallo.core.ingest.graphProperty.GraphPropertyWorker;
+import org.visallo.core.ingest.graphProperty.GraphPropertyWorkerInterest;
 import org.visallo.core.model.Description;
 import org.visallo.core.model.Name;
 import org.visallo.core.model.properties.VisalloProperties;
@@ -102,4 +103,9 @@ public class MetadataGraphPropertyWorker extends GraphPropertyWorker {
 
         return true;
     }
+
+    @Override
+    public GraphPropertyWorkerInterest getInterest() {
+        return GraphPropertyWorkerInterest.elementOnly();
+    }
 }
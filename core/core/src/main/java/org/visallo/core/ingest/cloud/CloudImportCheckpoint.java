@@ -0,0 +1,84 @@
+package org.visallo.core.ingest.cloud;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The items a cloud import has imported so far and the vertices they were imported into.
+ * <p/>
+ * The import id is kept when an import is resumed, the vertex of each item is derived from it so an item imported
+ * again after the import died replaces the vertex it was imported into before.
+ */
+public class CloudImportCheckpoint {
+    private final String importId;
+    private final Set<String> itemIds = new HashSet<>();
+    private final List<String> vertexIds = new ArrayList<>();
+
+    public CloudImportCheckpoint(String importId) {
+        this.importId = importId;
+    }
+
+    public String getImportId() {
+        return importId;
+    }
+
+    public String getVertexId(String itemId) {
+        return "CLOUD_IMPORT_" + DigestUtils.sha256Hex(importId + "\n" + itemId);
+    }
+
+    public boolean isImported(String itemId) {
+        return itemIds.contains(itemId);
+    }
+
+    public void add(String itemId, String vertexId) {
+        if (itemIds.add(itemId)) {
+            vertexIds.add(vertexId);
+        }
+    }
+
+    public int getImportedCount() {
+        return itemIds.size();
+    }
+
+    public List<String> getVertexIds() {
+        return vertexIds;
+    }
+
+    public JSONObject toJson() {
+        JSONObject json = new JSONObject();
+        json.put("importId", importId);
+        json.put("itemIds", new JSONArray(itemIds));
+        json.put("vertexIds", new JSONArray(vertexIds));
+        return json;
+    }
+
+    /**
+     * @param json     a checkpoint created by {@link #toJson()}, null for an empty checkpoint.
+     * @param importId the import id of an empty checkpoint.
+     */
+    public static CloudImportCheckpoint fromJson(JSONObject json, String importId) {
+        if (json == null) {
+            return new CloudImportCheckpoint(importId);
+        }
+        CloudImportCheckpoint checkpoint = new CloudImportCheckpoint(json.optString("importId", importId));
+        JSONArray itemIds = json.optJSONArray("itemIds");
+        if (itemIds != null) {
+            for (int i = 0; i < itemIds.length(); i++) {
+                checkpoint.itemIds.add(itemIds.getString(i));
+            }
+        }
+        JSONArray vertexIds = json.optJSONArray("vertexIds");
+        if (vertexIds != null) {
+            for (int i = 0; i < vertexIds.length(); i++) {
+                checkpoint.vertexIds.add(vertexIds.getString(i));
+            }
+        }
+        return checkpoint;
+    }
+}
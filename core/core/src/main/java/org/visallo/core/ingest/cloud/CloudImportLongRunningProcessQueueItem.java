@@ -10,18 +10,26 @@ public class CloudImportLongRunningProcessQueueItem {
     private String workspaceId;
     private String userId;
     private String[] authorizations;
-
+    private String resumeLongRunningProcessId;
 
     public CloudImportLongRunningProcessQueueItem() {
 
     }
 
     public CloudImportLongRunningProcessQueueItem(String destination, String configuration, String userId, String workspaceId, Authorizations authorizations) {
+        this(destination, configuration, userId, workspaceId, authorizations, null);
+    }
+
+    /**
+     * @param resumeLongRunningProcessId a cloud import of the same items to resume, the items it imported are skipped.
+     */
+    public CloudImportLongRunningProcessQueueItem(String destination, String configuration, String userId, String workspaceId, Authorizations authorizations, String resumeLongRunningProcessId) {
         this.destination = destination;
         this.configuration = configuration;
         this.workspaceId = workspaceId;
         this.userId = userId;
         this.authorizations = authorizations.getAuthorizations();
+        this.resumeLongRunningProcessId = resumeLongRunningProcessId;
     }
 
     public String getDestination() {
@@ -46,6 +54,10 @@ public class CloudImportLongRunningProcessQueueItem {
         return userId;
     }
 
+    public String getResumeLongRunningProcessId() {
+        return resumeLongRunningProcessId;
+    }
+
     public JSONObject toJson() {
         return new JSONObject(ClientApiConverter.clientApiToString(this));
     }
@@ -1,16 +1,10 @@
 package org.visallo.core.ingest.cloud;
 
-import com.google.common.io.ByteProcessor;
-import com.google.common.io.ByteStreams;
-import com.google.common.io.Closeables;
-import com.google.common.io.Files;
 import com.google.inject.Inject;
-import org.apache.commons.io.FileUtils;
 import org.json.JSONArray;
 import org.json.JSONObject;
 import org.vertexium.Authorizations;
 import org.vertexium.Graph;
-import org.vertexium.Vertex;
 import org.visallo.core.bootstrap.InjectHelper;
 import org.visallo.core.config.Configuration;
 import org.visallo.core.exception.VisalloException;
@@ -23,19 +17,29 @@ import org.visallo.core.model.workspace.Workspace;
 import org.visallo.core.model.workspace.WorkspaceRepository;
 import org.visallo.core.user.User;
 import org.visallo.core.util.ClientApiConverter;
-import org.visallo.core.util.JSONUtil;
-import org.visallo.web.clientapi.model.ClientApiImportProperty;
+import org.visallo.core.util.VisalloLogger;
+import org.visallo.core.util.VisalloLoggerFactory;
 
-import java.io.*;
 import java.util.Collection;
 
 public class CloudImportLongRunningProcessWorker extends LongRunningProcessWorker {
+    private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(CloudImportLongRunningProcessWorker.class);
+    public static final String CONFIG_THREAD_COUNT = CloudImportLongRunningProcessWorker.class.getName() + ".threadCount";
+    public static final int DEFAULT_THREAD_COUNT = 8;
+    public static final String CONFIG_BATCH_SIZE = CloudImportLongRunningProcessWorker.class.getName() + ".batchSize";
+    public static final int DEFAULT_BATCH_SIZE = 100;
+    public static final String CONFIG_UPDATE_INTERVAL_MS = CloudImportLongRunningProcessWorker.class.getName() + ".updateIntervalMs";
+    public static final long DEFAULT_UPDATE_INTERVAL_MS = 1000;
+    public static final String CONFIG_CHECKPOINT_INTERVAL_MS = CloudImportLongRunningProcessWorker.class.getName() + ".checkpointIntervalMs";
+    public static final long DEFAULT_CHECKPOINT_INTERVAL_MS = 10000;
     private final Configuration configuration;
-    private final FileImport fileImport;
     private final Graph graph;
     private final UserRepository userRepository;
     private final WorkspaceRepository workspaceRepository;
     private final LongRunningProcessRepository longRunningProcessRepository;
+    private final CloudImporter cloudImporter;
+    private final long updateIntervalMs;
+    private final long checkpointIntervalMs;
 
     @Inject
     public CloudImportLongRunningProcessWorker(
@@ -48,10 +52,16 @@ public class CloudImportLongRunningProcessWorker extends LongRunningProcessWorke
     ) {
         this.graph = graph;
         this.configuration = configuration;
-        this.fileImport = fileImport;
         this.userRepository = userRepository;
         this.workspaceRepository = workspaceRepository;
         this.longRunningProcessRepository = longRunningProcessRepository;
+        this.cloudImporter = new CloudImporter(
+                fileImport,
+                configuration.getInt(CONFIG_THREAD_COUNT, DEFAULT_THREAD_COUNT),
+                configuration.getInt(CONFIG_BATCH_SIZE, DEFAULT_BATCH_SIZE)
+        );
+        this.updateIntervalMs = configuration.getLong(CONFIG_UPDATE_INTERVAL_MS, DEFAULT_UPDATE_INTERVAL_MS);
+        this.checkpointIntervalMs = configuration.getLong(CONFIG_CHECKPOINT_INTERVAL_MS, DEFAULT_CHECKPOINT_INTERVAL_MS);
     }
 
     @Override
@@ -85,104 +95,126 @@ public class CloudImportLongRunningProcessWorker extends LongRunningProcessWorke
         return null;
     }
 
-    private void download(CloudResourceSource destination, CloudImportLongRunningProcessQueueItem item, JSONObject itemJson) throws Exception {
+    private void download(CloudResourceSource destination, CloudImportLongRunningProcessQueueItem item, JSONObject itemJson) {
         String id = itemJson.getString("id");
         Authorizations authorizations = graph.createAuthorizations(item.getAuthorizations());
         String visibilitySource = "";
         User user = userRepository.findById(item.getUserId());
-        String conceptId = null;
         Priority priority = Priority.NORMAL;
         Workspace workspace = workspaceRepository.findById(item.getWorkspaceId(), user);
-        ClientApiImportProperty[] properties = null;
-        boolean queueDefaults = false;
         boolean findExistingByFileHash = true;
 
-        File tempDir = Files.createTempDir();
+        CloudImportCheckpoint checkpoint = loadCheckpoint(id, item.getResumeLongRunningProcessId());
+        Collection<CloudResourceSourceItem> items = destination.getItems(new JSONObject(item.getConfiguration()));
+        ImportCallback callback = new ImportCallback(itemJson);
+        CloudImporter.Result result;
         try {
-            Collection<CloudResourceSourceItem> items = destination.getItems(new JSONObject(item.getConfiguration()));
-            Long allItemsSize = 0L;
-            for (CloudResourceSourceItem cloudResourceSourceItem : items) {
-                Long size = cloudResourceSourceItem.getSize();
-                if (size != null) {
-                    allItemsSize += size;
+            result = cloudImporter.importItems(
+                    items,
+                    checkpoint,
+                    visibilitySource,
+                    workspace,
+                    findExistingByFileHash,
+                    priority,
+                    user,
+                    authorizations,
+                    callback
+            );
+        } finally {
+            callback.saveCheckpoint(checkpoint);
+        }
+        LOGGER.info(
+                "cloud import %s %s, imported %d items (%d duplicates)",
+                id,
+                result.getStopReason(),
+                result.getImportedCount(),
+                result.getDuplicateCount()
+        );
+
+        itemJson.put("vertexIds", new JSONArray(checkpoint.getVertexIds()));
+        if (result.getStopReason() == CloudImporter.StopReason.CANCELED
+                || !longRunningProcessRepository.reportProgressUnlessCanceled(id, 1.0, "Finishing", userRepository.getSystemUser())) {
+            itemJson.put("canceled", true);
+        }
+    }
+
+    /**
+     * A process which is processed again after failing finds the checkpoint it saved in its own results, a new
+     * process resuming an earlier one starts from the checkpoint of the earlier one.
+     */
+    private CloudImportCheckpoint loadCheckpoint(String longRunningProcessId, String resumeLongRunningProcessId) {
+        JSONObject results = getResults(longRunningProcessId);
+        if (results == null && resumeLongRunningProcessId != null) {
+            results = getResults(resumeLongRunningProcessId);
+        }
+        return CloudImportCheckpoint.fromJson(results, longRunningProcessId);
+    }
+
+    private JSONObject getResults(String longRunningProcessId) {
+        JSONObject longRunningProcess = longRunningProcessRepository.findById(longRunningProcessId, userRepository.getSystemUser());
+        return longRunningProcess == null ? null : longRunningProcess.optJSONObject("results");
+    }
+
+    /**
+     * At most once per update interval checks whether the process was canceled and reports its progress, and at
+     * most once per checkpoint interval saves the checkpoint in the results of the process. Items imported after the
+     * last saved checkpoint are imported again into the same vertices when the process resumes.
+     */
+    private class ImportCallback implements CloudImporter.Callback {
+        private final JSONObject longRunningProcessQueueItem;
+        private long lastCancelCheckTime = System.currentTimeMillis();
+        private long lastProgressTime;
+        private long lastCheckpointTime = System.currentTimeMillis();
+        private boolean canceled;
+
+        public ImportCallback(JSONObject longRunningProcessQueueItem) {
+            this.longRunningProcessQueueItem = longRunningProcessQueueItem;
+        }
+
+        @Override
+        public boolean isCanceled() {
+            long now = System.currentTimeMillis();
+            if (!canceled && now - lastCancelCheckTime >= updateIntervalMs) {
+                lastCancelCheckTime = now;
+                canceled = longRunningProcessRepository.isCanceled(
+                        longRunningProcessQueueItem.getString("id"),
+                        userRepository.getSystemUser()
+                );
+                if (canceled) {
+                    LOGGER.info("cloud import canceled: %s", longRunningProcessQueueItem.getString("id"));
                 }
             }
+            return canceled;
+        }
 
-
-            long noSizeProgress = 0;
-            long cumulativeSize = 0;
-            for (CloudResourceSourceItem cloudResourceSourceItem : items) {
-                String fileName = cloudResourceSourceItem.getName();
-                if (fileName == null) throw new VisalloException("Cloud destination item name must not be null");
-                File file = new File(tempDir, cloudResourceSourceItem.getName());
-
-                try (InputStream inputStream = cloudResourceSourceItem.getInputStream()) {
-                    if (inputStream == null) {
-                        throw new VisalloException("Cloud destination input stream must not be null");
-                    }
-
-                    noSizeProgress += (double) 1 / items.size();
-                    if (downloadFile(id, inputStream, file, cumulativeSize, allItemsSize, noSizeProgress)) {
-                        Vertex vertex = fileImport.importFile(
-                                file,
-                                queueDefaults,
-                                conceptId,
-                                properties,
-                                visibilitySource,
-                                workspace,
-                                findExistingByFileHash,
-                                priority,
-                                user,
-                                authorizations
-                        );
-
-                        JSONArray vertexIds = JSONUtil.getOrCreateJSONArray(itemJson, "vertexIds");
-                        vertexIds.put(vertex.getId());
-                    }
-                    if (allItemsSize > 0) {
-                        cumulativeSize += cloudResourceSourceItem.getSize();
-                    }
+        @Override
+        public void progress(double progressPercent, String message) {
+            long now = System.currentTimeMillis();
+            if (now - lastProgressTime >= updateIntervalMs && !canceled) {
+                lastProgressTime = now;
+                lastCancelCheckTime = now;
+                canceled = !longRunningProcessRepository.reportProgressUnlessCanceled(
+                        longRunningProcessQueueItem.getString("id"),
+                        progressPercent,
+                        message,
+                        userRepository.getSystemUser()
+                );
+                if (canceled) {
+                    LOGGER.info("cloud import canceled: %s", longRunningProcessQueueItem.getString("id"));
                 }
             }
-        } finally {
-            longRunningProcessRepository.reportProgress(id, 1.0, "Finishing");
-            FileUtils.deleteDirectory(tempDir);
         }
-    }
 
-    private boolean downloadFile(String longRunningProcessId, InputStream inputStream, File file, Long cumulativeSize, Long allItemSize, double noSizeProgress) throws Exception {
-        final OutputStream out = new FileOutputStream(file);
-        boolean success = false;
-        try {
-            ByteStreams.readBytes(inputStream,
-                    new ByteProcessor<Object>() {
-                        private long progress = cumulativeSize;
-                        private long flushProgress = 0;
-                        public boolean processBytes(byte[] buffer, int offset, int length) throws IOException {
-                            out.write(buffer, offset, length);
-                            if (allItemSize > 0) {
-                                progress += length;
-                                flushProgress += length;
-                                if (((double)flushProgress / allItemSize) > 0.01) {
-                                    longRunningProcessRepository.reportProgress(longRunningProcessId, (double) progress / allItemSize, String.format("Downloading %s", file.getName()));
-                                    flushProgress = 0;
-                                }
-                            }
-                            return true;
-                        }
-                        public Void getResult() {
-                            return null;
-                        }
-                    });
-            success = true;
-        } finally {
-            if (allItemSize.equals(0)) {
-                longRunningProcessRepository.reportProgress(longRunningProcessId, noSizeProgress, "Downloading");
+        @Override
+        public void checkpoint(CloudImportCheckpoint checkpoint) {
+            if (System.currentTimeMillis() - lastCheckpointTime >= checkpointIntervalMs) {
+                saveCheckpoint(checkpoint);
             }
-            Closeables.close(out, !success);
         }
 
-        return success;
+        public void saveCheckpoint(CloudImportCheckpoint checkpoint) {
+            lastCheckpointTime = System.currentTimeMillis();
+            longRunningProcessRepository.saveResults(longRunningProcessQueueItem, checkpoint.toJson());
+        }
     }
-
 }
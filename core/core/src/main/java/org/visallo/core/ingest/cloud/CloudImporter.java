@@ -0,0 +1,295 @@
+package org.visallo.core.ingest.cloud;
+
+import org.vertexium.Authorizations;
+import org.vertexium.Vertex;
+import org.visallo.core.exception.VisalloException;
+import org.visallo.core.ingest.FileImport;
+import org.visallo.core.model.workQueue.Priority;
+import org.visallo.core.model.workspace.Workspace;
+import org.visallo.core.user.User;
+import org.visallo.core.util.VisalloLogger;
+import org.visallo.core.util.VisalloLoggerFactory;
+import org.visallo.web.clientapi.model.ClientApiImportProperty;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Imports the items of a cloud resource source. The items are downloaded on a bounded pool of threads, each one
+ * streamed straight into the raw property of its vertex, and the vertices are finished in batches so the graph is
+ * flushed and the workspace updated once per batch instead of once per item.
+ * <p/>
+ * The items imported so far are recorded in a {@link CloudImportCheckpoint}, which is handed to the callback after
+ * every batch. Items already in the checkpoint given to an import are skipped, so an import which was canceled or
+ * failed resumes where it stopped. Items imported after the checkpoint was last saved are imported into the same
+ * vertices again and finished again.
+ * <p/>
+ * Vertices are only found by their hash once their batch is flushed, so the hashes of the items imported by an
+ * import are also kept in memory to find duplicates within a batch and among the running downloads.
+ */
+public class CloudImporter {
+    private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(CloudImporter.class);
+    private static final long SHUTDOWN_TIMEOUT_MS = 60 * 1000;
+    private final FileImport fileImport;
+    private final int threadCount;
+    private final int batchSize;
+
+    public enum StopReason {
+        COMPLETE,
+        CANCELED
+    }
+
+    public interface Callback {
+        /**
+         * Called before each download is started, returning true stops the import once the running downloads are done.
+         */
+        boolean isCanceled();
+
+        void progress(double progressPercent, String message);
+
+        /**
+         * Called after every batch, once the vertices of the batch are flushed.
+         */
+        void checkpoint(CloudImportCheckpoint checkpoint);
+    }
+
+    /**
+     * @param threadCount the number of items downloaded at once.
+     * @param batchSize   the number of vertices finished together.
+     */
+    public CloudImporter(FileImport fileImport, int threadCount, int batchSize) {
+        this.fileImport = fileImport;
+        this.threadCount = Math.max(1, threadCount);
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * @param checkpoint the items imported before, updated with the items imported now.
+     * @throws VisalloException if an item could not be imported. The items downloaded before the failure are
+     *                          finished and checkpointed first.
+     */
+    public Result importItems(
+            Collection<CloudResourceSourceItem> items,
+            CloudImportCheckpoint checkpoint,
+            String visibilitySource,
+            Workspace workspace,
+            boolean findExistingByFileHash,
+            Priority priority,
+            User user,
+            Authorizations authorizations,
+            Callback callback
+    ) {
+        List<CloudResourceSourceItem> remainingItems = new ArrayList<>();
+        for (CloudResourceSourceItem item : items) {
+            if (!checkpoint.isImported(item.getId())) {
+                remainingItems.add(item);
+            }
+        }
+        LOGGER.debug("importing %d items, %d imported before", remainingItems.size(), items.size() - remainingItems.size());
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount, r -> {
+            Thread thread = new Thread(r, "cloud-import-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        CompletionService<ImportedItem> completionService = new ExecutorCompletionService<>(executor);
+        ConcurrentMap<String, Vertex> importedByHash = new ConcurrentHashMap<>();
+        List<ImportedItem> batch = new ArrayList<>();
+        Iterator<CloudResourceSourceItem> remainingItemsIterator = remainingItems.iterator();
+        int runningCount = 0;
+        int importedCount = 0;
+        int duplicateCount = 0;
+        boolean canceled = false;
+        Throwable failure = null;
+        try {
+            while (true) {
+                while (failure == null && !canceled && runningCount < threadCount && remainingItemsIterator.hasNext()) {
+                    if (callback.isCanceled()) {
+                        canceled = true;
+                        break;
+                    }
+                    CloudResourceSourceItem item = remainingItemsIterator.next();
+                    String vertexId = checkpoint.getVertexId(item.getId());
+                    completionService.submit(() -> importItem(
+                            item,
+                            vertexId,
+                            visibilitySource,
+                            workspace,
+                            findExistingByFileHash,
+                            importedByHash,
+                            user,
+                            authorizations
+                    ));
+                    runningCount++;
+                }
+                if (runningCount == 0) {
+                    break;
+                }
+
+                Future<ImportedItem> future = completionService.take();
+                runningCount--;
+                ImportedItem importedItem;
+                try {
+                    importedItem = future.get();
+                } catch (ExecutionException ex) {
+                    if (failure == null) {
+                        failure = ex.getCause();
+                    }
+                    continue;
+                }
+                batch.add(importedItem);
+                importedCount++;
+                if (importedItem.getImportedFile().isDuplicate()) {
+                    duplicateCount++;
+                }
+                int doneCount = checkpoint.getImportedCount() + batch.size();
+                callback.progress((double) doneCount / items.size(), String.format("Imported %d of %d", doneCount, items.size()));
+
+                if (batch.size() >= batchSize) {
+                    finishBatch(batch, checkpoint, workspace, priority, user, authorizations, callback);
+                }
+            }
+            finishBatch(batch, checkpoint, workspace, priority, user, authorizations, callback);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new VisalloException("Interrupted while importing cloud resources", ex);
+        } finally {
+            shutdown(executor);
+        }
+
+        if (failure != null) {
+            throw new VisalloException("Could not import cloud resource", failure);
+        }
+        return new Result(canceled ? StopReason.CANCELED : StopReason.COMPLETE, importedCount, duplicateCount);
+    }
+
+    /**
+     * Stops the downloads still running when the import stopped early and waits for them, so they don't save vertices
+     * after the import returns.
+     */
+    private void shutdown(ExecutorService executor) {
+        executor.shutdownNow();
+        try {
+            if (!executor.awaitTermination(SHUTDOWN_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                LOGGER.warn("cloud import downloads still running after %dms", SHUTDOWN_TIMEOUT_MS);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private ImportedItem importItem(
+            CloudResourceSourceItem item,
+            String vertexId,
+            String visibilitySource,
+            Workspace workspace,
+            boolean findExistingByFileHash,
+            ConcurrentMap<String, Vertex> importedByHash,
+            User user,
+            Authorizations authorizations
+    ) throws Exception {
+        String fileName = item.getName();
+        if (fileName == null) {
+            throw new VisalloException("Cloud destination item name must not be null");
+        }
+        try (InputStream in = item.getInputStream()) {
+            if (in == null) {
+                throw new VisalloException("Cloud destination input stream must not be null");
+            }
+            String conceptId = null;
+            ClientApiImportProperty[] properties = null;
+            FileImport.ImportedFile importedFile = fileImport.importStream(
+                    in,
+                    vertexId,
+                    fileName,
+                    conceptId,
+                    properties,
+                    visibilitySource,
+                    workspace,
+                    findExistingByFileHash,
+                    importedByHash,
+                    user,
+                    authorizations
+            );
+            return new ImportedItem(item.getId(), importedFile);
+        }
+    }
+
+    private void finishBatch(
+            List<ImportedItem> batch,
+            CloudImportCheckpoint checkpoint,
+            Workspace workspace,
+            Priority priority,
+            User user,
+            Authorizations authorizations,
+            Callback callback
+    ) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<FileImport.ImportedFile> importedFiles = new ArrayList<>();
+        for (ImportedItem importedItem : batch) {
+            importedFiles.add(importedItem.getImportedFile());
+        }
+        fileImport.finishImports(importedFiles, workspace, priority, user, authorizations);
+        for (ImportedItem importedItem : batch) {
+            checkpoint.add(importedItem.getItemId(), importedItem.getImportedFile().getVertex().getId());
+        }
+        batch.clear();
+        callback.checkpoint(checkpoint);
+    }
+
+    public static class Result {
+        private final StopReason stopReason;
+        private final int importedCount;
+        private final int duplicateCount;
+
+        public Result(StopReason stopReason, int importedCount, int duplicateCount) {
+            this.stopReason = stopReason;
+            this.importedCount = importedCount;
+            this.duplicateCount = duplicateCount;
+        }
+
+        public StopReason getStopReason() {
+            return stopReason;
+        }
+
+        /**
+         * The number of items imported by this import, not counting the items of the checkpoint it resumed from.
+         */
+        public int getImportedCount() {
+            return importedCount;
+        }
+
+        /**
+         * The number of imported items which matched an existing vertex by their hash.
+         */
+        public int getDuplicateCount() {
+            return duplicateCount;
+        }
+    }
+
+    private static class ImportedItem {
+        private final String itemId;
+        private final FileImport.ImportedFile importedFile;
+
+        public ImportedItem(String itemId, FileImport.ImportedFile importedFile) {
+            this.itemId = itemId;
+            this.importedFile = importedFile;
+        }
+
+        public String getItemId() {
+            return itemId;
+        }
+
+        public FileImport.ImportedFile getImportedFile() {
+            return importedFile;
+        }
+    }
+}
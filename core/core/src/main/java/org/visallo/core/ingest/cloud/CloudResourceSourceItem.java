@@ -8,4 +8,11 @@ public interface CloudResourceSourceItem {
     String getName();
     Long getSize();
 
+    /**
+     * Identifies the item within its source, imports record the ids of the items they imported so they can resume.
+     */
+    default String getId() {
+        return getName();
+    }
+
 }
@@ -0,0 +1,87 @@
+package org.visallo.core.ingest.graphProperty;
+
+import org.vertexium.Element;
+import org.vertexium.Property;
+import org.visallo.core.ingest.graphProperty.extraction.TextEntityExtractionEngine;
+import org.visallo.core.model.Description;
+import org.visallo.core.model.Name;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Runs several {@link TextEntityExtractionGraphPropertyWorker}s as one worker so that a text property is
+ * streamed and scanned once for all of them and their term mentions are saved with a single flush.
+ */
+@Name("Combined Text Entity Extractor")
+@Description("Runs all text entity extractors in a single pass over the text")
+public class CombinedTextEntityExtractionGraphPropertyWorker extends GraphPropertyWorker {
+    private final List<TextEntityExtractionGraphPropertyWorker> workers;
+    private final Map<List<TextEntityExtractionGraphPropertyWorker>, TextEntityExtractionEngine> enginesByWorkers = new ConcurrentHashMap<>();
+
+    public CombinedTextEntityExtractionGraphPropertyWorker(List<TextEntityExtractionGraphPropertyWorker> workers) {
+        this.workers = Collections.unmodifiableList(new ArrayList<>(workers));
+    }
+
+    public List<TextEntityExtractionGraphPropertyWorker> getWorkers() {
+        return workers;
+    }
+
+    @Override
+    public boolean isHandled(Element element, Property property) {
+        return getInterestedWorkers(element, property).size() > 0;
+    }
+
+    @Override
+    public GraphPropertyWorkerInterest getInterest() {
+        List<GraphPropertyWorkerInterest> interests = new ArrayList<>();
+        for (TextEntityExtractionGraphPropertyWorker worker : workers) {
+            interests.add(worker.getInterest());
+        }
+        return GraphPropertyWorkerInterest.union(interests);
+    }
+
+    @Override
+    public void execute(InputStream in, GraphPropertyWorkData data) throws Exception {
+        List<TextEntityExtractionGraphPropertyWorker> interestedWorkers = getInterestedWorkers(data.getElement(), data.getProperty());
+        if (interestedWorkers.size() == 0) {
+            return;
+        }
+        TextEntityExtractionEngine engine = enginesByWorkers.computeIfAbsent(
+                interestedWorkers,
+                w -> new TextEntityExtractionEngine(TextEntityExtractionGraphPropertyWorker.createExtractors(w))
+        );
+        TextEntityExtractionGraphPropertyWorker.extractTermMentions(interestedWorkers, engine, in, data);
+    }
+
+    @Override
+    public boolean isLocalFileRequired() {
+        for (TextEntityExtractionGraphPropertyWorker worker : workers) {
+            if (worker.isLocalFileRequired()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private List<TextEntityExtractionGraphPropertyWorker> getInterestedWorkers(Element element, Property property) {
+        List<TextEntityExtractionGraphPropertyWorker> interestedWorkers = new ArrayList<>();
+        for (TextEntityExtractionGraphPropertyWorker worker : workers) {
+            if (GraphPropertyRunner.isWorkerAllowed(element, worker) && worker.isHandled(element, property)) {
+                interestedWorkers.add(worker);
+            }
+        }
+        return interestedWorkers;
+    }
+
+    @Override
+    public String toString() {
+        return "CombinedTextEntityExtractionGraphPropertyWorker{" +
+                "workers=" + workers +
+                '}';
+    }
+}
@@ -139,7 +139,13 @@ public class GraphPropertyMessage {
         return this;
     }
 
+    /**
+     * Creates a message from JSON or from the binary format written by {@link GraphPropertyMessageCodec}.
+     */
     public static GraphPropertyMessage create(byte[] data) {
+        if (GraphPropertyMessageCodec.isBinary(data)) {
+            return GraphPropertyMessageCodec.decode(data);
+        }
         try {
             GraphPropertyMessage message = mapper.readValue(data, GraphPropertyMessage.class);
             checkNotNull(message.getPriority(), "priority cannot be null");
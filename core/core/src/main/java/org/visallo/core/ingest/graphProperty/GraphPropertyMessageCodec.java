@@ -0,0 +1,298 @@
+package org.visallo.core.ingest.graphProperty;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import org.visallo.core.exception.VisalloException;
+import org.visallo.core.model.workQueue.Priority;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Encodes {@link GraphPropertyMessage}s either as JSON or in a compact versioned binary format.
+ * <p/>
+ * The binary format starts with two magic bytes, which can never start a JSON document, followed by a version and
+ * a flags byte. Every string in the message is written once to a string table and referenced by index, so the
+ * property names and keys repeated in batched element pushes are only sent once. When the encoded body is larger
+ * than the compression threshold it is deflated. {@link #decode(byte[])} accepts both formats so producers can be
+ * switched to the binary format once all consumers understand it.
+ */
+public class GraphPropertyMessageCodec {
+    public static final byte MAGIC_0 = (byte) 0xF7;
+    public static final byte MAGIC_1 = (byte) 'G';
+    public static final byte VERSION = 1;
+    private static final int HEADER_LENGTH = 4;
+    private static final int FLAG_DEFLATED = 0x01;
+    private static final int NULL_REFERENCE = 0;
+    private static final Interner<String> STRING_INTERNER = Interners.newWeakInterner();
+    private final Format format;
+    private final int compressionThreshold;
+
+    public enum Format {
+        JSON,
+        BINARY;
+
+        public static Format safeParse(String format) {
+            if (format == null || format.length() == 0) {
+                return JSON;
+            }
+            try {
+                return Format.valueOf(format.toUpperCase());
+            } catch (Exception ex) {
+                return JSON;
+            }
+        }
+    }
+
+    /**
+     * @param compressionThreshold binary messages with a body larger than this number of bytes are deflated,
+     *                             0 or less disables compression.
+     */
+    public GraphPropertyMessageCodec(Format format, int compressionThreshold) {
+        this.format = format;
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    public byte[] encode(GraphPropertyMessage message) {
+        if (format == Format.JSON) {
+            return message.toBytes();
+        }
+        try {
+            return encodeBinary(message);
+        } catch (IOException ex) {
+            throw new VisalloException("Could not encode " + GraphPropertyMessage.class.getName(), ex);
+        }
+    }
+
+    public static boolean isBinary(byte[] data) {
+        return data != null && data.length >= HEADER_LENGTH && data[0] == MAGIC_0 && data[1] == MAGIC_1;
+    }
+
+    public static GraphPropertyMessage decode(byte[] data) {
+        if (!isBinary(data)) {
+            return GraphPropertyMessage.create(data);
+        }
+        return decodeBinary(data);
+    }
+
+    private byte[] encodeBinary(GraphPropertyMessage message) throws IOException {
+        checkNotNull(message.getPriority(), "priority cannot be null");
+        StringTable strings = new StringTable();
+        ByteArrayOutputStream fieldsBytes = new ByteArrayOutputStream();
+        DataOutputStream fields = new DataOutputStream(fieldsBytes);
+        fields.writeBoolean(message.isTraceEnabled());
+        writeString(fields, strings, message.getPriority().name());
+        writeString(fields, strings, message.getWorkspaceId());
+        writeString(fields, strings, message.getVisibilitySource());
+        writeString(fields, strings, message.getPropertyKey());
+        writeString(fields, strings, message.getPropertyName());
+        writeString(fields, strings, message.getStatus() == null ? null : message.getStatus().name());
+        writeTimestamp(fields, message.getBeforeActionTimestamp());
+        writeStrings(fields, strings, message.getGraphVertexId());
+        writeStrings(fields, strings, message.getGraphEdgeId());
+        GraphPropertyMessage.Property[] properties = message.getProperties();
+        writeLength(fields, properties == null ? -1 : properties.length);
+        if (properties != null) {
+            for (GraphPropertyMessage.Property property : properties) {
+                writeString(fields, strings, property.getPropertyKey());
+                writeString(fields, strings, property.getPropertyName());
+                writeString(fields, strings, property.getStatus() == null ? null : property.getStatus().name());
+                writeTimestamp(fields, property.getBeforeActionTimestamp());
+            }
+        }
+        fields.flush();
+
+        ByteArrayOutputStream bodyBytes = new ByteArrayOutputStream(fieldsBytes.size() + strings.getEstimatedSize());
+        DataOutputStream body = new DataOutputStream(bodyBytes);
+        strings.write(body);
+        fieldsBytes.writeTo(body);
+        body.flush();
+
+        boolean deflate = compressionThreshold > 0 && bodyBytes.size() > compressionThreshold;
+        ByteArrayOutputStream result = new ByteArrayOutputStream(HEADER_LENGTH + bodyBytes.size());
+        result.write(MAGIC_0);
+        result.write(MAGIC_1);
+        result.write(VERSION);
+        result.write(deflate ? FLAG_DEFLATED : 0);
+        if (deflate) {
+            try (DeflaterOutputStream out = new DeflaterOutputStream(result)) {
+                bodyBytes.writeTo(out);
+            }
+        } else {
+            bodyBytes.writeTo(result);
+        }
+        return result.toByteArray();
+    }
+
+    private static GraphPropertyMessage decodeBinary(byte[] data) {
+        int version = data[2];
+        if (version != VERSION) {
+            throw new VisalloException("Unsupported " + GraphPropertyMessage.class.getName() + " binary version: " + version);
+        }
+        int flags = data[3];
+        try {
+            InputStream bodyIn = new ByteArrayInputStream(data, HEADER_LENGTH, data.length - HEADER_LENGTH);
+            if ((flags & FLAG_DEFLATED) != 0) {
+                bodyIn = new InflaterInputStream(bodyIn);
+            }
+            DataInputStream in = new DataInputStream(bodyIn);
+            String[] strings = readStringTable(in);
+
+            GraphPropertyMessage message = new GraphPropertyMessage();
+            message.setTraceEnabled(in.readBoolean());
+            String priority = readString(in, strings);
+            if (priority == null) {
+                throw new VisalloException("priority cannot be null");
+            }
+            message.setPriority(Priority.valueOf(priority));
+            message.setWorkspaceId(readString(in, strings));
+            message.setVisibilitySource(readString(in, strings));
+            message.setPropertyKey(readString(in, strings));
+            message.setPropertyName(readString(in, strings));
+            String status = readString(in, strings);
+            message.setStatus(status == null ? null : ElementOrPropertyStatus.valueOf(status));
+            message.setBeforeActionTimestamp(readTimestamp(in));
+            message.setGraphVertexId(readStrings(in, strings));
+            message.setGraphEdgeId(readStrings(in, strings));
+            int propertyCount = readLength(in);
+            if (propertyCount >= 0) {
+                GraphPropertyMessage.Property[] properties = new GraphPropertyMessage.Property[propertyCount];
+                for (int i = 0; i < propertyCount; i++) {
+                    GraphPropertyMessage.Property property = new GraphPropertyMessage.Property();
+                    property.setPropertyKey(readString(in, strings));
+                    property.setPropertyName(readString(in, strings));
+                    String propertyStatus = readString(in, strings);
+                    property.setStatus(propertyStatus == null ? null : ElementOrPropertyStatus.valueOf(propertyStatus));
+                    property.setBeforeActionTimestamp(readTimestamp(in));
+                    properties[i] = property;
+                }
+                message.setProperties(properties);
+            }
+            return message;
+        } catch (IOException | RuntimeException ex) {
+            throw new VisalloException("Could not decode binary " + GraphPropertyMessage.class.getName(), ex);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, StringTable strings, String value) throws IOException {
+        writeVarInt(out, value == null ? NULL_REFERENCE : strings.getReference(value));
+    }
+
+    private static String readString(DataInputStream in, String[] strings) throws IOException {
+        int reference = readVarInt(in);
+        return reference == NULL_REFERENCE ? null : strings[reference - 1];
+    }
+
+    private static void writeStrings(DataOutputStream out, StringTable strings, String[] values) throws IOException {
+        writeLength(out, values == null ? -1 : values.length);
+        if (values != null) {
+            for (String value : values) {
+                writeString(out, strings, value);
+            }
+        }
+    }
+
+    private static String[] readStrings(DataInputStream in, String[] strings) throws IOException {
+        int length = readLength(in);
+        if (length < 0) {
+            return null;
+        }
+        String[] values = new String[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = readString(in, strings);
+        }
+        return values;
+    }
+
+    private static void writeTimestamp(DataOutputStream out, Long timestamp) throws IOException {
+        out.writeBoolean(timestamp != null);
+        if (timestamp != null) {
+            out.writeLong(timestamp);
+        }
+    }
+
+    private static Long readTimestamp(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readLong() : null;
+    }
+
+    private static void writeLength(DataOutputStream out, int length) throws IOException {
+        writeVarInt(out, length + 1);
+    }
+
+    private static int readLength(DataInputStream in) throws IOException {
+        return readVarInt(in) - 1;
+    }
+
+    private static String[] readStringTable(DataInputStream in) throws IOException {
+        int count = readVarInt(in);
+        String[] strings = new String[count];
+        for (int i = 0; i < count; i++) {
+            byte[] bytes = new byte[readVarInt(in)];
+            in.readFully(bytes);
+            strings[i] = STRING_INTERNER.intern(new String(bytes, StandardCharsets.UTF_8));
+        }
+        return strings;
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed variable length integer");
+    }
+
+    private static class StringTable {
+        private final Map<String, Integer> references = new HashMap<>();
+        private final List<byte[]> values = new ArrayList<>();
+        private int estimatedSize;
+
+        public int getReference(String value) {
+            Integer reference = references.get(value);
+            if (reference == null) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                values.add(bytes);
+                estimatedSize += bytes.length + 2;
+                reference = values.size();
+                references.put(value, reference);
+            }
+            return reference;
+        }
+
+        public int getEstimatedSize() {
+            return estimatedSize;
+        }
+
+        public void write(DataOutputStream out) throws IOException {
+            writeVarInt(out, values.size());
+            for (byte[] value : values) {
+                writeVarInt(out, value.length);
+                out.write(value);
+            }
+        }
+    }
+}
@@ -39,11 +39,14 @@ import static org.vertexium.util.IterableUtils.toList;
 
 public class GraphPropertyRunner extends WorkerBase<GraphPropertyWorkerItem> {
     private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(GraphPropertyRunner.class);
+    public static final String CONFIG_COMBINE_TEXT_ENTITY_EXTRACTORS = GraphPropertyRunner.class.getName() + ".combineTextEntityExtractors";
+    public static final boolean DEFAULT_COMBINE_TEXT_ENTITY_EXTRACTORS = true;
     private final StatusRepository statusRepository;
     private final AuthorizationRepository authorizationRepository;
     private Graph graph;
     private Authorizations authorizations;
     private List<GraphPropertyThreadedWrapper> workerWrappers = Lists.newArrayList();
+    private volatile GraphPropertyWorkerRoutingIndex routingIndex;
     private User user;
     private UserRepository userRepository;
     private WorkQueueNames workQueueNames;
@@ -134,7 +137,6 @@ public class GraphPropertyRunner extends WorkerBase<GraphPropertyWorkerItem> {
         }
 
         boolean failedToPrepareAtLeastOneGraphPropertyWorker = false;
-        List<GraphPropertyThreadedWrapper> wrappers = Lists.newArrayList();
         for (GraphPropertyWorker worker : workers) {
             try {
                 LOGGER.debug("preparing: %s", worker.getClass().getName());
@@ -143,7 +145,10 @@ public class GraphPropertyRunner extends WorkerBase<GraphPropertyWorkerItem> {
                 LOGGER.error("Could not prepare graph property worker %s", worker.getClass().getName(), ex);
                 failedToPrepareAtLeastOneGraphPropertyWorker = true;
             }
+        }
 
+        List<GraphPropertyThreadedWrapper> wrappers = Lists.newArrayList();
+        for (GraphPropertyWorker worker : combineTextEntityExtractionWorkers(workers)) {
             GraphPropertyThreadedWrapper wrapper = new GraphPropertyThreadedWrapper(worker);
             InjectHelper.inject(wrapper);
             wrappers.add(wrapper);
@@ -162,12 +167,48 @@ public class GraphPropertyRunner extends WorkerBase<GraphPropertyWorkerItem> {
         }
     }
 
+    private Collection<GraphPropertyWorker> combineTextEntityExtractionWorkers(Collection<GraphPropertyWorker> workers) {
+        if (!configuration.getBoolean(CONFIG_COMBINE_TEXT_ENTITY_EXTRACTORS, DEFAULT_COMBINE_TEXT_ENTITY_EXTRACTORS)) {
+            return workers;
+        }
+
+        List<TextEntityExtractionGraphPropertyWorker> textEntityExtractionWorkers = new ArrayList<>();
+        for (GraphPropertyWorker worker : workers) {
+            if (worker instanceof TextEntityExtractionGraphPropertyWorker) {
+                textEntityExtractionWorkers.add((TextEntityExtractionGraphPropertyWorker) worker);
+            }
+        }
+        if (textEntityExtractionWorkers.size() < 2) {
+            return workers;
+        }
+
+        LOGGER.debug("combining text entity extraction workers: %s", textEntityExtractionWorkers);
+        List<GraphPropertyWorker> results = new ArrayList<>();
+        for (GraphPropertyWorker worker : workers) {
+            if (!(worker instanceof TextEntityExtractionGraphPropertyWorker)) {
+                results.add(worker);
+            }
+        }
+        results.add(new CombinedTextEntityExtractionGraphPropertyWorker(textEntityExtractionWorkers));
+        return results;
+    }
+
     public void addGraphPropertyThreadedWrappers(List<GraphPropertyThreadedWrapper> wrappers) {
         this.workerWrappers.addAll(wrappers);
+        this.routingIndex = null;
     }
 
     public void addGraphPropertyThreadedWrappers(GraphPropertyThreadedWrapper... wrappers) {
-        this.workerWrappers.addAll(Lists.newArrayList(wrappers));
+        addGraphPropertyThreadedWrappers(Lists.newArrayList(wrappers));
+    }
+
+    private GraphPropertyWorkerRoutingIndex getRoutingIndex() {
+        GraphPropertyWorkerRoutingIndex index = routingIndex;
+        if (index == null) {
+            index = new GraphPropertyWorkerRoutingIndex(workerWrappers);
+            routingIndex = index;
+        }
+        return index;
     }
 
     private List<TermMentionFilter> loadTermMentionFilters() {
@@ -425,11 +466,39 @@ public class GraphPropertyRunner extends WorkerBase<GraphPropertyWorkerItem> {
 
         lastProcessedPropertyTime.set(System.currentTimeMillis());
 
-        this.graph.flush();
+        if (isFlushDeferred()) {
+            recordPendingWrites(interestedWorkerWrappers.size(), getPropertySize(property));
+        } else {
+            this.graph.flush();
+        }
 
         LOGGER.debug("Completed work on %s", propertyText);
     }
 
+    private long getPropertySize(Property property) {
+        if (property == null) {
+            return 0;
+        }
+        Object value = property.getValue();
+        if (value instanceof StreamingPropertyValue) {
+            return Math.max(0, ((StreamingPropertyValue) value).getLength());
+        }
+        if (value instanceof String) {
+            return ((String) value).length();
+        }
+        return 0;
+    }
+
+    @Override
+    protected boolean isDeferredFlushSupported() {
+        return true;
+    }
+
+    @Override
+    protected void flush() {
+        this.graph.flush();
+    }
+
     private String getPropertyText(Property property) {
         return property == null ? "[none]" : (property.getKey() + ":" + property.getName());
     }
@@ -513,34 +582,83 @@ public class GraphPropertyRunner extends WorkerBase<GraphPropertyWorkerItem> {
             Property property,
             ElementOrPropertyStatus status
     ) {
-        Set<String> graphPropertyWorkerWhiteList = IterableUtils.toSet(VisalloProperties.GRAPH_PROPERTY_WORKER_WHITE_LIST.getPropertyValues(
-                element));
-        Set<String> graphPropertyWorkerBlackList = IterableUtils.toSet(VisalloProperties.GRAPH_PROPERTY_WORKER_BLACK_LIST.getPropertyValues(
-                element));
+        Set<String> graphPropertyWorkerWhiteList = getGraphPropertyWorkerWhiteList(element);
+        Set<String> graphPropertyWorkerBlackList = getGraphPropertyWorkerBlackList(element);
+
+        // deletes, hides and unhides are not covered by the worker interests so they are offered to every worker
+        boolean routed = status != ElementOrPropertyStatus.DELETION
+                && status != ElementOrPropertyStatus.HIDDEN
+                && status != ElementOrPropertyStatus.UNHIDDEN;
+        List<GraphPropertyThreadedWrapper> candidates = routed
+                ? getRoutingIndex().findCandidates(element, property)
+                : workerWrappers;
 
         List<GraphPropertyThreadedWrapper> interestedWorkers = new ArrayList<>();
-        for (GraphPropertyThreadedWrapper wrapper : workerWrappers) {
-            String graphPropertyWorkerName = wrapper.getWorker().getClass().getName();
-            if (graphPropertyWorkerWhiteList.size() > 0 && !graphPropertyWorkerWhiteList.contains(
-                    graphPropertyWorkerName)) {
-                continue;
-            }
-            if (graphPropertyWorkerBlackList.contains(graphPropertyWorkerName)) {
+        for (GraphPropertyThreadedWrapper wrapper : candidates) {
+            GraphPropertyWorker worker = wrapper.getWorker();
+            if (!isWorkerAllowed(graphPropertyWorkerWhiteList, graphPropertyWorkerBlackList, worker)) {
                 continue;
             }
-            GraphPropertyWorker worker = wrapper.getWorker();
             if (status == ElementOrPropertyStatus.DELETION) {
                 addDeletedWorkers(interestedWorkers, worker, wrapper, element, property);
             } else if (status == ElementOrPropertyStatus.HIDDEN) {
                 addHiddenWorkers(interestedWorkers, worker, wrapper, element, property);
             } else if (status == ElementOrPropertyStatus.UNHIDDEN) {
                 addUnhiddenWorkers(interestedWorkers, worker, wrapper, element, property);
-            } else if (worker.isHandled(element, property)) {
-                interestedWorkers.add(wrapper);
+            } else {
+                boolean handled = worker.isHandled(element, property);
+                wrapper.recordRoutingResult(handled);
+                if (handled) {
+                    interestedWorkers.add(wrapper);
+                }
             }
         }
 
-        return interestedWorkers;
+        return removeWorkersNotAcceptingWork(interestedWorkers);
+    }
+
+    private List<GraphPropertyThreadedWrapper> removeWorkersNotAcceptingWork(List<GraphPropertyThreadedWrapper> interestedWorkers) {
+        List<GraphPropertyThreadedWrapper> results = new ArrayList<>(interestedWorkers.size());
+        for (GraphPropertyThreadedWrapper wrapper : interestedWorkers) {
+            if (wrapper.isAcceptingWork()) {
+                results.add(wrapper);
+            } else {
+                LOGGER.debug(
+                        "skipping worker %s, circuit breaker is %s",
+                        wrapper.getWorker().getClass().getName(),
+                        wrapper.getCircuitBreaker().getState()
+                );
+            }
+        }
+        return results;
+    }
+
+    static boolean isWorkerAllowed(Element element, GraphPropertyWorker worker) {
+        return isWorkerAllowed(getGraphPropertyWorkerWhiteList(element), getGraphPropertyWorkerBlackList(element), worker);
+    }
+
+    private static boolean isWorkerAllowed(
+            Set<String> graphPropertyWorkerWhiteList,
+            Set<String> graphPropertyWorkerBlackList,
+            GraphPropertyWorker worker
+    ) {
+        if (worker instanceof CombinedTextEntityExtractionGraphPropertyWorker) {
+            // the combined worker checks the lists for each of its workers
+            return true;
+        }
+        String graphPropertyWorkerName = worker.getClass().getName();
+        if (graphPropertyWorkerWhiteList.size() > 0 && !graphPropertyWorkerWhiteList.contains(graphPropertyWorkerName)) {
+            return false;
+        }
+        return !graphPropertyWorkerBlackList.contains(graphPropertyWorkerName);
+    }
+
+    private static Set<String> getGraphPropertyWorkerWhiteList(Element element) {
+        return IterableUtils.toSet(VisalloProperties.GRAPH_PROPERTY_WORKER_WHITE_LIST.getPropertyValues(element));
+    }
+
+    private static Set<String> getGraphPropertyWorkerBlackList(Element element) {
+        return IterableUtils.toSet(VisalloProperties.GRAPH_PROPERTY_WORKER_BLACK_LIST.getPropertyValues(element));
     }
 
     private void addDeletedWorkers(
@@ -4,6 +4,7 @@ import com.codahale.metrics.Counter;
 import com.codahale.metrics.Timer;
 import com.google.inject.Inject;
 import org.vertexium.Element;
+import org.visallo.core.config.Configuration;
 import org.visallo.core.exception.VisalloException;
 import org.visallo.core.status.MetricsManager;
 import org.visallo.core.status.PausableTimerContext;
@@ -19,12 +20,37 @@ import org.visallo.core.util.VisalloLoggerFactory;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.*;
+import java.util.concurrent.*;
 
+/**
+ * Runs a {@link GraphPropertyWorker} on its own thread.
+ * <p/>
+ * Each execution is given a time budget, which includes the time spent waiting for the bulkhead described below.
+ * When the budget is exceeded the worker thread is interrupted, its
+ * input stream is closed and a {@link GraphPropertyWorkerTimeoutException} result is returned so the runner
+ * can move on. If the worker still hasn't returned after a grace period the execution is abandoned and a
+ * replacement thread takes over the queue. Executions of the same worker class across all runners in the
+ * JVM are limited by a bulkhead, and a {@link GraphPropertyWorkerCircuitBreaker} skips the worker entirely
+ * after repeated timeouts.
+ */
 public class GraphPropertyThreadedWrapper implements Runnable {
     private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(GraphPropertyThreadedWrapper.class);
+    public static final String CONFIG_PREFIX = "graphPropertyWorker.";
+    public static final String CONFIG_EXECUTION_TIMEOUT_MS = "executionTimeoutMs";
+    public static final long DEFAULT_EXECUTION_TIMEOUT_MS = 30 * 60 * 1000;
+    public static final String CONFIG_ABANDON_GRACE_MS = "abandonGraceMs";
+    public static final long DEFAULT_ABANDON_GRACE_MS = 10 * 1000;
+    public static final String CONFIG_MAX_CONCURRENCY = "maxConcurrency";
+    public static final int DEFAULT_MAX_CONCURRENCY = 0;
+    public static final String CONFIG_CIRCUIT_BREAKER_TIMEOUT_THRESHOLD = "circuitBreaker.timeoutThreshold";
+    public static final int DEFAULT_CIRCUIT_BREAKER_TIMEOUT_THRESHOLD = 3;
+    public static final String CONFIG_CIRCUIT_BREAKER_OPEN_DURATION_MS = "circuitBreaker.openDurationMs";
+    public static final long DEFAULT_CIRCUIT_BREAKER_OPEN_DURATION_MS = 5 * 60 * 1000;
     private static final int DEQUEUE_TIMEOUT_MS = 30 * 1000;
     private static final int DEQUEUE_LOG_MESSAGE_FREQUENCY_MS = 10 * 1000;
     private static final int DEQUEUE_WARN_THRESHOLD_MS = 30 * 1000;
+    private static final Map<String, Semaphore> BULKHEADS = new ConcurrentHashMap<>();
+    private static final ScheduledExecutorService WATCHDOG = createWatchdog();
     private final GraphPropertyWorker worker;
 
     public GraphPropertyThreadedWrapper(GraphPropertyWorker worker) {
@@ -34,16 +60,31 @@ public class GraphPropertyThreadedWrapper implements Runnable {
     private Counter totalProcessedCounter = null;
     private Counter processingCounter;
     private Counter totalErrorCounter;
+    private Counter totalTimeoutCounter;
+    private Counter totalAbandonedCounter;
+    private Counter totalSkippedCounter;
+    private Counter totalRejectedCounter;
+    private Counter routingCandidatesCounter;
+    private Counter routingHitsCounter;
     private Timer processingTimeTimer;
-    private boolean stopped;
+    private volatile boolean stopped;
+    private volatile Thread activeThread;
     private final Queue<Work> workItems = new LinkedList<>();
     private final Queue<WorkResult> workResults = new LinkedList<>();
     private MetricsManager metricsManager;
+    private long executionTimeoutMs = DEFAULT_EXECUTION_TIMEOUT_MS;
+    private long abandonGraceMs = DEFAULT_ABANDON_GRACE_MS;
+    private int maxConcurrency = DEFAULT_MAX_CONCURRENCY;
+    private GraphPropertyWorkerCircuitBreaker circuitBreaker = new GraphPropertyWorkerCircuitBreaker(
+            DEFAULT_CIRCUIT_BREAKER_TIMEOUT_THRESHOLD,
+            DEFAULT_CIRCUIT_BREAKER_OPEN_DURATION_MS
+    );
 
     @Override
     public final void run() {
         ensureMetricsInitialized();
 
+        activeThread = Thread.currentThread();
         stopped = false;
         try {
             while (!stopped) {
@@ -55,52 +96,10 @@ public class GraphPropertyThreadedWrapper implements Runnable {
                     }
                     work = workItems.remove();
                 }
-                InputStream in = work.getIn();
-                String workerClassName = this.worker.getClass().getName();
-                Element element = work.getData() == null ? null : work.getData().getElement();
-                String elementId = element == null ? null : element.getId();
-                try {
-                    LOGGER.debug("BEGIN doWork (%s): %s", workerClassName, elementId);
-                    PausableTimerContext timerContext = new PausableTimerContext(processingTimeTimer);
-                    if (in instanceof PausableTimerContextAware) {
-                        ((PausableTimerContextAware) in).setPausableTimerContext(timerContext);
-                    }
-                    processingCounter.inc();
-                    long startTime = System.currentTimeMillis();
-                    TraceSpan traceSpan = startTraceIfEnabled(work, elementId);
-                    try {
-                        this.worker.execute(in, work.getData());
-                    } finally {
-                        stopTraceIfEnabled(work, traceSpan);
-                        long endTime = System.currentTimeMillis();
-                        long time = endTime - startTime;
-                        LOGGER.debug("END doWork (%s): %s (%dms)", workerClassName, elementId, time);
-                        processingCounter.dec();
-                        totalProcessedCounter.inc();
-                        timerContext.stop();
-                    }
-                    synchronized (workResults) {
-                        workResults.add(new WorkResult(null));
-                        workResults.notifyAll();
-                    }
-                } catch (Throwable ex) {
-                    LOGGER.error("failed to complete work (%s): %s", workerClassName, elementId, ex);
-                    totalErrorCounter.inc();
-                    synchronized (workResults) {
-                        workResults.add(new WorkResult(ex));
-                        workResults.notifyAll();
-                    }
-                } finally {
-                    try {
-                        if (in != null) {
-                            in.close();
-                        }
-                    } catch (IOException ex) {
-                        synchronized (workResults) {
-                            workResults.add(new WorkResult(ex));
-                            workResults.notifyAll();
-                        }
-                    }
+                doWork(work);
+                if (activeThread != Thread.currentThread()) {
+                    LOGGER.warn("abandoned thread for worker %s has finished", worker.getClass().getName());
+                    return;
                 }
             }
         } catch (InterruptedException ex) {
@@ -108,6 +107,147 @@ public class GraphPropertyThreadedWrapper implements Runnable {
         }
     }
 
+    private void doWork(Work work) throws InterruptedException {
+        InputStream in = work.getIn();
+        String workerClassName = this.worker.getClass().getName();
+        Element element = work.getData() == null ? null : work.getData().getElement();
+        String elementId = element == null ? null : element.getId();
+        Semaphore bulkhead = getBulkhead();
+        long acquireStartTime = System.currentTimeMillis();
+        if (bulkhead != null && !bulkhead.tryAcquire(getExecutionTimeoutOrDefault(), TimeUnit.MILLISECONDS)) {
+            LOGGER.warn("rejected work (%s): %s, too many concurrent executions", workerClassName, elementId);
+            totalRejectedCounter.inc();
+            circuitBreaker.recordRejected();
+            closeQuietly(in);
+            addWorkResult(new WorkResult(new VisalloException("Too many concurrent executions of worker " + workerClassName)));
+            return;
+        }
+        ScheduledFuture<?> timeoutFuture = null;
+        try {
+            LOGGER.debug("BEGIN doWork (%s): %s", workerClassName, elementId);
+            PausableTimerContext timerContext = new PausableTimerContext(processingTimeTimer);
+            if (in instanceof PausableTimerContextAware) {
+                ((PausableTimerContextAware) in).setPausableTimerContext(timerContext);
+            }
+            processingCounter.inc();
+            long startTime = System.currentTimeMillis();
+            TraceSpan traceSpan = startTraceIfEnabled(work, elementId);
+            work.start(Thread.currentThread());
+            if (executionTimeoutMs > 0) {
+                long remainingTimeoutMs = Math.max(0, executionTimeoutMs - (startTime - acquireStartTime));
+                timeoutFuture = WATCHDOG.schedule(() -> onTimeout(work, elementId), remainingTimeoutMs, TimeUnit.MILLISECONDS);
+            }
+            try {
+                this.worker.execute(in, work.getData());
+            } finally {
+                if (timeoutFuture != null) {
+                    timeoutFuture.cancel(false);
+                }
+                stopTraceIfEnabled(work, traceSpan);
+                long endTime = System.currentTimeMillis();
+                long time = endTime - startTime;
+                LOGGER.debug("END doWork (%s): %s (%dms)", workerClassName, elementId, time);
+                processingCounter.dec();
+                totalProcessedCounter.inc();
+                timerContext.stop();
+            }
+            if (work.finish()) {
+                circuitBreaker.recordSuccess();
+                addWorkResult(new WorkResult(null));
+            }
+        } catch (Throwable ex) {
+            if (work.finish()) {
+                circuitBreaker.recordFailure();
+                LOGGER.error("failed to complete work (%s): %s", workerClassName, elementId, ex);
+                totalErrorCounter.inc();
+                addWorkResult(new WorkResult(ex));
+            } else {
+                LOGGER.warn("timed out work (%s): %s finished with error", workerClassName, elementId, ex);
+            }
+        } finally {
+            if (bulkhead != null) {
+                bulkhead.release();
+            }
+            // clear any interrupt left over from a timeout so it doesn't affect the next piece of work
+            Thread.interrupted();
+            // the result of the work was already added, a failure to close the stream must not add another one
+            closeQuietly(in);
+        }
+    }
+
+    private void onTimeout(Work work, String elementId) {
+        Thread thread = work.timeout();
+        if (thread == null) {
+            return;
+        }
+        LOGGER.warn(
+                "worker %s exceeded its execution budget of %dms on %s, interrupted",
+                worker.getClass().getName(),
+                executionTimeoutMs,
+                elementId
+        );
+        totalTimeoutCounter.inc();
+        circuitBreaker.recordTimeout();
+        closeQuietly(work.getIn());
+        addWorkResult(new WorkResult(new GraphPropertyWorkerTimeoutException(
+                "Worker " + worker.getClass().getName() + " exceeded its execution budget of " + executionTimeoutMs + "ms on " + elementId
+        )));
+        WATCHDOG.schedule(() -> abandonIfStillRunning(work, elementId), abandonGraceMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void abandonIfStillRunning(Work work, String elementId) {
+        Thread thread = work.abandon();
+        if (thread == null) {
+            return;
+        }
+        LOGGER.error(
+                "worker %s did not respond to interrupt on %s, abandoning thread %s",
+                worker.getClass().getName(),
+                elementId,
+                thread.getName()
+        );
+        totalAbandonedCounter.inc();
+        synchronized (workItems) {
+            if (stopped || activeThread != thread) {
+                return;
+            }
+            Thread replacementThread = new Thread(this);
+            replacementThread.setName(thread.getName());
+            replacementThread.setDaemon(thread.isDaemon());
+            activeThread = replacementThread;
+            replacementThread.start();
+        }
+    }
+
+    private void addWorkResult(WorkResult workResult) {
+        synchronized (workResults) {
+            workResults.add(workResult);
+            workResults.notifyAll();
+        }
+    }
+
+    private static void closeQuietly(InputStream in) {
+        if (in == null) {
+            return;
+        }
+        try {
+            in.close();
+        } catch (IOException ex) {
+            LOGGER.debug("could not close input stream", ex);
+        }
+    }
+
+    private Semaphore getBulkhead() {
+        if (maxConcurrency <= 0) {
+            return null;
+        }
+        return BULKHEADS.computeIfAbsent(worker.getClass().getName(), name -> new Semaphore(maxConcurrency));
+    }
+
+    private long getExecutionTimeoutOrDefault() {
+        return executionTimeoutMs > 0 ? executionTimeoutMs : DEFAULT_EXECUTION_TIMEOUT_MS;
+    }
+
     private void stopTraceIfEnabled(Work work, TraceSpan traceSpan) {
         if (work.getData().isTraceEnabled()) {
             if (traceSpan != null) {
@@ -127,16 +267,45 @@ public class GraphPropertyThreadedWrapper implements Runnable {
         return traceSpan;
     }
 
-    private void ensureMetricsInitialized() {
+    private synchronized void ensureMetricsInitialized() {
         if (totalProcessedCounter == null) {
             String namePrefix = metricsManager.getNamePrefix(this.worker);
             totalProcessedCounter = metricsManager.counter(namePrefix + "total-processed");
             processingCounter = metricsManager.counter(namePrefix + "processing");
             totalErrorCounter = metricsManager.counter(namePrefix + "total-errors");
+            totalTimeoutCounter = metricsManager.counter(namePrefix + "total-timeouts");
+            totalAbandonedCounter = metricsManager.counter(namePrefix + "total-abandoned");
+            totalSkippedCounter = metricsManager.counter(namePrefix + "total-skipped");
+            totalRejectedCounter = metricsManager.counter(namePrefix + "total-rejected");
+            routingCandidatesCounter = metricsManager.counter(namePrefix + "routing-candidates");
+            routingHitsCounter = metricsManager.counter(namePrefix + "routing-hits");
             processingTimeTimer = metricsManager.timer(namePrefix + "processing-time");
         }
     }
 
+    /**
+     * Checks the circuit breaker to see if work should be sent to this worker.
+     */
+    public boolean isAcceptingWork() {
+        if (circuitBreaker.allowExecution()) {
+            return true;
+        }
+        ensureMetricsInitialized();
+        totalSkippedCounter.inc();
+        return false;
+    }
+
+    /**
+     * Records the result of asking the worker if it handles a message the routing index selected it for.
+     */
+    public void recordRoutingResult(boolean handled) {
+        ensureMetricsInitialized();
+        routingCandidatesCounter.inc();
+        if (handled) {
+            routingHitsCounter.inc();
+        }
+    }
+
     public void enqueueWork(InputStream in, GraphPropertyWorkData data) {
         synchronized (workItems) {
             workItems.add(new Work(in, data));
@@ -145,11 +314,14 @@ public class GraphPropertyThreadedWrapper implements Runnable {
     }
 
     public WorkResult dequeueResult(boolean waitForever) {
+        long dequeueTimeout = executionTimeoutMs > 0
+                ? Math.max(DEQUEUE_TIMEOUT_MS, executionTimeoutMs + abandonGraceMs)
+                : DEQUEUE_TIMEOUT_MS;
         synchronized (workResults) {
             if (workResults.size() == 0) {
                 Date startTime = new Date();
                 Date lastMessageTime = new Date();
-                while (workResults.size() == 0 && (waitForever || (getElapsedTime(startTime) < DEQUEUE_TIMEOUT_MS))) {
+                while (workResults.size() == 0 && (waitForever || (getElapsedTime(startTime) < dequeueTimeout))) {
                     try {
                         if (getElapsedTime(lastMessageTime) > DEQUEUE_LOG_MESSAGE_FREQUENCY_MS) {
                             String message = String.format(
@@ -188,19 +360,49 @@ public class GraphPropertyThreadedWrapper implements Runnable {
         return worker;
     }
 
+    public GraphPropertyWorkerCircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
     public GraphPropertyRunnerStatus.GraphPropertyWorkerStatus getStatus() {
+        ensureMetricsInitialized();
         GraphPropertyRunnerStatus.GraphPropertyWorkerStatus status = new GraphPropertyRunnerStatus.GraphPropertyWorkerStatus();
         StatusServer.getGeneralInfo(status, this.worker.getClass());
         status.getMetrics().put("totalProcessed", Status.Metric.create(totalProcessedCounter));
         status.getMetrics().put("processing", Status.Metric.create(processingCounter));
         status.getMetrics().put("totalErrors", Status.Metric.create(totalErrorCounter));
+        status.getMetrics().put("totalTimeouts", Status.Metric.create(totalTimeoutCounter));
+        status.getMetrics().put("totalAbandoned", Status.Metric.create(totalAbandonedCounter));
+        status.getMetrics().put("totalSkipped", Status.Metric.create(totalSkippedCounter));
+        status.getMetrics().put("totalRejected", Status.Metric.create(totalRejectedCounter));
+        status.getMetrics().put("routingCandidates", Status.Metric.create(routingCandidatesCounter));
+        status.getMetrics().put("routingHits", Status.Metric.create(routingHitsCounter));
         status.getMetrics().put("processingTime", Status.Metric.create(processingTimeTimer));
+        status.setExecutionTimeoutMs(executionTimeoutMs);
+        status.setMaxConcurrency(maxConcurrency);
+        status.setCircuitBreakerState(circuitBreaker.getState().name());
+        long routingCandidates = routingCandidatesCounter.getCount();
+        status.setRoutingHitRate(routingCandidates == 0 ? 0.0 : (double) routingHitsCounter.getCount() / routingCandidates);
+        GraphPropertyWorkerInterest interest = worker.getInterest();
+        status.setInterest(interest == null ? null : interest.toString());
         return status;
     }
 
-    private class Work {
+    private static ScheduledExecutorService createWatchdog() {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "graphPropertyWorkerWatchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
+    }
+
+    private static class Work {
         private final InputStream in;
         private final GraphPropertyWorkData data;
+        private WorkState state = WorkState.QUEUED;
+        private Thread thread;
 
         public Work(InputStream in, GraphPropertyWorkData data) {
             this.in = in;
@@ -214,6 +416,54 @@ public class GraphPropertyThreadedWrapper implements Runnable {
         private GraphPropertyWorkData getData() {
             return data;
         }
+
+        private synchronized void start(Thread thread) {
+            this.thread = thread;
+            this.state = WorkState.RUNNING;
+        }
+
+        /**
+         * @return true if the work finished before it timed out
+         */
+        private synchronized boolean finish() {
+            boolean finishedInTime = state == WorkState.RUNNING || state == WorkState.QUEUED;
+            state = WorkState.FINISHED;
+            return finishedInTime;
+        }
+
+        /**
+         * Interrupts the thread running the work unless it has already finished. The interrupt happens while
+         * holding the lock so that it can never leak into the next piece of work.
+         *
+         * @return the interrupted thread or null if the work already finished
+         */
+        private synchronized Thread timeout() {
+            if (state != WorkState.RUNNING) {
+                return null;
+            }
+            state = WorkState.TIMED_OUT;
+            thread.interrupt();
+            return thread;
+        }
+
+        /**
+         * @return the thread being abandoned or null if the work finished after it was interrupted
+         */
+        private synchronized Thread abandon() {
+            if (state != WorkState.TIMED_OUT) {
+                return null;
+            }
+            state = WorkState.ABANDONED;
+            return thread;
+        }
+    }
+
+    private enum WorkState {
+        QUEUED,
+        RUNNING,
+        TIMED_OUT,
+        ABANDONED,
+        FINISHED
     }
 
     public static class WorkResult {
@@ -233,6 +483,28 @@ public class GraphPropertyThreadedWrapper implements Runnable {
         this.metricsManager = metricsManager;
     }
 
+    @Inject
+    public void setConfiguration(Configuration configuration) {
+        String workerPrefix = worker.getClass().getName() + ".";
+        this.executionTimeoutMs = getLong(configuration, workerPrefix, CONFIG_EXECUTION_TIMEOUT_MS, DEFAULT_EXECUTION_TIMEOUT_MS);
+        this.abandonGraceMs = getLong(configuration, workerPrefix, CONFIG_ABANDON_GRACE_MS, DEFAULT_ABANDON_GRACE_MS);
+        this.maxConcurrency = (int) getLong(configuration, workerPrefix, CONFIG_MAX_CONCURRENCY, DEFAULT_MAX_CONCURRENCY);
+        this.circuitBreaker = new GraphPropertyWorkerCircuitBreaker(
+                (int) getLong(configuration, workerPrefix, CONFIG_CIRCUIT_BREAKER_TIMEOUT_THRESHOLD, DEFAULT_CIRCUIT_BREAKER_TIMEOUT_THRESHOLD),
+                getLong(configuration, workerPrefix, CONFIG_CIRCUIT_BREAKER_OPEN_DURATION_MS, DEFAULT_CIRCUIT_BREAKER_OPEN_DURATION_MS)
+        );
+    }
+
+    /**
+     * Worker specific settings (ie com.example.MyWorker.executionTimeoutMs) override the
+     * graphPropertyWorker.* defaults.
+     */
+    private static long getLong(Configuration configuration, String workerPrefix, String name, long defaultValue) {
+        Long globalValue = configuration.getLong(CONFIG_PREFIX + name, defaultValue);
+        Long value = configuration.getLong(workerPrefix + name, globalValue == null ? defaultValue : globalValue);
+        return value == null ? defaultValue : value;
+    }
+
     @Override
     public String toString() {
         return "GraphPropertyThreadedWrapper{" +
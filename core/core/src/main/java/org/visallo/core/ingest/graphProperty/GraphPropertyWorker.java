@@ -65,6 +65,15 @@ public abstract class GraphPropertyWorker {
 
     public abstract boolean isHandled(Element element, Property property);
 
+    /**
+     * Optionally narrows the messages for which {@link #isHandled(Element, Property)} is called. The interest is
+     * read once after {@link #prepare(GraphPropertyWorkerPrepareData)}, returning null means
+     * {@link #isHandled(Element, Property)} is called for every message.
+     */
+    public GraphPropertyWorkerInterest getInterest() {
+        return null;
+    }
+
     public boolean isDeleteHandled(Element element, Property property) {
         return false;
     }
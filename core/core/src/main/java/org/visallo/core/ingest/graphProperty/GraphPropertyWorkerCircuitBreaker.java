@@ -0,0 +1,76 @@
+package org.visallo.core.ingest.graphProperty;
+
+/**
+ * Stops sending work to a graph property worker after it has repeatedly exceeded its execution budget.
+ * <p/>
+ * After {@code timeoutThreshold} consecutive timeouts the breaker opens and the worker is skipped for
+ * {@code openDurationMs}. The next piece of work after that is a trial run, finishing within the budget closes the
+ * breaker, with or without an error, and another timeout opens it again. A trial which never ran leaves the breaker
+ * open so the next piece of work is tried instead.
+ */
+public class GraphPropertyWorkerCircuitBreaker {
+    private final int timeoutThreshold;
+    private final long openDurationMs;
+    private State state = State.CLOSED;
+    private int consecutiveTimeouts;
+    private long openedTime;
+
+    public GraphPropertyWorkerCircuitBreaker(int timeoutThreshold, long openDurationMs) {
+        this.timeoutThreshold = timeoutThreshold;
+        this.openDurationMs = openDurationMs;
+    }
+
+    public synchronized boolean allowExecution() {
+        if (state == State.OPEN && System.currentTimeMillis() - openedTime >= openDurationMs) {
+            state = State.HALF_OPEN;
+            return true;
+        }
+        return state == State.CLOSED;
+    }
+
+    public synchronized void recordSuccess() {
+        consecutiveTimeouts = 0;
+        state = State.CLOSED;
+    }
+
+    /**
+     * The work failed within its budget, which is not a timeout so the worker is treated as responsive.
+     */
+    public synchronized void recordFailure() {
+        recordSuccess();
+    }
+
+    /**
+     * The work was allowed but never ran, a trial run is handed to the next piece of work.
+     */
+    public synchronized void recordRejected() {
+        if (state == State.HALF_OPEN) {
+            state = State.OPEN;
+        }
+    }
+
+    public synchronized void recordTimeout() {
+        consecutiveTimeouts++;
+        if (timeoutThreshold <= 0) {
+            return;
+        }
+        if (state == State.HALF_OPEN || consecutiveTimeouts >= timeoutThreshold) {
+            state = State.OPEN;
+            openedTime = System.currentTimeMillis();
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized int getConsecutiveTimeouts() {
+        return consecutiveTimeouts;
+    }
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+}
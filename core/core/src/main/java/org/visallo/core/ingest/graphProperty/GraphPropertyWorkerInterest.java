@@ -0,0 +1,175 @@
+package org.visallo.core.ingest.graphProperty;
+
+import com.google.common.collect.ImmutableSet;
+import org.vertexium.Property;
+import org.visallo.core.model.properties.VisalloProperties;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Static description of the messages a {@link GraphPropertyWorker} could be interested in.
+ * <p/>
+ * The {@link GraphPropertyRunner} uses the interests of all the workers to build a routing index so that
+ * {@link GraphPropertyWorker#isHandled(org.vertexium.Element, Property)} is only called on workers which
+ * could handle the property. An interest must never exclude something the worker's {@code isHandled} accepts.
+ * A {@code null} set of property names, concept IRIs or MIME type prefixes matches anything.
+ */
+public class GraphPropertyWorkerInterest {
+    private final boolean elementMessages;
+    private final boolean propertyMessages;
+    private final Set<String> propertyNames;
+    private final Set<String> conceptIris;
+    private final Set<String> mimeTypePrefixes;
+
+    private GraphPropertyWorkerInterest(
+            boolean elementMessages,
+            boolean propertyMessages,
+            Set<String> propertyNames,
+            Set<String> conceptIris,
+            Set<String> mimeTypePrefixes
+    ) {
+        this.elementMessages = elementMessages;
+        this.propertyMessages = propertyMessages;
+        this.propertyNames = propertyNames;
+        this.conceptIris = conceptIris;
+        this.mimeTypePrefixes = mimeTypePrefixes;
+    }
+
+    /**
+     * Interested only in messages for the element itself (the property passed to the worker is null).
+     */
+    public static GraphPropertyWorkerInterest elementOnly() {
+        return new GraphPropertyWorkerInterest(true, false, null, null, null);
+    }
+
+    /**
+     * Interested in properties with any name.
+     */
+    public static GraphPropertyWorkerInterest anyProperty() {
+        return new GraphPropertyWorkerInterest(false, true, null, null, null);
+    }
+
+    /**
+     * Interested in properties with one of the given names.
+     */
+    public static GraphPropertyWorkerInterest properties(String... propertyNames) {
+        return properties(ImmutableSet.copyOf(propertyNames));
+    }
+
+    public static GraphPropertyWorkerInterest properties(Collection<String> propertyNames) {
+        return new GraphPropertyWorkerInterest(false, true, ImmutableSet.copyOf(propertyNames), null, null);
+    }
+
+    /**
+     * Also interested in messages for the element itself.
+     */
+    public GraphPropertyWorkerInterest withElementMessages() {
+        return new GraphPropertyWorkerInterest(true, propertyMessages, propertyNames, conceptIris, mimeTypePrefixes);
+    }
+
+    /**
+     * Restricts the interest to vertices with one of the given concept types.
+     */
+    public GraphPropertyWorkerInterest withConceptIris(String... conceptIris) {
+        return new GraphPropertyWorkerInterest(elementMessages, propertyMessages, propertyNames, ImmutableSet.copyOf(conceptIris), mimeTypePrefixes);
+    }
+
+    /**
+     * Restricts the interest to properties whose {@link VisalloProperties#MIME_TYPE} metadata starts with one of
+     * the given prefixes.
+     */
+    public GraphPropertyWorkerInterest withMimeTypePrefixes(String... mimeTypePrefixes) {
+        return new GraphPropertyWorkerInterest(elementMessages, propertyMessages, propertyNames, conceptIris, ImmutableSet.copyOf(mimeTypePrefixes));
+    }
+
+    /**
+     * Creates an interest which matches everything matched by any of the given interests. A {@code null} interest
+     * matches everything.
+     */
+    public static GraphPropertyWorkerInterest union(List<GraphPropertyWorkerInterest> interests) {
+        boolean elementMessages = false;
+        boolean propertyMessages = false;
+        Set<String> propertyNames = new HashSet<>();
+        Set<String> conceptIris = new HashSet<>();
+        Set<String> mimeTypePrefixes = new HashSet<>();
+        for (GraphPropertyWorkerInterest interest : interests) {
+            if (interest == null) {
+                return null;
+            }
+            elementMessages |= interest.elementMessages;
+            propertyMessages |= interest.propertyMessages;
+            propertyNames = unionOf(propertyNames, interest.propertyNames);
+            conceptIris = unionOf(conceptIris, interest.conceptIris);
+            mimeTypePrefixes = unionOf(mimeTypePrefixes, interest.mimeTypePrefixes);
+        }
+        return new GraphPropertyWorkerInterest(
+                elementMessages,
+                propertyMessages,
+                propertyNames == null ? null : ImmutableSet.copyOf(propertyNames),
+                conceptIris == null ? null : ImmutableSet.copyOf(conceptIris),
+                mimeTypePrefixes == null ? null : ImmutableSet.copyOf(mimeTypePrefixes)
+        );
+    }
+
+    private static Set<String> unionOf(Set<String> values, Set<String> otherValues) {
+        if (values == null || otherValues == null) {
+            return null;
+        }
+        values.addAll(otherValues);
+        return values;
+    }
+
+    public boolean isElementMessages() {
+        return elementMessages;
+    }
+
+    public boolean isPropertyMessages() {
+        return propertyMessages;
+    }
+
+    public Set<String> getPropertyNames() {
+        return propertyNames;
+    }
+
+    public Set<String> getConceptIris() {
+        return conceptIris;
+    }
+
+    public Set<String> getMimeTypePrefixes() {
+        return mimeTypePrefixes;
+    }
+
+    public boolean isConceptTypeMatch(String conceptType) {
+        return conceptIris == null || (conceptType != null && conceptIris.contains(conceptType));
+    }
+
+    public boolean isMimeTypeMatch(Property property) {
+        if (mimeTypePrefixes == null || property == null) {
+            return true;
+        }
+        Object mimeType = property.getMetadata().getValue(VisalloProperties.MIME_TYPE.getPropertyName());
+        if (!(mimeType instanceof String)) {
+            return false;
+        }
+        for (String mimeTypePrefix : mimeTypePrefixes) {
+            if (((String) mimeType).startsWith(mimeTypePrefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "GraphPropertyWorkerInterest{" +
+                "elementMessages=" + elementMessages +
+                ", propertyMessages=" + propertyMessages +
+                ", propertyNames=" + propertyNames +
+                ", conceptIris=" + conceptIris +
+                ", mimeTypePrefixes=" + mimeTypePrefixes +
+                '}';
+    }
+}
@@ -0,0 +1,96 @@
+package org.visallo.core.ingest.graphProperty;
+
+import org.vertexium.Element;
+import org.vertexium.Property;
+import org.vertexium.Vertex;
+import org.visallo.core.model.properties.VisalloProperties;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Precomputed lookup of the workers which could be interested in a property, based on each worker's
+ * {@link GraphPropertyWorker#getInterest()}. Candidates are returned in the same order as the wrappers
+ * the index was built from.
+ */
+class GraphPropertyWorkerRoutingIndex {
+    private final List<Route> routes;
+    private final List<Route> elementRoutes;
+    private final Map<String, List<Route>> routesByPropertyName = new ConcurrentHashMap<>();
+
+    GraphPropertyWorkerRoutingIndex(List<GraphPropertyThreadedWrapper> wrappers) {
+        List<Route> routes = new ArrayList<>(wrappers.size());
+        List<Route> elementRoutes = new ArrayList<>();
+        for (GraphPropertyThreadedWrapper wrapper : wrappers) {
+            Route route = new Route(wrapper, wrapper.getWorker().getInterest());
+            routes.add(route);
+            if (route.interest == null || route.interest.isElementMessages()) {
+                elementRoutes.add(route);
+            }
+        }
+        this.routes = Collections.unmodifiableList(routes);
+        this.elementRoutes = Collections.unmodifiableList(elementRoutes);
+    }
+
+    List<GraphPropertyThreadedWrapper> findCandidates(Element element, Property property) {
+        List<Route> routes = property == null
+                ? elementRoutes
+                : routesByPropertyName.computeIfAbsent(property.getName(), this::findPropertyRoutes);
+
+        List<GraphPropertyThreadedWrapper> candidates = new ArrayList<>(routes.size());
+        String conceptType = null;
+        boolean conceptTypeLoaded = false;
+        for (Route route : routes) {
+            GraphPropertyWorkerInterest interest = route.interest;
+            if (interest != null) {
+                if (interest.getConceptIris() != null) {
+                    if (!conceptTypeLoaded) {
+                        conceptType = getConceptType(element);
+                        conceptTypeLoaded = true;
+                    }
+                    if (!interest.isConceptTypeMatch(conceptType)) {
+                        continue;
+                    }
+                }
+                if (!interest.isMimeTypeMatch(property)) {
+                    continue;
+                }
+            }
+            candidates.add(route.wrapper);
+        }
+        return candidates;
+    }
+
+    private List<Route> findPropertyRoutes(String propertyName) {
+        List<Route> results = new ArrayList<>();
+        for (Route route : routes) {
+            GraphPropertyWorkerInterest interest = route.interest;
+            if (interest == null
+                    || (interest.isPropertyMessages()
+                    && (interest.getPropertyNames() == null || interest.getPropertyNames().contains(propertyName)))) {
+                results.add(route);
+            }
+        }
+        return Collections.unmodifiableList(results);
+    }
+
+    private static String getConceptType(Element element) {
+        if (!(element instanceof Vertex)) {
+            return null;
+        }
+        return VisalloProperties.CONCEPT_TYPE.getPropertyValue(element);
+    }
+
+    private static class Route {
+        private final GraphPropertyThreadedWrapper wrapper;
+        private final GraphPropertyWorkerInterest interest;
+
+        private Route(GraphPropertyThreadedWrapper wrapper, GraphPropertyWorkerInterest interest) {
+            this.wrapper = wrapper;
+            this.interest = interest;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package org.visallo.core.ingest.graphProperty;
+
+import org.visallo.core.exception.VisalloException;
+
+public class GraphPropertyWorkerTimeoutException extends VisalloException {
+    private static final long serialVersionUID = 4181695325237491066L;
+
+    public GraphPropertyWorkerTimeoutException(String message) {
+        super(message);
+    }
+}
@@ -62,6 +62,11 @@ public abstract class MimeTypeGraphPropertyWorker extends GraphPropertyWorker {
         return configuration.isHandled(element, property);
     }
 
+    @Override
+    public GraphPropertyWorkerInterest getInterest() {
+        return GraphPropertyWorkerInterest.properties(configuration.getHandledPropertyNames());
+    }
+
     @Override
     public void execute(InputStream in, GraphPropertyWorkData data) throws Exception {
         String fileName = VisalloProperties.FILE_NAME.getOnlyPropertyValue(data.getElement());
@@ -25,6 +25,10 @@ public class MimeTypeGraphPropertyWorkerConfiguration {
         handledPropertyNames.add(VisalloProperties.RAW.getPropertyName());
     }
 
+    public Set<String> getHandledPropertyNames() {
+        return handledPropertyNames;
+    }
+
     public boolean isHandled(Element element, Property property) {
         return handledPropertyNames.contains(property.getName());
     }
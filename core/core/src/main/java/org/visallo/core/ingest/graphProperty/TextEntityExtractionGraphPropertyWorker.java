@@ -0,0 +1,119 @@
+package org.visallo.core.ingest.graphProperty;
+
+import com.google.common.base.Charsets;
+import org.vertexium.Element;
+import org.vertexium.Property;
+import org.vertexium.Vertex;
+import org.visallo.core.ingest.graphProperty.extraction.TextEntityExtractionEngine;
+import org.visallo.core.ingest.graphProperty.extraction.TextEntityExtractor;
+import org.visallo.core.model.termMention.TermMentionBuilder;
+import org.visallo.core.util.VisalloLogger;
+import org.visallo.core.util.VisalloLoggerFactory;
+import org.visallo.web.clientapi.model.VisibilityJson;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Base class for workers which create term mentions from entities found in text properties.
+ * <p/>
+ * Workers extending this class only provide a {@link TextEntityExtractor}. When more than one of them is
+ * interested in the same property the {@link GraphPropertyRunner} runs them together through
+ * {@link CombinedTextEntityExtractionGraphPropertyWorker} so the text is only read and scanned once.
+ */
+public abstract class TextEntityExtractionGraphPropertyWorker extends GraphPropertyWorker {
+    private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(TextEntityExtractionGraphPropertyWorker.class);
+    private TextEntityExtractionEngine engine;
+
+    /**
+     * Called after {@link #prepare(GraphPropertyWorkerPrepareData)}.
+     */
+    protected abstract TextEntityExtractor getTextEntityExtractor();
+
+    protected VisibilityJson getTermMentionVisibilityJson(GraphPropertyWorkData data) {
+        return data.getVisibilityJson();
+    }
+
+    @Override
+    public void execute(InputStream in, GraphPropertyWorkData data) throws Exception {
+        List<TextEntityExtractionGraphPropertyWorker> workers = new ArrayList<>();
+        workers.add(this);
+        if (engine == null) {
+            engine = new TextEntityExtractionEngine(createExtractors(workers));
+        }
+        extractTermMentions(workers, engine, in, data);
+    }
+
+    @Override
+    public boolean isHandled(Element element, Property property) {
+        return isTextProperty(property);
+    }
+
+    @Override
+    public GraphPropertyWorkerInterest getInterest() {
+        return GraphPropertyWorkerInterest.anyProperty().withMimeTypePrefixes("text");
+    }
+
+    static List<TextEntityExtractor> createExtractors(List<TextEntityExtractionGraphPropertyWorker> workers) {
+        List<TextEntityExtractor> extractors = new ArrayList<>(workers.size());
+        for (TextEntityExtractionGraphPropertyWorker worker : workers) {
+            extractors.add(worker.getTextEntityExtractor());
+        }
+        return extractors;
+    }
+
+    /**
+     * Runs the engine over the text once and saves the term mentions of all the workers in a single batch.
+     * The engine's extractors must be in the same order as the workers.
+     */
+    static void extractTermMentions(
+            List<TextEntityExtractionGraphPropertyWorker> workers,
+            TextEntityExtractionEngine engine,
+            InputStream in,
+            GraphPropertyWorkData data
+    ) throws Exception {
+        TextEntityExtractionGraphPropertyWorker firstWorker = workers.get(0);
+        Vertex outVertex = (Vertex) data.getElement();
+        Map<TextEntityExtractor, TextEntityExtractionGraphPropertyWorker> workersByExtractor = new HashMap<>();
+        Map<TextEntityExtractionGraphPropertyWorker, VisibilityJson> visibilityJsonByWorker = new HashMap<>();
+        for (int i = 0; i < workers.size(); i++) {
+            TextEntityExtractionGraphPropertyWorker worker = workers.get(i);
+            workersByExtractor.put(engine.getExtractors().get(i), worker);
+            visibilityJsonByWorker.put(worker, worker.getTermMentionVisibilityJson(data));
+        }
+
+        List<TermMentionBuilder> termMentionBuilders = new ArrayList<>();
+        try (Reader reader = new BufferedReader(new InputStreamReader(in, Charsets.UTF_8))) {
+            engine.extract(reader, (extractor, match) -> {
+                TextEntityExtractionGraphPropertyWorker worker = workersByExtractor.get(extractor);
+                termMentionBuilders.add(new TermMentionBuilder()
+                        .outVertex(outVertex)
+                        .propertyKey(data.getProperty().getKey())
+                        .propertyName(data.getProperty().getName())
+                        .start(match.getStart())
+                        .end(match.getEnd())
+                        .title(match.getTitle())
+                        .conceptIri(extractor.getConceptIri())
+                        .visibilityJson(visibilityJsonByWorker.get(worker))
+                        .process(worker.getClass().getName()));
+            });
+        }
+        LOGGER.debug("Extracted %d term mentions from %s", termMentionBuilders.size(), outVertex.getId());
+
+        List<Vertex> termMentions = TermMentionBuilder.saveAll(
+                termMentionBuilders,
+                firstWorker.getGraph(),
+                firstWorker.getVisibilityTranslator(),
+                firstWorker.getUser(),
+                firstWorker.getAuthorizations()
+        );
+        firstWorker.applyTermMentionFilters(outVertex, termMentions);
+        firstWorker.pushTextUpdated(data);
+    }
+}
@@ -0,0 +1,94 @@
+package org.visallo.core.ingest.graphProperty.extraction;
+
+import java.util.*;
+
+/**
+ * Finds every occurrence of a fixed set of literal keywords in a single pass over the text.
+ */
+public class AhoCorasickMatcher {
+    private final List<String> keywords;
+    private final List<Node> nodes = new ArrayList<>();
+
+    public AhoCorasickMatcher(List<String> keywords) {
+        this.keywords = Collections.unmodifiableList(new ArrayList<>(keywords));
+        nodes.add(new Node());
+        for (int i = 0; i < this.keywords.size(); i++) {
+            addKeyword(this.keywords.get(i), i);
+        }
+        buildFailureLinks();
+    }
+
+    public List<String> getKeywords() {
+        return keywords;
+    }
+
+    /**
+     * Scans {@code text} between {@code from} (inclusive) and {@code to} (exclusive) and reports each keyword
+     * occurrence that starts at or after {@code from}. Occurrences are reported in order of their end offset.
+     */
+    public void scan(CharSequence text, int from, int to, MatchHandler handler) {
+        int state = 0;
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            while (state != 0 && !nodes.get(state).children.containsKey(c)) {
+                state = nodes.get(state).failure;
+            }
+            Integer next = nodes.get(state).children.get(c);
+            state = next == null ? 0 : next;
+            for (int keywordIndex : nodes.get(state).outputs) {
+                int start = i + 1 - keywords.get(keywordIndex).length();
+                handler.onMatch(keywordIndex, start);
+            }
+        }
+    }
+
+    private void addKeyword(String keyword, int keywordIndex) {
+        int state = 0;
+        for (int i = 0; i < keyword.length(); i++) {
+            char c = keyword.charAt(i);
+            Integer next = nodes.get(state).children.get(c);
+            if (next == null) {
+                next = nodes.size();
+                nodes.add(new Node());
+                nodes.get(state).children.put(c, next);
+            }
+            state = next;
+        }
+        nodes.get(state).outputs.add(keywordIndex);
+    }
+
+    private void buildFailureLinks() {
+        Queue<Integer> queue = new LinkedList<>();
+        for (int child : nodes.get(0).children.values()) {
+            nodes.get(child).failure = 0;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.remove();
+            Node node = nodes.get(state);
+            for (Map.Entry<Character, Integer> entry : node.children.entrySet()) {
+                char c = entry.getKey();
+                int child = entry.getValue();
+                int failure = node.failure;
+                while (failure != 0 && !nodes.get(failure).children.containsKey(c)) {
+                    failure = nodes.get(failure).failure;
+                }
+                Integer failureTarget = nodes.get(failure).children.get(c);
+                Node childNode = nodes.get(child);
+                childNode.failure = failureTarget == null || failureTarget == child ? 0 : failureTarget;
+                childNode.outputs.addAll(nodes.get(childNode.failure).outputs);
+                queue.add(child);
+            }
+        }
+    }
+
+    public interface MatchHandler {
+        void onMatch(int keywordIndex, int start);
+    }
+
+    private static class Node {
+        private final Map<Character, Integer> children = new HashMap<>();
+        private final List<Integer> outputs = new ArrayList<>();
+        private int failure;
+    }
+}
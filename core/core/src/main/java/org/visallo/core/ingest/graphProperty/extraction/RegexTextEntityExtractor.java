@@ -0,0 +1,112 @@
+package org.visallo.core.ingest.graphProperty.extraction;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A {@link TextEntityExtractor} backed by a regular expression. The {@link TextEntityExtractionEngine} only
+ * evaluates the expression where its literal prefix occurs, when it has one.
+ */
+public class RegexTextEntityExtractor implements TextEntityExtractor {
+    private static final String META_CHARACTERS = "\\[](){}.*+?^$|";
+    private static final String QUANTIFIERS = "*+?{";
+    private final String conceptIri;
+    private final Pattern pattern;
+    private final String literalPrefix;
+
+    public RegexTextEntityExtractor(String conceptIri, Pattern pattern) {
+        this.conceptIri = conceptIri;
+        this.pattern = pattern;
+        this.literalPrefix = findLiteralPrefix(pattern);
+    }
+
+    @Override
+    public String getConceptIri() {
+        return conceptIri;
+    }
+
+    public Pattern getPattern() {
+        return pattern;
+    }
+
+    /**
+     * The literal text every match of this pattern must start with or null if there is no such text.
+     */
+    public String getLiteralPrefix() {
+        return literalPrefix;
+    }
+
+    @Override
+    public void findMatches(CharSequence text, MatchHandler handler) {
+        Matcher matcher = pattern.matcher(text);
+        while (matcher.find()) {
+            handler.onMatch(matcher.start(), matcher.end(), matcher.group());
+        }
+    }
+
+    static String findLiteralPrefix(Pattern pattern) {
+        if ((pattern.flags() & (Pattern.CASE_INSENSITIVE | Pattern.COMMENTS | Pattern.LITERAL | Pattern.CANON_EQ)) != 0) {
+            return null;
+        }
+        String regex = pattern.pattern();
+        if (hasTopLevelAlternation(regex)) {
+            return null;
+        }
+
+        StringBuilder prefix = new StringBuilder();
+        int i = 0;
+        while (i < regex.length()) {
+            char c = regex.charAt(i);
+            int next;
+            if (c == '\\') {
+                if (i + 1 >= regex.length() || Character.isLetterOrDigit(regex.charAt(i + 1))) {
+                    break;
+                }
+                c = regex.charAt(i + 1);
+                next = i + 2;
+            } else if (META_CHARACTERS.indexOf(c) >= 0) {
+                break;
+            } else {
+                next = i + 1;
+            }
+            if (next < regex.length() && QUANTIFIERS.indexOf(regex.charAt(next)) >= 0) {
+                break;
+            }
+            prefix.append(c);
+            i = next;
+        }
+        return prefix.length() == 0 ? null : prefix.toString();
+    }
+
+    private static boolean hasTopLevelAlternation(String regex) {
+        int depth = 0;
+        boolean inCharacterClass = false;
+        for (int i = 0; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (inCharacterClass) {
+                if (c == ']') {
+                    inCharacterClass = false;
+                }
+            } else if (c == '[') {
+                inCharacterClass = true;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (c == '|' && depth == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "RegexTextEntityExtractor{" +
+                "conceptIri='" + conceptIri + '\'' +
+                ", pattern=" + pattern +
+                '}';
+    }
+}
@@ -0,0 +1,196 @@
+package org.visallo.core.ingest.graphProperty.extraction;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.*;
+import java.util.regex.Matcher;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Runs a set of {@link TextEntityExtractor}s over a text in a single streaming pass.
+ * <p/>
+ * The text is read through a sliding window so that the whole document never has to be held in memory.
+ * Regular expressions which start with a literal prefix are only evaluated where an Aho-Corasick scan of
+ * all the prefixes found a candidate, the remaining extractors are run against each window. Matches are
+ * assumed to be no longer than {@code maxMatchLength} characters, which is also the amount of context kept
+ * before each window for look-behinds and word boundaries.
+ */
+public class TextEntityExtractionEngine {
+    public static final int DEFAULT_WINDOW_SIZE = 64 * 1024;
+    public static final int DEFAULT_MAX_MATCH_LENGTH = 1024;
+    private static final int READ_BUFFER_SIZE = 8 * 1024;
+    private final List<TextEntityExtractor> extractors;
+    private final int windowSize;
+    private final int maxMatchLength;
+    private final AhoCorasickMatcher prefixMatcher;
+    private final List<List<Integer>> extractorIndexesByPrefix = new ArrayList<>();
+    private final boolean[] prefixed;
+
+    public TextEntityExtractionEngine(List<? extends TextEntityExtractor> extractors) {
+        this(extractors, DEFAULT_WINDOW_SIZE, DEFAULT_MAX_MATCH_LENGTH);
+    }
+
+    public TextEntityExtractionEngine(List<? extends TextEntityExtractor> extractors, int windowSize, int maxMatchLength) {
+        checkArgument(maxMatchLength > 0, "maxMatchLength must be greater than 0");
+        checkArgument(windowSize >= 4 * maxMatchLength, "windowSize must be at least 4 times maxMatchLength");
+        this.extractors = Collections.unmodifiableList(new ArrayList<>(extractors));
+        this.windowSize = windowSize;
+        this.maxMatchLength = maxMatchLength;
+        this.prefixed = new boolean[this.extractors.size()];
+
+        List<String> prefixes = new ArrayList<>();
+        for (int i = 0; i < this.extractors.size(); i++) {
+            TextEntityExtractor extractor = this.extractors.get(i);
+            if (!(extractor instanceof RegexTextEntityExtractor)) {
+                continue;
+            }
+            String prefix = ((RegexTextEntityExtractor) extractor).getLiteralPrefix();
+            if (prefix == null) {
+                continue;
+            }
+            int prefixIndex = prefixes.indexOf(prefix);
+            if (prefixIndex < 0) {
+                prefixIndex = prefixes.size();
+                prefixes.add(prefix);
+                extractorIndexesByPrefix.add(new ArrayList<>());
+            }
+            extractorIndexesByPrefix.get(prefixIndex).add(i);
+            prefixed[i] = true;
+        }
+        this.prefixMatcher = prefixes.size() == 0 ? null : new AhoCorasickMatcher(prefixes);
+    }
+
+    public List<TextEntityExtractor> getExtractors() {
+        return extractors;
+    }
+
+    public void extract(CharSequence text, MatchHandler handler) {
+        long[] lastEnds = new long[extractors.size()];
+        scanWindow(text, 0, 0, text.length(), text.length(), lastEnds, handler);
+    }
+
+    public void extract(Reader reader, MatchHandler handler) throws IOException {
+        StringBuilder buffer = new StringBuilder(windowSize);
+        char[] readBuffer = new char[READ_BUFFER_SIZE];
+        long[] lastEnds = new long[extractors.size()];
+        long bufferOffset = 0;
+        int scanFrom = 0;
+        boolean endOfText = false;
+        while (true) {
+            while (!endOfText && buffer.length() < windowSize) {
+                int read = reader.read(readBuffer);
+                if (read < 0) {
+                    endOfText = true;
+                } else {
+                    buffer.append(readBuffer, 0, read);
+                }
+            }
+
+            int commitLimit = endOfText ? buffer.length() : buffer.length() - maxMatchLength;
+            scanWindow(buffer, bufferOffset, scanFrom, commitLimit, buffer.length(), lastEnds, handler);
+            if (endOfText) {
+                return;
+            }
+
+            int keepFrom = Math.max(0, commitLimit - maxMatchLength);
+            buffer.delete(0, keepFrom);
+            bufferOffset += keepFrom;
+            scanFrom = commitLimit - keepFrom;
+        }
+    }
+
+    private void scanWindow(
+            CharSequence window,
+            long windowOffset,
+            int scanFrom,
+            int commitLimit,
+            int windowEnd,
+            long[] lastEnds,
+            MatchHandler handler
+    ) {
+        for (int i = 0; i < extractors.size(); i++) {
+            if (prefixed[i]) {
+                continue;
+            }
+            int from = (int) Math.max(scanFrom, lastEnds[i] - windowOffset);
+            TextEntityExtractor extractor = extractors.get(i);
+            if (extractor instanceof RegexTextEntityExtractor) {
+                Matcher matcher = createMatcher((RegexTextEntityExtractor) extractor, window);
+                matcher.region(from, windowEnd);
+                while (matcher.find() && matcher.start() < commitLimit) {
+                    lastEnds[i] = report(extractor, windowOffset, matcher.start(), matcher.end(), matcher.group(), handler);
+                }
+            } else {
+                int extractorIndex = i;
+                extractor.findMatches(window, (start, end, title) -> {
+                    if (start >= from && start < commitLimit && windowOffset + start >= lastEnds[extractorIndex]) {
+                        lastEnds[extractorIndex] = report(extractor, windowOffset, start, end, title, handler);
+                    }
+                });
+            }
+        }
+
+        if (prefixMatcher != null) {
+            scanPrefixedExtractors(window, windowOffset, scanFrom, commitLimit, windowEnd, lastEnds, handler);
+        }
+    }
+
+    private void scanPrefixedExtractors(
+            CharSequence window,
+            long windowOffset,
+            int scanFrom,
+            int commitLimit,
+            int windowEnd,
+            long[] lastEnds,
+            MatchHandler handler
+    ) {
+        Map<Integer, List<Integer>> candidateStartsByExtractor = new HashMap<>();
+        prefixMatcher.scan(window, scanFrom, windowEnd, (keywordIndex, start) -> {
+            if (start >= commitLimit) {
+                return;
+            }
+            for (int extractorIndex : extractorIndexesByPrefix.get(keywordIndex)) {
+                candidateStartsByExtractor.computeIfAbsent(extractorIndex, k -> new ArrayList<>()).add(start);
+            }
+        });
+
+        for (Map.Entry<Integer, List<Integer>> entry : candidateStartsByExtractor.entrySet()) {
+            int extractorIndex = entry.getKey();
+            RegexTextEntityExtractor extractor = (RegexTextEntityExtractor) extractors.get(extractorIndex);
+            Matcher matcher = createMatcher(extractor, window);
+            for (int start : entry.getValue()) {
+                if (windowOffset + start < lastEnds[extractorIndex]) {
+                    continue;
+                }
+                matcher.region(start, windowEnd);
+                if (matcher.lookingAt()) {
+                    lastEnds[extractorIndex] = report(extractor, windowOffset, matcher.start(), matcher.end(), matcher.group(), handler);
+                }
+            }
+        }
+    }
+
+    private static Matcher createMatcher(RegexTextEntityExtractor extractor, CharSequence window) {
+        Matcher matcher = extractor.getPattern().matcher(window);
+        matcher.useTransparentBounds(true);
+        matcher.useAnchoringBounds(false);
+        return matcher;
+    }
+
+    private static long report(
+            TextEntityExtractor extractor,
+            long windowOffset,
+            int start,
+            int end,
+            String title,
+            MatchHandler handler
+    ) {
+        handler.onMatch(extractor, new TextEntityMatch(windowOffset + start, windowOffset + end, title));
+        return windowOffset + end;
+    }
+
+    public interface MatchHandler {
+        void onMatch(TextEntityExtractor extractor, TextEntityMatch match);
+    }
+}
@@ -0,0 +1,19 @@
+package org.visallo.core.ingest.graphProperty.extraction;
+
+/**
+ * Finds entities of a single concept type in a window of text. Implementations must be stateless so that
+ * a single instance can be shared by every {@link TextEntityExtractionEngine} run.
+ */
+public interface TextEntityExtractor {
+    String getConceptIri();
+
+    /**
+     * Reports every entity found in {@code text}. Offsets of the reported matches are relative to the start
+     * of {@code text}.
+     */
+    void findMatches(CharSequence text, MatchHandler handler);
+
+    interface MatchHandler {
+        void onMatch(int start, int end, String title);
+    }
+}
@@ -0,0 +1,34 @@
+package org.visallo.core.ingest.graphProperty.extraction;
+
+public class TextEntityMatch {
+    private final long start;
+    private final long end;
+    private final String title;
+
+    public TextEntityMatch(long start, long end, String title) {
+        this.start = start;
+        this.end = end;
+        this.title = title;
+    }
+
+    public long getStart() {
+        return start;
+    }
+
+    public long getEnd() {
+        return end;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    @Override
+    public String toString() {
+        return "TextEntityMatch{" +
+                "start=" + start +
+                ", end=" + end +
+                ", title='" + title + '\'' +
+                '}';
+    }
+}
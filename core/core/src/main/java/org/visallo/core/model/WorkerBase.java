@@ -1,6 +1,7 @@
 package org.visallo.core.model;
 
 import com.codahale.metrics.Counter;
+import com.codahale.metrics.Timer;
 import org.visallo.core.config.Configuration;
 import org.visallo.core.exception.VisalloException;
 import org.visallo.core.ingest.WorkerSpout;
@@ -12,8 +13,11 @@ import org.visallo.core.status.StatusServer;
 import org.visallo.core.util.VisalloLogger;
 import org.visallo.core.util.VisalloLoggerFactory;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.TimeUnit;
 
 public abstract class WorkerBase<TWorkerItem extends WorkerItem> {
     private final boolean statusEnabled;
@@ -27,6 +31,9 @@ public abstract class WorkerBase<TWorkerItem extends WorkerItem> {
     private final Queue<WorkerItemWrapper> tupleQueue = new LinkedList<>();
     private final int tupleQueueSize;
     private Thread processThread;
+    private final WorkerFlushPolicy flushPolicy;
+    private final Timer flushTimeMetric;
+    private final List<Object> pendingAcks = new ArrayList<>();
 
     protected WorkerBase(
             WorkQueueRepository workQueueRepository,
@@ -40,6 +47,10 @@ public abstract class WorkerBase<TWorkerItem extends WorkerItem> {
         this.statusEnabled = configuration.getBoolean(Configuration.STATUS_ENABLED, Configuration.STATUS_ENABLED_DEFAULT);
         this.queueSizeMetricName = metricsManager.getNamePrefix(this) + "queue-size-" + Thread.currentThread().getId();
         this.queueSizeMetric = metricsManager.counter(queueSizeMetricName);
+        this.flushPolicy = isDeferredFlushSupported()
+                ? WorkerFlushPolicy.create(configuration, getClass().getName())
+                : new WorkerFlushPolicy(0, 1, 0, 0);
+        this.flushTimeMetric = metricsManager.timer(metricsManager.getNamePrefix(this) + "flush-time");
     }
 
     @Override
@@ -63,47 +74,101 @@ public abstract class WorkerBase<TWorkerItem extends WorkerItem> {
 
     private void startProcessThread(VisalloLogger logger, WorkerSpout workerSpout) {
         processThread = new Thread(() -> {
-            while (shouldRun) {
-                WorkerItemWrapper workerItemWrapper = null;
-                try {
-                    synchronized (tupleQueue) {
-                        do {
-                            while (shouldRun && tupleQueue.size() == 0) {
-                                tupleQueue.wait();
-                            }
-                            if (!shouldRun) {
-                                return;
-                            }
-                            if (tupleQueue.size() > 0) {
-                                workerItemWrapper = tupleQueue.remove();
-                                queueSizeMetric.dec();
-                                tupleQueue.notifyAll();
-                            }
-                        } while (shouldRun && workerItemWrapper == null);
+            try {
+                while (shouldRun) {
+                    WorkerItemWrapper workerItemWrapper = null;
+                    try {
+                        synchronized (tupleQueue) {
+                            do {
+                                while (shouldRun && tupleQueue.size() == 0 && !isFlushDue()) {
+                                    if (pendingAcks.size() > 0) {
+                                        tupleQueue.wait(Math.max(1, flushPolicy.getRemainingLatencyMs(System.currentTimeMillis())));
+                                    } else {
+                                        tupleQueue.wait();
+                                    }
+                                }
+                                if (!shouldRun) {
+                                    return;
+                                }
+                                if (tupleQueue.size() > 0) {
+                                    workerItemWrapper = tupleQueue.remove();
+                                    queueSizeMetric.dec();
+                                    tupleQueue.notifyAll();
+                                }
+                            } while (shouldRun && workerItemWrapper == null && !isFlushDue());
+                        }
+                    } catch (Exception ex) {
+                        throw new VisalloException("Could not get next workerItem", ex);
+                    }
+                    if (!shouldRun) {
+                        return;
+                    }
+                    if (workerItemWrapper != null) {
+                        processWorkerItem(logger, workerSpout, workerItemWrapper);
+                    }
+                    if (isFlushDue()) {
+                        flushAndAck(logger, workerSpout);
                     }
-                } catch (Exception ex) {
-                    throw new VisalloException("Could not get next workerItem", ex);
-                }
-                if (!shouldRun) {
-                    return;
-                }
-                try {
-                    logger.debug("start processing");
-                    long startTime = System.currentTimeMillis();
-                    process(workerItemWrapper.getWorkerItem());
-                    long endTime = System.currentTimeMillis();
-                    logger.debug("completed processing in (%dms)", endTime - startTime);
-                    workerSpout.ack(workerItemWrapper.getMessageId());
-                } catch (Throwable ex) {
-                    logger.error("Could not process tuple: %s", workerItemWrapper, ex);
-                    workerSpout.fail(workerItemWrapper.getMessageId());
                 }
+            } finally {
+                flushAndAck(logger, workerSpout);
             }
         });
         processThread.setName(Thread.currentThread().getName() + "-process");
         processThread.start();
     }
 
+    private void processWorkerItem(VisalloLogger logger, WorkerSpout workerSpout, WorkerItemWrapper workerItemWrapper) {
+        try {
+            logger.debug("start processing");
+            long startTime = System.currentTimeMillis();
+            process(workerItemWrapper.getWorkerItem());
+            long endTime = System.currentTimeMillis();
+            logger.debug("completed processing in (%dms)", endTime - startTime);
+            if (isFlushDeferred()) {
+                flushPolicy.recordMessage(endTime);
+                pendingAcks.add(workerItemWrapper.getMessageId());
+            } else {
+                workerSpout.ack(workerItemWrapper.getMessageId());
+            }
+        } catch (Throwable ex) {
+            logger.error("Could not process tuple: %s", workerItemWrapper, ex);
+            workerSpout.fail(workerItemWrapper.getMessageId());
+        }
+    }
+
+    private boolean isFlushDue() {
+        return pendingAcks.size() > 0 && flushPolicy.shouldFlush(System.currentTimeMillis());
+    }
+
+    /**
+     * Flushes the writes of the messages processed since the last flush and only then acks them, if the flush
+     * fails the messages are failed so they will be redelivered.
+     */
+    private void flushAndAck(VisalloLogger logger, WorkerSpout workerSpout) {
+        if (pendingAcks.size() == 0) {
+            return;
+        }
+        long startTime = System.currentTimeMillis();
+        try {
+            flush();
+            long endTime = System.currentTimeMillis();
+            flushPolicy.flushCompleted(endTime - startTime, endTime);
+            flushTimeMetric.update(endTime - startTime, TimeUnit.MILLISECONDS);
+            logger.debug("flushed %d messages in (%dms), %s", pendingAcks.size(), endTime - startTime, flushPolicy);
+            for (Object messageId : pendingAcks) {
+                workerSpout.ack(messageId);
+            }
+        } catch (Throwable ex) {
+            logger.error("Could not flush %d messages", pendingAcks.size(), ex);
+            flushPolicy.flushCompleted(System.currentTimeMillis() - startTime, System.currentTimeMillis());
+            for (Object messageId : pendingAcks) {
+                workerSpout.fail(messageId);
+            }
+        }
+        pendingAcks.clear();
+    }
+
     private void pollWorkerSpout(VisalloLogger logger, WorkerSpout workerSpout) throws InterruptedException {
         while (shouldRun) {
             WorkerItemWrapper workerItemWrapper;
@@ -146,6 +211,32 @@ public abstract class WorkerBase<TWorkerItem extends WorkerItem> {
 
     protected abstract StatusServer createStatusServer() throws Exception;
 
+    /**
+     * Workers which return true here must implement {@link #flush()} and, while {@link #isFlushDeferred()} is
+     * true, leave flushing to this class. Messages are then acked only after a flush covering their writes.
+     */
+    protected boolean isDeferredFlushSupported() {
+        return false;
+    }
+
+    /**
+     * True when called from {@link #process(WorkerItem)} by the runner loop of a worker with a flush policy
+     * enabled. Callers of {@link #process(WorkerItem)} outside of {@link #run()} are responsible for flushing.
+     */
+    protected boolean isFlushDeferred() {
+        return flushPolicy.isEnabled() && Thread.currentThread() == processThread;
+    }
+
+    /**
+     * Records writes made while processing the current message, used to decide when to flush.
+     */
+    protected void recordPendingWrites(long mutations, long bytes) {
+        flushPolicy.recordMutations(mutations, bytes);
+    }
+
+    protected void flush() throws Exception {
+    }
+
     protected abstract void process(TWorkerItem workerItem) throws Exception;
 
     /**
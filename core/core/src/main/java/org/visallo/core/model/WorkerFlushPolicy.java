@@ -0,0 +1,132 @@
+package org.visallo.core.model;
+
+import org.visallo.core.config.Configuration;
+
+/**
+ * Decides when a {@link WorkerBase} which defers graph flushes should flush the writes of the messages it has
+ * processed so far.
+ * <p/>
+ * A flush is due when the oldest unflushed message is older than {@code maxLatencyMs}, the pending bytes exceed
+ * {@code maxBytes} or the pending mutations exceed the current mutation limit. The mutation limit starts low and
+ * is adjusted after every flush, between 1 and {@code maxMutations}, so that the time spent flushing stays near
+ * {@code targetFlushOverheadPercent} of the time spent working.
+ */
+public class WorkerFlushPolicy {
+    public static final String CONFIG_MAX_LATENCY_MS = ".flush.maxLatencyMs";
+    public static final long DEFAULT_MAX_LATENCY_MS = 1000;
+    public static final String CONFIG_MAX_MUTATIONS = ".flush.maxMutations";
+    public static final int DEFAULT_MAX_MUTATIONS = 1000;
+    public static final String CONFIG_MAX_BYTES = ".flush.maxBytes";
+    public static final long DEFAULT_MAX_BYTES = 16 * 1024 * 1024;
+    public static final String CONFIG_TARGET_FLUSH_OVERHEAD_PERCENT = ".flush.targetFlushOverheadPercent";
+    public static final int DEFAULT_TARGET_FLUSH_OVERHEAD_PERCENT = 10;
+    private static final int INITIAL_MUTATION_LIMIT_DIVISOR = 10;
+    private final long maxLatencyMs;
+    private final int maxMutations;
+    private final long maxBytes;
+    private final double targetFlushOverhead;
+    private int mutationLimit;
+    private long pendingMessages;
+    private long pendingMutations;
+    private long pendingBytes;
+    private long firstPendingTime;
+    private long lastFlushTime;
+
+    public WorkerFlushPolicy(long maxLatencyMs, int maxMutations, long maxBytes, int targetFlushOverheadPercent) {
+        this.maxLatencyMs = maxLatencyMs;
+        this.maxMutations = Math.max(1, maxMutations);
+        this.maxBytes = maxBytes;
+        this.targetFlushOverhead = targetFlushOverheadPercent / 100.0;
+        this.mutationLimit = Math.max(1, this.maxMutations / INITIAL_MUTATION_LIMIT_DIVISOR);
+        this.lastFlushTime = System.currentTimeMillis();
+    }
+
+    public static WorkerFlushPolicy create(Configuration configuration, String configurationPrefix) {
+        return new WorkerFlushPolicy(
+                configuration.getLong(configurationPrefix + CONFIG_MAX_LATENCY_MS, DEFAULT_MAX_LATENCY_MS),
+                configuration.getInt(configurationPrefix + CONFIG_MAX_MUTATIONS, DEFAULT_MAX_MUTATIONS),
+                configuration.getLong(configurationPrefix + CONFIG_MAX_BYTES, DEFAULT_MAX_BYTES),
+                configuration.getInt(configurationPrefix + CONFIG_TARGET_FLUSH_OVERHEAD_PERCENT, DEFAULT_TARGET_FLUSH_OVERHEAD_PERCENT)
+        );
+    }
+
+    /**
+     * A policy with a max latency of 0 flushes after every message.
+     */
+    public boolean isEnabled() {
+        return maxLatencyMs > 0;
+    }
+
+    /**
+     * Records a message whose writes will be covered by the next flush.
+     */
+    public synchronized void recordMessage(long now) {
+        if (pendingMessages == 0) {
+            firstPendingTime = now;
+        }
+        pendingMessages++;
+    }
+
+    public synchronized void recordMutations(long mutations, long bytes) {
+        pendingMutations += mutations;
+        pendingBytes += bytes;
+    }
+
+    public synchronized boolean hasPending() {
+        return pendingMessages > 0;
+    }
+
+    public synchronized boolean shouldFlush(long now) {
+        if (!hasPending()) {
+            return false;
+        }
+        return pendingMutations >= mutationLimit
+                || pendingBytes >= maxBytes
+                || getRemainingLatencyMs(now) <= 0;
+    }
+
+    /**
+     * @return the number of milliseconds until the pending mutations must be flushed.
+     */
+    public synchronized long getRemainingLatencyMs(long now) {
+        if (!hasPending()) {
+            return maxLatencyMs;
+        }
+        return maxLatencyMs - (now - firstPendingTime);
+    }
+
+    public synchronized void flushCompleted(long flushTimeMs, long now) {
+        long elapsedTime = Math.max(1, now - lastFlushTime);
+        double flushOverhead = (double) flushTimeMs / elapsedTime;
+        if (flushOverhead > targetFlushOverhead) {
+            mutationLimit = (int) Math.min(maxMutations, (long) mutationLimit * 2);
+        } else if (flushOverhead < targetFlushOverhead / 2) {
+            mutationLimit = Math.max(1, mutationLimit - Math.max(1, mutationLimit / 4));
+        }
+        pendingMessages = 0;
+        pendingMutations = 0;
+        pendingBytes = 0;
+        lastFlushTime = now;
+    }
+
+    public synchronized int getMutationLimit() {
+        return mutationLimit;
+    }
+
+    public long getMaxLatencyMs() {
+        return maxLatencyMs;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "WorkerFlushPolicy{" +
+                "maxLatencyMs=" + maxLatencyMs +
+                ", maxMutations=" + maxMutations +
+                ", maxBytes=" + maxBytes +
+                ", mutationLimit=" + mutationLimit +
+                ", pendingMessages=" + pendingMessages +
+                ", pendingMutations=" + pendingMutations +
+                ", pendingBytes=" + pendingBytes +
+                '}';
+    }
+}
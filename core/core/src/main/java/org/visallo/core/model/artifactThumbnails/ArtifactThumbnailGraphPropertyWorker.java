@@ -0,0 +1,75 @@
+package org.visallo.core.model.artifactThumbnails;
+
+import com.google.inject.Inject;
+import org.vertexium.Element;
+import org.vertexium.Property;
+import org.vertexium.Vertex;
+import org.visallo.core.config.Configuration;
+import org.visallo.core.ingest.graphProperty.GraphPropertyWorkData;
+import org.visallo.core.ingest.graphProperty.GraphPropertyWorker;
+import org.visallo.core.ingest.graphProperty.GraphPropertyWorkerInterest;
+import org.visallo.core.model.Description;
+import org.visallo.core.model.Name;
+import org.visallo.core.model.properties.VisalloProperties;
+import org.visallo.core.util.VisalloLogger;
+import org.visallo.core.util.VisalloLoggerFactory;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+@Name("Artifact Thumbnails")
+@Description("creates the standard size thumbnails of images when they are ingested")
+public class ArtifactThumbnailGraphPropertyWorker extends GraphPropertyWorker {
+    private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(ArtifactThumbnailGraphPropertyWorker.class);
+    public static final String THUMBNAIL_TYPE = "raw";
+    public static final String CONFIG_SIZES = ArtifactThumbnailGraphPropertyWorker.class.getName() + ".sizes";
+    public static final String DEFAULT_SIZES = "80,150,800";
+    private final ArtifactThumbnailRepository artifactThumbnailRepository;
+    private final List<int[]> boundaryDimsList;
+
+    @Inject
+    public ArtifactThumbnailGraphPropertyWorker(
+            ArtifactThumbnailRepository artifactThumbnailRepository,
+            Configuration configuration
+    ) {
+        this.artifactThumbnailRepository = artifactThumbnailRepository;
+        this.boundaryDimsList = getBoundaryDimsList(configuration.get(CONFIG_SIZES, DEFAULT_SIZES));
+    }
+
+    static List<int[]> getBoundaryDimsList(String sizes) {
+        List<int[]> boundaryDimsList = new ArrayList<>();
+        for (String size : sizes.split(",")) {
+            size = size.trim();
+            if (size.length() > 0) {
+                int width = Integer.parseInt(size);
+                boundaryDimsList.add(new int[]{width, width});
+            }
+        }
+        return boundaryDimsList;
+    }
+
+    @Override
+    public void execute(InputStream in, GraphPropertyWorkData data) throws Exception {
+        Vertex vertex = (Vertex) data.getElement();
+        LOGGER.debug("creating %d thumbnails of %s", boundaryDimsList.size(), vertex.getId());
+        artifactThumbnailRepository.createThumbnails(vertex, data.getProperty().getKey(), THUMBNAIL_TYPE, in, boundaryDimsList, getUser());
+    }
+
+    @Override
+    public boolean isHandled(Element element, Property property) {
+        if (!(element instanceof Vertex) || property == null || boundaryDimsList.isEmpty()) {
+            return false;
+        }
+        if (!VisalloProperties.RAW.getPropertyName().equals(property.getName())) {
+            return false;
+        }
+        String mimeType = VisalloProperties.MIME_TYPE_METADATA.getMetadataValue(property.getMetadata(), null);
+        return mimeType != null && mimeType.startsWith("image");
+    }
+
+    @Override
+    public GraphPropertyWorkerInterest getInterest() {
+        return GraphPropertyWorkerInterest.properties(VisalloProperties.RAW.getPropertyName());
+    }
+}
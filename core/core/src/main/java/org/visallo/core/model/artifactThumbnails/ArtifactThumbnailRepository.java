@@ -1,9 +1,15 @@
 package org.visallo.core.model.artifactThumbnails;
 
 import com.google.inject.Inject;
+import com.google.inject.Singleton;
 import com.v5analytics.simpleorm.SimpleOrmSession;
+import org.vertexium.Property;
 import org.vertexium.Vertex;
+import org.vertexium.property.StreamingPropertyValue;
+import org.visallo.core.config.Configuration;
+import org.visallo.core.exception.VisalloException;
 import org.visallo.core.exception.VisalloResourceNotFoundException;
+import org.visallo.core.exception.VisalloServiceUnavailableException;
 import org.visallo.core.model.ontology.OntologyRepository;
 import org.visallo.core.model.properties.types.BooleanVisalloProperty;
 import org.visallo.core.model.properties.types.IntegerVisalloProperty;
@@ -18,11 +24,27 @@ import java.awt.image.BufferedImage;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+/**
+ * Stores the thumbnails of artifacts. Thumbnails missing when they are requested are generated on a bounded pool of
+ * background threads, and requests for a thumbnail already being generated wait for that generation instead of
+ * starting another one. A request waits at most the generation timeout, the generation goes on and a later request
+ * finds the stored thumbnail.
+ */
+@Singleton
 public class ArtifactThumbnailRepository {
     private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(ArtifactThumbnailRepository.class);
+    public static final String CONFIG_GENERATION_THREADS = ArtifactThumbnailRepository.class.getName() + ".generationThreads";
+    public static final int DEFAULT_GENERATION_THREADS = 4;
+    public static final String CONFIG_MAX_PENDING_GENERATIONS = ArtifactThumbnailRepository.class.getName() + ".maxPendingGenerations";
+    public static final int DEFAULT_MAX_PENDING_GENERATIONS = 200;
+    public static final String CONFIG_GENERATION_TIMEOUT_MS = ArtifactThumbnailRepository.class.getName() + ".generationTimeoutMs";
+    public static final long DEFAULT_GENERATION_TIMEOUT_MS = 30 * 1000;
     private static final String VISIBILITY_STRING = "";
     public static int FRAMES_PER_PREVIEW = 20;
     public static int PREVIEW_FRAME_WIDTH = 360;
@@ -31,16 +53,36 @@ public class ArtifactThumbnailRepository {
     private final UserRepository userRepository;
     private BooleanVisalloProperty yAxisFlippedProperty;
     private IntegerVisalloProperty clockwiseRotationProperty;
+    private final ThreadPoolExecutor generationExecutor;
+    private final long generationTimeoutMs;
+    private final ConcurrentMap<String, CompletableFuture<ArtifactThumbnail>> pendingGenerations = new ConcurrentHashMap<>();
 
     @Inject
     public ArtifactThumbnailRepository(
             SimpleOrmSession simpleOrmSession,
             UserRepository userRepository,
-            final OntologyRepository ontologyRepository
+            final OntologyRepository ontologyRepository,
+            Configuration configuration
     ) {
         this.simpleOrmSession = simpleOrmSession;
         this.userRepository = userRepository;
 
+        int generationThreads = configuration.getInt(CONFIG_GENERATION_THREADS, DEFAULT_GENERATION_THREADS);
+        int maxPendingGenerations = configuration.getInt(CONFIG_MAX_PENDING_GENERATIONS, DEFAULT_MAX_PENDING_GENERATIONS);
+        this.generationExecutor = new ThreadPoolExecutor(
+                generationThreads,
+                generationThreads,
+                60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(maxPendingGenerations),
+                r -> {
+                    Thread t = new Thread(r, "visallo-thumbnail-generation");
+                    t.setDaemon(true);
+                    return t;
+                }
+        );
+        this.generationExecutor.allowCoreThreadTimeOut(true);
+        this.generationTimeoutMs = configuration.getLong(CONFIG_GENERATION_TIMEOUT_MS, DEFAULT_GENERATION_TIMEOUT_MS);
+
         String yAxisFlippedPropertyIri = ontologyRepository.getPropertyIRIByIntent("media.yAxisFlipped");
         if (yAxisFlippedPropertyIri != null) {
             this.yAxisFlippedProperty = new BooleanVisalloProperty(yAxisFlippedPropertyIri);
@@ -65,23 +107,122 @@ public class ArtifactThumbnailRepository {
         return artifactThumbnail.getData();
     }
 
+    /**
+     * Gets a thumbnail, generating it in the background if it does not exist yet.
+     *
+     * @param property the streaming property holding the image.
+     * @throws VisalloServiceUnavailableException if too many thumbnails are being generated or the generation did
+     *                                            not finish within the generation timeout.
+     */
+    public ArtifactThumbnail getOrCreateThumbnail(Vertex artifactVertex, Property property, String thumbnailType, int[] boundaryDims, User user) {
+        ArtifactThumbnail thumbnail = getThumbnail(artifactVertex.getId(), thumbnailType, boundaryDims[0], boundaryDims[1], user);
+        if (thumbnail != null && thumbnail.getData() != null) {
+            LOGGER.debug("Cache hit for: %s (%s) %d x %d", artifactVertex.getId(), thumbnailType, boundaryDims[0], boundaryDims[1]);
+            return thumbnail;
+        }
+
+        LOGGER.info("Cache miss for: %s (%s) %d x %d", artifactVertex.getId(), thumbnailType, boundaryDims[0], boundaryDims[1]);
+        String id = ArtifactThumbnail.createId(artifactVertex.getId(), thumbnailType, boundaryDims[0], boundaryDims[1]);
+        CompletableFuture<ArtifactThumbnail> generation = new CompletableFuture<>();
+        CompletableFuture<ArtifactThumbnail> existingGeneration = pendingGenerations.putIfAbsent(id, generation);
+        if (existingGeneration != null) {
+            generation = existingGeneration;
+        } else {
+            startGeneration(id, generation, artifactVertex, property, thumbnailType, boundaryDims, user);
+        }
+
+        try {
+            return generation.get(generationTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            throw new VisalloServiceUnavailableException("Timed out waiting for thumbnail " + id + " to be generated", ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new VisalloException("Interrupted waiting for thumbnail " + id, ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new VisalloException("Could not create thumbnail " + id, ex.getCause());
+        }
+    }
+
+    private void startGeneration(
+            String id,
+            CompletableFuture<ArtifactThumbnail> generation,
+            Vertex artifactVertex,
+            Property property,
+            String thumbnailType,
+            int[] boundaryDims,
+            User user
+    ) {
+        try {
+            generationExecutor.execute(() -> {
+                try {
+                    if (!(property.getValue() instanceof StreamingPropertyValue)) {
+                        throw new VisalloResourceNotFoundException("Could not find image property on vertex: " + artifactVertex.getId());
+                    }
+                    try (InputStream in = ((StreamingPropertyValue) property.getValue()).getInputStream()) {
+                        generation.complete(createThumbnail(artifactVertex, property.getKey(), thumbnailType, in, boundaryDims, user));
+                    }
+                } catch (Throwable ex) {
+                    generation.completeExceptionally(ex);
+                } finally {
+                    pendingGenerations.remove(id, generation);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            pendingGenerations.remove(id, generation);
+            generation.completeExceptionally(new VisalloServiceUnavailableException("Too many thumbnails are being generated, could not create thumbnail " + id, ex));
+        }
+    }
+
     public ArtifactThumbnail createThumbnail(Vertex artifactVertex, String propertyKey, String thumbnailType, InputStream in, int[] boundaryDims, User user) throws IOException {
         ArtifactThumbnail thumbnail = generateThumbnail(artifactVertex, propertyKey, thumbnailType, in, boundaryDims);
         simpleOrmSession.save(thumbnail, VISIBILITY_STRING, userRepository.getSimpleOrmContext(user));
         return thumbnail;
     }
 
+    /**
+     * Creates thumbnails of several sizes, decoding the image only once.
+     */
+    public List<ArtifactThumbnail> createThumbnails(Vertex artifactVertex, String propertyKey, String thumbnailType, InputStream in, List<int[]> boundaryDimsList, User user) {
+        int maxDimension = 0;
+        for (int[] boundaryDims : boundaryDimsList) {
+            maxDimension = Math.max(maxDimension, Math.max(boundaryDims[0], boundaryDims[1]));
+        }
+        BufferedImage originalImage = readImage(artifactVertex, in, maxDimension);
+        BufferedImage transformedImage = getTransformedImage(originalImage, artifactVertex, propertyKey);
+
+        List<ArtifactThumbnail> thumbnails = new ArrayList<>();
+        for (int[] boundaryDims : boundaryDimsList) {
+            ArtifactThumbnail thumbnail = generateThumbnail(artifactVertex, thumbnailType, originalImage, transformedImage, boundaryDims);
+            simpleOrmSession.save(thumbnail, VISIBILITY_STRING, userRepository.getSimpleOrmContext(user));
+            thumbnails.add(thumbnail);
+        }
+        return thumbnails;
+    }
+
     public ArtifactThumbnail generateThumbnail(Vertex artifactVertex, String propertyKey, String thumbnailType, InputStream in, int[] boundaryDims) {
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
-        String format;
-        int type;
+        BufferedImage originalImage = readImage(artifactVertex, in, Math.max(boundaryDims[0], boundaryDims[1]));
+        BufferedImage transformedImage = getTransformedImage(originalImage, artifactVertex, propertyKey);
+        return generateThumbnail(artifactVertex, thumbnailType, originalImage, transformedImage, boundaryDims);
+    }
+
+    private BufferedImage readImage(Vertex artifactVertex, InputStream in, int minDimension) {
         try {
-            BufferedImage originalImage = ImageIO.read(in);
+            BufferedImage originalImage = ImageUtils.readSubsampledImage(in, minDimension);
             checkNotNull(originalImage, "Could not generateThumbnail: read original image for artifact " + artifactVertex.getId());
-            type = ImageUtils.thumbnailType(originalImage);
-            format = ImageUtils.thumbnailFormat(originalImage);
+            return originalImage;
+        } catch (IOException e) {
+            throw new VisalloResourceNotFoundException("Error reading InputStream");
+        }
+    }
 
-            BufferedImage transformedImage = getTransformedImage(originalImage, artifactVertex, propertyKey);
+    private ArtifactThumbnail generateThumbnail(Vertex artifactVertex, String thumbnailType, BufferedImage originalImage, BufferedImage transformedImage, int[] boundaryDims) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            int type = ImageUtils.thumbnailType(originalImage);
+            String format = ImageUtils.thumbnailFormat(originalImage);
 
             //Get new image dimensions, which will be used for the icon.
             int[] transformedImageDims = new int[]{transformedImage.getWidth(), transformedImage.getHeight()};
@@ -107,7 +248,7 @@ public class ArtifactThumbnailRepository {
             //Write the bufferedImage to a file.
             ImageIO.write(resizedImage, format, out);
 
-            return new ArtifactThumbnail(artifactVertex.getId(), thumbnailType, out.toByteArray(), format, width, height);
+            return new ArtifactThumbnail(artifactVertex.getId(), thumbnailType, out.toByteArray(), format, boundaryDims[0], boundaryDims[1]);
         } catch (IOException e) {
             throw new VisalloResourceNotFoundException("Error reading InputStream");
         }
@@ -1,9 +1,45 @@
 package org.visallo.core.model.artifactThumbnails;
 
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
 
 public class ImageUtils {
+    /**
+     * Reads an image, skipping rows and columns while decoding so the image is not much bigger than needed instead of
+     * decoding it at full resolution. The width and height of the image read stay at least minDimension, or the
+     * original size if that is smaller.
+     *
+     * @return the image, null if the image format is not supported.
+     */
+    public static BufferedImage readSubsampledImage(InputStream in, int minDimension) throws IOException {
+        try (ImageInputStream imageIn = ImageIO.createImageInputStream(in)) {
+            if (imageIn == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(imageIn);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(imageIn, true, true);
+                int smallestSide = Math.min(reader.getWidth(0), reader.getHeight(0));
+                int subsampling = Math.max(1, smallestSide / Math.max(1, minDimension));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
 
 
     /**
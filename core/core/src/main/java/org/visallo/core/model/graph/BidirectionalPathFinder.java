@@ -0,0 +1,329 @@
+package org.visallo.core.model.graph;
+
+import org.vertexium.*;
+import org.visallo.core.util.VisalloLogger;
+import org.visallo.core.util.VisalloLoggerFactory;
+
+import java.util.*;
+
+/**
+ * Finds the simple paths of at most a number of hops between two vertices by expanding from both ends at once,
+ * which visits roughly the square root of the vertices a one sided search visits.
+ * <p/>
+ * Paths are reported through the {@link Callback} as they are found, shortest first. The search stops early when it
+ * is canceled, when it runs out of time, when the number of partial paths it has built reaches its limit or when
+ * enough paths have been found. Vertices other than the source and destination with more neighbors than the degree limit
+ * are not expanded, hubs rarely make useful paths and expanding them is what makes path searches explode.
+ */
+public class BidirectionalPathFinder {
+    private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(BidirectionalPathFinder.class);
+    private final Graph graph;
+    private final int maxDegree;
+    private final long maxTimeMs;
+    private final int maxPartialPaths;
+    private final int maxPaths;
+
+    public enum StopReason {
+        COMPLETE,
+        CANCELED,
+        TIME_LIMIT,
+        /**
+         * The number of partial paths reached the limit given to the constructor. Partial paths are what the search
+         * holds in memory, so this is how its memory use is bounded.
+         */
+        PARTIAL_PATH_LIMIT,
+        PATH_LIMIT
+    }
+
+    public interface Callback {
+        /**
+         * Called periodically, returning true stops the search.
+         */
+        boolean isCanceled();
+
+        void pathFound(List<String> path);
+
+        void progress(double progressPercent, String message);
+    }
+
+    /**
+     * @param maxDegree       vertices with more neighbors are not expanded, 0 or less for no limit.
+     * @param maxTimeMs       the time after which the search stops, 0 or less for no limit.
+     * @param maxPartialPaths the number of partial paths, counted over all of the layers of both ends, after which
+     *                        the search stops. See {@link org.visallo.core.model.longRunningProcess.FindPathLongRunningProcessWorker#CONFIG_MAX_PARTIAL_PATHS}.
+     * @param maxPaths        the number of paths after which the search stops.
+     */
+    public BidirectionalPathFinder(Graph graph, int maxDegree, long maxTimeMs, int maxPartialPaths, int maxPaths) {
+        this.graph = graph;
+        this.maxDegree = maxDegree;
+        this.maxTimeMs = maxTimeMs;
+        this.maxPartialPaths = maxPartialPaths;
+        this.maxPaths = maxPaths;
+    }
+
+    public Result findPaths(
+            String sourceVertexId,
+            String destVertexId,
+            String[] labels,
+            int hops,
+            Authorizations authorizations,
+            Callback callback
+    ) {
+        return new Search(sourceVertexId, destVertexId, labels, authorizations, callback).run(hops);
+    }
+
+    public static class Result {
+        private final StopReason stopReason;
+        private final int pathCount;
+        private final int skippedVertexCount;
+
+        public Result(StopReason stopReason, int pathCount, int skippedVertexCount) {
+            this.stopReason = stopReason;
+            this.pathCount = pathCount;
+            this.skippedVertexCount = skippedVertexCount;
+        }
+
+        public StopReason getStopReason() {
+            return stopReason;
+        }
+
+        public int getPathCount() {
+            return pathCount;
+        }
+
+        /**
+         * The number of vertices not expanded because they had more neighbors than the degree limit.
+         */
+        public int getSkippedVertexCount() {
+            return skippedVertexCount;
+        }
+    }
+
+    private static class StopException extends RuntimeException {
+        private final StopReason stopReason;
+
+        public StopException(StopReason stopReason) {
+            super(stopReason.name(), null, false, false);
+            this.stopReason = stopReason;
+        }
+    }
+
+    /**
+     * A partial path, linked to its parent so paths sharing a prefix share its nodes.
+     */
+    private static class PathNode {
+        private final String vertexId;
+        private final PathNode parent;
+
+        public PathNode(String vertexId, PathNode parent) {
+            this.vertexId = vertexId;
+            this.parent = parent;
+        }
+
+        public boolean contains(String vertexId) {
+            for (PathNode node = this; node != null; node = node.parent) {
+                if (node.vertexId.equals(vertexId)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * The partial paths of one length from one end, grouped by the vertex they end on.
+     */
+    private static class Layer {
+        private final Map<String, List<PathNode>> pathsByEnd = new HashMap<>();
+        private Map<String, Vertex> endVertices = new HashMap<>();
+    }
+
+    private class Search {
+        private final String sourceVertexId;
+        private final String destVertexId;
+        private final String[] labels;
+        private final Authorizations authorizations;
+        private final Callback callback;
+        private final long startTime = System.currentTimeMillis();
+        private final List<Layer> forwardLayers = new ArrayList<>();
+        private final List<Layer> backwardLayers = new ArrayList<>();
+        private int partialPathCount;
+        private int pathCount;
+        private int skippedVertexCount;
+
+        public Search(String sourceVertexId, String destVertexId, String[] labels, Authorizations authorizations, Callback callback) {
+            this.sourceVertexId = sourceVertexId;
+            this.destVertexId = destVertexId;
+            this.labels = labels == null || labels.length == 0 ? null : labels;
+            this.authorizations = authorizations;
+            this.callback = callback;
+        }
+
+        public Result run(int hops) {
+            StopReason stopReason = StopReason.COMPLETE;
+            try {
+                if (!sourceVertexId.equals(destVertexId)) {
+                    Layer source = createFirstLayer(sourceVertexId);
+                    Layer dest = createFirstLayer(destVertexId);
+                    if (source != null && dest != null) {
+                        forwardLayers.add(source);
+                        backwardLayers.add(dest);
+                        search(hops);
+                    }
+                }
+            } catch (StopException ex) {
+                stopReason = ex.stopReason;
+            }
+            LOGGER.debug(
+                    "path search %s -> %s stopped (%s) after %dms with %d paths, %d partial paths, %d skipped vertices",
+                    sourceVertexId,
+                    destVertexId,
+                    stopReason,
+                    System.currentTimeMillis() - startTime,
+                    pathCount,
+                    partialPathCount,
+                    skippedVertexCount
+            );
+            return new Result(stopReason, pathCount, skippedVertexCount);
+        }
+
+        private void search(int hops) {
+            int forwardHops = (hops + 1) / 2;
+            for (int length = 1; length <= hops; length++) {
+                // every path is joined at the same split so it is only found once
+                int forwardLength = Math.min(forwardHops, length);
+                int backwardLength = length - forwardLength;
+                callback.progress((double) (length - 1) / hops, "Searching paths of length " + length);
+                while (forwardLayers.size() <= forwardLength) {
+                    forwardLayers.add(expand(forwardLayers.get(forwardLayers.size() - 1), destVertexId));
+                }
+                while (backwardLayers.size() <= backwardLength) {
+                    backwardLayers.add(expand(backwardLayers.get(backwardLayers.size() - 1), sourceVertexId));
+                }
+                join(forwardLayers.get(forwardLength), backwardLayers.get(backwardLength));
+            }
+        }
+
+        private Layer createFirstLayer(String vertexId) {
+            Vertex vertex = graph.getVertex(vertexId, FetchHint.EDGE_REFS, authorizations);
+            if (vertex == null) {
+                return null;
+            }
+            Layer layer = new Layer();
+            layer.pathsByEnd.put(vertexId, Collections.singletonList(new PathNode(vertexId, null)));
+            layer.endVertices.put(vertexId, vertex);
+            return layer;
+        }
+
+        /**
+         * Extends the paths of a layer by one hop. Paths ending on the other end of the search are complete and are
+         * not extended.
+         */
+        private Layer expand(Layer layer, String otherEndVertexId) {
+            Layer next = new Layer();
+            for (Map.Entry<String, List<PathNode>> entry : layer.pathsByEnd.entrySet()) {
+                checkLimits();
+                Vertex vertex = layer.endVertices.get(entry.getKey());
+                if (vertex == null || vertex.getId().equals(otherEndVertexId)) {
+                    continue;
+                }
+                Set<String> neighborIds = getNeighborIds(vertex);
+                if (neighborIds == null) {
+                    skippedVertexCount++;
+                    continue;
+                }
+                for (String neighborId : neighborIds) {
+                    for (PathNode path : entry.getValue()) {
+                        if (path.contains(neighborId)) {
+                            continue;
+                        }
+                        List<PathNode> paths = next.pathsByEnd.get(neighborId);
+                        if (paths == null) {
+                            paths = new ArrayList<>();
+                            next.pathsByEnd.put(neighborId, paths);
+                        }
+                        paths.add(new PathNode(neighborId, path));
+                        if (++partialPathCount > maxPartialPaths) {
+                            throw new StopException(StopReason.PARTIAL_PATH_LIMIT);
+                        }
+                    }
+                }
+            }
+
+            // the previous frontier's vertices are no longer needed, only load the new one
+            layer.endVertices = null;
+            for (Vertex vertex : graph.getVertices(next.pathsByEnd.keySet(), FetchHint.EDGE_REFS, authorizations)) {
+                next.endVertices.put(vertex.getId(), vertex);
+            }
+            // drop the paths ending on vertices the user cannot see
+            next.pathsByEnd.keySet().retainAll(next.endVertices.keySet());
+            return next;
+        }
+
+        /**
+         * @return the neighbors of the vertex or null if it has more than the degree limit.
+         */
+        private Set<String> getNeighborIds(Vertex vertex) {
+            boolean capped = maxDegree > 0
+                    && !vertex.getId().equals(sourceVertexId)
+                    && !vertex.getId().equals(destVertexId);
+            Set<String> neighborIds = new LinkedHashSet<>();
+            for (String neighborId : vertex.getVertexIds(Direction.BOTH, labels, authorizations)) {
+                neighborIds.add(neighborId);
+                if (capped && neighborIds.size() > maxDegree) {
+                    return null;
+                }
+            }
+            return neighborIds;
+        }
+
+        private void join(Layer forward, Layer backward) {
+            for (Map.Entry<String, List<PathNode>> entry : backward.pathsByEnd.entrySet()) {
+                List<PathNode> forwardPaths = forward.pathsByEnd.get(entry.getKey());
+                if (forwardPaths == null) {
+                    continue;
+                }
+                for (PathNode backwardPath : entry.getValue()) {
+                    for (PathNode forwardPath : forwardPaths) {
+                        checkLimits();
+                        if (isDisjoint(forwardPath, backwardPath.parent)) {
+                            reportPath(forwardPath, backwardPath.parent);
+                        }
+                    }
+                }
+            }
+        }
+
+        private boolean isDisjoint(PathNode forwardPath, PathNode backwardPath) {
+            for (PathNode node = backwardPath; node != null; node = node.parent) {
+                if (forwardPath.contains(node.vertexId)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void reportPath(PathNode forwardPath, PathNode backwardPath) {
+            LinkedList<String> path = new LinkedList<>();
+            for (PathNode node = forwardPath; node != null; node = node.parent) {
+                path.addFirst(node.vertexId);
+            }
+            for (PathNode node = backwardPath; node != null; node = node.parent) {
+                path.addLast(node.vertexId);
+            }
+            callback.pathFound(new ArrayList<>(path));
+            if (++pathCount >= maxPaths) {
+                throw new StopException(StopReason.PATH_LIMIT);
+            }
+        }
+
+        private void checkLimits() {
+            if (callback.isCanceled()) {
+                throw new StopException(StopReason.CANCELED);
+            }
+            if (maxTimeMs > 0 && System.currentTimeMillis() - startTime > maxTimeMs) {
+                throw new StopException(StopReason.TIME_LIMIT);
+            }
+        }
+    }
+}
@@ -1,14 +1,19 @@
 package org.visallo.core.model.longRunningProcess;
 
 import com.google.inject.Inject;
+import org.json.JSONArray;
 import org.json.JSONObject;
 import org.vertexium.Authorizations;
 import org.vertexium.Graph;
-import org.vertexium.Path;
-import org.vertexium.ProgressCallback;
+import org.visallo.core.config.Configuration;
 import org.visallo.core.model.Description;
 import org.visallo.core.model.Name;
+import org.visallo.core.model.graph.BidirectionalPathFinder;
+import org.visallo.core.model.user.UserRepository;
+import org.visallo.core.model.workQueue.WorkQueueRepository;
 import org.visallo.core.util.ClientApiConverter;
+import org.visallo.core.util.VisalloLogger;
+import org.visallo.core.util.VisalloLoggerFactory;
 import org.visallo.web.clientapi.model.ClientApiVertexFindPathResponse;
 
 import java.util.ArrayList;
@@ -17,16 +22,44 @@ import java.util.List;
 @Name("Find Path")
 @Description("Finds a path between two vertices")
 public class FindPathLongRunningProcessWorker extends LongRunningProcessWorker {
+    private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(FindPathLongRunningProcessWorker.class);
+    public static final String CONFIG_MAX_DEGREE = FindPathLongRunningProcessWorker.class.getName() + ".maxDegree";
+    public static final int DEFAULT_MAX_DEGREE = 1000;
+    public static final String CONFIG_MAX_TIME_MS = FindPathLongRunningProcessWorker.class.getName() + ".maxTimeMs";
+    public static final long DEFAULT_MAX_TIME_MS = 5 * 60 * 1000;
+    public static final String CONFIG_MAX_PARTIAL_PATHS = FindPathLongRunningProcessWorker.class.getName() + ".maxPartialPaths";
+    public static final int DEFAULT_MAX_PARTIAL_PATHS = 1000000;
+    public static final String CONFIG_MAX_PATHS = FindPathLongRunningProcessWorker.class.getName() + ".maxPaths";
+    public static final int DEFAULT_MAX_PATHS = 1000;
+    public static final String CONFIG_UPDATE_INTERVAL_MS = FindPathLongRunningProcessWorker.class.getName() + ".updateIntervalMs";
+    public static final long DEFAULT_UPDATE_INTERVAL_MS = 1000;
     private final Graph graph;
     private final LongRunningProcessRepository longRunningProcessRepository;
+    private final WorkQueueRepository workQueueRepository;
+    private final UserRepository userRepository;
+    private final BidirectionalPathFinder pathFinder;
+    private final long updateIntervalMs;
 
     @Inject
     public FindPathLongRunningProcessWorker(
             Graph graph,
-            LongRunningProcessRepository longRunningProcessRepository
+            LongRunningProcessRepository longRunningProcessRepository,
+            WorkQueueRepository workQueueRepository,
+            UserRepository userRepository,
+            Configuration configuration
     ) {
         this.graph = graph;
         this.longRunningProcessRepository = longRunningProcessRepository;
+        this.workQueueRepository = workQueueRepository;
+        this.userRepository = userRepository;
+        this.pathFinder = new BidirectionalPathFinder(
+                graph,
+                configuration.getInt(CONFIG_MAX_DEGREE, DEFAULT_MAX_DEGREE),
+                configuration.getLong(CONFIG_MAX_TIME_MS, DEFAULT_MAX_TIME_MS),
+                configuration.getInt(CONFIG_MAX_PARTIAL_PATHS, DEFAULT_MAX_PARTIAL_PATHS),
+                configuration.getInt(CONFIG_MAX_PATHS, DEFAULT_MAX_PATHS)
+        );
+        this.updateIntervalMs = configuration.getLong(CONFIG_UPDATE_INTERVAL_MS, DEFAULT_UPDATE_INTERVAL_MS);
     }
 
     @Override
@@ -43,28 +76,98 @@ public class FindPathLongRunningProcessWorker extends LongRunningProcessWorker {
         int hops = findPath.getHops();
 
         ClientApiVertexFindPathResponse results = new ClientApiVertexFindPathResponse();
-        ProgressCallback progressCallback = new ProgressCallback() {
-            @Override
-            public void progress(double progressPercent, Step step, Integer edgeIndex, Integer vertexCount) {
-                longRunningProcessRepository.reportProgress(longRunningProcessQueueItem, progressPercent, step.formatMessage(edgeIndex, vertexCount));
-            }
-        };
-        Iterable<Path> paths = graph.findPaths(findPath.getOutVertexId(), findPath.getInVertexId(), labels, hops, progressCallback, authorizations);
-        for (Path path : paths) {
-            List<String> clientApiVertexPath = new ArrayList<>();
-            for (String s : path) {
-                clientApiVertexPath.add(s);
-            }
-            results.getPaths().add(clientApiVertexPath);
+        PathCallback callback = new PathCallback(longRunningProcessQueueItem, results);
+        BidirectionalPathFinder.Result result = pathFinder.findPaths(
+                findPath.getOutVertexId(),
+                findPath.getInVertexId(),
+                labels,
+                hops,
+                authorizations,
+                callback
+        );
+        callback.pushNewPaths();
+
+        if (result.getStopReason() == BidirectionalPathFinder.StopReason.CANCELED) {
+            longRunningProcessQueueItem.put("canceled", true);
         }
+        longRunningProcessQueueItem.put("resultsCount", results.getPaths().size());
+        longRunningProcessQueueItem.put("stopReason", result.getStopReason().name());
+        longRunningProcessQueueItem.put("skippedVertexCount", result.getSkippedVertexCount());
 
         String resultsString = ClientApiConverter.clientApiToString(results);
-        JSONObject resultsJson = new JSONObject(resultsString);
-        longRunningProcessQueueItem.put("results", resultsJson);
-        longRunningProcessQueueItem.put("resultsCount", results.getPaths().size());
+        longRunningProcessRepository.saveResults(longRunningProcessQueueItem, new JSONObject(resultsString));
     }
 
     private Authorizations getAuthorizations(String[] authorizations) {
         return graph.createAuthorizations(authorizations);
     }
+
+    /**
+     * Collects the paths and, at most once per update interval, checks whether the process was canceled and pushes
+     * the paths found since the last update to the user. Progress is only reported while the process is not canceled.
+     */
+    private class PathCallback implements BidirectionalPathFinder.Callback {
+        private final JSONObject longRunningProcessQueueItem;
+        private final ClientApiVertexFindPathResponse results;
+        private final List<List<String>> newPaths = new ArrayList<>();
+        private long lastCancelCheckTime = System.currentTimeMillis();
+        private long lastPushTime = System.currentTimeMillis();
+        private boolean canceled;
+
+        public PathCallback(JSONObject longRunningProcessQueueItem, ClientApiVertexFindPathResponse results) {
+            this.longRunningProcessQueueItem = longRunningProcessQueueItem;
+            this.results = results;
+        }
+
+        @Override
+        public boolean isCanceled() {
+            long now = System.currentTimeMillis();
+            if (!canceled && now - lastCancelCheckTime >= updateIntervalMs) {
+                lastCancelCheckTime = now;
+                canceled = longRunningProcessRepository.isCanceled(
+                        longRunningProcessQueueItem.getString("id"),
+                        userRepository.getSystemUser()
+                );
+                if (canceled) {
+                    LOGGER.info("find path canceled: %s", longRunningProcessQueueItem.getString("id"));
+                }
+            }
+            return canceled;
+        }
+
+        @Override
+        public void pathFound(List<String> path) {
+            results.getPaths().add(path);
+            newPaths.add(path);
+            if (System.currentTimeMillis() - lastPushTime >= updateIntervalMs) {
+                pushNewPaths();
+            }
+        }
+
+        @Override
+        public void progress(double progressPercent, String message) {
+            // progress is reported once per path length, so the cancel is checked every time
+            if (!canceled && !longRunningProcessRepository.reportProgressUnlessCanceled(
+                    longRunningProcessQueueItem.getString("id"),
+                    progressPercent,
+                    message,
+                    userRepository.getSystemUser()
+            )) {
+                canceled = true;
+                LOGGER.info("find path canceled: %s", longRunningProcessQueueItem.getString("id"));
+            }
+        }
+
+        public void pushNewPaths() {
+            lastPushTime = System.currentTimeMillis();
+            if (newPaths.isEmpty()) {
+                return;
+            }
+            JSONObject json = new JSONObject(longRunningProcessQueueItem.toString());
+            json.put("resultsCount", results.getPaths().size());
+            json.put("newPaths", new JSONArray(newPaths));
+            workQueueRepository.broadcastLongRunningProcessChange(json);
+            newPaths.clear();
+        }
+    }
 }
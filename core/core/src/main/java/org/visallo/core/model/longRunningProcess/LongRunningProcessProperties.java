@@ -9,4 +9,5 @@ public class LongRunningProcessProperties {
     public static final String OWL_IRI = "http://visallo.org/longRunningProcess";
 
     public static JsonSingleValueVisalloProperty QUEUE_ITEM_JSON_PROPERTY = new JsonSingleValueVisalloProperty("http://visallo.org/longRunningProcess#queueItemJson");
+    public static JsonSingleValueVisalloProperty RESULTS_JSON_PROPERTY = new JsonSingleValueVisalloProperty("http://visallo.org/longRunningProcess#resultsJson");
 }
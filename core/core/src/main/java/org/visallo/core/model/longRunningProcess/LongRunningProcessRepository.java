@@ -2,6 +2,7 @@ package org.visallo.core.model.longRunningProcess;
 
 import org.json.JSONObject;
 import org.vertexium.Authorizations;
+import org.visallo.core.exception.VisalloException;
 import org.visallo.core.user.User;
 import org.visallo.core.util.ClientApiConverter;
 
@@ -30,11 +31,45 @@ public abstract class LongRunningProcessRepository {
 
     public abstract void cancel(String longRunningProcessId, User user);
 
+    public boolean isCanceled(String longRunningProcessId, User user) {
+        JSONObject longRunningProcess = findById(longRunningProcessId, user);
+        return longRunningProcess != null && longRunningProcess.optBoolean("canceled", false);
+    }
+
+    /**
+     * Stores the results of a process. Repositories which can keep the results apart from the queue item should, so
+     * they are not rewritten with every progress update. By default they are added to the queue item.
+     */
+    public void saveResults(JSONObject longRunningProcessQueueItem, JSONObject results) {
+        longRunningProcessQueueItem.put("results", results);
+    }
+
     public void reportProgress(JSONObject longRunningProcessQueueItem, double progressPercent, String message) {
         reportProgress(longRunningProcessQueueItem.getString("id"), progressPercent, message);
     }
 
     public abstract void reportProgress(String longRunningProcessId, double progressPercent, String message);
 
+    /**
+     * Reports progress unless the process was canceled. Reporting the progress of a process canceled after the check
+     * fails, that is treated as canceled too.
+     *
+     * @return false if the process was canceled
+     */
+    public boolean reportProgressUnlessCanceled(String longRunningProcessId, double progressPercent, String message, User user) {
+        if (isCanceled(longRunningProcessId, user)) {
+            return false;
+        }
+        try {
+            reportProgress(longRunningProcessId, progressPercent, message);
+            return true;
+        } catch (VisalloException ex) {
+            if (isCanceled(longRunningProcessId, user)) {
+                return false;
+            }
+            throw ex;
+        }
+    }
+
     public abstract void delete(String longRunningProcessId, User authUser);
 }
@@ -0,0 +1,320 @@
+package org.visallo.core.model.search;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import org.json.JSONObject;
+import org.vertexium.Authorizations;
+import org.vertexium.Graph;
+import org.vertexium.Visibility;
+import org.visallo.core.config.Configuration;
+import org.visallo.core.model.properties.VisalloProperties;
+import org.visallo.core.model.workQueue.WorkQueueRepository;
+import org.visallo.core.util.VisalloLogger;
+import org.visallo.core.util.VisalloLoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Serves the number of vertices of each concept type without running a terms aggregation over the vertex index on
+ * every request.
+ * <p/>
+ * Counts are kept in buckets, one per distinct set of authorizations. A bucket is filled by one aggregation the first
+ * time it is asked for, after that it is kept current by the changes reported by
+ * {@link ConceptTypeCountGraphPropertyWorker}. Each change is applied to every bucket whose authorizations can read
+ * the vertex and its concept type property. Changes are received through the work queue broadcasts so every web
+ * server applies them, and duplicate deliveries are dropped by their change id.
+ * <p/>
+ * Buckets older than the reconcile interval are recomputed in the background, which corrects any drift from changes
+ * that were not reported, like hidden vertices or lost messages, while the current counts keep being served. Each
+ * change carries the time it was made. A recomputed bucket counts the changes made before its aggregation started,
+ * so those are dropped when they arrive late, and the changes made after it started are replayed onto it.
+ */
+@Singleton
+public class ConceptTypeCountCache {
+    private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(ConceptTypeCountCache.class);
+    public static final String BROADCAST_TYPE = "conceptTypeCountChange";
+    public static final String CONFIG_ENABLED = ConceptTypeCountCache.class.getName() + ".enabled";
+    public static final boolean DEFAULT_ENABLED = true;
+    public static final String CONFIG_MAX_BUCKETS = ConceptTypeCountCache.class.getName() + ".maxBuckets";
+    public static final int DEFAULT_MAX_BUCKETS = 100;
+    public static final String CONFIG_RECONCILE_INTERVAL_MS = ConceptTypeCountCache.class.getName() + ".reconcileIntervalMs";
+    public static final long DEFAULT_RECONCILE_INTERVAL_MS = 5 * 60 * 1000;
+    private static final int MAX_RECENT_CHANGE_IDS = 100000;
+    private final Graph graph;
+    private final boolean enabled;
+    private final int maxBuckets;
+    private final long reconcileIntervalMs;
+    private final LinkedHashMap<String, Bucket> buckets = new LinkedHashMap<>(16, 0.75f, true);
+    private final Cache<String, Boolean> recentChangeIds;
+    private ExecutorService reconcileExecutor;
+
+    @Inject
+    public ConceptTypeCountCache(
+            Configuration configuration,
+            Graph graph,
+            WorkQueueRepository workQueueRepository
+    ) {
+        this.graph = graph;
+        this.enabled = configuration.getBoolean(CONFIG_ENABLED, DEFAULT_ENABLED);
+        this.maxBuckets = configuration.getInt(CONFIG_MAX_BUCKETS, DEFAULT_MAX_BUCKETS);
+        this.reconcileIntervalMs = configuration.getLong(CONFIG_RECONCILE_INTERVAL_MS, DEFAULT_RECONCILE_INTERVAL_MS);
+        this.recentChangeIds = CacheBuilder.newBuilder()
+                .maximumSize(MAX_RECENT_CHANGE_IDS)
+                .expireAfterWrite(Math.max(reconcileIntervalMs, 60 * 1000), TimeUnit.MILLISECONDS)
+                .build();
+        if (enabled) {
+            workQueueRepository.subscribeToBroadcastMessages(new WorkQueueRepository.BroadcastConsumer() {
+                @Override
+                public void broadcastReceived(JSONObject json) {
+                    if (BROADCAST_TYPE.equals(json.optString("type", null))) {
+                        handleChange(json.optJSONObject("data"));
+                    }
+                }
+            });
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled && maxBuckets > 0;
+    }
+
+    /**
+     * Returns the number of vertices of each concept type visible with the given authorizations.
+     */
+    public Map<Object, Long> getCounts(Authorizations authorizations) {
+        if (!isEnabled()) {
+            return aggregate(authorizations);
+        }
+
+        String key = createKey(authorizations);
+        Bucket bucket;
+        synchronized (buckets) {
+            bucket = buckets.get(key);
+            if (bucket == null) {
+                // added before it is filled so the changes made while it is filled are replayed onto it
+                bucket = new Bucket(graph.createAuthorizations(authorizations.getAuthorizations()));
+                buckets.put(key, bucket);
+                removeEldestBuckets();
+            }
+        }
+        if (!bucket.filled) {
+            bucket.fill();
+        } else if (System.currentTimeMillis() - bucket.reconcileTime > reconcileIntervalMs) {
+            scheduleReconcile(bucket);
+        }
+        return bucket.getCounts();
+    }
+
+    /**
+     * Creates the broadcast data reporting that a vertex changed from one concept type to another.
+     *
+     * @param changeId              identifies the change so it is only counted once, however many times it is
+     *                              reported.
+     * @param changeTime            when the change was saved, tells whether an aggregation already counted it.
+     * @param oldConceptType        the concept type before the change, null if the vertex did not have one.
+     * @param newConceptType        the concept type after the change, null if the vertex was deleted.
+     */
+    public static JSONObject createChangeJson(
+            String changeId,
+            long changeTime,
+            Visibility vertexVisibility,
+            String oldConceptType,
+            Visibility oldPropertyVisibility,
+            String newConceptType,
+            Visibility newPropertyVisibility
+    ) {
+        JSONObject json = new JSONObject();
+        json.put("changeId", changeId);
+        json.put("changeTime", changeTime);
+        json.put("vertexVisibility", vertexVisibility.getVisibilityString());
+        if (oldConceptType != null) {
+            json.put("oldConceptType", oldConceptType);
+            json.put("oldPropertyVisibility", oldPropertyVisibility.getVisibilityString());
+        }
+        if (newConceptType != null) {
+            json.put("newConceptType", newConceptType);
+            json.put("newPropertyVisibility", newPropertyVisibility.getVisibilityString());
+        }
+        return json;
+    }
+
+    void handleChange(JSONObject data) {
+        if (data == null || !isEnabled()) {
+            return;
+        }
+        String changeId = data.getString("changeId");
+        long changeTime = data.getLong("changeTime");
+        if (recentChangeIds.asMap().putIfAbsent(changeId, Boolean.TRUE) != null) {
+            LOGGER.debug("skipping already applied concept type count change: %s", changeId);
+            return;
+        }
+
+        Visibility vertexVisibility = new Visibility(data.getString("vertexVisibility"));
+        String oldConceptType = data.optString("oldConceptType", null);
+        Visibility oldPropertyVisibility = oldConceptType == null ? null : new Visibility(data.getString("oldPropertyVisibility"));
+        String newConceptType = data.optString("newConceptType", null);
+        Visibility newPropertyVisibility = newConceptType == null ? null : new Visibility(data.getString("newPropertyVisibility"));
+
+        List<Bucket> currentBuckets;
+        synchronized (buckets) {
+            currentBuckets = new ArrayList<>(buckets.values());
+        }
+        for (Bucket bucket : currentBuckets) {
+            Authorizations authorizations = bucket.authorizations;
+            if (!authorizations.canRead(vertexVisibility)) {
+                continue;
+            }
+            if (oldConceptType != null && authorizations.canRead(oldPropertyVisibility)) {
+                bucket.add(oldConceptType, -1, changeTime);
+            }
+            if (newConceptType != null && authorizations.canRead(newPropertyVisibility)) {
+                bucket.add(newConceptType, 1, changeTime);
+            }
+        }
+    }
+
+    public void clear() {
+        synchronized (buckets) {
+            buckets.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (buckets) {
+            return buckets.size();
+        }
+    }
+
+    private void removeEldestBuckets() {
+        Iterator<Bucket> it = buckets.values().iterator();
+        while (buckets.size() > maxBuckets && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    private synchronized void scheduleReconcile(Bucket bucket) {
+        if (!bucket.reconciling.compareAndSet(false, true)) {
+            return;
+        }
+        if (reconcileExecutor == null) {
+            reconcileExecutor = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "visallo-concept-type-count-reconcile");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        reconcileExecutor.submit(() -> {
+            try {
+                bucket.reconcile();
+            } catch (Throwable ex) {
+                LOGGER.error("Could not reconcile concept type counts", ex);
+            } finally {
+                bucket.reconciling.set(false);
+            }
+        });
+    }
+
+    private Map<Object, Long> aggregate(Authorizations authorizations) {
+        return graph.getVertexPropertyCountByValue(VisalloProperties.CONCEPT_TYPE.getPropertyName(), authorizations);
+    }
+
+    private static String createKey(Authorizations authorizations) {
+        String[] auths = authorizations.getAuthorizations().clone();
+        Arrays.sort(auths);
+        return String.join("\u0000", auths);
+    }
+
+    private class Bucket {
+        private final Authorizations authorizations;
+        private final AtomicBoolean reconciling = new AtomicBoolean();
+        private final Object fillLock = new Object();
+        private volatile Map<String, Long> counts = new ConcurrentHashMap<>();
+        private volatile boolean filled;
+        private volatile long reconcileTime;
+        private List<Delta> reconcileDeltas;
+
+        public Bucket(Authorizations authorizations) {
+            this.authorizations = authorizations;
+        }
+
+        public void fill() {
+            // not synchronized on the bucket so changes can be added while it is filled
+            synchronized (fillLock) {
+                if (!filled) {
+                    reconcile();
+                    filled = true;
+                }
+            }
+        }
+
+        public void reconcile() {
+            long start = System.currentTimeMillis();
+            List<Delta> deltas = new ArrayList<>();
+            synchronized (this) {
+                reconcileDeltas = deltas;
+            }
+            try {
+                Map<String, Long> newCounts = new ConcurrentHashMap<>();
+                for (Map.Entry<Object, Long> entry : aggregate(authorizations).entrySet()) {
+                    newCounts.put(String.valueOf(entry.getKey()), entry.getValue());
+                }
+                synchronized (this) {
+                    // changes made after the aggregation started may be missing from it
+                    for (Delta delta : deltas) {
+                        if (delta.changeTime >= start) {
+                            newCounts.merge(delta.conceptType, delta.delta, Long::sum);
+                        }
+                    }
+                    counts = newCounts;
+                    reconcileTime = start;
+                }
+            } finally {
+                synchronized (this) {
+                    reconcileDeltas = null;
+                }
+            }
+            LOGGER.debug("reconciled concept type counts in %dms", System.currentTimeMillis() - start);
+        }
+
+        public synchronized void add(String conceptType, long delta, long changeTime) {
+            if (changeTime < reconcileTime) {
+                // already counted by the last aggregation
+                return;
+            }
+            counts.merge(conceptType, delta, Long::sum);
+            if (reconcileDeltas != null) {
+                reconcileDeltas.add(new Delta(conceptType, delta, changeTime));
+            }
+        }
+
+        public Map<Object, Long> getCounts() {
+            Map<Object, Long> results = new HashMap<>();
+            for (Map.Entry<String, Long> entry : counts.entrySet()) {
+                if (entry.getValue() > 0) {
+                    results.put(entry.getKey(), entry.getValue());
+                }
+            }
+            return results;
+        }
+    }
+
+    private static class Delta {
+        private final String conceptType;
+        private final long delta;
+        private final long changeTime;
+
+        public Delta(String conceptType, long delta, long changeTime) {
+            this.conceptType = conceptType;
+            this.delta = delta;
+            this.changeTime = changeTime;
+        }
+    }
+}
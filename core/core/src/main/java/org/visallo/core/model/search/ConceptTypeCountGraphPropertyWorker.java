@@ -0,0 +1,101 @@
+package org.visallo.core.model.search;
+
+import org.json.JSONObject;
+import org.vertexium.*;
+import org.visallo.core.ingest.graphProperty.ElementOrPropertyStatus;
+import org.visallo.core.ingest.graphProperty.GraphPropertyWorkData;
+import org.visallo.core.ingest.graphProperty.GraphPropertyWorker;
+import org.visallo.core.ingest.graphProperty.GraphPropertyWorkerInterest;
+import org.visallo.core.model.Description;
+import org.visallo.core.model.Name;
+import org.visallo.core.model.properties.VisalloProperties;
+import org.visallo.core.util.VisalloLogger;
+import org.visallo.core.util.VisalloLoggerFactory;
+
+import java.io.InputStream;
+
+@Name("Concept Type Counts")
+@Description("reports concept type changes and vertex deletes to the concept type count caches")
+public class ConceptTypeCountGraphPropertyWorker extends GraphPropertyWorker {
+    private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(ConceptTypeCountGraphPropertyWorker.class);
+
+    @Override
+    public void execute(InputStream in, GraphPropertyWorkData data) throws Exception {
+        Vertex vertex = (Vertex) data.getElement();
+        Property property = data.getProperty();
+        JSONObject change;
+        if (data.getPropertyStatus() == ElementOrPropertyStatus.DELETION) {
+            if (property == null) {
+                property = vertex.getProperty(VisalloProperties.CONCEPT_TYPE.getPropertyName());
+                if (property == null) {
+                    return;
+                }
+            }
+            String changeId = vertex.getId() + ":" + property.getKey() + ":deleted:" + data.getBeforeActionTimestamp();
+            change = ConceptTypeCountCache.createChangeJson(
+                    changeId,
+                    data.getBeforeActionTimestamp(),
+                    vertex.getVisibility(),
+                    (String) property.getValue(),
+                    property.getVisibility(),
+                    null,
+                    null
+            );
+        } else {
+            HistoricalPropertyValue previous = getPreviousValue(vertex, property);
+            String oldConceptType = previous == null ? null : (String) previous.getValue();
+            String newConceptType = (String) property.getValue();
+            if (newConceptType.equals(oldConceptType)) {
+                return;
+            }
+            String changeId = vertex.getId() + ":" + property.getKey() + ":" + property.getTimestamp();
+            change = ConceptTypeCountCache.createChangeJson(
+                    changeId,
+                    property.getTimestamp(),
+                    vertex.getVisibility(),
+                    oldConceptType,
+                    previous == null ? null : previous.getPropertyVisibility(),
+                    newConceptType,
+                    property.getVisibility()
+            );
+        }
+        getWorkQueueRepository().broadcast(ConceptTypeCountCache.BROADCAST_TYPE, change, null);
+    }
+
+    private HistoricalPropertyValue getPreviousValue(Vertex vertex, Property property) {
+        try {
+            HistoricalPropertyValue previous = null;
+            for (HistoricalPropertyValue value : vertex.getHistoricalPropertyValues(null, property.getTimestamp() - 1, getAuthorizations())) {
+                if (!property.getName().equals(value.getPropertyName()) || !property.getKey().equals(value.getPropertyKey())) {
+                    continue;
+                }
+                if (previous == null || value.getTimestamp() > previous.getTimestamp()) {
+                    previous = value;
+                }
+            }
+            return previous;
+        } catch (Exception ex) {
+            // the counts are corrected the next time they are reconciled
+            LOGGER.warn("Could not read the previous concept type of vertex %s", vertex.getId(), ex);
+            return null;
+        }
+    }
+
+    @Override
+    public boolean isHandled(Element element, Property property) {
+        return element instanceof Vertex
+                && property != null
+                && VisalloProperties.CONCEPT_TYPE.getPropertyName().equals(property.getName());
+    }
+
+    @Override
+    public boolean isDeleteHandled(Element element, Property property) {
+        return element instanceof Vertex
+                && (property == null || VisalloProperties.CONCEPT_TYPE.getPropertyName().equals(property.getName()));
+    }
+
+    @Override
+    public GraphPropertyWorkerInterest getInterest() {
+        return GraphPropertyWorkerInterest.properties(VisalloProperties.CONCEPT_TYPE.getPropertyName());
+    }
+}
@@ -1,5 +1,6 @@
 package org.visallo.core.model.search;
 
+import com.google.inject.Inject;
 import org.apache.commons.math3.util.Precision;
 import org.json.JSONArray;
 import org.json.JSONObject;
@@ -14,6 +15,7 @@ import org.visallo.core.trace.Trace;
 import org.visallo.core.trace.TraceSpan;
 import org.visallo.core.user.User;
 import org.visallo.core.util.ClientApiConverter;
+import org.visallo.core.util.ClientApiFetchProfiles;
 import org.visallo.core.util.JSONUtil;
 import org.visallo.web.clientapi.model.PropertyType;
 
@@ -27,6 +29,8 @@ public abstract class ElementSearchRunnerBase extends SearchRunner {
     private final DirectoryRepository directoryRepository;
     private final OntologyRepository ontologyRepository;
     private int defaultSearchResultCount;
+    private SearchResultCache searchResultCache;
+    private ClientApiFetchProfiles clientApiFetchProfiles;
 
     protected ElementSearchRunnerBase(
             OntologyRepository ontologyRepository,
@@ -46,6 +50,25 @@ public abstract class ElementSearchRunnerBase extends SearchRunner {
             User user,
             Authorizations authorizations
     ) {
+        QueryAndData queryAndData = createQuery(searchOptions, user, authorizations);
+
+        EnumSet<FetchHint> fetchHints = getFetchHints(searchOptions);
+        final int size = searchOptions.getOptionalParameter("size", defaultSearchResultCount);
+        final String cursorParameter = searchOptions.getOptionalParameter(SearchCursor.PARAMETER_NAME, String.class);
+        if (cursorParameter != null) {
+            return runWithCursor(queryAndData, searchOptions, cursorParameter, fetchHints, size, user, authorizations);
+        }
+
+        final int offset = searchOptions.getOptionalParameter("offset", 0);
+        queryAndData.getQuery().limit(size);
+        queryAndData.getQuery().skip(offset);
+
+        QueryResultsIterable<? extends Element> searchResults = getSearchResults(queryAndData, searchOptions, fetchHints, user, authorizations);
+
+        return new QueryResultsIterableSearchResults(searchResults, queryAndData, offset, size);
+    }
+
+    private QueryAndData createQuery(SearchOptions searchOptions, User user, Authorizations authorizations) {
         JSONArray filterJson = getFilterJson(searchOptions);
 
         QueryAndData queryAndData = getQuery(searchOptions, authorizations);
@@ -54,24 +77,81 @@ public abstract class ElementSearchRunnerBase extends SearchRunner {
         applyEdgeLabelFilterToQuery(queryAndData, searchOptions);
         applySortToQuery(queryAndData, searchOptions);
         applyAggregationsToQuery(queryAndData, searchOptions);
+        return queryAndData;
+    }
 
-        EnumSet<FetchHint> fetchHints = getFetchHints(searchOptions);
-        final int offset = searchOptions.getOptionalParameter("offset", 0);
-        final int size = searchOptions.getOptionalParameter("size", defaultSearchResultCount);
-        queryAndData.getQuery().limit(size);
-        queryAndData.getQuery().skip(offset);
-
-        QueryResultsIterable<? extends Element> searchResults = getSearchResults(queryAndData, fetchHints);
+    /**
+     * Runs the search from the position of the cursor, an empty cursor reads the first page.
+     * <p/>
+     * Cursors which filter on the sort value leave out the elements of the earlier pages, the totals and aggregations
+     * of those pages are read from the search without the cursor so they are the same on every page.
+     */
+    private QueryResultsIterableSearchResults runWithCursor(
+            QueryAndData queryAndData,
+            SearchOptions searchOptions,
+            String cursorParameter,
+            EnumSet<FetchHint> fetchHints,
+            int size,
+            User user,
+            Authorizations authorizations
+    ) {
+        List<SortField> sorts = getSorts(searchOptions);
+        SortField sort = sorts.size() == 0 ? null : sorts.get(0);
+        SearchCursor cursor = cursorParameter.length() == 0 ? null : SearchCursor.decode(cursorParameter);
+        int skip = cursor == null ? 0 : cursor.applyToQuery(queryAndData.getQuery(), sort);
+        int tieCount = cursor == null ? 0 : cursor.getTieElementIds().size();
+        queryAndData.getQuery().limit(size + tieCount);
+        queryAndData.getQuery().skip(skip);
+
+        QueryResultsIterable<? extends Element> searchResults = getSearchResults(queryAndData, searchOptions, fetchHints, user, authorizations);
+        SearchCursor.Page page = SearchCursor.readPage(searchResults, cursor, sort, size);
+        long offset = cursor == null ? 0 : cursor.getOffset();
+        QueryResultsIterable<? extends Element> totalsResults = searchResults;
+        if (cursor != null && cursor.getMode() != SearchCursor.Mode.OFFSET) {
+            QueryAndData totalsQueryAndData = createQuery(searchOptions, user, authorizations);
+            totalsQueryAndData.getQuery().limit(0);
+            totalsResults = getSearchResults(totalsQueryAndData, fetchHints);
+        }
+        return new QueryResultsIterableSearchResults(
+                new PageQueryResultsIterable(searchResults, totalsResults, page.getElements()),
+                queryAndData,
+                offset,
+                page.getElements().size(),
+                page.getNextCursor() == null ? null : page.getNextCursor().encode()
+        );
+    }
 
-        return new QueryResultsIterableSearchResults(searchResults, queryAndData, offset, size);
+    private QueryResultsIterable<? extends Element> getSearchResults(
+            QueryAndData queryAndData,
+            SearchOptions searchOptions,
+            EnumSet<FetchHint> fetchHints,
+            User user,
+            Authorizations authorizations
+    ) {
+        if (searchResultCache != null && searchResultCache.isEnabled()) {
+            return searchResultCache.getOrRun(
+                    getUri(),
+                    searchOptions,
+                    user,
+                    authorizations,
+                    fetchHints,
+                    queryAndData.getQuery(),
+                    () -> getSearchResults(queryAndData, fetchHints)
+            );
+        }
+        return getSearchResults(queryAndData, fetchHints);
     }
 
     private EnumSet<FetchHint> getFetchHints(SearchOptions searchOptions) {
         String fetchHintsString = searchOptions.getOptionalParameter("fetchHints", String.class);
-        if (fetchHintsString == null) {
+        if (fetchHintsString != null) {
+            return FetchHint.parse(fetchHintsString);
+        }
+        String fetchProfileName = searchOptions.getOptionalParameter(ClientApiFetchProfiles.PARAMETER_NAME, String.class);
+        if (fetchProfileName == null || clientApiFetchProfiles == null) {
             return ClientApiConverter.SEARCH_FETCH_HINTS;
         }
-        return FetchHint.parse(fetchHintsString);
+        return clientApiFetchProfiles.getRequired(fetchProfileName).getFetchHints();
     }
 
     private void applyAggregationsToQuery(QueryAndData queryAndData, SearchOptions searchOptions) {
@@ -173,6 +253,12 @@ public abstract class ElementSearchRunnerBase extends SearchRunner {
     }
 
     protected void applySortToQuery(QueryAndData queryAndData, SearchOptions searchOptions) {
+        for (SortField sort : getSorts(searchOptions)) {
+            queryAndData.getQuery().sort(sort.getPropertyName(), sort.getDirection());
+        }
+    }
+
+    protected List<SortField> getSorts(SearchOptions searchOptions) {
         String[] sorts = searchOptions.getOptionalParameter("sort[]", String[].class);
         if (sorts == null) {
             JSONArray sortsJson = searchOptions.getOptionalParameter("sort", JSONArray.class);
@@ -180,8 +266,9 @@ public abstract class ElementSearchRunnerBase extends SearchRunner {
                 sorts = JSONUtil.toStringList(sortsJson).toArray(new String[sortsJson.length()]);
             }
         }
+        List<SortField> results = new ArrayList<>();
         if (sorts == null) {
-            return;
+            return results;
         }
         for (String sort : sorts) {
             String propertyName = sort;
@@ -193,8 +280,9 @@ public abstract class ElementSearchRunnerBase extends SearchRunner {
                 direction = SortDirection.DESCENDING;
                 propertyName = propertyName.substring(0, propertyName.length() - ":DESCENDING".length());
             }
-            queryAndData.getQuery().sort(propertyName, direction);
+            results.add(new SortField(propertyName, direction));
         }
+        return results;
     }
 
     protected QueryResultsIterable<? extends Element> getSearchResults(QueryAndData queryAndData, EnumSet<FetchHint> fetchHints) {
@@ -410,10 +498,38 @@ public abstract class ElementSearchRunnerBase extends SearchRunner {
         return OntologyProperty.convert(values, propertyDataType, index);
     }
 
+    @Inject
+    public void setSearchResultCache(SearchResultCache searchResultCache) {
+        this.searchResultCache = searchResultCache;
+    }
+
+    @Inject
+    public void setClientApiFetchProfiles(ClientApiFetchProfiles clientApiFetchProfiles) {
+        this.clientApiFetchProfiles = clientApiFetchProfiles;
+    }
+
     protected Graph getGraph() {
         return graph;
     }
 
+    public static class SortField {
+        private final String propertyName;
+        private final SortDirection direction;
+
+        public SortField(String propertyName, SortDirection direction) {
+            this.propertyName = propertyName;
+            this.direction = direction;
+        }
+
+        public String getPropertyName() {
+            return propertyName;
+        }
+
+        public SortDirection getDirection() {
+            return direction;
+        }
+    }
+
     public static class QueryAndData {
         private final Query query;
 
@@ -0,0 +1,72 @@
+package org.visallo.core.model.search;
+
+import org.vertexium.Element;
+import org.vertexium.query.AggregationResult;
+import org.vertexium.query.IterableWithScores;
+import org.vertexium.query.IterableWithSearchTime;
+import org.vertexium.query.QueryResultsIterable;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A page of elements read from search results, the totals and aggregations come from the search results for all
+ * pages, which are the same search results unless the page was read with a filtering cursor.
+ */
+class PageQueryResultsIterable implements QueryResultsIterable<Element>, IterableWithScores<Element>,
+        IterableWithSearchTime<Element> {
+    private final QueryResultsIterable<? extends Element> searchResults;
+    private final QueryResultsIterable<? extends Element> totalsResults;
+    private final List<Element> elements;
+
+    PageQueryResultsIterable(
+            QueryResultsIterable<? extends Element> searchResults,
+            QueryResultsIterable<? extends Element> totalsResults,
+            List<Element> elements
+    ) {
+        this.searchResults = searchResults;
+        this.totalsResults = totalsResults;
+        this.elements = elements;
+    }
+
+    @Override
+    public <TResult extends AggregationResult> TResult getAggregationResult(String name, Class<? extends TResult> resultType) {
+        return totalsResults.getAggregationResult(name, resultType);
+    }
+
+    @Override
+    public long getTotalHits() {
+        return totalsResults.getTotalHits();
+    }
+
+    @Override
+    public Map<String, Double> getScores() {
+        if (searchResults instanceof IterableWithScores) {
+            return ((IterableWithScores<?>) searchResults).getScores();
+        }
+        return null;
+    }
+
+    @Override
+    public long getSearchTimeNanoSeconds() {
+        if (searchResults instanceof IterableWithSearchTime) {
+            return ((IterableWithSearchTime<?>) searchResults).getSearchTimeNanoSeconds();
+        }
+        return 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        searchResults.close();
+        if (totalsResults != searchResults) {
+            totalsResults.close();
+        }
+    }
+
+    @Override
+    public Iterator<Element> iterator() {
+        return elements.iterator();
+    }
+}
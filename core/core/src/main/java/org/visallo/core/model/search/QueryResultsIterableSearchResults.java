@@ -8,17 +8,29 @@ public class QueryResultsIterableSearchResults extends ElementsSearchResults imp
     private final ElementSearchRunnerBase.QueryAndData queryAndData;
     private final long offset;
     private final long size;
+    private final String nextCursor;
 
     public QueryResultsIterableSearchResults(
             QueryResultsIterable<? extends Element> searchResults,
             ElementSearchRunnerBase.QueryAndData queryAndData,
             long offset,
             long size
+    ) {
+        this(searchResults, queryAndData, offset, size, null);
+    }
+
+    public QueryResultsIterableSearchResults(
+            QueryResultsIterable<? extends Element> searchResults,
+            ElementSearchRunnerBase.QueryAndData queryAndData,
+            long offset,
+            long size,
+            String nextCursor
     ) {
         this.searchResults = searchResults;
         this.queryAndData = queryAndData;
         this.offset = offset;
         this.size = size;
+        this.nextCursor = nextCursor;
     }
 
     public QueryResultsIterable<? extends Element> getQueryResultsIterable() {
@@ -37,6 +49,13 @@ public class QueryResultsIterableSearchResults extends ElementsSearchResults imp
         return size;
     }
 
+    /**
+     * @return the cursor for the next page when the search was run with a cursor and there are more results.
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
     @Override
     public void close() throws Exception {
         this.searchResults.close();
@@ -0,0 +1,303 @@
+package org.visallo.core.model.search;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.vertexium.Element;
+import org.vertexium.query.Compare;
+import org.vertexium.query.Query;
+import org.vertexium.query.SortDirection;
+import org.visallo.core.exception.VisalloException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * An opaque position in the results of an element search, returned with each page and passed back with the
+ * {@code cursor} parameter to read the next page.
+ * <p/>
+ * For sorted searches the cursor holds the primary sort value of the last element returned and the ids of the
+ * returned elements sharing that value. The next page filters on the sort value instead of skipping, so every page
+ * costs the same no matter how deep it is. Elements without a value for the sort property come last and are paged
+ * separately. Searches without a sort, and pages where too many elements share one sort value, fall back to
+ * offsets.
+ * <p/>
+ * Pages read with a cursor can be shorter than requested, callers should read until no next cursor is returned.
+ */
+public class SearchCursor {
+    public static final String PARAMETER_NAME = "cursor";
+    static final int MAX_TIE_ELEMENT_IDS = 1000;
+    private final Mode mode;
+    private final String propertyName;
+    private final SortDirection direction;
+    private final Object value;
+    private final Set<String> tieElementIds;
+    private final long offset;
+    private final long missingOffset;
+
+    public enum Mode {
+        OFFSET,
+        KEYSET,
+        MISSING
+    }
+
+    private SearchCursor(
+            Mode mode,
+            String propertyName,
+            SortDirection direction,
+            Object value,
+            Set<String> tieElementIds,
+            long offset,
+            long missingOffset
+    ) {
+        this.mode = mode;
+        this.propertyName = propertyName;
+        this.direction = direction;
+        this.value = value;
+        this.tieElementIds = tieElementIds;
+        this.offset = offset;
+        this.missingOffset = missingOffset;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public Object getValue() {
+        return value;
+    }
+
+    public Set<String> getTieElementIds() {
+        return tieElementIds;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * Restricts the query to the results after this cursor.
+     *
+     * @return the number of results to skip.
+     */
+    public int applyToQuery(Query query, ElementSearchRunnerBase.SortField sort) {
+        if (mode != Mode.OFFSET && !isSameSort(sort)) {
+            throw new VisalloException("Search cursor does not match the search sort");
+        }
+        switch (mode) {
+            case KEYSET:
+                Compare compare = direction == SortDirection.ASCENDING ? Compare.GREATER_THAN_EQUAL : Compare.LESS_THAN_EQUAL;
+                query.has(propertyName, compare, value);
+                return 0;
+            case MISSING:
+                query.hasNot(propertyName);
+                return (int) missingOffset;
+            default:
+                return (int) offset;
+        }
+    }
+
+    private boolean isSameSort(ElementSearchRunnerBase.SortField sort) {
+        return sort != null && sort.getPropertyName().equals(propertyName) && sort.getDirection() == direction;
+    }
+
+    /**
+     * Reads a page of results, dropping the elements already returned with this cursor's sort value.
+     *
+     * @param cursor the cursor the search was run with or null for the first page.
+     */
+    public static Page readPage(
+            Iterable<? extends Element> results,
+            SearchCursor cursor,
+            ElementSearchRunnerBase.SortField sort,
+            int size
+    ) {
+        Set<String> skipElementIds = cursor == null ? Collections.<String>emptySet() : cursor.tieElementIds;
+        List<Element> elements = new ArrayList<>(size);
+        for (Element element : results) {
+            if (elements.size() >= size) {
+                break;
+            }
+            if (skipElementIds.contains(element.getId())) {
+                continue;
+            }
+            elements.add(element);
+        }
+        return new Page(elements, getNextCursor(elements, cursor, sort, size));
+    }
+
+    private static SearchCursor getNextCursor(
+            List<Element> elements,
+            SearchCursor cursor,
+            ElementSearchRunnerBase.SortField sort,
+            int size
+    ) {
+        Mode mode = cursor == null ? null : cursor.mode;
+        long offset = (cursor == null ? 0 : cursor.offset) + elements.size();
+        if (elements.size() < size) {
+            // filtering on the sort value leaves out the elements missing it, they are read after the others
+            if (mode == Mode.KEYSET) {
+                return new SearchCursor(Mode.MISSING, sort.getPropertyName(), sort.getDirection(), null, Collections.<String>emptySet(), offset, 0);
+            }
+            return null;
+        }
+        if (sort == null || mode == Mode.OFFSET) {
+            return new SearchCursor(Mode.OFFSET, null, null, null, Collections.<String>emptySet(), offset, 0);
+        }
+        if (mode == Mode.MISSING) {
+            return new SearchCursor(Mode.MISSING, sort.getPropertyName(), sort.getDirection(), null, Collections.<String>emptySet(), offset, cursor.missingOffset + elements.size());
+        }
+
+        Element last = elements.get(elements.size() - 1);
+        Object lastValue = getSortValue(last, sort);
+        if (lastValue != null && !isEncodable(lastValue)) {
+            return new SearchCursor(Mode.OFFSET, null, null, null, Collections.<String>emptySet(), offset, 0);
+        }
+        if (lastValue == null) {
+            // only the first page can contain elements missing the sort value, they are at the end of it
+            int missingCount = 0;
+            for (int i = elements.size() - 1; i >= 0 && getSortValue(elements.get(i), sort) == null; i--) {
+                missingCount++;
+            }
+            return new SearchCursor(Mode.MISSING, sort.getPropertyName(), sort.getDirection(), null, Collections.<String>emptySet(), offset, missingCount);
+        }
+
+        Set<String> tieElementIds = new HashSet<>();
+        if (cursor != null && lastValue.equals(cursor.value)) {
+            tieElementIds.addAll(cursor.tieElementIds);
+        }
+        for (Element element : elements) {
+            if (lastValue.equals(getSortValue(element, sort))) {
+                tieElementIds.add(element.getId());
+            }
+        }
+        if (tieElementIds.size() > MAX_TIE_ELEMENT_IDS) {
+            return new SearchCursor(Mode.OFFSET, null, null, null, Collections.<String>emptySet(), offset, 0);
+        }
+        return new SearchCursor(Mode.KEYSET, sort.getPropertyName(), sort.getDirection(), lastValue, tieElementIds, offset, 0);
+    }
+
+    /**
+     * The value the search index sorts the element by, the smallest value when sorting ascending and the largest
+     * when sorting descending.
+     */
+    @SuppressWarnings("unchecked")
+    static Object getSortValue(Element element, ElementSearchRunnerBase.SortField sort) {
+        Comparable result = null;
+        for (Object value : element.getPropertyValues(sort.getPropertyName())) {
+            if (!(value instanceof Comparable)) {
+                continue;
+            }
+            Comparable comparable = (Comparable) value;
+            if (result == null) {
+                result = comparable;
+            } else if (result.getClass() == comparable.getClass()) {
+                int compare = comparable.compareTo(result);
+                if (sort.getDirection() == SortDirection.ASCENDING ? compare < 0 : compare > 0) {
+                    result = comparable;
+                }
+            }
+        }
+        return result;
+    }
+
+    public String encode() {
+        JSONObject json = new JSONObject();
+        json.put("m", mode.name());
+        json.put("o", offset);
+        if (mode != Mode.OFFSET) {
+            json.put("p", propertyName);
+            json.put("d", direction.name());
+        }
+        if (mode == Mode.MISSING) {
+            json.put("mo", missingOffset);
+        }
+        if (mode == Mode.KEYSET) {
+            json.put("v", encodeValue(value));
+            json.put("ids", new JSONArray(tieElementIds));
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static SearchCursor decode(String token) {
+        try {
+            JSONObject json = new JSONObject(new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8));
+            Mode mode = Mode.valueOf(json.getString("m"));
+            long offset = json.getLong("o");
+            if (mode == Mode.OFFSET) {
+                return new SearchCursor(mode, null, null, null, Collections.<String>emptySet(), offset, 0);
+            }
+            String propertyName = json.getString("p");
+            SortDirection direction = SortDirection.valueOf(json.getString("d"));
+            if (mode == Mode.MISSING) {
+                return new SearchCursor(mode, propertyName, direction, null, Collections.<String>emptySet(), offset, json.getLong("mo"));
+            }
+            Set<String> tieElementIds = new HashSet<>();
+            JSONArray ids = json.getJSONArray("ids");
+            for (int i = 0; i < ids.length(); i++) {
+                tieElementIds.add(ids.getString(i));
+            }
+            return new SearchCursor(mode, propertyName, direction, decodeValue(json.getJSONObject("v")), tieElementIds, offset, 0);
+        } catch (Exception ex) {
+            throw new VisalloException("Invalid search cursor: " + token, ex);
+        }
+    }
+
+    private static boolean isEncodable(Object value) {
+        return value instanceof Date || value instanceof String || value instanceof Boolean
+                || value instanceof Integer || value instanceof Long || value instanceof Double || value instanceof Float;
+    }
+
+    private static JSONObject encodeValue(Object value) {
+        JSONObject json = new JSONObject();
+        if (value instanceof Date) {
+            json.put("t", "date");
+            json.put("v", ((Date) value).getTime());
+        } else if (isEncodable(value)) {
+            json.put("t", value.getClass().getSimpleName());
+            json.put("v", value);
+        } else {
+            throw new VisalloException("Unsupported sort value type: " + value.getClass().getName());
+        }
+        return json;
+    }
+
+    private static Object decodeValue(JSONObject json) {
+        String type = json.getString("t");
+        switch (type) {
+            case "date":
+                return new Date(json.getLong("v"));
+            case "String":
+                return json.getString("v");
+            case "Boolean":
+                return json.getBoolean("v");
+            case "Integer":
+                return json.getInt("v");
+            case "Long":
+                return json.getLong("v");
+            case "Double":
+                return json.getDouble("v");
+            case "Float":
+                return (float) json.getDouble("v");
+            default:
+                throw new VisalloException("Unsupported sort value type: " + type);
+        }
+    }
+
+    public static class Page {
+        private final List<Element> elements;
+        private final SearchCursor nextCursor;
+
+        public Page(List<Element> elements, SearchCursor nextCursor) {
+            this.elements = elements;
+            this.nextCursor = nextCursor;
+        }
+
+        public List<Element> getElements() {
+            return elements;
+        }
+
+        public SearchCursor getNextCursor() {
+            return nextCursor;
+        }
+    }
+}
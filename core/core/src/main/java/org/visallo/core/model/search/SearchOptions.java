@@ -22,6 +22,10 @@ public class SearchOptions {
         return workspaceId;
     }
 
+    public Map<String, Object> getParameters() {
+        return parameters;
+    }
+
     public <T> T getOptionalParameter(String parameterName, Class<T> resultType) {
         Object obj = parameters.get(parameterName);
         if (obj == null) {
@@ -0,0 +1,497 @@
+package org.visallo.core.model.search;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.vertexium.*;
+import org.vertexium.query.*;
+import org.visallo.core.config.Configuration;
+import org.visallo.core.exception.VisalloException;
+import org.visallo.core.model.workQueue.WorkQueueRepository;
+import org.visallo.core.user.User;
+import org.visallo.core.util.VisalloLogger;
+import org.visallo.core.util.VisalloLoggerFactory;
+
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Caches the results of element searches so repeated identical searches, like the aggregation-only searches
+ * dashboards run on every refresh, do not hit the search index again.
+ * <p/>
+ * Entries are keyed by the search runner URI, a canonical form of the {@link SearchOptions}, the workspace id and
+ * the authorizations, so users only share results when they would see the same elements. Only the element ids,
+ * scores, total hits and aggregation results are kept. The elements of a cached page are reloaded with the
+ * caller's authorizations on every hit.
+ * <p/>
+ * An entry is dropped when it is older than the max age, when any element changes outside of a workspace (the
+ * global write epoch) or when its workspace changes. Changes are observed through the work queue broadcasts so
+ * every web server sees the same invalidations. Writes which are not broadcast to the clients are sent as
+ * {@link #BROADCAST_TYPE} messages by {@link WorkQueueRepository}.
+ */
+@Singleton
+public class SearchResultCache {
+    private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(SearchResultCache.class);
+    public static final String BROADCAST_TYPE = "searchResultCacheInvalidation";
+    public static final String CONFIG_ENABLED = SearchResultCache.class.getName() + ".enabled";
+    public static final boolean DEFAULT_ENABLED = true;
+    public static final String CONFIG_MAX_ENTRIES = SearchResultCache.class.getName() + ".maxEntries";
+    public static final int DEFAULT_MAX_ENTRIES = 1000;
+    public static final String CONFIG_MAX_BYTES = SearchResultCache.class.getName() + ".maxBytes";
+    public static final long DEFAULT_MAX_BYTES = 64 * 1024 * 1024;
+    public static final String CONFIG_MAX_AGE_MS = SearchResultCache.class.getName() + ".maxAgeMs";
+    public static final long DEFAULT_MAX_AGE_MS = 60 * 1000;
+    private static final int ENTRY_OVERHEAD_BYTES = 256;
+    private static final int ELEMENT_ID_OVERHEAD_BYTES = 48;
+    private static final int BUCKET_OVERHEAD_BYTES = 128;
+    private final Graph graph;
+    private final boolean enabled;
+    private final int maxEntries;
+    private final long maxBytes;
+    private final long maxAgeMs;
+    private final AtomicLong writeEpoch = new AtomicLong();
+    private final Map<String, AtomicLong> workspaceEpochs = new ConcurrentHashMap<>();
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private long totalBytes;
+
+    @Inject
+    public SearchResultCache(
+            Configuration configuration,
+            Graph graph,
+            WorkQueueRepository workQueueRepository
+    ) {
+        this.graph = graph;
+        this.enabled = configuration.getBoolean(CONFIG_ENABLED, DEFAULT_ENABLED);
+        this.maxEntries = configuration.getInt(CONFIG_MAX_ENTRIES, DEFAULT_MAX_ENTRIES);
+        this.maxBytes = configuration.getLong(CONFIG_MAX_BYTES, DEFAULT_MAX_BYTES);
+        this.maxAgeMs = configuration.getLong(CONFIG_MAX_AGE_MS, DEFAULT_MAX_AGE_MS);
+        if (enabled) {
+            workQueueRepository.subscribeToBroadcastMessages(new WorkQueueRepository.BroadcastConsumer() {
+                @Override
+                public void broadcastReceived(JSONObject json) {
+                    handleBroadcast(json);
+                }
+            });
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled && maxEntries > 0 && maxBytes > 0;
+    }
+
+    /**
+     * Returns the cached results for the search or runs it, caching the page of results it returns.
+     *
+     * @param query  the query the results are for, used to read its aggregation results.
+     * @param search runs the search when there is no current entry.
+     */
+    public QueryResultsIterable<? extends Element> getOrRun(
+            String uri,
+            SearchOptions searchOptions,
+            User user,
+            Authorizations authorizations,
+            EnumSet<FetchHint> fetchHints,
+            Query query,
+            Supplier<QueryResultsIterable<? extends Element>> search
+    ) {
+        String key = createKey(uri, searchOptions, user, authorizations);
+        String workspaceId = searchOptions.getWorkspaceId();
+        long now = System.currentTimeMillis();
+        Entry entry = get(key);
+        if (entry != null && isCurrent(entry, workspaceId, now)) {
+            hitCount.incrementAndGet();
+            LOGGER.debug("search result cache hit: %s", key);
+            return new CachedQueryResultsIterable(entry, loadElements(entry, fetchHints, authorizations));
+        }
+        missCount.incrementAndGet();
+
+        // read the epochs before searching so writes made while the search runs leave the entry stale
+        long entryWriteEpoch = writeEpoch.get();
+        long entryWorkspaceEpoch = getWorkspaceEpoch(workspaceId);
+        List<Element> elements = new ArrayList<>();
+        Entry newEntry;
+        try (QueryResultsIterable<? extends Element> results = search.get()) {
+            for (Element element : results) {
+                elements.add(element);
+            }
+            newEntry = new Entry(results, elements, query, now, entryWriteEpoch, entryWorkspaceEpoch);
+        } catch (IOException ex) {
+            throw new VisalloException("Could not close search results", ex);
+        }
+        put(key, newEntry);
+        return new CachedQueryResultsIterable(newEntry, elements);
+    }
+
+    public void incrementWriteEpoch() {
+        writeEpoch.incrementAndGet();
+    }
+
+    public void invalidateWorkspace(String workspaceId) {
+        if (workspaceId == null) {
+            incrementWriteEpoch();
+            return;
+        }
+        workspaceEpochs.computeIfAbsent(workspaceId, id -> new AtomicLong()).incrementAndGet();
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        totalBytes = 0;
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    protected void handleBroadcast(JSONObject json) {
+        String type = json.optString("type", null);
+        if (type == null) {
+            return;
+        }
+        JSONObject data = json.optJSONObject("data");
+        switch (type) {
+            case "propertyChange":
+            case "textUpdated":
+            case BROADCAST_TYPE:
+                String workspaceId = data == null ? null : data.optString("workspaceId", null);
+                if (workspaceId == null) {
+                    incrementWriteEpoch();
+                } else {
+                    invalidateWorkspace(workspaceId);
+                }
+                break;
+            case "edgeDeletion":
+            case "verticesDeleted":
+            case "publish":
+                incrementWriteEpoch();
+                break;
+            case "workspaceChange":
+                if (data != null && data.has("workspaceId")) {
+                    invalidateWorkspace(data.getString("workspaceId"));
+                }
+                break;
+            case "workspaceDelete":
+                if (json.has("workspaceId")) {
+                    invalidateWorkspace(json.getString("workspaceId"));
+                }
+                break;
+        }
+    }
+
+    protected String createKey(String uri, SearchOptions searchOptions, User user, Authorizations authorizations) {
+        StringBuilder parametersBuilder = new StringBuilder();
+        appendCanonical(parametersBuilder, searchOptions.getParameters());
+        String parameters = parametersBuilder.toString();
+        String[] auths = authorizations.getAuthorizations().clone();
+        Arrays.sort(auths);
+        StringBuilder key = new StringBuilder();
+        key.append(uri).append('\n');
+        key.append(searchOptions.getWorkspaceId()).append('\n');
+        key.append(String.join(",", auths)).append('\n');
+        // directory entity filters can be relative to the current user
+        if (user != null && parameters.contains("currentUser")) {
+            key.append(user.getUserId()).append('\n');
+        }
+        key.append(parameters);
+        return key.toString();
+    }
+
+    /**
+     * Writes the value as JSON with object keys in sorted order, parsing strings which hold JSON, so equivalent
+     * searches produce the same key.
+     */
+    private static void appendCanonical(StringBuilder out, Object value) {
+        if (value instanceof Map) {
+            out.append('{');
+            boolean first = true;
+            for (Map.Entry<?, ?> e : new TreeMap<>((Map<?, ?>) value).entrySet()) {
+                if (!first) {
+                    out.append(',');
+                }
+                first = false;
+                out.append(JSONObject.quote(String.valueOf(e.getKey()))).append(':');
+                appendCanonical(out, e.getValue());
+            }
+            out.append('}');
+        } else if (value instanceof JSONObject) {
+            JSONObject json = (JSONObject) value;
+            Map<String, Object> map = new TreeMap<>();
+            Iterator<?> keys = json.keys();
+            while (keys.hasNext()) {
+                String key = (String) keys.next();
+                map.put(key, json.get(key));
+            }
+            appendCanonical(out, map);
+        } else if (value instanceof JSONArray) {
+            JSONArray json = (JSONArray) value;
+            List<Object> list = new ArrayList<>(json.length());
+            for (int i = 0; i < json.length(); i++) {
+                list.add(json.get(i));
+            }
+            appendCanonical(out, list);
+        } else if (value instanceof Collection) {
+            out.append('[');
+            boolean first = true;
+            for (Object item : (Collection<?>) value) {
+                if (!first) {
+                    out.append(',');
+                }
+                first = false;
+                appendCanonical(out, item);
+            }
+            out.append(']');
+        } else if (value != null && value.getClass().isArray()) {
+            List<Object> list = new ArrayList<>();
+            for (int i = 0; i < Array.getLength(value); i++) {
+                list.add(Array.get(value, i));
+            }
+            appendCanonical(out, list);
+        } else if (value instanceof String) {
+            String str = ((String) value).trim();
+            // filters, aggregations and sorts are usually sent as JSON strings
+            if (str.startsWith("{") || str.startsWith("[")) {
+                try {
+                    appendCanonical(out, str.startsWith("{") ? new JSONObject(str) : new JSONArray(str));
+                    return;
+                } catch (Exception ex) {
+                    // not JSON, fall through and use the string
+                }
+            }
+            out.append(JSONObject.quote((String) value));
+        } else if (value == null || value == JSONObject.NULL) {
+            out.append("null");
+        } else {
+            out.append(JSONObject.quote(value.toString()));
+        }
+    }
+
+    private boolean isCurrent(Entry entry, String workspaceId, long now) {
+        return now - entry.createdTime <= maxAgeMs
+                && entry.writeEpoch == writeEpoch.get()
+                && entry.workspaceEpoch == getWorkspaceEpoch(workspaceId);
+    }
+
+    private long getWorkspaceEpoch(String workspaceId) {
+        if (workspaceId == null) {
+            return 0;
+        }
+        AtomicLong epoch = workspaceEpochs.get(workspaceId);
+        return epoch == null ? 0 : epoch.get();
+    }
+
+    private synchronized Entry get(String key) {
+        return entries.get(key);
+    }
+
+    private synchronized void put(String key, Entry entry) {
+        if (entry.bytes > maxBytes) {
+            return;
+        }
+        Entry previous = entries.put(key, entry);
+        if (previous != null) {
+            totalBytes -= previous.bytes;
+        }
+        totalBytes += entry.bytes;
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext() && (entries.size() > maxEntries || totalBytes > maxBytes)) {
+            Entry eldest = it.next();
+            totalBytes -= eldest.bytes;
+            it.remove();
+        }
+    }
+
+    private List<Element> loadElements(Entry entry, EnumSet<FetchHint> fetchHints, Authorizations authorizations) {
+        List<String> vertexIds = new ArrayList<>();
+        List<String> edgeIds = new ArrayList<>();
+        for (int i = 0; i < entry.elementIds.length; i++) {
+            if (entry.elementTypes[i] == ElementType.VERTEX) {
+                vertexIds.add(entry.elementIds[i]);
+            } else {
+                edgeIds.add(entry.elementIds[i]);
+            }
+        }
+        Map<String, Element> elementsById = new HashMap<>();
+        if (vertexIds.size() > 0) {
+            for (Vertex vertex : graph.getVertices(vertexIds, fetchHints, authorizations)) {
+                elementsById.put(vertex.getId(), vertex);
+            }
+        }
+        if (edgeIds.size() > 0) {
+            for (Edge edge : graph.getEdges(edgeIds, fetchHints, authorizations)) {
+                elementsById.put(edge.getId(), edge);
+            }
+        }
+        List<Element> elements = new ArrayList<>(entry.elementIds.length);
+        for (String elementId : entry.elementIds) {
+            Element element = elementsById.get(elementId);
+            if (element != null) {
+                elements.add(element);
+            }
+        }
+        return elements;
+    }
+
+    private static class Entry {
+        private final String[] elementIds;
+        private final ElementType[] elementTypes;
+        private final Map<String, Double> scores;
+        private final long totalHits;
+        private final Long searchTimeNanoSeconds;
+        private final Map<String, AggregationResult> aggregationResults = new HashMap<>();
+        private final long createdTime;
+        private final long writeEpoch;
+        private final long workspaceEpoch;
+        private final long bytes;
+
+        Entry(
+                QueryResultsIterable<? extends Element> results,
+                List<Element> elements,
+                Query query,
+                long createdTime,
+                long writeEpoch,
+                long workspaceEpoch
+        ) {
+            this.createdTime = createdTime;
+            this.writeEpoch = writeEpoch;
+            this.workspaceEpoch = workspaceEpoch;
+            this.totalHits = results.getTotalHits();
+            this.searchTimeNanoSeconds = results instanceof IterableWithSearchTime
+                    ? ((IterableWithSearchTime) results).getSearchTimeNanoSeconds()
+                    : null;
+            this.elementIds = new String[elements.size()];
+            this.elementTypes = new ElementType[elements.size()];
+            long bytes = ENTRY_OVERHEAD_BYTES;
+            for (int i = 0; i < elements.size(); i++) {
+                Element element = elements.get(i);
+                elementIds[i] = element.getId();
+                elementTypes[i] = element instanceof Edge ? ElementType.EDGE : ElementType.VERTEX;
+                bytes += ELEMENT_ID_OVERHEAD_BYTES + 2L * element.getId().length();
+            }
+            Map<String, Double> scores = null;
+            if (results instanceof IterableWithScores) {
+                Map<String, Double> allScores = ((IterableWithScores<?>) results).getScores();
+                if (allScores != null) {
+                    scores = new HashMap<>();
+                    for (String elementId : elementIds) {
+                        Double score = allScores.get(elementId);
+                        if (score != null) {
+                            scores.put(elementId, score);
+                            bytes += ELEMENT_ID_OVERHEAD_BYTES;
+                        }
+                    }
+                }
+            }
+            this.scores = scores;
+            for (Aggregation aggregation : query.getAggregations()) {
+                AggregationResult result = results.getAggregationResult(
+                        aggregation.getAggregationName(),
+                        getAggregationResultType(aggregation)
+                );
+                aggregationResults.put(aggregation.getAggregationName(), result);
+                bytes += estimateBytes(result);
+            }
+            this.bytes = bytes;
+        }
+
+        private static Class<? extends AggregationResult> getAggregationResultType(Aggregation aggregation) {
+            if (aggregation instanceof TermsAggregation) {
+                return TermsResult.class;
+            } else if (aggregation instanceof GeohashAggregation) {
+                return GeohashResult.class;
+            } else if (aggregation instanceof HistogramAggregation || aggregation instanceof CalendarFieldAggregation) {
+                return HistogramResult.class;
+            } else if (aggregation instanceof StatisticsAggregation) {
+                return StatisticsResult.class;
+            }
+            return AggregationResult.class;
+        }
+
+        private static long estimateBytes(AggregationResult result) {
+            long bytes = BUCKET_OVERHEAD_BYTES;
+            if (result instanceof TermsResult) {
+                for (TermsBucket bucket : ((TermsResult) result).getBuckets()) {
+                    bytes += estimateBucketBytes(bucket.getKey(), bucket.getNestedResults());
+                }
+            } else if (result instanceof GeohashResult) {
+                for (GeohashBucket bucket : ((GeohashResult) result).getBuckets()) {
+                    bytes += estimateBucketBytes(bucket.getKey(), bucket.getNestedResults());
+                }
+            } else if (result instanceof HistogramResult) {
+                for (HistogramBucket bucket : ((HistogramResult) result).getBuckets()) {
+                    bytes += estimateBucketBytes(bucket.getKey(), bucket.getNestedResults());
+                }
+            }
+            return bytes;
+        }
+
+        private static long estimateBucketBytes(Object key, Map<String, AggregationResult> nestedResults) {
+            long bytes = BUCKET_OVERHEAD_BYTES + (key == null ? 0 : 2L * key.toString().length());
+            if (nestedResults != null) {
+                for (AggregationResult nestedResult : nestedResults.values()) {
+                    bytes += estimateBytes(nestedResult);
+                }
+            }
+            return bytes;
+        }
+    }
+
+    private static class CachedQueryResultsIterable implements QueryResultsIterable<Element>,
+            IterableWithScores<Element>, IterableWithSearchTime<Element> {
+        private final Entry entry;
+        private final List<Element> elements;
+
+        CachedQueryResultsIterable(Entry entry, List<Element> elements) {
+            this.entry = entry;
+            this.elements = elements;
+        }
+
+        @Override
+        public <TResult extends AggregationResult> TResult getAggregationResult(String name, Class<? extends TResult> resultType) {
+            AggregationResult result = entry.aggregationResults.get(name);
+            return result == null ? null : resultType.cast(result);
+        }
+
+        @Override
+        public long getTotalHits() {
+            return entry.totalHits;
+        }
+
+        @Override
+        public Map<String, Double> getScores() {
+            return entry.scores;
+        }
+
+        @Override
+        public long getSearchTimeNanoSeconds() {
+            return entry.searchTimeNanoSeconds == null ? 0 : entry.searchTimeNanoSeconds;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public Iterator<Element> iterator() {
+            return elements.iterator();
+        }
+    }
+}
@@ -1,31 +1,66 @@
 package org.visallo.core.model.search;
 
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.inject.Inject;
 import org.vertexium.*;
+import org.vertexium.query.Contains;
+import org.vertexium.query.Query;
+import org.vertexium.query.QueryResultsIterable;
+import org.visallo.core.config.Configuration;
+import org.visallo.core.exception.VisalloException;
 import org.visallo.core.model.ontology.Concept;
 import org.visallo.core.model.ontology.OntologyRepository;
 import org.visallo.core.model.properties.VisalloProperties;
 import org.visallo.core.user.User;
 import org.visallo.core.util.ClientApiConverter;
 
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+/**
+ * Finds the vertices related to a selection of vertices.
+ * <p/>
+ * The neighbors of the selection are read from the edge references of the selected vertices, in batches run in
+ * parallel. The neighbors are then filtered and counted by the search index, with at most
+ * {@link #CONFIG_MAX_IDS_PER_QUERY} ids per query, so only the returned vertices are loaded from the graph.
+ */
 public class VertexFindRelatedSearchRunner extends SearchRunner {
     public static final String URI = "/vertex/find-related";
+    public static final String CONFIG_THREAD_COUNT = VertexFindRelatedSearchRunner.class.getName() + ".threadCount";
+    public static final int DEFAULT_THREAD_COUNT = 4;
+    public static final String CONFIG_SOURCE_BATCH_SIZE = VertexFindRelatedSearchRunner.class.getName() + ".sourceBatchSize";
+    public static final int DEFAULT_SOURCE_BATCH_SIZE = 50;
+    public static final String CONFIG_MAX_IDS_PER_QUERY = VertexFindRelatedSearchRunner.class.getName() + ".maxIdsPerQuery";
+    public static final int DEFAULT_MAX_IDS_PER_QUERY = 1000;
     private final OntologyRepository ontologyRepository;
     private final Graph graph;
+    private final int sourceBatchSize;
+    private final int maxIdsPerQuery;
+    private final ExecutorService executorService;
 
     @Inject
     public VertexFindRelatedSearchRunner(
             Graph graph,
-            OntologyRepository ontologyRepository
+            OntologyRepository ontologyRepository,
+            Configuration configuration
     ) {
         this.graph = graph;
         this.ontologyRepository = ontologyRepository;
+        this.sourceBatchSize = Math.max(1, configuration.getInt(CONFIG_SOURCE_BATCH_SIZE, DEFAULT_SOURCE_BATCH_SIZE));
+        this.maxIdsPerQuery = Math.max(1, configuration.getInt(CONFIG_MAX_IDS_PER_QUERY, DEFAULT_MAX_IDS_PER_QUERY));
+        this.executorService = Executors.newFixedThreadPool(
+                Math.max(1, configuration.getInt(CONFIG_THREAD_COUNT, DEFAULT_THREAD_COUNT)),
+                r -> {
+                    Thread t = new Thread(r, "visallo-find-related");
+                    t.setDaemon(true);
+                    return t;
+                }
+        );
     }
 
     @Override
@@ -54,7 +89,6 @@ public class VertexFindRelatedSearchRunner extends SearchRunner {
         }
 
         return getSearchResults(
-                searchOptions.getWorkspaceId(),
                 graphVertexIds,
                 limitEdgeLabel,
                 limitConceptIds,
@@ -64,37 +98,100 @@ public class VertexFindRelatedSearchRunner extends SearchRunner {
     }
 
     private VertexFindRelatedSearchResults getSearchResults(
-            String workspaceId,
             String[] graphVertexIds,
             String limitEdgeLabel,
             Set<String> limitConceptIds,
             long maxVerticesToReturn,
             Authorizations authorizations
     ) {
-        Set<String> visitedIds = new HashSet<>();
-        long count = visitedIds.size();
-        Iterable<Vertex> vertices = graph.getVertices(Lists.newArrayList(graphVertexIds), FetchHint.EDGE_REFS, authorizations);
+        Set<String> relatedVertexIds = getRelatedVertexIds(graphVertexIds, limitEdgeLabel, authorizations);
+        List<List<String>> idChunks = Lists.partition(new ArrayList<>(relatedVertexIds), maxIdsPerQuery);
+
         List<Vertex> elements = new ArrayList<>();
-        for (Vertex v : vertices) {
-            Iterable<Vertex> relatedVertices = v.getVertices(Direction.BOTH, limitEdgeLabel, ClientApiConverter.SEARCH_FETCH_HINTS, authorizations);
-            for (Vertex vertex : relatedVertices) {
-                if (!visitedIds.add(vertex.getId())) {
-                    continue;
-                }
-                if (limitConceptIds.size() == 0 || !isLimited(vertex, limitConceptIds)) {
-                    if (count < maxVerticesToReturn) {
-                        elements.add(vertex);
-                    }
-                    count++;
+        long count = 0;
+        if (idChunks.size() == 1) {
+            count = queryRelatedVertices(idChunks.get(0), limitConceptIds, maxVerticesToReturn, elements, authorizations);
+        } else if (idChunks.size() > 1) {
+            // count every chunk in parallel, then only load vertices until there are enough
+            List<Future<Long>> counts = new ArrayList<>();
+            for (List<String> idChunk : idChunks) {
+                counts.add(executorService.submit(() ->
+                        queryRelatedVertices(idChunk, limitConceptIds, 0, null, authorizations)
+                ));
+            }
+            for (List<String> idChunk : idChunks) {
+                if (elements.size() >= maxVerticesToReturn) {
+                    break;
                 }
+                queryRelatedVertices(idChunk, limitConceptIds, maxVerticesToReturn - elements.size(), elements, authorizations);
+            }
+            for (Future<Long> chunkCount : counts) {
+                count += getFutureValue(chunkCount);
             }
         }
         return new VertexFindRelatedSearchResults(elements, count);
     }
 
-    private boolean isLimited(Vertex vertex, Set<String> limitConceptIds) {
-        String conceptId = VisalloProperties.CONCEPT_TYPE.getPropertyValue(vertex);
-        return !limitConceptIds.contains(conceptId);
+    /**
+     * Reads the neighbors of the vertices from their edge references, in batches run in parallel.
+     */
+    private Set<String> getRelatedVertexIds(String[] graphVertexIds, String limitEdgeLabel, Authorizations authorizations) {
+        List<Future<Set<String>>> batches = new ArrayList<>();
+        for (List<String> batch : Lists.partition(Arrays.asList(graphVertexIds), sourceBatchSize)) {
+            batches.add(executorService.submit(() -> {
+                Set<String> relatedVertexIds = new LinkedHashSet<>();
+                for (Vertex vertex : graph.getVertices(batch, FetchHint.EDGE_REFS, authorizations)) {
+                    Iterable<String> vertexIds = limitEdgeLabel == null
+                            ? vertex.getVertexIds(Direction.BOTH, authorizations)
+                            : vertex.getVertexIds(Direction.BOTH, limitEdgeLabel, authorizations);
+                    Iterables.addAll(relatedVertexIds, vertexIds);
+                }
+                return relatedVertexIds;
+            }));
+        }
+
+        Set<String> relatedVertexIds = new LinkedHashSet<>();
+        for (Future<Set<String>> batch : batches) {
+            relatedVertexIds.addAll(getFutureValue(batch));
+        }
+        return relatedVertexIds;
     }
-}
 
+    /**
+     * @param elements the list the vertices found are added to, null when only counting.
+     * @return the number of vertices matching the concept limits.
+     */
+    private long queryRelatedVertices(
+            List<String> vertexIds,
+            Set<String> limitConceptIds,
+            long limit,
+            List<Vertex> elements,
+            Authorizations authorizations
+    ) {
+        Query query = graph.query(vertexIds.toArray(new String[vertexIds.size()]), authorizations)
+                .limit(limit);
+        if (limitConceptIds.size() > 0) {
+            query.has(VisalloProperties.CONCEPT_TYPE.getPropertyName(), Contains.IN, limitConceptIds);
+        }
+        EnumSet<FetchHint> fetchHints = elements == null ? FetchHint.NONE : ClientApiConverter.SEARCH_FETCH_HINTS;
+        try (QueryResultsIterable<Vertex> vertices = query.vertices(fetchHints)) {
+            if (elements != null) {
+                Iterables.addAll(elements, vertices);
+            }
+            return vertices.getTotalHits();
+        } catch (IOException ex) {
+            throw new VisalloException("Could not close related vertices query", ex);
+        }
+    }
+
+    private static <T> T getFutureValue(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new VisalloException("Interrupted while finding related vertices", ex);
+        } catch (ExecutionException ex) {
+            throw new VisalloException("Could not find related vertices", ex.getCause());
+        }
+    }
+}
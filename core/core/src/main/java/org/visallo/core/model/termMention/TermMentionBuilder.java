@@ -13,7 +13,7 @@ import org.visallo.core.util.VisalloLogger;
 import org.visallo.core.util.VisalloLoggerFactory;
 import org.visallo.web.clientapi.model.VisibilityJson;
 
-import java.util.Date;
+import java.util.*;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -186,6 +186,55 @@ public class TermMentionBuilder {
      * Vertex             Mention                    Vertex
      */
     public Vertex save(Graph graph, VisibilityTranslator visibilityTranslator, User user, Authorizations authorizations) {
+        validate();
+
+        VertexBuilder vertexBuilder = prepareVertex(graph, visibilityTranslator);
+        Authorizations termMentionAuthorizations = graph.createAuthorizations(authorizations, TermMentionRepository.VISIBILITY_STRING);
+        Vertex termMentionVertex = vertexBuilder.save(termMentionAuthorizations);
+        saveEdges(graph, visibilityTranslator, termMentionVertex, user, authorizations);
+        return termMentionVertex;
+    }
+
+    /**
+     * Saves a batch of term mentions to the graph using a single vertex mutation batch and a single flush.
+     * See {@link #save(Graph, VisibilityTranslator, User, Authorizations)} for the resulting graph.
+     *
+     * @return The term mention vertices in the same order as the builders.
+     */
+    public static List<Vertex> saveAll(
+            List<TermMentionBuilder> termMentionBuilders,
+            Graph graph,
+            VisibilityTranslator visibilityTranslator,
+            User user,
+            Authorizations authorizations
+    ) {
+        if (termMentionBuilders.size() == 0) {
+            return new ArrayList<>();
+        }
+
+        List<ElementBuilder<Vertex>> vertexBuilders = new ArrayList<>(termMentionBuilders.size());
+        for (TermMentionBuilder termMentionBuilder : termMentionBuilders) {
+            termMentionBuilder.validate();
+            vertexBuilders.add(termMentionBuilder.prepareVertex(graph, visibilityTranslator));
+        }
+
+        Authorizations termMentionAuthorizations = graph.createAuthorizations(authorizations, TermMentionRepository.VISIBILITY_STRING);
+        Map<String, Vertex> termMentionVerticesById = new HashMap<>();
+        for (Vertex termMentionVertex : graph.addVertices(vertexBuilders, termMentionAuthorizations)) {
+            termMentionVerticesById.put(termMentionVertex.getId(), termMentionVertex);
+        }
+
+        List<Vertex> termMentionVertices = new ArrayList<>(termMentionBuilders.size());
+        for (TermMentionBuilder termMentionBuilder : termMentionBuilders) {
+            Vertex termMentionVertex = termMentionVerticesById.get(termMentionBuilder.createVertexId());
+            termMentionBuilder.saveEdges(graph, visibilityTranslator, termMentionVertex, user, authorizations);
+            termMentionVertices.add(termMentionVertex);
+        }
+        graph.flush();
+        return termMentionVertices;
+    }
+
+    private void validate() {
         checkNotNull(outVertex, "outVertex cannot be null");
         checkNotNull(propertyKey, "propertyKey cannot be null");
         checkNotNull(title, "title cannot be null");
@@ -201,11 +250,15 @@ public class TermMentionBuilder {
         if (propertyName == null) {
             LOGGER.warn("Not setting a propertyName when building a term mention is deprecated");
         }
+    }
 
-        Date now = new Date();
+    private Visibility getVisibility(VisibilityTranslator visibilityTranslator) {
+        return VisalloVisibility.and(visibilityTranslator.toVisibility(this.visibilityJson).getVisibility(), TermMentionRepository.VISIBILITY_STRING);
+    }
+
+    private VertexBuilder prepareVertex(Graph graph, VisibilityTranslator visibilityTranslator) {
         String vertexId = createVertexId();
-        Visibility defaultVisibility = visibilityTranslator.getDefaultVisibility();
-        Visibility visibility = VisalloVisibility.and(visibilityTranslator.toVisibility(this.visibilityJson).getVisibility(), TermMentionRepository.VISIBILITY_STRING);
+        Visibility visibility = getVisibility(visibilityTranslator);
         VertexBuilder vertexBuilder = graph.prepareVertex(vertexId, visibility);
         VisalloProperties.TERM_MENTION_VISIBILITY_JSON.setProperty(vertexBuilder, this.visibilityJson, visibility);
         VisalloProperties.TERM_MENTION_CONCEPT_TYPE.setProperty(vertexBuilder, this.conceptIri, visibility);
@@ -227,9 +280,20 @@ public class TermMentionBuilder {
             VisalloProperties.TERM_MENTION_FOR_ELEMENT_ID.setProperty(vertexBuilder, resolvedToVertexId, visibility);
             VisalloProperties.TERM_MENTION_FOR_TYPE.setProperty(vertexBuilder, TermMentionFor.VERTEX, visibility);
         }
+        return vertexBuilder;
+    }
 
-        Authorizations termMentionAuthorizations = graph.createAuthorizations(authorizations, TermMentionRepository.VISIBILITY_STRING);
-        Vertex termMentionVertex = vertexBuilder.save(termMentionAuthorizations);
+    private void saveEdges(
+            Graph graph,
+            VisibilityTranslator visibilityTranslator,
+            Vertex termMentionVertex,
+            User user,
+            Authorizations authorizations
+    ) {
+        Date now = new Date();
+        String vertexId = termMentionVertex.getId();
+        Visibility defaultVisibility = visibilityTranslator.getDefaultVisibility();
+        Visibility visibility = getVisibility(visibilityTranslator);
 
         String hasTermMentionId = vertexId + "_hasTermMention";
         EdgeBuilder termMentionEdgeBuilder = graph.prepareEdge(hasTermMentionId, this.outVertex, termMentionVertex, VisalloProperties.TERM_MENTION_LABEL_HAS_TERM_MENTION, visibility);
@@ -245,8 +309,6 @@ public class TermMentionBuilder {
             VisalloProperties.MODIFIED_DATE.setProperty(resolvedToEdgeBuilder, now, defaultVisibility);
             resolvedToEdgeBuilder.save(authorizations);
         }
-
-        return termMentionVertex;
     }
 
     private String createVertexId() {
@@ -1,31 +1,201 @@
 package org.visallo.core.model.user;
 
-import com.google.common.collect.HashBasedTable;
 import com.google.inject.Inject;
 import org.visallo.core.time.TimeRepository;
 
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 
-public class InMemoryUserSessionCounterRepository extends MapUserSessionCounterRepositoryBase {
-    private final HashBasedTable<String, String, SessionData> sessionDatas = HashBasedTable.create();
+/**
+ * Keeps the user sessions in memory. Only the sessions of the user being changed are locked and each user's session
+ * count is kept up to date as sessions come and go, so creating or updating a session does not depend on how many
+ * sessions there are. Auto delete sessions are expired by a hashed timer wheel, advanced as the repository is used,
+ * instead of being swept every time a count is read.
+ */
+public class InMemoryUserSessionCounterRepository implements UserSessionCounterRepository {
+    public final static int UNSEEN_SESSION_DURATION = MapUserSessionCounterRepositoryBase.UNSEEN_SESSION_DURATION;
+    private static final long TICK_MILLIS = 1000;
+    private static final int WHEEL_SIZE = 512; // a power of two, more ticks than UNSEEN_SESSION_DURATION
+    private final TimeRepository timeRepository;
+    private final ConcurrentMap<String, UserSessions> sessionsByUserId = new ConcurrentHashMap<>();
+    private final List<Queue<Session>> wheel = new ArrayList<>(WHEEL_SIZE);
+    private final AtomicInteger scheduledSessionCount = new AtomicInteger();
+    private final ReentrantLock advanceLock = new ReentrantLock();
+    private volatile long lastTick = -1;
 
     @Inject
     public InMemoryUserSessionCounterRepository(TimeRepository timeRepository) {
-        super(timeRepository);
+        this.timeRepository = timeRepository;
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel.add(new ConcurrentLinkedQueue<>());
+        }
     }
 
     @Override
-    protected void put(String userId, String sessionId, SessionData sessionData) {
-        sessionDatas.put(userId, sessionId, sessionData);
+    public int updateSession(String userId, String sessionId, boolean autoDelete) {
+        long now = timeRepository.getNow().getTime();
+        advance(now);
+        while (true) {
+            UserSessions userSessions = sessionsByUserId.computeIfAbsent(userId, k -> new UserSessions());
+            synchronized (userSessions) {
+                if (userSessions.removed) {
+                    continue;
+                }
+                Session session = userSessions.sessions.get(sessionId);
+                if (session == null) {
+                    session = new Session(userId, sessionId);
+                    userSessions.put(session);
+                }
+                session.expireTime = now + UNSEEN_SESSION_DURATION;
+                session.autoDelete = autoDelete;
+                if (autoDelete && !session.scheduled) {
+                    session.scheduled = true;
+                    scheduledSessionCount.incrementAndGet();
+                    schedule(session, lastTick);
+                }
+                return userSessions.count;
+            }
+        }
     }
 
     @Override
-    protected void remove(String userId, String sessionId) {
-        sessionDatas.remove(userId, sessionId);
+    public void deleteSessions(String userId) {
+        UserSessions userSessions = sessionsByUserId.get(userId);
+        if (userSessions == null) {
+            return;
+        }
+        synchronized (userSessions) {
+            removeUserSessions(userId, userSessions);
+        }
     }
 
     @Override
-    protected Map<String, SessionData> getRow(String userId) {
-        return sessionDatas.row(userId);
+    public int deleteSession(String userId, String sessionId) {
+        UserSessions userSessions = sessionsByUserId.get(userId);
+        if (userSessions != null) {
+            synchronized (userSessions) {
+                userSessions.remove(sessionId);
+                if (userSessions.count == 0) {
+                    removeUserSessions(userId, userSessions);
+                }
+            }
+        }
+        return getSessionCount(userId);
+    }
+
+    @Override
+    public int getSessionCount(String userId) {
+        if (scheduledSessionCount.get() > 0) {
+            advance(timeRepository.currentTimeMillis());
+        }
+        UserSessions userSessions = sessionsByUserId.get(userId);
+        return userSessions == null ? 0 : userSessions.count;
+    }
+
+    private void removeUserSessions(String userId, UserSessions userSessions) {
+        userSessions.removed = true;
+        sessionsByUserId.remove(userId, userSessions);
+    }
+
+    private void schedule(Session session, long afterTick) {
+        long tick = Math.max(session.expireTime / TICK_MILLIS, afterTick + 1);
+        wheel.get((int) (tick & (WHEEL_SIZE - 1))).add(session);
+    }
+
+    /**
+     * Visits the wheel buckets of the ticks since the last advance. Another thread already advancing the wheel will
+     * get to the expired sessions, so callers do not wait for it.
+     */
+    private void advance(long now) {
+        if (scheduledSessionCount.get() == 0 || !advanceLock.tryLock()) {
+            return;
+        }
+        try {
+            long tick = now / TICK_MILLIS;
+            long firstTick = lastTick < 0 ? tick : Math.max(lastTick + 1, tick - WHEEL_SIZE + 1);
+            for (long t = firstTick; t <= tick; t++) {
+                Queue<Session> bucket = wheel.get((int) (t & (WHEEL_SIZE - 1)));
+                List<Session> sessions = new ArrayList<>();
+                Session session;
+                while ((session = bucket.poll()) != null) {
+                    sessions.add(session);
+                }
+                for (Session s : sessions) {
+                    if (expire(s, now)) {
+                        schedule(s, tick);
+                    } else {
+                        scheduledSessionCount.decrementAndGet();
+                    }
+                }
+            }
+            if (tick > lastTick) {
+                lastTick = tick;
+            }
+        } finally {
+            advanceLock.unlock();
+        }
+    }
+
+    /**
+     * @return true if the session was seen since it was scheduled and has to be scheduled again.
+     */
+    private boolean expire(Session session, long now) {
+        UserSessions userSessions = sessionsByUserId.get(session.userId);
+        if (userSessions == null) {
+            return false;
+        }
+        synchronized (userSessions) {
+            if (userSessions.sessions.get(session.sessionId) != session) {
+                return false;
+            }
+            if (!session.autoDelete) {
+                session.scheduled = false;
+                return false;
+            }
+            if (session.expireTime > now) {
+                return true;
+            }
+            userSessions.remove(session.sessionId);
+            if (userSessions.count == 0) {
+                removeUserSessions(session.userId, userSessions);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * The sessions of a user, changed while holding its lock.
+     */
+    private static class UserSessions {
+        private final Map<String, Session> sessions = new HashMap<>();
+        private volatile int count;
+        private boolean removed;
+
+        public void put(Session session) {
+            sessions.put(session.sessionId, session);
+            count = sessions.size();
+        }
+
+        public void remove(String sessionId) {
+            sessions.remove(sessionId);
+            count = sessions.size();
+        }
+    }
+
+    private static class Session {
+        private final String userId;
+        private final String sessionId;
+        private volatile long expireTime;
+        private volatile boolean autoDelete;
+        private boolean scheduled;
+
+        public Session(String userId, String sessionId) {
+            this.userId = userId;
+            this.sessionId = sessionId;
+        }
     }
 }
@@ -12,6 +12,7 @@ import org.visallo.core.externalResource.QueueExternalResourceWorker;
 import org.visallo.core.ingest.WorkerSpout;
 import org.visallo.core.ingest.graphProperty.ElementOrPropertyStatus;
 import org.visallo.core.ingest.graphProperty.GraphPropertyMessage;
+import org.visallo.core.ingest.graphProperty.GraphPropertyMessageCodec;
 import org.visallo.core.ingest.graphProperty.GraphPropertyRunner;
 import org.visallo.core.model.FlushFlag;
 import org.visallo.core.model.WorkQueueNames;
@@ -20,6 +21,7 @@ import org.visallo.core.model.notification.UserNotification;
 import org.visallo.core.model.properties.MediaVisalloProperties;
 import org.visallo.core.model.properties.types.VisalloPropertyUpdate;
 import org.visallo.core.model.properties.types.VisalloPropertyUpdateRemove;
+import org.visallo.core.model.search.SearchResultCache;
 import org.visallo.core.model.user.AuthorizationRepository;
 import org.visallo.core.model.user.UserRepository;
 import org.visallo.core.model.workspace.Workspace;
@@ -38,9 +40,14 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 public abstract class WorkQueueRepository {
     protected static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(WorkQueueRepository.class);
+    public static final String CONFIG_GRAPH_PROPERTY_MESSAGE_FORMAT = WorkQueueRepository.class.getName() + ".graphPropertyMessageFormat";
+    public static final String CONFIG_GRAPH_PROPERTY_MESSAGE_COMPRESSION_THRESHOLD = WorkQueueRepository.class.getName() + ".graphPropertyMessageCompressionThreshold";
+    public static final int DEFAULT_GRAPH_PROPERTY_MESSAGE_COMPRESSION_THRESHOLD = 0;
     private final Configuration configuration;
     private final WorkQueueNames workQueueNames;
     private final Graph graph;
+    private final GraphPropertyMessageCodec graphPropertyMessageCodec;
+    private final boolean searchResultCacheEnabled;
     private GraphPropertyRunner graphPropertyRunner;
     private AuthorizationRepository authorizationRepository;
     private WorkspaceRepository workspaceRepository;
@@ -54,6 +61,11 @@ public abstract class WorkQueueRepository {
         this.graph = graph;
         this.workQueueNames = workQueueNames;
         this.configuration = configuration;
+        this.graphPropertyMessageCodec = new GraphPropertyMessageCodec(
+                GraphPropertyMessageCodec.Format.safeParse(configuration.get(CONFIG_GRAPH_PROPERTY_MESSAGE_FORMAT, null)),
+                configuration.getInt(CONFIG_GRAPH_PROPERTY_MESSAGE_COMPRESSION_THRESHOLD, DEFAULT_GRAPH_PROPERTY_MESSAGE_COMPRESSION_THRESHOLD)
+        );
+        this.searchResultCacheEnabled = configuration.getBoolean(SearchResultCache.CONFIG_ENABLED, SearchResultCache.DEFAULT_ENABLED);
     }
 
     public void pushGraphPropertyQueue(final Element element, final Property property, Priority priority) {
@@ -97,6 +109,8 @@ public abstract class WorkQueueRepository {
 
             if (shouldBroadcastGraphPropertyChange(element, propertyKey, propertyName, workspaceId, priority)) {
                 broadcastPropertyChange(element, propertyKey, propertyName, workspaceId);
+            } else {
+                broadcastSearchResultCacheInvalidation(workspaceId);
             }
 
             if (canHandle(element, propertyKey, propertyName)) {
@@ -124,7 +138,7 @@ public abstract class WorkQueueRepository {
             data.setVisibilitySource(visibilitySource);
         }
 
-        pushOnQueue(workQueueNames.getGraphPropertyQueueName(), data.toBytes(), priority);
+        pushOnQueue(workQueueNames.getGraphPropertyQueueName(), graphPropertyMessageCodec.encode(data), priority);
     }
 
     private void addElementTypeToJson(GraphPropertyMessage data, Element element) {
@@ -359,13 +373,19 @@ public abstract class WorkQueueRepository {
         data.setGraphVertexId(vertices.toArray(new String[vertices.size()]));
         data.setGraphEdgeId(edges.toArray(new String[edges.size()]));
 
-        pushOnQueue(workQueueNames.getGraphPropertyQueueName(), data.toBytes(), priority);
+        pushOnQueue(workQueueNames.getGraphPropertyQueueName(), graphPropertyMessageCodec.encode(data), priority);
 
+        boolean invalidateSearchResults = false;
         for (Element element : elements) {
             if (shouldBroadcastGraphPropertyChange(element, propertyKey, propertyName, workspaceId, priority)) {
                 broadcastPropertyChange(element, propertyKey, propertyName, workspaceId);
+            } else {
+                invalidateSearchResults = true;
             }
         }
+        if (invalidateSearchResults) {
+            broadcastSearchResultCacheInvalidation(workspaceId);
+        }
     }
 
     public void pushGraphPropertyQueue(
@@ -395,11 +415,13 @@ public abstract class WorkQueueRepository {
         addElementTypeToJson(data, element);
 
         if (canHandle(element, propertyKey, propertyName)) {
-            pushOnQueue(workQueueNames.getGraphPropertyQueueName(), data.toBytes(), priority);
+            pushOnQueue(workQueueNames.getGraphPropertyQueueName(), graphPropertyMessageCodec.encode(data), priority);
         }
 
         if (shouldBroadcastGraphPropertyChange(element, propertyKey, propertyName, workspaceId, priority)) {
             broadcastPropertyChange(element, propertyKey, propertyName, workspaceId);
+        } else {
+            broadcastSearchResultCacheInvalidation(workspaceId);
         }
     }
 
@@ -464,21 +486,23 @@ public abstract class WorkQueueRepository {
         }
 
         if (canHandle(element, null, null)) {
-            pushOnQueue(workQueueNames.getGraphPropertyQueueName(), data.toBytes(), priority);
+            pushOnQueue(workQueueNames.getGraphPropertyQueueName(), graphPropertyMessageCodec.encode(data), priority);
         }
+        broadcastSearchResultCacheInvalidation(workspaceId);
     }
 
     public void pushVertexIds(Iterable<String> vertexIds, Priority priority, FlushFlag flushFlag) {
         for (String vertexId : vertexIds) {
             pushVertexId(vertexId, priority, flushFlag);
         }
+        broadcastSearchResultCacheInvalidation(null);
     }
 
     private void pushVertexId(String vertexId, Priority priority, FlushFlag flushFlag) {
         GraphPropertyMessage data = new GraphPropertyMessage();
         data.setPriority(priority);
         data.setGraphVertexId(new String[]{vertexId});
-        pushOnQueue(workQueueNames.getGraphPropertyQueueName(), data.toBytes(), priority);
+        pushOnQueue(workQueueNames.getGraphPropertyQueueName(), graphPropertyMessageCodec.encode(data), priority);
     }
 
     protected boolean shouldBroadcastGraphPropertyChange(
@@ -500,6 +524,27 @@ public abstract class WorkQueueRepository {
         return priority != Priority.LOW;
     }
 
+    /**
+     * Writes which are not broadcast to the clients, like low priority and bulk writes, still change search results.
+     * The web servers caching them are told with a message that is never sent to the clients.
+     *
+     * @param workspaceId the workspace of the write, null if it is outside of a workspace.
+     */
+    protected void broadcastSearchResultCacheInvalidation(String workspaceId) {
+        if (!searchResultCacheEnabled) {
+            return;
+        }
+        JSONObject dataJson = new JSONObject();
+        if (workspaceId != null && !workspaceId.equals("")) {
+            dataJson.put("workspaceId", workspaceId);
+        }
+
+        JSONObject json = new JSONObject();
+        json.put("type", SearchResultCache.BROADCAST_TYPE);
+        json.put("data", dataJson);
+        broadcastJson(json);
+    }
+
     public void pushLongRunningProcessQueue(JSONObject queueItem) {
         pushLongRunningProcessQueue(queueItem, Priority.NORMAL);
     }
@@ -738,6 +783,8 @@ public abstract class WorkQueueRepository {
     public void pushTextUpdated(String vertexId, Priority priority) {
         if (shouldBroadcastTextUpdate(vertexId, priority)) {
             broadcastTextUpdated(vertexId);
+        } else {
+            broadcastSearchResultCacheInvalidation(null);
         }
     }
 
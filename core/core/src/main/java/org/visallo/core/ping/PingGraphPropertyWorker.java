@@ -6,6 +6,7 @@ import org.vertexium.Property;
 import org.vertexium.Vertex;
 import org.visallo.core.ingest.graphProperty.GraphPropertyWorkData;
 import org.visallo.core.ingest.graphProperty.GraphPropertyWorker;
+import org.visallo.core.ingest.graphProperty.GraphPropertyWorkerInterest;
 import org.visallo.core.model.Description;
 import org.visallo.core.model.Name;
 import org.visallo.core.model.properties.VisalloProperties;
@@ -34,4 +35,9 @@ public class PingGraphPropertyWorker extends GraphPropertyWorker {
                 && PingOntology.IRI_CONCEPT_PING.equals(VisalloProperties.CONCEPT_TYPE.getPropertyValue(element))
                 && property == null;
     }
+
+    @Override
+    public GraphPropertyWorkerInterest getInterest() {
+        return GraphPropertyWorkerInterest.elementOnly().withConceptIris(PingOntology.IRI_CONCEPT_PING);
+    }
 }
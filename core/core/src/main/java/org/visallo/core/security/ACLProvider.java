@@ -17,6 +17,7 @@ import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -264,6 +265,19 @@ public abstract class ACLProvider {
         return appendACL(clientApiObject, privileges, user);
     }
 
+    /**
+     * Creates a consumer appending the ACL to single elements, for responses which are written one element at a
+     * time. The user's privileges are only read once.
+     */
+    public final Consumer<ClientApiElement> createElementACLAppender(User user) {
+        if (user == null) {
+            return clientApiElement -> {
+            };
+        }
+        Set<String> privileges = privilegeRepository.getPrivileges(user);
+        return clientApiElement -> appendACL(clientApiElement, privileges, user);
+    }
+
     private ClientApiObject appendACL(ClientApiObject clientApiObject, Set<String> privileges, User user) {
         if (clientApiObject instanceof ClientApiElement) {
             appendACL((ClientApiElement) clientApiObject, privileges, user);
@@ -39,6 +39,11 @@ public class JmxMetricsManager implements MetricsManager {
         return REGISTRY.meter(name);
     }
 
+    @Override
+    public Histogram histogram(String name) {
+        return REGISTRY.histogram(name);
+    }
+
     @Override
     public void removeMetric(String metricName) {
         REGISTRY.remove(metricName);
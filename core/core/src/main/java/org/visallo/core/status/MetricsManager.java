@@ -1,6 +1,7 @@
 package org.visallo.core.status;
 
 import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
 import com.codahale.metrics.Meter;
 import com.codahale.metrics.Timer;
 
@@ -13,5 +14,7 @@ public interface MetricsManager {
 
     Meter meter(String metricName);
 
+    Histogram histogram(String metricName);
+
     void removeMetric(String metricName);
 }
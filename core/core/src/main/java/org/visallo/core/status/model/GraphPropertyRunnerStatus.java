@@ -2,6 +2,50 @@ package org.visallo.core.status.model;
 
 public class GraphPropertyRunnerStatus extends WorkerRunnerStatus {
     public static class GraphPropertyWorkerStatus extends WorkerStatus {
+        private long executionTimeoutMs;
+        private int maxConcurrency;
+        private String circuitBreakerState;
+        private double routingHitRate;
+        private String interest;
 
+        public long getExecutionTimeoutMs() {
+            return executionTimeoutMs;
+        }
+
+        public void setExecutionTimeoutMs(long executionTimeoutMs) {
+            this.executionTimeoutMs = executionTimeoutMs;
+        }
+
+        public int getMaxConcurrency() {
+            return maxConcurrency;
+        }
+
+        public void setMaxConcurrency(int maxConcurrency) {
+            this.maxConcurrency = maxConcurrency;
+        }
+
+        public String getCircuitBreakerState() {
+            return circuitBreakerState;
+        }
+
+        public void setCircuitBreakerState(String circuitBreakerState) {
+            this.circuitBreakerState = circuitBreakerState;
+        }
+
+        public double getRoutingHitRate() {
+            return routingHitRate;
+        }
+
+        public void setRoutingHitRate(double routingHitRate) {
+            this.routingHitRate = routingHitRate;
+        }
+
+        public String getInterest() {
+            return interest;
+        }
+
+        public void setInterest(String interest) {
+            this.interest = interest;
+        }
     }
 }
@@ -53,6 +53,19 @@ public class ClientApiConverter extends org.visallo.web.clientapi.util.ClientApi
         return clientApiElements;
     }
 
+    public static List<ClientApiElement> toClientApi(
+            Iterable<? extends org.vertexium.Element> elements,
+            String workspaceId,
+            ClientApiFetchProfile fetchProfile,
+            Authorizations authorizations
+    ) {
+        List<ClientApiElement> clientApiElements = new ArrayList<>();
+        for (org.vertexium.Element element : elements) {
+            clientApiElements.add(toClientApi(element, workspaceId, false, fetchProfile, authorizations));
+        }
+        return clientApiElements;
+    }
+
     public static List<ClientApiVertex> toClientApiVertices(
             Iterable<? extends Vertex> vertices,
             String workspaceId,
@@ -65,6 +78,80 @@ public class ClientApiConverter extends org.visallo.web.clientapi.util.ClientApi
         return clientApiElements;
     }
 
+    /**
+     * Converts a page of vertices. The edge labels are read from the vertices, which should be fetched with the edge
+     * label hints. The edge counts need the edge references, which are read for all of the vertices with a single
+     * batched fetch instead of one per vertex, and the labels are taken from them too.
+     *
+     * @param includeEdgeLabelCounts also send the number of edges of each label.
+     * @param fetchProfile           limits the edge labels and properties converted, null to convert everything.
+     */
+    public static List<ClientApiVertex> toClientApiVertices(
+            Graph graph,
+            Iterable<? extends Vertex> vertices,
+            String workspaceId,
+            boolean includeEdgeLabelCounts,
+            ClientApiFetchProfile fetchProfile,
+            Authorizations authorizations
+    ) {
+        List<Vertex> vertexList = IterableUtils.toList(vertices);
+        Map<String, Map<String, Integer>> edgeLabelCounts = null;
+        if (includeEdgeLabelCounts && authorizations != null
+                && (fetchProfile == null || fetchProfile.isIncludeEdgeLabels())) {
+            edgeLabelCounts = getEdgeLabelCounts(
+                    graph,
+                    vertexList.stream().map(Vertex::getId).collect(Collectors.toList()),
+                    authorizations
+            );
+        }
+
+        List<ClientApiVertex> clientApiVertices = new ArrayList<>(vertexList.size());
+        for (Vertex vertex : vertexList) {
+            Authorizations edgeLabelAuthorizations = edgeLabelCounts == null ? authorizations : null;
+            ClientApiVertex v = toClientApiVertex(vertex, workspaceId, null, false, fetchProfile, edgeLabelAuthorizations);
+            if (edgeLabelCounts != null) {
+                setEdgeLabels(v, edgeLabelCounts.get(vertex.getId()), true);
+            }
+            clientApiVertices.add(v);
+        }
+        return clientApiVertices;
+    }
+
+    /**
+     * Counts the edges of each label of the vertices, reading the edge references of all of the vertices in one
+     * batched fetch.
+     *
+     * @return the edge counts by label by vertex id, vertices which cannot be read are not included.
+     */
+    public static Map<String, Map<String, Integer>> getEdgeLabelCounts(
+            Graph graph,
+            Iterable<String> vertexIds,
+            Authorizations authorizations
+    ) {
+        Map<String, Map<String, Integer>> results = new HashMap<>();
+        for (Vertex vertex : graph.getVertices(vertexIds, FetchHint.EDGE_REFS, authorizations)) {
+            Map<String, Integer> counts = new TreeMap<>();
+            for (EdgeInfo edgeInfo : vertex.getEdgeInfos(Direction.BOTH, authorizations)) {
+                counts.merge(edgeInfo.getLabel(), 1, Integer::sum);
+            }
+            results.put(vertex.getId(), counts);
+        }
+        return results;
+    }
+
+    /**
+     * Sets the edge labels from counts read by {@link #getEdgeLabelCounts(Graph, Iterable, Authorizations)}.
+     */
+    public static void setEdgeLabels(ClientApiVertex v, Map<String, Integer> edgeLabelCounts, boolean includeEdgeLabelCounts) {
+        if (edgeLabelCounts == null) {
+            return;
+        }
+        edgeLabelCounts.keySet().forEach(v::addEdgeLabel);
+        if (includeEdgeLabelCounts) {
+            v.setEdgeLabelCounts(edgeLabelCounts);
+        }
+    }
+
     public static ClientApiElement toClientApi(
             org.vertexium.Element element,
             String workspaceId,
@@ -78,13 +165,26 @@ public class ClientApiConverter extends org.visallo.web.clientapi.util.ClientApi
             String workspaceId,
             boolean includeEdgeInfos,
             Authorizations authorizations
+    ) {
+        return toClientApi(element, workspaceId, includeEdgeInfos, null, authorizations);
+    }
+
+    /**
+     * @param fetchProfile limits the edge labels and properties converted, null to convert everything.
+     */
+    public static ClientApiElement toClientApi(
+            org.vertexium.Element element,
+            String workspaceId,
+            boolean includeEdgeInfos,
+            ClientApiFetchProfile fetchProfile,
+            Authorizations authorizations
     ) {
         checkNotNull(element, "element cannot be null");
         if (element instanceof Vertex) {
-            return toClientApiVertex((Vertex) element, workspaceId, null, includeEdgeInfos, authorizations);
+            return toClientApiVertex((Vertex) element, workspaceId, null, includeEdgeInfos, fetchProfile, authorizations);
         }
         if (element instanceof Edge) {
-            return toClientApiEdge((Edge) element, workspaceId);
+            return toClientApiEdge((Edge) element, workspaceId, fetchProfile);
         }
         throw new RuntimeException("Unexpected element type: " + element.getClass().getName());
     }
@@ -115,13 +215,30 @@ public class ClientApiConverter extends org.visallo.web.clientapi.util.ClientApi
             Integer commonCount,
             boolean includeEdgeInfos,
             Authorizations authorizations
+    ) {
+        return toClientApiVertex(vertex, workspaceId, commonCount, includeEdgeInfos, null, authorizations);
+    }
+
+    /**
+     * @param commonCount  the number of vertices this vertex has in common with other vertices.
+     * @param fetchProfile limits the edge labels and properties converted, null to convert everything.
+     */
+    public static ClientApiVertex toClientApiVertex(
+            Vertex vertex,
+            String workspaceId,
+            Integer commonCount,
+            boolean includeEdgeInfos,
+            ClientApiFetchProfile fetchProfile,
+            Authorizations authorizations
     ) {
         checkNotNull(vertex, "vertex is required");
         ClientApiVertex v = new ClientApiVertex();
 
         if (authorizations != null) {
-            stream(vertex.getEdgeLabels(Direction.BOTH, authorizations))
-                    .forEach(v::addEdgeLabel);
+            if (fetchProfile == null || fetchProfile.isIncludeEdgeLabels()) {
+                stream(vertex.getEdgeLabels(Direction.BOTH, authorizations))
+                        .forEach(v::addEdgeLabel);
+            }
 
             if (includeEdgeInfos) {
                 stream(vertex.getEdgeInfos(Direction.BOTH, authorizations))
@@ -130,7 +247,7 @@ public class ClientApiConverter extends org.visallo.web.clientapi.util.ClientApi
             }
         }
 
-        populateClientApiElement(v, vertex, workspaceId);
+        populateClientApiElement(v, vertex, workspaceId, fetchProfile);
         v.setCommonCount(commonCount);
         return v;
     }
@@ -144,8 +261,12 @@ public class ClientApiConverter extends org.visallo.web.clientapi.util.ClientApi
     }
 
     public static ClientApiEdge toClientApiEdge(Edge edge, String workspaceId) {
+        return toClientApiEdge(edge, workspaceId, null);
+    }
+
+    public static ClientApiEdge toClientApiEdge(Edge edge, String workspaceId, ClientApiFetchProfile fetchProfile) {
         ClientApiEdge e = new ClientApiEdge();
-        populateClientApiEdge(e, edge, workspaceId);
+        populateClientApiEdge(e, edge, workspaceId, fetchProfile);
         return e;
     }
 
@@ -166,20 +287,36 @@ public class ClientApiConverter extends org.visallo.web.clientapi.util.ClientApi
     }
 
     public static void populateClientApiEdge(ClientApiEdge e, Edge edge, String workspaceId) {
+        populateClientApiEdge(e, edge, workspaceId, null);
+    }
+
+    private static void populateClientApiEdge(
+            ClientApiEdge e,
+            Edge edge,
+            String workspaceId,
+            ClientApiFetchProfile fetchProfile
+    ) {
         e.setLabel(edge.getLabel());
         e.setOutVertexId(edge.getVertexId(Direction.OUT));
         e.setInVertexId(edge.getVertexId(Direction.IN));
 
-        populateClientApiElement(e, edge, workspaceId);
+        populateClientApiElement(e, edge, workspaceId, fetchProfile);
     }
 
     private static void populateClientApiElement(
             ClientApiElement clientApiElement,
             org.vertexium.Element element,
-            String workspaceId
+            String workspaceId,
+            ClientApiFetchProfile fetchProfile
     ) {
         clientApiElement.setId(element.getId());
-        clientApiElement.getProperties().addAll(toClientApiProperties(element.getProperties(), workspaceId));
+        Iterable<Property> properties = element.getProperties();
+        if (fetchProfile != null) {
+            properties = stream(properties)
+                    .filter(fetchProfile::isPropertyIncluded)
+                    .collect(Collectors.toList());
+        }
+        clientApiElement.getProperties().addAll(toClientApiProperties(properties, workspaceId));
         clientApiElement.setSandboxStatus(SandboxStatusUtil.getSandboxStatus(element, workspaceId));
 
         VisibilityJson visibilityJson = VisalloProperties.VISIBILITY_JSON.getPropertyValue(element);
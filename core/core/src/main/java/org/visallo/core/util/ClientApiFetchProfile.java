@@ -0,0 +1,77 @@
+package org.visallo.core.util;
+
+import org.vertexium.FetchHint;
+import org.vertexium.Property;
+import org.vertexium.type.GeoShape;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Describes how much of an element is loaded and sent to the client for one kind of view, a search result card needs
+ * far less than the detail pane.
+ */
+public class ClientApiFetchProfile {
+    private final String name;
+    private final EnumSet<FetchHint> fetchHints;
+    private final boolean includeEdgeLabels;
+    private final Set<String> propertyNames;
+    private final boolean includeGeoProperties;
+
+    /**
+     * @param propertyNames        the names of the properties sent to the client, null for all properties.
+     * @param includeGeoProperties also send the properties with geo values, whatever their name.
+     */
+    public ClientApiFetchProfile(
+            String name,
+            EnumSet<FetchHint> fetchHints,
+            boolean includeEdgeLabels,
+            Set<String> propertyNames,
+            boolean includeGeoProperties
+    ) {
+        this.name = name;
+        this.fetchHints = fetchHints;
+        this.includeEdgeLabels = includeEdgeLabels;
+        this.propertyNames = propertyNames == null ? null : Collections.unmodifiableSet(propertyNames);
+        this.includeGeoProperties = includeGeoProperties;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public EnumSet<FetchHint> getFetchHints() {
+        return EnumSet.copyOf(fetchHints);
+    }
+
+    public boolean isIncludeEdgeLabels() {
+        return includeEdgeLabels;
+    }
+
+    public Set<String> getPropertyNames() {
+        return propertyNames;
+    }
+
+    public boolean isIncludeGeoProperties() {
+        return includeGeoProperties;
+    }
+
+    public boolean isPropertyIncluded(Property property) {
+        if (propertyNames == null || propertyNames.contains(property.getName())) {
+            return true;
+        }
+        return includeGeoProperties && property.getValue() instanceof GeoShape;
+    }
+
+    @Override
+    public String toString() {
+        return "ClientApiFetchProfile{" +
+                "name='" + name + '\'' +
+                ", fetchHints=" + fetchHints +
+                ", includeEdgeLabels=" + includeEdgeLabels +
+                ", propertyNames=" + propertyNames +
+                ", includeGeoProperties=" + includeGeoProperties +
+                '}';
+    }
+}
@@ -0,0 +1,105 @@
+package org.visallo.core.util;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import org.vertexium.FetchHint;
+import org.visallo.core.config.Configuration;
+import org.visallo.core.exception.VisalloInvalidParameterException;
+import org.visallo.core.model.properties.VisalloProperties;
+
+import java.util.*;
+
+/**
+ * The named {@link ClientApiFetchProfile}s a request can select with the <code>fetchProfile</code> parameter.
+ * <ul>
+ * <li><code>detail</code> - everything, the default.</li>
+ * <li><code>card</code> - the properties needed to render an element in a list, without edge labels.</li>
+ * <li><code>map</code> - the <code>card</code> properties and every property with a geo value.</li>
+ * <li><code>export</code> - every property, without edge labels.</li>
+ * </ul>
+ * More properties can be added to the <code>card</code> and <code>map</code> profiles with the
+ * <code>card.additionalPropertyNames</code> and <code>map.additionalPropertyNames</code> configuration keys.
+ */
+@Singleton
+public class ClientApiFetchProfiles {
+    public static final String PARAMETER_NAME = "fetchProfile";
+    public static final String DETAIL = "detail";
+    public static final String CARD = "card";
+    public static final String MAP = "map";
+    public static final String EXPORT = "export";
+    public static final String CONFIG_CARD_ADDITIONAL_PROPERTY_NAMES = ClientApiFetchProfiles.class.getName() + ".card.additionalPropertyNames";
+    public static final String CONFIG_MAP_ADDITIONAL_PROPERTY_NAMES = ClientApiFetchProfiles.class.getName() + ".map.additionalPropertyNames";
+    private static final EnumSet<FetchHint> PROPERTY_FETCH_HINTS = EnumSet.of(
+            FetchHint.PROPERTIES,
+            FetchHint.PROPERTY_METADATA
+    );
+    private final Map<String, ClientApiFetchProfile> profiles = new HashMap<>();
+
+    @Inject
+    public ClientApiFetchProfiles(Configuration configuration) {
+        Set<String> cardPropertyNames = new HashSet<>(Arrays.asList(
+                VisalloProperties.CONCEPT_TYPE.getPropertyName(),
+                VisalloProperties.VISIBILITY_JSON.getPropertyName(),
+                VisalloProperties.TITLE.getPropertyName(),
+                VisalloProperties.ENTITY_IMAGE_URL.getPropertyName(),
+                VisalloProperties.ENTITY_IMAGE_VERTEX_ID.getPropertyName(),
+                VisalloProperties.MIME_TYPE.getPropertyName(),
+                VisalloProperties.MODIFIED_DATE.getPropertyName(),
+                VisalloProperties.MODIFIED_BY.getPropertyName()
+        ));
+        cardPropertyNames.addAll(getPropertyNames(configuration, CONFIG_CARD_ADDITIONAL_PROPERTY_NAMES));
+        Set<String> mapPropertyNames = new HashSet<>(cardPropertyNames);
+        mapPropertyNames.addAll(getPropertyNames(configuration, CONFIG_MAP_ADDITIONAL_PROPERTY_NAMES));
+
+        add(new ClientApiFetchProfile(DETAIL, ClientApiConverter.SEARCH_FETCH_HINTS, true, null, true));
+        add(new ClientApiFetchProfile(CARD, PROPERTY_FETCH_HINTS, false, cardPropertyNames, false));
+        add(new ClientApiFetchProfile(MAP, PROPERTY_FETCH_HINTS, false, mapPropertyNames, true));
+        add(new ClientApiFetchProfile(EXPORT, PROPERTY_FETCH_HINTS, false, null, true));
+    }
+
+    private void add(ClientApiFetchProfile profile) {
+        profiles.put(profile.getName(), profile);
+    }
+
+    private static Set<String> getPropertyNames(Configuration configuration, String configKey) {
+        Set<String> propertyNames = new HashSet<>();
+        String value = configuration.get(configKey, null);
+        if (value != null) {
+            for (String propertyName : value.split(",")) {
+                if (propertyName.trim().length() > 0) {
+                    propertyNames.add(propertyName.trim());
+                }
+            }
+        }
+        return propertyNames;
+    }
+
+    /**
+     * @return the profile with the name, the detail profile when the name is null or null if there is no such profile.
+     */
+    public ClientApiFetchProfile get(String name) {
+        if (name == null) {
+            return profiles.get(DETAIL);
+        }
+        return profiles.get(name);
+    }
+
+    /**
+     * @return the profile with the name or the detail profile when the name is null.
+     * @throws VisalloInvalidParameterException if there is no such profile.
+     */
+    public ClientApiFetchProfile getRequired(String name) {
+        ClientApiFetchProfile fetchProfile = get(name);
+        if (fetchProfile == null) {
+            throw new VisalloInvalidParameterException(
+                    PARAMETER_NAME,
+                    "Invalid fetch profile, expected one of " + getNames()
+            );
+        }
+        return fetchProfile;
+    }
+
+    public Set<String> getNames() {
+        return Collections.unmodifiableSet(profiles.keySet());
+    }
+}
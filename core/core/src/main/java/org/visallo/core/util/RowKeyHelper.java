@@ -35,13 +35,20 @@ public class RowKeyHelper {
             while ((read = in.read(buffer, 0, buffer.length)) > 0) {
                 digest.update(buffer, 0, read);
             }
-            byte[] sha = digest.digest();
-            return "urn" + FIELD_SEPARATOR + "sha256" + FIELD_SEPARATOR + Hex.encodeHexString(sha);
+            return buildSHA256KeyString(digest);
         } catch (NoSuchAlgorithmException e) {
             throw new RuntimeException(e);
         }
     }
 
+    /**
+     * @param digest a SHA-256 digest which has been updated with all of the bytes.
+     */
+    public static String buildSHA256KeyString(MessageDigest digest) {
+        byte[] sha = digest.digest();
+        return "urn" + FIELD_SEPARATOR + "sha256" + FIELD_SEPARATOR + Hex.encodeHexString(sha);
+    }
+
     public static String[] splitOnMinorFieldSeparator(String rowKey) {
         return rowKey.split("" + FIELD_SEPARATOR);
     }
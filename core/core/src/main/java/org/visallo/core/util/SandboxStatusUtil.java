@@ -7,7 +7,9 @@ import org.visallo.web.clientapi.model.SandboxStatus;
 import org.visallo.web.clientapi.model.VisibilityJson;
 
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 public class SandboxStatusUtil {
     private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(SandboxStatusUtil.class);
@@ -28,21 +30,17 @@ public class SandboxStatusUtil {
             sandboxStatuses[i] = getMostExclusiveSandboxStatus(visibilityJsons, workspaceId);
         }
 
+        // a private value of a property which also has a public value is a change to the public value
+        Set<String> publicPropertyNameAndKeys = new HashSet<>();
         for (int i = 0; i < properties.size(); i++) {
-            Property property = properties.get(i);
-            if (sandboxStatuses[i] != SandboxStatus.PRIVATE) {
-                continue;
+            if (sandboxStatuses[i] == SandboxStatus.PUBLIC) {
+                publicPropertyNameAndKeys.add(getPropertyNameAndKey(properties.get(i)));
             }
-            for (int j = 0; j < properties.size(); j++) {
-                Property p = properties.get(j);
-                if (i == j) {
-                    continue;
-                }
-
-                if (sandboxStatuses[j] == SandboxStatus.PUBLIC &&
-                        sandboxStatuses[i] == SandboxStatus.PRIVATE &&
-                        property.getKey().equals(p.getKey()) &&
-                        property.getName().equals(p.getName())) {
+        }
+        if (!publicPropertyNameAndKeys.isEmpty()) {
+            for (int i = 0; i < properties.size(); i++) {
+                if (sandboxStatuses[i] == SandboxStatus.PRIVATE
+                        && publicPropertyNameAndKeys.contains(getPropertyNameAndKey(properties.get(i)))) {
                     sandboxStatuses[i] = SandboxStatus.PUBLIC_CHANGED;
                 }
             }
@@ -51,6 +49,10 @@ public class SandboxStatusUtil {
         return sandboxStatuses;
     }
 
+    private static String getPropertyNameAndKey(Property property) {
+        return property.getName() + '\u001f' + property.getKey();
+    }
+
     private static SandboxStatus getMostExclusiveSandboxStatus(Collection<VisibilityJson> visibilityJsons, String workspaceId) {
         for (VisibilityJson visibilityJson : visibilityJsons) {
             SandboxStatus status = SandboxStatus.getFromVisibilityJsonString(visibilityJson, workspaceId);
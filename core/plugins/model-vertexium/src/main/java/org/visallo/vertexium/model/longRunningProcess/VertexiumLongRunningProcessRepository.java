@@ -164,7 +164,27 @@ public class VertexiumLongRunningProcessRepository extends LongRunningProcessRep
         if (vertex == null) {
             return null;
         }
-        return LongRunningProcessProperties.QUEUE_ITEM_JSON_PROPERTY.getPropertyValue(vertex);
+        JSONObject json = LongRunningProcessProperties.QUEUE_ITEM_JSON_PROPERTY.getPropertyValue(vertex);
+        JSONObject results = LongRunningProcessProperties.RESULTS_JSON_PROPERTY.getPropertyValue(vertex);
+        if (results != null) {
+            json.put("results", results);
+        }
+        return json;
+    }
+
+    @Override
+    public void saveResults(JSONObject longRunningProcessQueueItem, JSONObject results) {
+        String longRunningProcessGraphVertexId = longRunningProcessQueueItem.getString("id");
+        Authorizations authorizations = getAuthorizations(userRepository.getSystemUser());
+        Vertex vertex = this.graph.getVertex(longRunningProcessGraphVertexId, authorizations);
+        checkNotNull(vertex, "Could not find long running process vertex: " + longRunningProcessGraphVertexId);
+        LongRunningProcessProperties.RESULTS_JSON_PROPERTY.setProperty(
+                vertex,
+                results,
+                getVisibility(),
+                authorizations
+        );
+        this.graph.flush();
     }
 
     @Override
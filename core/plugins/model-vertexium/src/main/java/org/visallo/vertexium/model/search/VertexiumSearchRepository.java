@@ -10,6 +10,7 @@ import org.visallo.core.exception.VisalloAccessDeniedException;
 import org.visallo.core.exception.VisalloException;
 import org.visallo.core.model.graph.GraphRepository;
 import org.visallo.core.model.graph.GraphUpdateContext;
+import org.visallo.core.model.search.SearchCursor;
 import org.visallo.core.model.search.SearchProperties;
 import org.visallo.core.model.search.SearchRepository;
 import org.visallo.core.model.user.AuthorizationRepository;
@@ -171,14 +172,27 @@ public class VertexiumSearchRepository extends SearchRepository {
             JSONObject searchParameters
     ) {
         Visibility visibility = VISIBILITY.getVisibility();
+        JSONObject parameters = withoutCursor(searchParameters);
         return ctx.getOrCreateVertexAndUpdate(id, visibility, elemCtx -> {
             elemCtx.setConceptType(SearchProperties.CONCEPT_TYPE_SAVED_SEARCH);
             SearchProperties.NAME.updateProperty(elemCtx, name != null ? name : "", visibility);
             SearchProperties.URL.updateProperty(elemCtx, url, visibility);
-            SearchProperties.PARAMETERS.updateProperty(elemCtx, searchParameters, visibility);
+            SearchProperties.PARAMETERS.updateProperty(elemCtx, parameters, visibility);
         });
     }
 
+    /**
+     * A saved search is run from the start, the cursor is passed when running it to read later pages.
+     */
+    private static JSONObject withoutCursor(JSONObject searchParameters) {
+        if (searchParameters == null || !searchParameters.has(SearchCursor.PARAMETER_NAME)) {
+            return searchParameters;
+        }
+        JSONObject parameters = new JSONObject(searchParameters, JSONObject.getNames(searchParameters));
+        parameters.remove(SearchCursor.PARAMETER_NAME);
+        return parameters;
+    }
+
     @Override
     public ClientApiSearchListResponse getSavedSearches(User user) {
         checkNotNull(user, "User is required");
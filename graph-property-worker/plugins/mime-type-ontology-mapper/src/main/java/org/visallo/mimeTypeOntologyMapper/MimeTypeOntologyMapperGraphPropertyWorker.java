@@ -7,6 +7,7 @@ import org.vertexium.mutation.ExistingElementMutation;
 import org.visallo.core.exception.VisalloException;
 import org.visallo.core.ingest.graphProperty.GraphPropertyWorkData;
 import org.visallo.core.ingest.graphProperty.GraphPropertyWorker;
+import org.visallo.core.ingest.graphProperty.GraphPropertyWorkerInterest;
 import org.visallo.core.ingest.graphProperty.GraphPropertyWorkerPrepareData;
 import org.visallo.core.model.Description;
 import org.visallo.core.model.Name;
@@ -143,6 +144,11 @@ public class MimeTypeOntologyMapperGraphPropertyWorker extends GraphPropertyWork
         return true;
     }
 
+    @Override
+    public GraphPropertyWorkerInterest getInterest() {
+        return GraphPropertyWorkerInterest.properties(VisalloProperties.RAW.getPropertyName());
+    }
+
     private static abstract class MimeTypeMatcher {
         private final Concept concept;
 
@@ -0,0 +1,30 @@
+package org.visallo.phoneNumber;
+
+import com.google.i18n.phonenumbers.PhoneNumberMatch;
+import com.google.i18n.phonenumbers.PhoneNumberUtil;
+import org.visallo.core.ingest.graphProperty.extraction.TextEntityExtractor;
+
+public class PhoneNumberTextEntityExtractor implements TextEntityExtractor {
+    private final PhoneNumberUtil phoneNumberUtil;
+    private final String conceptIri;
+    private final String defaultRegionCode;
+
+    public PhoneNumberTextEntityExtractor(PhoneNumberUtil phoneNumberUtil, String conceptIri, String defaultRegionCode) {
+        this.phoneNumberUtil = phoneNumberUtil;
+        this.conceptIri = conceptIri;
+        this.defaultRegionCode = defaultRegionCode;
+    }
+
+    @Override
+    public String getConceptIri() {
+        return conceptIri;
+    }
+
+    @Override
+    public void findMatches(CharSequence text, MatchHandler handler) {
+        for (PhoneNumberMatch phoneNumber : phoneNumberUtil.findNumbers(text, defaultRegionCode)) {
+            String formattedNumber = phoneNumberUtil.format(phoneNumber.number(), PhoneNumberUtil.PhoneNumberFormat.E164);
+            handler.onMatch(phoneNumber.start(), phoneNumber.end(), formattedNumber);
+        }
+    }
+}
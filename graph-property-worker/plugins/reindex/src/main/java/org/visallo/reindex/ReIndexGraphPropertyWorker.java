@@ -6,6 +6,7 @@ import org.vertexium.Property;
 import org.vertexium.search.SearchIndex;
 import org.visallo.core.ingest.graphProperty.GraphPropertyWorkData;
 import org.visallo.core.ingest.graphProperty.GraphPropertyWorker;
+import org.visallo.core.ingest.graphProperty.GraphPropertyWorkerInterest;
 import org.visallo.core.model.Description;
 import org.visallo.core.model.Name;
 
@@ -30,4 +31,9 @@ public class ReIndexGraphPropertyWorker extends GraphPropertyWorker {
 
         return false;
     }
+
+    @Override
+    public GraphPropertyWorkerInterest getInterest() {
+        return GraphPropertyWorkerInterest.elementOnly();
+    }
 }
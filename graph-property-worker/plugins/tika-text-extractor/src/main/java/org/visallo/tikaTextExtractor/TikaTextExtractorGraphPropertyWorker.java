@@ -27,6 +27,7 @@ import org.vertexium.mutation.ExistingElementMutation;
 import org.vertexium.property.StreamingPropertyValue;
 import org.visallo.core.ingest.graphProperty.GraphPropertyWorkData;
 import org.visallo.core.ingest.graphProperty.GraphPropertyWorker;
+import org.visallo.core.ingest.graphProperty.GraphPropertyWorkerInterest;
 import org.visallo.core.ingest.graphProperty.GraphPropertyWorkerPrepareData;
 import org.visallo.core.model.Description;
 import org.visallo.core.model.Name;
@@ -448,5 +449,10 @@ public class TikaTextExtractorGraphPropertyWorker extends GraphPropertyWorker {
 
         return configuration.isHandled(element, property);
     }
+
+    @Override
+    public GraphPropertyWorkerInterest getInterest() {
+        return GraphPropertyWorkerInterest.properties(configuration.getRawPropertyNames());
+    }
 }
 
@@ -7,7 +7,9 @@ import org.visallo.core.config.Configurable;
 import org.visallo.core.config.Configuration;
 import org.visallo.core.model.properties.VisalloProperties;
 
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 public class TikaTextExtractorGraphPropertyWorkerConfiguration {
     public static final String CONFIGURATION_PREFIX = TikaTextExtractorGraphPropertyWorker.class.getName();
@@ -29,6 +31,14 @@ public class TikaTextExtractorGraphPropertyWorkerConfiguration {
         }
     }
 
+    Set<String> getRawPropertyNames() {
+        Set<String> rawPropertyNames = new HashSet<>();
+        for (TextExtractMapping textExtractMapping : this.textExtractMappings.values()) {
+            rawPropertyNames.add(textExtractMapping.rawPropertyName);
+        }
+        return rawPropertyNames;
+    }
+
     boolean isHandled(Element element, Property property) {
         for (TextExtractMapping textExtractMapping : this.textExtractMappings.values()) {
             if (textExtractMapping.rawPropertyName.equals(property.getName())) {
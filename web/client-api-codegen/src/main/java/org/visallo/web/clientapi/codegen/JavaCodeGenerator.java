@@ -13,6 +13,12 @@ import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * Generates the APIs of the client from the swagger files in the resources. The APIs are generated from
+ * Java/api.mustache in the resources, which replaces the template of the same name in swagger-codegen, so every
+ * operation gets a method reading the response straight into the model class and an asynchronous variant returning a
+ * CompletableFuture.
+ */
 public class JavaCodeGenerator extends BasicJavaGenerator {
     public static final String BASE_CODEGEN_PACKAGE = "org.visallo.web.clientapi.codegen";
     public static final String BASE_PACKAGE = "org.visallo.web.clientapi";
@@ -58,7 +64,7 @@ public class JavaCodeGenerator extends BasicJavaGenerator {
                 fileContents = fileContents.replaceAll("ApiInvoker apiInvoker =", "protected ApiInvoker apiInvoker =");
                 fileContents = fileContents.replaceAll("LinkedHashMap", "Map<String,Object>");
 
-                fileContents = fileContents.replaceAll("return \\(RawString\\) ApiInvoker\\.deserialize\\(response, \"\", RawString\\.class\\);", "return response;");
+                fileContents = fileContents.replaceAll("return \\(RawString\\) apiInvoker\\.invokeAPI\\((.*), \"\", RawString\\.class\\);", "return apiInvoker.invokeAPI($1);");
                 fileContents = fileContents.replaceAll("RawString", "String");
 
                 fileContents = fileContents.replaceAll("TResult\\.class", "resultType");
@@ -6,6 +6,7 @@ import com.sun.jersey.api.client.ClientResponse;
 import com.sun.jersey.api.client.WebResource.Builder;
 import com.sun.jersey.api.client.config.ClientConfig;
 import com.sun.jersey.api.client.config.DefaultClientConfig;
+import com.sun.jersey.api.client.filter.GZIPContentEncodingFilter;
 import com.sun.jersey.api.client.filter.LoggingFilter;
 import com.sun.jersey.multipart.FormDataMultiPart;
 import com.sun.jersey.multipart.impl.MultiPartWriter;
@@ -16,15 +17,35 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Sends the requests of the generated APIs.
+ * <p/>
+ * One client is kept per host and shared by all threads, so connections to the host are kept alive and reused by the
+ * JDK as long as every response is read to the end and closed. JSON responses are read straight from the connection
+ * into the model classes instead of being copied into a string first.
+ * <p/>
+ * The JDK keeps at most http.maxConnections idle connections alive per host, 5 unless the application sets that
+ * system property. Applications making more concurrent requests than that should raise it, this invoker does not
+ * change it for them.
+ * <p/>
+ * The asynchronous methods of the generated APIs run on a pool of daemon threads, as large as
+ * {@link #setAsyncPoolSize(int)}. Use {@link #setExecutor(ExecutorService)} to run them somewhere else.
+ */
 public class ApiInvoker {
+    public static final int DEFAULT_ASYNC_POOL_SIZE = 20;
     private static ApiInvoker INSTANCE = new ApiInvoker();
-    private Map<String, Client> hostMap = new HashMap<String, Client>();
-    private Map<String, String> defaultHeaderMap = new HashMap<String, String>();
+    private final Map<String, Client> hostMap = new ConcurrentHashMap<String, Client>();
+    private final Map<String, String> defaultHeaderMap = new ConcurrentHashMap<String, String>();
     private boolean isDebug = false;
+    private Integer connectTimeout;
+    private Integer readTimeout;
+    private int asyncPoolSize = DEFAULT_ASYNC_POOL_SIZE;
+    private volatile ExecutorService executor;
     private String csrfToken;
     private String workspaceId;
     private String jSessionId;
@@ -37,6 +58,13 @@ public class ApiInvoker {
         return INSTANCE;
     }
 
+    /**
+     * A request made by an asynchronous method of a generated API.
+     */
+    public interface Call<T> {
+        T call() throws ApiException;
+    }
+
     public void addDefaultHeader(String key, String value) {
         defaultHeaderMap.put(key, value);
     }
@@ -68,6 +96,28 @@ public class ApiInvoker {
         }
     }
 
+    /**
+     * Reads a JSON response into the model class, closing the stream when done.
+     */
+    public static Object deserialize(InputStream json, String containerType, Class cls) throws ApiException {
+        try {
+            if ("List".equals(containerType)) {
+                JavaType typeInfo = JsonUtil.getJsonMapper().getTypeFactory().constructCollectionType(List.class, cls);
+                return JsonUtil.getJsonMapper().readValue(json, typeInfo);
+            } else {
+                return JsonUtil.getJsonMapper().readValue(json, cls);
+            }
+        } catch (IOException e) {
+            throw new ApiException(500, e.getMessage());
+        } finally {
+            try {
+                json.close();
+            } catch (IOException e) {
+                // the response has been read, the connection is not kept alive
+            }
+        }
+    }
+
     public static String serialize(Object obj) throws ApiException {
         try {
             if (obj != null)
@@ -80,44 +130,12 @@ public class ApiInvoker {
     }
 
     public InputStream getBinary(String host, String path, Map<String, String> queryParams, Map<String, String> headerParams) throws ApiException {
-        Client client = getClient(host);
-
-        StringBuilder b = new StringBuilder();
+        Builder builder = createBuilder(host, path, queryParams, headerParams);
 
-        for (String key : queryParams.keySet()) {
-            String value = queryParams.get(key);
-            if (value != null) {
-                if (b.toString().length() == 0)
-                    b.append("?");
-                else
-                    b.append("&");
-                b.append(escapeString(key)).append("=").append(escapeString(value));
-            }
-        }
-        String querystring = b.toString();
-
-        Builder builder = client.resource(host + path + querystring).accept("application/json");
-        for (String key : headerParams.keySet()) {
-            builder.header(key, headerParams.get(key));
-        }
+        ClientResponse response = builder.get(ClientResponse.class);
 
-        for (String key : defaultHeaderMap.keySet()) {
-            if (!headerParams.containsKey(key)) {
-                builder.header(key, defaultHeaderMap.get(key));
-            }
-        }
-        if (workspaceId != null) {
-            builder.header("Visallo-Workspace-Id", workspaceId);
-        }
-        if (jSessionId != null) {
-            builder.header("Cookie", "JSESSIONID=" + jSessionId);
-        }
-
-        ClientResponse response = null;
-
-        response = (ClientResponse) builder.get(ClientResponse.class);
-
-        if (response.getStatusInfo() == ClientResponse.Status.NO_CONTENT) {
+        if (response.getStatus() == ClientResponse.Status.NO_CONTENT.getStatusCode()) {
+            response.close();
             return null;
         } else if (response.getStatusInfo().getFamily() == Family.SUCCESSFUL) {
             return response.getEntityInputStream();
@@ -129,43 +147,53 @@ public class ApiInvoker {
     }
 
     public String invokeAPI(String host, String path, String method, Map<String, String> queryParams, Object body, Map<String, String> headerParams, Map<String, String> formParams, String contentType) throws ApiException {
-        Client client = getClient(host);
-
-        StringBuilder b = new StringBuilder();
-
-        for (String key : queryParams.keySet()) {
-            String value = queryParams.get(key);
-            if (value != null) {
-                if (b.toString().length() == 0)
-                    b.append("?");
-                else
-                    b.append("&");
-                b.append(escapeString(key)).append("=").append(escapeString(value));
-            }
+        ClientResponse response = send(host, path, method, queryParams, body, headerParams, formParams, contentType);
+        if (response.getStatus() == ClientResponse.Status.NO_CONTENT.getStatusCode()) {
+            response.close();
+            return null;
         }
-        String querystring = b.toString();
+        return response.getEntity(String.class);
+    }
 
-        Builder builder = client.resource(host + path + querystring).accept("application/json");
-        for (String key : headerParams.keySet()) {
-            builder.header(key, headerParams.get(key));
+    /**
+     * Sends a request and reads its JSON response straight into the model class.
+     *
+     * @param cls the model class, null to ignore the response.
+     * @return the model, a list of models if the container type is "List", null if there is no content.
+     */
+    public Object invokeAPI(String host, String path, String method, Map<String, String> queryParams, Object body, Map<String, String> headerParams, Map<String, String> formParams, String contentType, String containerType, Class cls) throws ApiException {
+        ClientResponse response = send(host, path, method, queryParams, body, headerParams, formParams, contentType);
+        if (response.getStatus() == ClientResponse.Status.NO_CONTENT.getStatusCode() || cls == null) {
+            response.close();
+            return null;
         }
+        if (String.class.equals(cls)) {
+            return deserialize(response.getEntity(String.class), containerType, cls);
+        }
+        return deserialize(response.getEntityInputStream(), containerType, cls);
+    }
 
-        for (String key : defaultHeaderMap.keySet()) {
-            if (!headerParams.containsKey(key)) {
-                builder.header(key, defaultHeaderMap.get(key));
+    /**
+     * Runs a request of a generated API on the executor of this invoker. An {@link ApiException} thrown by the request
+     * completes the future exceptionally, wrapped in a {@link CompletionException}.
+     */
+    public <T> CompletableFuture<T> supplyAsync(final Call<T> call) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return call.call();
+            } catch (ApiException ex) {
+                throw new CompletionException(ex);
             }
-        }
-        if (workspaceId != null) {
-            builder.header("Visallo-Workspace-Id", workspaceId);
-        }
-        if (jSessionId != null) {
-            builder.header("Cookie", "JSESSIONID=" + jSessionId);
-        }
+        }, getExecutor());
+    }
 
-        ClientResponse response = null;
+    private ClientResponse send(String host, String path, String method, Map<String, String> queryParams, Object body, Map<String, String> headerParams, Map<String, String> formParams, String contentType) throws ApiException {
+        Builder builder = createBuilder(host, path, queryParams, headerParams);
+
+        ClientResponse response;
 
         if ("GET".equals(method)) {
-            response = (ClientResponse) builder.get(ClientResponse.class);
+            response = builder.get(ClientResponse.class);
         } else if ("POST".equals(method)) {
             builder.header("Visallo-CSRF-Token", this.csrfToken);
             if (body == null) {
@@ -211,28 +239,127 @@ public class ApiInvoker {
         } else {
             throw new ApiException(500, "unknown method type " + method);
         }
-        if (response.getStatusInfo() == ClientResponse.Status.NO_CONTENT) {
-            return null;
-        } else if (response.getStatusInfo().getFamily() == Family.SUCCESSFUL) {
-            return (String) response.getEntity(String.class);
-        } else {
+        if (response.getStatusInfo().getFamily() != Family.SUCCESSFUL) {
             throw new ApiException(
                     response.getStatusInfo().getStatusCode(),
                     response.getEntity(String.class));
         }
+        return response;
+    }
+
+    private Builder createBuilder(String host, String path, Map<String, String> queryParams, Map<String, String> headerParams) {
+        Client client = getClient(host);
+
+        StringBuilder b = new StringBuilder();
+
+        for (String key : queryParams.keySet()) {
+            String value = queryParams.get(key);
+            if (value != null) {
+                if (b.toString().length() == 0)
+                    b.append("?");
+                else
+                    b.append("&");
+                b.append(escapeString(key)).append("=").append(escapeString(value));
+            }
+        }
+        String querystring = b.toString();
+
+        Builder builder = client.resource(host + path + querystring).accept("application/json");
+        for (String key : headerParams.keySet()) {
+            builder.header(key, headerParams.get(key));
+        }
+
+        for (String key : defaultHeaderMap.keySet()) {
+            if (!headerParams.containsKey(key)) {
+                builder.header(key, defaultHeaderMap.get(key));
+            }
+        }
+        if (workspaceId != null) {
+            builder.header("Visallo-Workspace-Id", workspaceId);
+        }
+        if (jSessionId != null) {
+            builder.header("Cookie", "JSESSIONID=" + jSessionId);
+        }
+        return builder;
     }
 
     private Client getClient(String host) {
-        if (!hostMap.containsKey(host)) {
-            ClientConfig clientConfig = new DefaultClientConfig();
-            clientConfig.getClasses().add(MultiPartWriter.class);
-            Client client = Client.create(clientConfig);
-            if (isDebug) {
-                client.addFilter(new LoggingFilter());
+        Client client = hostMap.get(host);
+        if (client == null) {
+            synchronized (hostMap) {
+                client = hostMap.get(host);
+                if (client == null) {
+                    ClientConfig clientConfig = new DefaultClientConfig();
+                    clientConfig.getClasses().add(MultiPartWriter.class);
+                    client = Client.create(clientConfig);
+                    client.setConnectTimeout(connectTimeout);
+                    client.setReadTimeout(readTimeout);
+                    // asks for compressed responses, the request bodies are sent as they are
+                    client.addFilter(new GZIPContentEncodingFilter(false));
+                    if (isDebug) {
+                        client.addFilter(new LoggingFilter());
+                    }
+                    hostMap.put(host, client);
+                }
+            }
+        }
+        return client;
+    }
+
+    private ExecutorService getExecutor() {
+        if (executor == null) {
+            synchronized (this) {
+                if (executor == null) {
+                    final AtomicInteger threadNumber = new AtomicInteger();
+                    executor = Executors.newFixedThreadPool(asyncPoolSize, r -> {
+                        Thread thread = new Thread(r, "visallo-client-api-" + threadNumber.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                }
             }
-            hostMap.put(host, client);
         }
-        return hostMap.get(host);
+        return executor;
+    }
+
+    /**
+     * Sets the number of threads the asynchronous methods of the generated APIs run on, which limits how many of them
+     * send requests at the same time. Only used if set before the first asynchronous request and without
+     * {@link #setExecutor(ExecutorService)}.
+     */
+    public void setAsyncPoolSize(int asyncPoolSize) {
+        if (asyncPoolSize < 1) {
+            throw new IllegalArgumentException("asyncPoolSize must be at least 1: " + asyncPoolSize);
+        }
+        this.asyncPoolSize = asyncPoolSize;
+    }
+
+    /**
+     * Sets the executor the asynchronous methods of the generated APIs run on. The executor is not shut down by this
+     * invoker.
+     */
+    public void setExecutor(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * @param connectTimeout in milliseconds, null or 0 to wait forever.
+     */
+    public void setConnectTimeout(Integer connectTimeout) {
+        this.connectTimeout = connectTimeout;
+        for (Client client : hostMap.values()) {
+            client.setConnectTimeout(connectTimeout);
+        }
+    }
+
+    /**
+     * @param readTimeout in milliseconds, null or 0 to wait forever.
+     */
+    public void setReadTimeout(Integer readTimeout) {
+        this.readTimeout = readTimeout;
+        for (Client client : hostMap.values()) {
+            client.setReadTimeout(readTimeout);
+        }
     }
 
     public void setCsrfToken(String csrfToken) {
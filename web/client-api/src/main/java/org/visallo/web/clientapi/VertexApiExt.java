@@ -94,12 +94,7 @@ public class VertexApiExt extends VertexApi {
             postBody = mp;
 
             try {
-                String response = apiInvoker.invokeAPI(basePath, path, "POST", queryParams, postBody, headerParams, formParams, contentType);
-                if (response != null) {
-                    return (ClientApiArtifactImportResponse) ApiInvoker.deserialize(response, "", ClientApiArtifactImportResponse.class);
-                } else {
-                    return null;
-                }
+                return (ClientApiArtifactImportResponse) apiInvoker.invokeAPI(basePath, path, "POST", queryParams, postBody, headerParams, formParams, contentType, "", ClientApiArtifactImportResponse.class);
             } catch (ApiException ex) {
                 if (ex.getCode() == 404) {
                     return null;
@@ -9,6 +9,7 @@ import javax.ws.rs.core.MediaType;
 
 import java.io.File;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 public class AdminApi {
   protected String basePath = "http://visallo-dev:8889";
@@ -63,13 +64,7 @@ public class AdminApi {
       }
 
     try {
-      String response = apiInvoker.invokeAPI(basePath, path, "POST", queryParams, postBody, headerParams, formParams, contentType);
-      if(response != null){
-        return ;
-      }
-      else {
-        return ;
-      }
+      apiInvoker.invokeAPI(basePath, path, "POST", queryParams, postBody, headerParams, formParams, contentType, "", null);
     } catch (ApiException ex) {
       if(ex.getCode() == 404) {
       	return ;
@@ -79,5 +74,8 @@ public class AdminApi {
       }
     }
   }
+  public CompletableFuture<Void> uploadOntologyAsync (File file) {
+    return apiInvoker.supplyAsync(() -> { uploadOntology(file); return null; });
+  }
   }
 
@@ -10,6 +10,7 @@ import javax.ws.rs.core.MediaType;
 
 import java.io.File;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 public class DirectoryApi {
   protected String basePath = "http://visallo-dev:8889";
@@ -58,13 +59,7 @@ public class DirectoryApi {
       }
 
     try {
-      String response = apiInvoker.invokeAPI(basePath, path, "GET", queryParams, postBody, headerParams, formParams, contentType);
-      if(response != null){
-        return (DirectoryEntity) ApiInvoker.deserialize(response, "", DirectoryEntity.class);
-      }
-      else {
-        return null;
-      }
+      return (DirectoryEntity) apiInvoker.invokeAPI(basePath, path, "GET", queryParams, postBody, headerParams, formParams, contentType, "", DirectoryEntity.class);
     } catch (ApiException ex) {
       if(ex.getCode() == 404) {
       	return null;
@@ -74,6 +69,9 @@ public class DirectoryApi {
       }
     }
   }
+  public CompletableFuture<DirectoryEntity> getAsync (String id) {
+    return apiInvoker.supplyAsync(() -> get(id));
+  }
   public DirectoryEntity search (String search, Boolean people, Boolean groups) throws ApiException {
     Object postBody = null;
     // verify required params are set
@@ -109,13 +107,7 @@ public class DirectoryApi {
       }
 
     try {
-      String response = apiInvoker.invokeAPI(basePath, path, "GET", queryParams, postBody, headerParams, formParams, contentType);
-      if(response != null){
-        return (DirectoryEntity) ApiInvoker.deserialize(response, "", DirectoryEntity.class);
-      }
-      else {
-        return null;
-      }
+      return (DirectoryEntity) apiInvoker.invokeAPI(basePath, path, "GET", queryParams, postBody, headerParams, formParams, contentType, "", DirectoryEntity.class);
     } catch (ApiException ex) {
       if(ex.getCode() == 404) {
       	return null;
@@ -125,5 +117,8 @@ public class DirectoryApi {
       }
     }
   }
+  public CompletableFuture<DirectoryEntity> searchAsync (String search, Boolean people, Boolean groups) {
+    return apiInvoker.supplyAsync(() -> search(search, people, groups));
+  }
   }
 
@@ -13,6 +13,7 @@ import javax.ws.rs.core.MediaType;
 
 import java.io.File;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 public class EdgeApi {
   protected String basePath = "http://visallo-dev:8889";
@@ -62,13 +63,7 @@ public class EdgeApi {
       }
 
     try {
-      String response = apiInvoker.invokeAPI(basePath, path, "GET", queryParams, postBody, headerParams, formParams, contentType);
-      if(response != null){
-        return (ClientApiEdgeWithVertexData) ApiInvoker.deserialize(response, "", ClientApiEdgeWithVertexData.class);
-      }
-      else {
-        return null;
-      }
+      return (ClientApiEdgeWithVertexData) apiInvoker.invokeAPI(basePath, path, "GET", queryParams, postBody, headerParams, formParams, contentType, "", ClientApiEdgeWithVertexData.class);
     } catch (ApiException ex) {
       if(ex.getCode() == 404) {
       	return null;
@@ -78,6 +73,9 @@ public class EdgeApi {
       }
     }
   }
+  public CompletableFuture<ClientApiEdgeWithVertexData> getByEdgeIdAsync (String graphEdgeId) {
+    return apiInvoker.supplyAsync(() -> getByEdgeId(graphEdgeId));
+  }
   public ClientApiHistoricalPropertyResults getPropertyHistory (String graphEdgeId, String propertyKey, String propertyName, Long startTime, Long endTime) throws ApiException {
     Object postBody = null;
     // verify required params are set
@@ -117,13 +115,7 @@ public class EdgeApi {
       }
 
     try {
-      String response = apiInvoker.invokeAPI(basePath, path, "GET", queryParams, postBody, headerParams, formParams, contentType);
-      if(response != null){
-        return (ClientApiHistoricalPropertyResults) ApiInvoker.deserialize(response, "", ClientApiHistoricalPropertyResults.class);
-      }
-      else {
-        return null;
-      }
+      return (ClientApiHistoricalPropertyResults) apiInvoker.invokeAPI(basePath, path, "GET", queryParams, postBody, headerParams, formParams, contentType, "", ClientApiHistoricalPropertyResults.class);
     } catch (ApiException ex) {
       if(ex.getCode() == 404) {
       	return null;
@@ -133,6 +125,9 @@ public class EdgeApi {
       }
     }
   }
+  public CompletableFuture<ClientApiHistoricalPropertyResults> getPropertyHistoryAsync (String graphEdgeId, String propertyKey, String propertyName, Long startTime, Long endTime) {
+    return apiInvoker.supplyAsync(() -> getPropertyHistory(graphEdgeId, propertyKey, propertyName, startTime, endTime));
+  }
   public ClientApiEdgeWithVertexData create (String outVertexId, String inVertexId, String predicateLabel, String visibilitySource, String justificationText, String sourceInfo, String edgeId) throws ApiException {
     Object postBody = null;
     // verify required params are set
@@ -176,13 +171,7 @@ public class EdgeApi {
       }
 
     try {
-      String response = apiInvoker.invokeAPI(basePath, path, "POST", queryParams, postBody, headerParams, formParams, contentType);
-      if(response != null){
-        return (ClientApiEdgeWithVertexData) ApiInvoker.deserialize(response, "", ClientApiEdgeWithVertexData.class);
-      }
-      else {
-        return null;
-      }
+      return (ClientApiEdgeWithVertexData) apiInvoker.invokeAPI(basePath, path, "POST", queryParams, postBody, headerParams, formParams, contentType, "", ClientApiEdgeWithVertexData.class);
     } catch (ApiException ex) {
       if(ex.getCode() == 404) {
       	return null;
@@ -192,6 +181,9 @@ public class EdgeApi {
       }
     }
   }
+  public CompletableFuture<ClientApiEdgeWithVertexData> createAsync (String outVertexId, String inVertexId, String predicateLabel, String visibilitySource, String justificationText, String sourceInfo, String edgeId) {
+    return apiInvoker.supplyAsync(() -> create(outVertexId, inVertexId, predicateLabel, visibilitySource, justificationText, sourceInfo, edgeId));
+  }
   public void setProperty (String edgeId, String propertyKey, String propertyName, String value, String visibilitySource, String justificationString, String sourceInfo, String metadata) throws ApiException {
     Object postBody = null;
     // verify required params are set
@@ -237,13 +229,7 @@ public class EdgeApi {
       }
 
     try {
-      String response = apiInvoker.invokeAPI(basePath, path, "POST", queryParams, postBody, headerParams, formParams, contentType);
-      if(response != null){
-        return ;
-      }
-      else {
-        return ;
-      }
+      apiInvoker.invokeAPI(basePath, path, "POST", queryParams, postBody, headerParams, formParams, contentType, "", null);
     } catch (ApiException ex) {
       if(ex.getCode() == 404) {
       	return ;
@@ -253,6 +239,9 @@ public class EdgeApi {
       }
     }
   }
+  public CompletableFuture<Void> setPropertyAsync (String edgeId, String propertyKey, String propertyName, String value, String visibilitySource, String justificationString, String sourceInfo, String metadata) {
+    return apiInvoker.supplyAsync(() -> { setProperty(edgeId, propertyKey, propertyName, value, visibilitySource, justificationString, sourceInfo, metadata); return null; });
+  }
   public void deleteEdge (String edgeId) throws ApiException {
     Object postBody = null;
     // verify required params are set
@@ -284,13 +273,7 @@ public class EdgeApi {
       }
 
     try {
-      String response = apiInvoker.invokeAPI(basePath, path, "DELETE", queryParams, postBody, headerParams, formParams, contentType);
-      if(response != null){
-        return ;
-      }
-      else {
-        return ;
-      }
+      apiInvoker.invokeAPI(basePath, path, "DELETE", queryParams, postBody, headerParams, formParams, contentType, "", null);
     } catch (ApiException ex) {
       if(ex.getCode() == 404) {
       	return ;
@@ -300,6 +283,9 @@ public class EdgeApi {
       }
     }
   }
+  public CompletableFuture<Void> deleteEdgeAsync (String edgeId) {
+    return apiInvoker.supplyAsync(() -> { deleteEdge(edgeId); return null; });
+  }
   public ClientApiEdgesExistsResponse doExist (List<String> edgeIds) throws ApiException {
     Object postBody = null;
     // verify required params are set
@@ -331,13 +317,7 @@ public class EdgeApi {
       throw new java.lang.RuntimeException("invalid content type");}
 
     try {
-      String response = apiInvoker.invokeAPI(basePath, path, "POST", queryParams, postBody, headerParams, formParams, contentType);
-      if(response != null){
-        return (ClientApiEdgesExistsResponse) ApiInvoker.deserialize(response, "", ClientApiEdgesExistsResponse.class);
-      }
-      else {
-        return null;
-      }
+      return (ClientApiEdgesExistsResponse) apiInvoker.invokeAPI(basePath, path, "POST", queryParams, postBody, headerParams, formParams, contentType, "", ClientApiEdgesExistsResponse.class);
     } catch (ApiException ex) {
       if(ex.getCode() == 404) {
       	return null;
@@ -347,6 +327,9 @@ public class EdgeApi {
       }
     }
   }
+  public CompletableFuture<ClientApiEdgesExistsResponse> doExistAsync (List<String> edgeIds) {
+    return apiInvoker.supplyAsync(() -> doExist(edgeIds));
+  }
   public ClientApiElementAcl getAcl (String elementId) throws ApiException {
     Object postBody = null;
     // verify required params are set
@@ -378,13 +361,7 @@ public class EdgeApi {
       }
 
     try {
-      String response = apiInvoker.invokeAPI(basePath, path, "GET", queryParams, postBody, headerParams, formParams, contentType);
-      if(response != null){
-        return (ClientApiElementAcl) ApiInvoker.deserialize(response, "", ClientApiElementAcl.class);
-      }
-      else {
-        return null;
-      }
+      return (ClientApiElementAcl) apiInvoker.invokeAPI(basePath, path, "GET", queryParams, postBody, headerParams, formParams, contentType, "", ClientApiElementAcl.class);
     } catch (ApiException ex) {
       if(ex.getCode() == 404) {
       	return null;
@@ -394,5 +371,8 @@ public class EdgeApi {
       }
     }
   }
+  public CompletableFuture<ClientApiElementAcl> getAclAsync (String elementId) {
+    return apiInvoker.supplyAsync(() -> getAcl(elementId));
+  }
   }
 
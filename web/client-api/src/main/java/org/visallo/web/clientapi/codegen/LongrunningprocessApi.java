@@ -10,6 +10,7 @@ import javax.ws.rs.core.MediaType;
 
 import java.io.File;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 public class LongrunningprocessApi {
   protected String basePath = "http://visallo-dev:8889";
@@ -59,13 +60,7 @@ public class LongrunningprocessApi {
       }
 
     try {
-      String response = apiInvoker.invokeAPI(basePath, path, "GET", queryParams, postBody, headerParams, formParams, contentType);
-      if(response != null){
-        return response;
-      }
-      else {
-        return null;
-      }
+      return apiInvoker.invokeAPI(basePath, path, "GET", queryParams, postBody, headerParams, formParams, contentType);
     } catch (ApiException ex) {
       if(ex.getCode() == 404) {
       	return null;
@@ -75,6 +70,9 @@ public class LongrunningprocessApi {
       }
     }
   }
+  public CompletableFuture<String> findByIdRawAsync (String longRunningProcessId) {
+    return apiInvoker.supplyAsync(() -> findByIdRaw(longRunningProcessId));
+  }
   //error info- code: 404 reason: "Long running process not found" model: <none>
   public void cancel (String longRunningProcessId) throws ApiException {
     Object postBody = null;
@@ -107,13 +105,7 @@ public class LongrunningprocessApi {
       }
 
     try {
-      String response = apiInvoker.invokeAPI(basePath, path, "POST", queryParams, postBody, headerParams, formParams, contentType);
-      if(response != null){
-        return ;
-      }
-      else {
-        return ;
-      }
+      apiInvoker.invokeAPI(basePath, path, "POST", queryParams, postBody, headerParams, formParams, contentType, "", null);
     } catch (ApiException ex) {
       if(ex.getCode() == 404) {
       	return ;
@@ -123,5 +115,8 @@ public class LongrunningprocessApi {
       }
     }
   }
+  public CompletableFuture<Void> cancelAsync (String longRunningProcessId) {
+    return apiInvoker.supplyAsync(() -> { cancel(longRunningProcessId); return null; });
+  }
   }
 
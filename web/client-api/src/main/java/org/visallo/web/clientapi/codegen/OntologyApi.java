@@ -10,6 +10,7 @@ import javax.ws.rs.core.MediaType;
 
 import java.io.File;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 public class OntologyApi {
   protected String basePath = "http://visallo-dev:8889";
@@ -52,13 +53,7 @@ public class OntologyApi {
       }
 
     try {
-      String response = apiInvoker.invokeAPI(basePath, path, "GET", queryParams, postBody, headerParams, formParams, contentType);
-      if(response != null){
-        return (ClientApiOntology) ApiInvoker.deserialize(response, "", ClientApiOntology.class);
-      }
-      else {
-        return null;
-      }
+      return (ClientApiOntology) apiInvoker.invokeAPI(basePath, path, "GET", queryParams, postBody, headerParams, formParams, contentType, "", ClientApiOntology.class);
     } catch (ApiException ex) {
       if(ex.getCode() == 404) {
       	return null;
@@ -68,5 +63,8 @@ public class OntologyApi {
       }
     }
   }
+  public CompletableFuture<ClientApiOntology> getAsync () {
+    return apiInvoker.supplyAsync(() -> get());
+  }
   }
 
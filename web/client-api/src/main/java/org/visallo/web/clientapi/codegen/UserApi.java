@@ -11,6 +11,7 @@ import javax.ws.rs.core.MediaType;
 
 import java.io.File;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 public class UserApi {
   protected String basePath = "http://visallo-dev:8889";
@@ -53,13 +54,7 @@ public class UserApi {
       }
 
     try {
-      String response = apiInvoker.invokeAPI(basePath, path, "GET", queryParams, postBody, headerParams, formParams, contentType);
-      if(response != null){
-        return (ClientApiUser) ApiInvoker.deserialize(response, "", ClientApiUser.class);
-      }
-      else {
-        return null;
-      }
+      return (ClientApiUser) apiInvoker.invokeAPI(basePath, path, "GET", queryParams, postBody, headerParams, formParams, contentType, "", ClientApiUser.class);
     } catch (ApiException ex) {
       if(ex.getCode() == 404) {
       	return null;
@@ -69,6 +64,9 @@ public class UserApi {
       }
     }
   }
+  public CompletableFuture<ClientApiUser> getMeAsync () {
+    return apiInvoker.supplyAsync(() -> getMe());
+  }
   public ClientApiUsers getAll (String q, String workspaceId) throws ApiException {
     Object postBody = null;
     // create path and map variables
@@ -98,13 +96,7 @@ public class UserApi {
       }
 
     try {
-      String response = apiInvoker.invokeAPI(basePath, path, "GET", queryParams, postBody, headerParams, formParams, contentType);
-      if(response != null){
-        return (ClientApiUsers) ApiInvoker.deserialize(response, "", ClientApiUsers.class);
-      }
-      else {
-        return null;
-      }
+      return (ClientApiUsers) apiInvoker.invokeAPI(basePath, path, "GET", queryParams, postBody, headerParams, formParams, contentType, "", ClientApiUsers.class);
     } catch (ApiException ex) {
       if(ex.getCode() == 404) {
       	return null;
@@ -114,6 +106,9 @@ public class UserApi {
       }
     }
   }
+  public CompletableFuture<ClientApiUsers> getAllAsync (String q, String workspaceId) {
+    return apiInvoker.supplyAsync(() -> getAll(q, workspaceId));
+  }
   public ClientApiUsers getManyByIds (List<String> userIds) throws ApiException {
     Object postBody = null;
     // verify required params are set
@@ -145,13 +140,7 @@ public class UserApi {
       throw new java.lang.RuntimeException("invalid content type");}
 
     try {
-      String response = apiInvoker.invokeAPI(basePath, path, "POST", queryParams, postBody, headerParams, formParams, contentType);
-      if(response != null){
-        return (ClientApiUsers) ApiInvoker.deserialize(response, "", ClientApiUsers.class);
-      }
-      else {
-        return null;
-      }
+      return (ClientApiUsers) apiInvoker.invokeAPI(basePath, path, "POST", queryParams, postBody, headerParams, formParams, contentType, "", ClientApiUsers.class);
     } catch (ApiException ex) {
       if(ex.getCode() == 404) {
       	return null;
@@ -161,6 +150,9 @@ public class UserApi {
       }
     }
   }
+  public CompletableFuture<ClientApiUsers> getManyByIdsAsync (List<String> userIds) {
+    return apiInvoker.supplyAsync(() -> getManyByIds(userIds));
+  }
   public ClientApiUser getByUserName (String username) throws ApiException {
     Object postBody = null;
     // verify required params are set
@@ -192,13 +184,7 @@ public class UserApi {
       }
 
     try {
-      String response = apiInvoker.invokeAPI(basePath, path, "GET", queryParams, postBody, headerParams, formParams, contentType);
-      if(response != null){
-        return (ClientApiUser) ApiInvoker.deserialize(response, "", ClientApiUser.class);
-      }
-      else {
-        return null;
-      }
+      return (ClientApiUser) apiInvoker.invokeAPI(basePath, path, "GET", queryParams, postBody, headerParams, formParams, contentType, "", ClientApiUser.class);
     } catch (ApiException ex) {
       if(ex.getCode() == 404) {
       	return null;
@@ -208,5 +194,8 @@ public class UserApi {
       }
     }
   }
+  public CompletableFuture<ClientApiUser> getByUserNameAsync (String username) {
+    return apiInvoker.supplyAsync(() -> getByUserName(username));
+  }
   }
 
@@ -22,6 +22,7 @@ import javax.ws.rs.core.MediaType;
 
 import java.io.File;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 public class VertexApi {
   protected String basePath = "http://visallo-dev:8889";
@@ -71,13 +72,7 @@ public class VertexApi {
       }
 
     try {
-      String response = apiInvoker.invokeAPI(basePath, path, "GET", queryParams, postBody, headerParams, formParams, contentType);
-      if(response != null){
-        return (ClientApiElement) ApiInvoker.deserialize(response, "", ClientApiElement.class);
-      }
-      else {
-        return null;
-      }
+      return (ClientApiElement) apiInvoker.invokeAPI(basePath, path, "GET", queryParams, postBody, headerParams, formParams, contentType, "", ClientApiElement.class);
     } catch (ApiException ex) {
       if(ex.getCode() == 404) {
       	return null;
@@ -87,6 +82,9 @@ public class VertexApi {
       }
     }
   }
+  public CompletableFuture<ClientApiElement> getByVertexIdAsync (String graphVertexId) {
+    return apiInvoker.supplyAsync(() -> getByVertexId(graphVertexId));
+  }
   //error info- code: 404 reason: "Vertex not found" model: <none>
   public ClientApiVertexEdges getEdges (String graphVertexId, String edgeLabel, Integer offset, Integer size) throws ApiException {
     Object postBody = null;
@@ -125,13 +123,7 @@ public class VertexApi {
       }
 
     try {
-      String response = apiInvoker.invokeAPI(basePath, path, "GET", queryParams, postBody, headerParams, formParams, contentType);
-      if(response != null){
-        return (ClientApiVertexEdges) ApiInvoker.deserialize(response, "", ClientApiVertexEdges.class);
-      }
-      else {
-        return null;
-      }
+      return (ClientApiVertexEdges) apiInvoker.invokeAPI(basePath, path, "GET", queryParams, postBody, headerParams, formParams, contentType, "", ClientApiVertexEdges.class);
     } catch (ApiException ex) {
       if(ex.getCode() == 404) {
       	return null;
@@ -141,6 +133,9 @@ public class VertexApi {
       }
     }
   }
+  public CompletableFuture<ClientApiVertexEdges> getEdgesAsync (String graphVertexId, String edgeLabel, Integer offset, Integer size) {
+    return apiInvoker.supplyAsync(() -> getEdges(graphVertexId, edgeLabel, offset, size));
+  }
   public ClientApiElement create (String conceptType, String visibilitySource, String justificationText, String vertexId, org.visallo.web.clientapi.model.ClientApiAddElementProperties properties) throws ApiException {
     Object postBody = null;
     // verify required params are set
@@ -180,13 +175,7 @@ public class VertexApi {
       }
 
     try {
-      String response = apiInvoker.invokeAPI(basePath, path, "POST", queryParams, postBody, headerParams, formParams, contentType);
-      if(response != null){
-        return (ClientApiElement) ApiInvoker.deserialize(response, "", ClientApiElement.class);
-      }
-      else {
-        return null;
-      }
+      return (ClientApiElement) apiInvoker.invokeAPI(basePath, path, "POST", queryParams, postBody, headerParams, formParams, contentType, "", ClientApiElement.class);
     } catch (ApiException ex) {
       if(ex.getCode() == 404) {
       	return null;
@@ -196,6 +185,9 @@ public class VertexApi {
       }
     }
   }
+  public CompletableFuture<ClientApiElement> createAsync (String conceptType, String visibilitySource, String justificationText, String vertexId, org.visallo.web.clientapi.model.ClientApiAddElementProperties properties) {
+    return apiInvoker.supplyAsync(() -> create(conceptType, visibilitySource, justificationText, vertexId, properties));
+  }
   public ClientApiElement setProperty (String graphVertexId, String propertyKey, String propertyName, String value, String visibilitySource, String justificationText, String sourceInfo, String metadata) throws ApiException {
     Object postBody = null;
     // verify required params are set
@@ -241,13 +233,7 @@ public class VertexApi {
       }
 
     try {
-      String response = apiInvoker.invokeAPI(basePath, path, "POST", queryParams, postBody, headerParams, formParams, contentType);
-      if(response != null){
-        return (ClientApiElement) ApiInvoker.deserialize(response, "", ClientApiElement.class);
-      }
-      else {
-        return null;
-      }
+      return (ClientApiElement) apiInvoker.invokeAPI(basePath, path, "POST", queryParams, postBody, headerParams, formParams, contentType, "", ClientApiElement.class);
     } catch (ApiException ex) {
       if(ex.getCode() == 404) {
       	return null;
@@ -257,6 +243,9 @@ public class VertexApi {
       }
     }
   }
+  public CompletableFuture<ClientApiElement> setPropertyAsync (String graphVertexId, String propertyKey, String propertyName, String value, String visibilitySource, String justificationText, String sourceInfo, String metadata) {
+    return apiInvoker.supplyAsync(() -> setProperty(graphVertexId, propertyKey, propertyName, value, visibilitySource, justificationText, sourceInfo, metadata));
+  }
   public void deleteProperty (String graphVertexId, String propertyKey, String propertyName) throws ApiException {
     Object postBody = null;
     // verify required params are set
@@ -292,13 +281,7 @@ public class VertexApi {
       }
 
     try {
-      String response = apiInvoker.invokeAPI(basePath, path, "DELETE", queryParams, postBody, headerParams, formParams, contentType);
-      if(response != null){
-        return ;
-      }
-      else {
-        return ;
-      }
+      apiInvoker.invokeAPI(basePath, path, "DELETE", queryParams, postBody, headerParams, formParams, contentType, "", null);
     } catch (ApiException ex) {
       if(ex.getCode() == 404) {
       	return ;
@@ -308,6 +291,9 @@ public class VertexApi {
       }
     }
   }
+  public CompletableFuture<Void> deletePropertyAsync (String graphVertexId, String propertyKey, String propertyName) {
+    return apiInvoker.supplyAsync(() -> { deleteProperty(graphVertexId, propertyKey, propertyName); return null; });
+  }
   public ClientApiHistoricalPropertyResults getPropertyHistory (String graphVertexId, String propertyKey, String propertyName, Long startTime, Long endTime) throws ApiException {
     Object postBody = null;
     // verify required params are set
@@ -347,13 +333,7 @@ public class VertexApi {
       }
 
     try {
-      String response = apiInvoker.invokeAPI(basePath, path, "GET", queryParams, postBody, headerParams, formParams, contentType);
-      if(response != null){
-        return (ClientApiHistoricalPropertyResults) ApiInvoker.deserialize(response, "", ClientApiHistoricalPropertyResults.class);
-      }
-      else {
-        return null;
-      }
+      return (ClientApiHistoricalPropertyResults) apiInvoker.invokeAPI(basePath, path, "GET", queryParams, postBody, headerParams, formParams, contentType, "", ClientApiHistoricalPropertyResults.class);
     } catch (ApiException ex) {
       if(ex.getCode() == 404) {
       	return null;
@@ -363,6 +343,9 @@ public class VertexApi {
       }
     }
   }
+  public CompletableFuture<ClientApiHistoricalPropertyResults> getPropertyHistoryAsync (String graphVertexId, String propertyKey, String propertyName, Long startTime, Long endTime) {
+    return apiInvoker.supplyAsync(() -> getPropertyHistory(graphVertexId, propertyKey, propertyName, startTime, endTime));
+  }
   public void deleteEdge (String edgeId) throws ApiException {
     Object postBody = null;
     // verify required params are set
@@ -394,13 +377,7 @@ public class VertexApi {
       }
 
     try {
-      String response = apiInvoker.invokeAPI(basePath, path, "DELETE", queryParams, postBody, headerParams, formParams, contentType);
-      if(response != null){
-        return ;
-      }
-      else {
-        return ;
-      }
+      apiInvoker.invokeAPI(basePath, path, "DELETE", queryParams, postBody, headerParams, formParams, contentType, "", null);
     } catch (ApiException ex) {
       if(ex.getCode() == 404) {
       	return ;
@@ -410,6 +387,9 @@ public class VertexApi {
       }
     }
   }
+  public CompletableFuture<Void> deleteEdgeAsync (String edgeId) {
+    return apiInvoker.supplyAsync(() -> { deleteEdge(edgeId); return null; });
+  }
   public void deleteVertex (String graphVertexId) throws ApiException {
     Object postBody = null;
     // verify required params are set
@@ -441,13 +421,7 @@ public class VertexApi {
       }
 
     try {
-      String response = apiInvoker.invokeAPI(basePath, path, "DELETE", queryParams, postBody, headerParams, formParams, contentType);
-      if(response != null){
-        return ;
-      }
-      else {
-        return ;
-      }
+      apiInvoker.invokeAPI(basePath, path, "DELETE", queryParams, postBody, headerParams, formParams, contentType, "", null);
     } catch (ApiException ex) {
       if(ex.getCode() == 404) {
       	return ;
@@ -457,6 +431,9 @@ public class VertexApi {
       }
     }
   }
+  public CompletableFuture<Void> deleteVertexAsync (String graphVertexId) {
+    return apiInvoker.supplyAsync(() -> { deleteVertex(graphVertexId); return null; });
+  }
   public ClientApiTermMentionsResponse getTermMentions (String graphVertexId, String propertyKey, String propertyName) throws ApiException {
     Object postBody = null;
     // verify required params are set
@@ -492,13 +469,7 @@ public class VertexApi {
       }
 
     try {
-      String response = apiInvoker.invokeAPI(basePath, path, "GET", queryParams, postBody, headerParams, formParams, contentType);
-      if(response != null){
-        return (ClientApiTermMentionsResponse) ApiInvoker.deserialize(response, "", ClientApiTermMentionsResponse.class);
-      }
-      else {
-        return null;
-      }
+      return (ClientApiTermMentionsResponse) apiInvoker.invokeAPI(basePath, path, "GET", queryParams, postBody, headerParams, formParams, contentType, "", ClientApiTermMentionsResponse.class);
     } catch (ApiException ex) {
       if(ex.getCode() == 404) {
       	return null;
@@ -508,6 +479,9 @@ public class VertexApi {
       }
     }
   }
+  public CompletableFuture<ClientApiTermMentionsResponse> getTermMentionsAsync (String graphVertexId, String propertyKey, String propertyName) {
+    return apiInvoker.supplyAsync(() -> getTermMentions(graphVertexId, propertyKey, propertyName));
+  }
   public ClientApiDetectedObjects getDetectedObjects (String graphVertexId, String propertyName, String workspaceId) throws ApiException {
     Object postBody = null;
     // verify required params are set
@@ -543,13 +517,7 @@ public class VertexApi {
       }
 
     try {
-      String response = apiInvoker.invokeAPI(basePath, path, "GET", queryParams, postBody, headerParams, formParams, contentType);
-      if(response != null){
-        return (ClientApiDetectedObjects) ApiInvoker.deserialize(response, "", ClientApiDetectedObjects.class);
-      }
-      else {
-        return null;
-      }
+      return (ClientApiDetectedObjects) apiInvoker.invokeAPI(basePath, path, "GET", queryParams, postBody, headerParams, formParams, contentType, "", ClientApiDetectedObjects.class);
     } catch (ApiException ex) {
       if(ex.getCode() == 404) {
       	return null;
@@ -559,6 +527,9 @@ public class VertexApi {
       }
     }
   }
+  public CompletableFuture<ClientApiDetectedObjects> getDetectedObjectsAsync (String graphVertexId, String propertyName, String workspaceId) {
+    return apiInvoker.supplyAsync(() -> getDetectedObjects(graphVertexId, propertyName, workspaceId));
+  }
   //error info- code: 404 reason: "Vertex not found" model: <none>
   public ClientApiElement setVisibility (String graphVertexId, String visibilitySource) throws ApiException {
     Object postBody = null;
@@ -593,13 +564,7 @@ public class VertexApi {
       }
 
     try {
-      String response = apiInvoker.invokeAPI(basePath, path, "POST", queryParams, postBody, headerParams, formParams, contentType);
-      if(response != null){
-        return (ClientApiElement) ApiInvoker.deserialize(response, "", ClientApiElement.class);
-      }
-      else {
-        return null;
-      }
+      return (ClientApiElement) apiInvoker.invokeAPI(basePath, path, "POST", queryParams, postBody, headerParams, formParams, contentType, "", ClientApiElement.class);
     } catch (ApiException ex) {
       if(ex.getCode() == 404) {
       	return null;
@@ -609,6 +574,9 @@ public class VertexApi {
       }
     }
   }
+  public CompletableFuture<ClientApiElement> setVisibilityAsync (String graphVertexId, String visibilitySource) {
+    return apiInvoker.supplyAsync(() -> setVisibility(graphVertexId, visibilitySource));
+  }
   //error info- code: 404 reason: "Artifact not found" model: <none>
   public String getHighlightedText (String graphVertexId, String propertyKey) throws ApiException {
     Object postBody = null;
@@ -643,13 +611,7 @@ public class VertexApi {
       }
 
     try {
-      String response = apiInvoker.invokeAPI(basePath, path, "GET", queryParams, postBody, headerParams, formParams, contentType);
-      if(response != null){
-        return (String) ApiInvoker.deserialize(response, "", String.class);
-      }
-      else {
-        return null;
-      }
+      return (String) apiInvoker.invokeAPI(basePath, path, "GET", queryParams, postBody, headerParams, formParams, contentType, "", String.class);
     } catch (ApiException ex) {
       if(ex.getCode() == 404) {
       	return null;
@@ -659,6 +621,9 @@ public class VertexApi {
       }
     }
   }
+  public CompletableFuture<String> getHighlightedTextAsync (String graphVertexId, String propertyKey) {
+    return apiInvoker.supplyAsync(() -> getHighlightedText(graphVertexId, propertyKey));
+  }
   public ClientApiArtifactImportResponse importFile (String visibilitySource, File file) throws ApiException {
     Object postBody = null;
     // verify required params are set
@@ -698,13 +663,7 @@ public class VertexApi {
       formParams.put("visibilitySource", visibilitySource);}
 
     try {
-      String response = apiInvoker.invokeAPI(basePath, path, "POST", queryParams, postBody, headerParams, formParams, contentType);
-      if(response != null){
-        return (ClientApiArtifactImportResponse) ApiInvoker.deserialize(response, "", ClientApiArtifactImportResponse.class);
-      }
-      else {
-        return null;
-      }
+      return (ClientApiArtifactImportResponse) apiInvoker.invokeAPI(basePath, path, "POST", queryParams, postBody, headerParams, formParams, contentType, "", ClientApiArtifactImportResponse.class);
     } catch (ApiException ex) {
       if(ex.getCode() == 404) {
       	return null;
@@ -714,6 +673,9 @@ public class VertexApi {
       }
     }
   }
+  public CompletableFuture<ClientApiArtifactImportResponse> importFileAsync (String visibilitySource, File file) {
+    return apiInvoker.supplyAsync(() -> importFile(visibilitySource, file));
+  }
   public void resolveTerm (String artifactId, String propertyKey, String propertyName, Integer mentionStart, Integer mentionEnd, String sign, String conceptId, String visibilitySource, String resolvedVertexId, String justificationText, String sourceInfo) throws ApiException {
     Object postBody = null;
     // verify required params are set
@@ -765,13 +727,7 @@ public class VertexApi {
       }
 
     try {
-      String response = apiInvoker.invokeAPI(basePath, path, "POST", queryParams, postBody, headerParams, formParams, contentType);
-      if(response != null){
-        return ;
-      }
-      else {
-        return ;
-      }
+      apiInvoker.invokeAPI(basePath, path, "POST", queryParams, postBody, headerParams, formParams, contentType, "", null);
     } catch (ApiException ex) {
       if(ex.getCode() == 404) {
       	return ;
@@ -781,6 +737,9 @@ public class VertexApi {
       }
     }
   }
+  public CompletableFuture<Void> resolveTermAsync (String artifactId, String propertyKey, String propertyName, Integer mentionStart, Integer mentionEnd, String sign, String conceptId, String visibilitySource, String resolvedVertexId, String justificationText, String sourceInfo) {
+    return apiInvoker.supplyAsync(() -> { resolveTerm(artifactId, propertyKey, propertyName, mentionStart, mentionEnd, sign, conceptId, visibilitySource, resolvedVertexId, justificationText, sourceInfo); return null; });
+  }
   public void unresolveTerm (String termMentionId) throws ApiException {
     Object postBody = null;
     // verify required params are set
@@ -812,13 +771,7 @@ public class VertexApi {
       }
 
     try {
-      String response = apiInvoker.invokeAPI(basePath, path, "POST", queryParams, postBody, headerParams, formParams, contentType);
-      if(response != null){
-        return ;
-      }
-      else {
-        return ;
-      }
+      apiInvoker.invokeAPI(basePath, path, "POST", queryParams, postBody, headerParams, formParams, contentType, "", null);
     } catch (ApiException ex) {
       if(ex.getCode() == 404) {
       	return ;
@@ -828,6 +781,9 @@ public class VertexApi {
       }
     }
   }
+  public CompletableFuture<Void> unresolveTermAsync (String termMentionId) {
+    return apiInvoker.supplyAsync(() -> { unresolveTerm(termMentionId); return null; });
+  }
   public void resolveDetectedObject (String artifactId, String title, String conceptId, String visibilitySource, String graphVertexId, String justificationText, String sourceInfo, String originalPropertyKey, Double x1, Double x2, Double y1, Double y2) throws ApiException {
     Object postBody = null;
     // verify required params are set
@@ -881,13 +837,7 @@ public class VertexApi {
       }
 
     try {
-      String response = apiInvoker.invokeAPI(basePath, path, "POST", queryParams, postBody, headerParams, formParams, contentType);
-      if(response != null){
-        return ;
-      }
-      else {
-        return ;
-      }
+      apiInvoker.invokeAPI(basePath, path, "POST", queryParams, postBody, headerParams, formParams, contentType, "", null);
     } catch (ApiException ex) {
       if(ex.getCode() == 404) {
       	return ;
@@ -897,6 +847,9 @@ public class VertexApi {
       }
     }
   }
+  public CompletableFuture<Void> resolveDetectedObjectAsync (String artifactId, String title, String conceptId, String visibilitySource, String graphVertexId, String justificationText, String sourceInfo, String originalPropertyKey, Double x1, Double x2, Double y1, Double y2) {
+    return apiInvoker.supplyAsync(() -> { resolveDetectedObject(artifactId, title, conceptId, visibilitySource, graphVertexId, justificationText, sourceInfo, originalPropertyKey, x1, x2, y1, y2); return null; });
+  }
   public void unresolveDetectedObject (String vertexId, String multiValueKey) throws ApiException {
     Object postBody = null;
     // verify required params are set
@@ -930,13 +883,7 @@ public class VertexApi {
       }
 
     try {
-      String response = apiInvoker.invokeAPI(basePath, path, "POST", queryParams, postBody, headerParams, formParams, contentType);
-      if(response != null){
-        return ;
-      }
-      else {
-        return ;
-      }
+      apiInvoker.invokeAPI(basePath, path, "POST", queryParams, postBody, headerParams, formParams, contentType, "", null);
     } catch (ApiException ex) {
       if(ex.getCode() == 404) {
       	return ;
@@ -946,6 +893,9 @@ public class VertexApi {
       }
     }
   }
+  public CompletableFuture<Void> unresolveDetectedObjectAsync (String vertexId, String multiValueKey) {
+    return apiInvoker.supplyAsync(() -> { unresolveDetectedObject(vertexId, multiValueKey); return null; });
+  }
   public ClientApiElementSearchResponse vertexSearch (String q, String filter, Integer offset, Integer size, String conceptType, Boolean includeChildNodes, List<String> relatedToVertexIds) throws ApiException {
     Object postBody = null;
     // verify required params are set
@@ -989,13 +939,7 @@ public class VertexApi {
       throw new java.lang.RuntimeException("invalid content type");}
 
     try {
-      String response = apiInvoker.invokeAPI(basePath, path, "POST", queryParams, postBody, headerParams, formParams, contentType);
-      if(response != null){
-        return (ClientApiElementSearchResponse) ApiInvoker.deserialize(response, "", ClientApiElementSearchResponse.class);
-      }
-      else {
-        return null;
-      }
+      return (ClientApiElementSearchResponse) apiInvoker.invokeAPI(basePath, path, "POST", queryParams, postBody, headerParams, formParams, contentType, "", ClientApiElementSearchResponse.class);
     } catch (ApiException ex) {
       if(ex.getCode() == 404) {
       	return null;
@@ -1005,6 +949,9 @@ public class VertexApi {
       }
     }
   }
+  public CompletableFuture<ClientApiElementSearchResponse> vertexSearchAsync (String q, String filter, Integer offset, Integer size, String conceptType, Boolean includeChildNodes, List<String> relatedToVertexIds) {
+    return apiInvoker.supplyAsync(() -> vertexSearch(q, filter, offset, size, conceptType, includeChildNodes, relatedToVertexIds));
+  }
   public ClientApiElementSearchResponse vertexGeoSearch (Double lat, Double lon, Double radius) throws ApiException {
     Object postBody = null;
     // verify required params are set
@@ -1040,13 +987,7 @@ public class VertexApi {
       }
 
     try {
-      String response = apiInvoker.invokeAPI(basePath, path, "GET", queryParams, postBody, headerParams, formParams, contentType);
-      if(response != null){
-        return (ClientApiElementSearchResponse) ApiInvoker.deserialize(response, "", ClientApiElementSearchResponse.class);
-      }
-      else {
-        return null;
-      }
+      return (ClientApiElementSearchResponse) apiInvoker.invokeAPI(basePath, path, "GET", queryParams, postBody, headerParams, formParams, contentType, "", ClientApiElementSearchResponse.class);
     } catch (ApiException ex) {
       if(ex.getCode() == 404) {
       	return null;
@@ -1056,6 +997,9 @@ public class VertexApi {
       }
     }
   }
+  public CompletableFuture<ClientApiElementSearchResponse> vertexGeoSearchAsync (Double lat, Double lon, Double radius) {
+    return apiInvoker.supplyAsync(() -> vertexGeoSearch(lat, lon, radius));
+  }
   public ClientApiLongRunningProcessSubmitResponse findPath (String outVertexId, String inVertexId, Integer hops) throws ApiException {
     Object postBody = null;
     // verify required params are set
@@ -1091,13 +1035,7 @@ public class VertexApi {
       }
 
     try {
-      String response = apiInvoker.invokeAPI(basePath, path, "GET", queryParams, postBody, headerParams, formParams, contentType);
-      if(response != null){
-        return (ClientApiLongRunningProcessSubmitResponse) ApiInvoker.deserialize(response, "", ClientApiLongRunningProcessSubmitResponse.class);
-      }
-      else {
-        return null;
-      }
+      return (ClientApiLongRunningProcessSubmitResponse) apiInvoker.invokeAPI(basePath, path, "GET", queryParams, postBody, headerParams, formParams, contentType, "", ClientApiLongRunningProcessSubmitResponse.class);
     } catch (ApiException ex) {
       if(ex.getCode() == 404) {
       	return null;
@@ -1107,6 +1045,9 @@ public class VertexApi {
       }
     }
   }
+  public CompletableFuture<ClientApiLongRunningProcessSubmitResponse> findPathAsync (String outVertexId, String inVertexId, Integer hops) {
+    return apiInvoker.supplyAsync(() -> findPath(outVertexId, inVertexId, hops));
+  }
   public ClientApiElementFindRelatedResponse findRelated (List<String> graphVertexIds, String limitParentConceptId, String limitEdgeLabel, Integer maxVerticesToReturn) throws ApiException {
     Object postBody = null;
     // verify required params are set
@@ -1144,13 +1085,7 @@ public class VertexApi {
       throw new java.lang.RuntimeException("invalid content type");}
 
     try {
-      String response = apiInvoker.invokeAPI(basePath, path, "POST", queryParams, postBody, headerParams, formParams, contentType);
-      if(response != null){
-        return (ClientApiElementFindRelatedResponse) ApiInvoker.deserialize(response, "", ClientApiElementFindRelatedResponse.class);
-      }
-      else {
-        return null;
-      }
+      return (ClientApiElementFindRelatedResponse) apiInvoker.invokeAPI(basePath, path, "POST", queryParams, postBody, headerParams, formParams, contentType, "", ClientApiElementFindRelatedResponse.class);
     } catch (ApiException ex) {
       if(ex.getCode() == 404) {
       	return null;
@@ -1160,6 +1095,9 @@ public class VertexApi {
       }
     }
   }
+  public CompletableFuture<ClientApiElementFindRelatedResponse> findRelatedAsync (List<String> graphVertexIds, String limitParentConceptId, String limitEdgeLabel, Integer maxVerticesToReturn) {
+    return apiInvoker.supplyAsync(() -> findRelated(graphVertexIds, limitParentConceptId, limitEdgeLabel, maxVerticesToReturn));
+  }
   public ClientApiVertexMultipleResponse findMultiple (List<String> vertexIds, Boolean fallbackToPublic) throws ApiException {
     Object postBody = null;
     // verify required params are set
@@ -1193,13 +1131,7 @@ public class VertexApi {
       throw new java.lang.RuntimeException("invalid content type");}
 
     try {
-      String response = apiInvoker.invokeAPI(basePath, path, "POST", queryParams, postBody, headerParams, formParams, contentType);
-      if(response != null){
-        return (ClientApiVertexMultipleResponse) ApiInvoker.deserialize(response, "", ClientApiVertexMultipleResponse.class);
-      }
-      else {
-        return null;
-      }
+      return (ClientApiVertexMultipleResponse) apiInvoker.invokeAPI(basePath, path, "POST", queryParams, postBody, headerParams, formParams, contentType, "", ClientApiVertexMultipleResponse.class);
     } catch (ApiException ex) {
       if(ex.getCode() == 404) {
       	return null;
@@ -1209,6 +1141,9 @@ public class VertexApi {
       }
     }
   }
+  public CompletableFuture<ClientApiVertexMultipleResponse> findMultipleAsync (List<String> vertexIds, Boolean fallbackToPublic) {
+    return apiInvoker.supplyAsync(() -> findMultiple(vertexIds, fallbackToPublic));
+  }
   public ClientApiVerticesExistsResponse doExist (List<String> vertexIds) throws ApiException {
     Object postBody = null;
     // verify required params are set
@@ -1240,13 +1175,7 @@ public class VertexApi {
       throw new java.lang.RuntimeException("invalid content type");}
 
     try {
-      String response = apiInvoker.invokeAPI(basePath, path, "POST", queryParams, postBody, headerParams, formParams, contentType);
-      if(response != null){
-        return (ClientApiVerticesExistsResponse) ApiInvoker.deserialize(response, "", ClientApiVerticesExistsResponse.class);
-      }
-      else {
-        return null;
-      }
+      return (ClientApiVerticesExistsResponse) apiInvoker.invokeAPI(basePath, path, "POST", queryParams, postBody, headerParams, formParams, contentType, "", ClientApiVerticesExistsResponse.class);
     } catch (ApiException ex) {
       if(ex.getCode() == 404) {
       	return null;
@@ -1256,6 +1185,9 @@ public class VertexApi {
       }
     }
   }
+  public CompletableFuture<ClientApiVerticesExistsResponse> doExistAsync (List<String> vertexIds) {
+    return apiInvoker.supplyAsync(() -> doExist(vertexIds));
+  }
   public ClientApiVertexCountsByConceptType getVertexCountsByConceptType () throws ApiException {
     Object postBody = null;
     // create path and map variables
@@ -1281,13 +1213,7 @@ public class VertexApi {
       }
 
     try {
-      String response = apiInvoker.invokeAPI(basePath, path, "GET", queryParams, postBody, headerParams, formParams, contentType);
-      if(response != null){
-        return (ClientApiVertexCountsByConceptType) ApiInvoker.deserialize(response, "", ClientApiVertexCountsByConceptType.class);
-      }
-      else {
-        return null;
-      }
+      return (ClientApiVertexCountsByConceptType) apiInvoker.invokeAPI(basePath, path, "GET", queryParams, postBody, headerParams, formParams, contentType, "", ClientApiVertexCountsByConceptType.class);
     } catch (ApiException ex) {
       if(ex.getCode() == 404) {
       	return null;
@@ -1297,6 +1223,9 @@ public class VertexApi {
       }
     }
   }
+  public CompletableFuture<ClientApiVertexCountsByConceptType> getVertexCountsByConceptTypeAsync () {
+    return apiInvoker.supplyAsync(() -> getVertexCountsByConceptType());
+  }
   public ClientApiElementAcl getAcl (String elementId) throws ApiException {
     Object postBody = null;
     // verify required params are set
@@ -1328,13 +1257,7 @@ public class VertexApi {
       }
 
     try {
-      String response = apiInvoker.invokeAPI(basePath, path, "GET", queryParams, postBody, headerParams, formParams, contentType);
-      if(response != null){
-        return (ClientApiElementAcl) ApiInvoker.deserialize(response, "", ClientApiElementAcl.class);
-      }
-      else {
-        return null;
-      }
+      return (ClientApiElementAcl) apiInvoker.invokeAPI(basePath, path, "GET", queryParams, postBody, headerParams, formParams, contentType, "", ClientApiElementAcl.class);
     } catch (ApiException ex) {
       if(ex.getCode() == 404) {
       	return null;
@@ -1344,5 +1267,8 @@ public class VertexApi {
       }
     }
   }
+  public CompletableFuture<ClientApiElementAcl> getAclAsync (String elementId) {
+    return apiInvoker.supplyAsync(() -> getAcl(elementId));
+  }
   }
 
@@ -16,6 +16,7 @@ import javax.ws.rs.core.MediaType;
 
 import java.io.File;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 public class WorkspaceApi {
   protected String basePath = "http://visallo-dev:8889";
@@ -58,13 +59,7 @@ public class WorkspaceApi {
       }
 
     try {
-      String response = apiInvoker.invokeAPI(basePath, path, "GET", queryParams, postBody, headerParams, formParams, contentType);
-      if(response != null){
-        return (ClientApiWorkspaces) ApiInvoker.deserialize(response, "", ClientApiWorkspaces.class);
-      }
-      else {
-        return null;
-      }
+      return (ClientApiWorkspaces) apiInvoker.invokeAPI(basePath, path, "GET", queryParams, postBody, headerParams, formParams, contentType, "", ClientApiWorkspaces.class);
     } catch (ApiException ex) {
       if(ex.getCode() == 404) {
       	return null;
@@ -74,6 +69,9 @@ public class WorkspaceApi {
       }
     }
   }
+  public CompletableFuture<ClientApiWorkspaces> getAllAsync () {
+    return apiInvoker.supplyAsync(() -> getAll());
+  }
   public ClientApiWorkspace getById (String workspaceId) throws ApiException {
     Object postBody = null;
     // verify required params are set
@@ -105,13 +103,7 @@ public class WorkspaceApi {
       }
 
     try {
-      String response = apiInvoker.invokeAPI(basePath, path, "GET", queryParams, postBody, headerParams, formParams, contentType);
-      if(response != null){
-        return (ClientApiWorkspace) ApiInvoker.deserialize(response, "", ClientApiWorkspace.class);
-      }
-      else {
-        return null;
-      }
+      return (ClientApiWorkspace) apiInvoker.invokeAPI(basePath, path, "GET", queryParams, postBody, headerParams, formParams, contentType, "", ClientApiWorkspace.class);
     } catch (ApiException ex) {
       if(ex.getCode() == 404) {
       	return null;
@@ -121,6 +113,9 @@ public class WorkspaceApi {
       }
     }
   }
+  public CompletableFuture<ClientApiWorkspace> getByIdAsync (String workspaceId) {
+    return apiInvoker.supplyAsync(() -> getById(workspaceId));
+  }
   public ClientApiWorkspace create () throws ApiException {
     Object postBody = null;
     // create path and map variables
@@ -146,13 +141,7 @@ public class WorkspaceApi {
       }
 
     try {
-      String response = apiInvoker.invokeAPI(basePath, path, "POST", queryParams, postBody, headerParams, formParams, contentType);
-      if(response != null){
-        return (ClientApiWorkspace) ApiInvoker.deserialize(response, "", ClientApiWorkspace.class);
-      }
-      else {
-        return null;
-      }
+      return (ClientApiWorkspace) apiInvoker.invokeAPI(basePath, path, "POST", queryParams, postBody, headerParams, formParams, contentType, "", ClientApiWorkspace.class);
     } catch (ApiException ex) {
       if(ex.getCode() == 404) {
       	return null;
@@ -162,6 +151,9 @@ public class WorkspaceApi {
       }
     }
   }
+  public CompletableFuture<ClientApiWorkspace> createAsync () {
+    return apiInvoker.supplyAsync(() -> create());
+  }
   public void update (String data) throws ApiException {
     Object postBody = null;
     // verify required params are set
@@ -193,13 +185,7 @@ public class WorkspaceApi {
       formParams.put("data", data);}
 
     try {
-      String response = apiInvoker.invokeAPI(basePath, path, "POST", queryParams, postBody, headerParams, formParams, contentType);
-      if(response != null){
-        return ;
-      }
-      else {
-        return ;
-      }
+      apiInvoker.invokeAPI(basePath, path, "POST", queryParams, postBody, headerParams, formParams, contentType, "", null);
     } catch (ApiException ex) {
       if(ex.getCode() == 404) {
       	return ;
@@ -209,6 +195,9 @@ public class WorkspaceApi {
       }
     }
   }
+  public CompletableFuture<Void> updateAsync (String data) {
+    return apiInvoker.supplyAsync(() -> { update(data); return null; });
+  }
   public ClientApiWorkspaceDiff getDiff () throws ApiException {
     Object postBody = null;
     // create path and map variables
@@ -234,13 +223,7 @@ public class WorkspaceApi {
       }
 
     try {
-      String response = apiInvoker.invokeAPI(basePath, path, "GET", queryParams, postBody, headerParams, formParams, contentType);
-      if(response != null){
-        return (ClientApiWorkspaceDiff) ApiInvoker.deserialize(response, "", ClientApiWorkspaceDiff.class);
-      }
-      else {
-        return null;
-      }
+      return (ClientApiWorkspaceDiff) apiInvoker.invokeAPI(basePath, path, "GET", queryParams, postBody, headerParams, formParams, contentType, "", ClientApiWorkspaceDiff.class);
     } catch (ApiException ex) {
       if(ex.getCode() == 404) {
       	return null;
@@ -250,6 +233,9 @@ public class WorkspaceApi {
       }
     }
   }
+  public CompletableFuture<ClientApiWorkspaceDiff> getDiffAsync () {
+    return apiInvoker.supplyAsync(() -> getDiff());
+  }
   public ClientApiWorkspacePublishResponse publish (String publishData) throws ApiException {
     Object postBody = null;
     // verify required params are set
@@ -281,13 +267,7 @@ public class WorkspaceApi {
       formParams.put("publishData", publishData);}
 
     try {
-      String response = apiInvoker.invokeAPI(basePath, path, "POST", queryParams, postBody, headerParams, formParams, contentType);
-      if(response != null){
-        return (ClientApiWorkspacePublishResponse) ApiInvoker.deserialize(response, "", ClientApiWorkspacePublishResponse.class);
-      }
-      else {
-        return null;
-      }
+      return (ClientApiWorkspacePublishResponse) apiInvoker.invokeAPI(basePath, path, "POST", queryParams, postBody, headerParams, formParams, contentType, "", ClientApiWorkspacePublishResponse.class);
     } catch (ApiException ex) {
       if(ex.getCode() == 404) {
       	return null;
@@ -297,6 +277,9 @@ public class WorkspaceApi {
       }
     }
   }
+  public CompletableFuture<ClientApiWorkspacePublishResponse> publishAsync (String publishData) {
+    return apiInvoker.supplyAsync(() -> publish(publishData));
+  }
   public ClientApiWorkspaceUndoResponse undo (String undoData) throws ApiException {
     Object postBody = null;
     // verify required params are set
@@ -328,13 +311,7 @@ public class WorkspaceApi {
       formParams.put("undoData", undoData);}
 
     try {
-      String response = apiInvoker.invokeAPI(basePath, path, "POST", queryParams, postBody, headerParams, formParams, contentType);
-      if(response != null){
-        return (ClientApiWorkspaceUndoResponse) ApiInvoker.deserialize(response, "", ClientApiWorkspaceUndoResponse.class);
-      }
-      else {
-        return null;
-      }
+      return (ClientApiWorkspaceUndoResponse) apiInvoker.invokeAPI(basePath, path, "POST", queryParams, postBody, headerParams, formParams, contentType, "", ClientApiWorkspaceUndoResponse.class);
     } catch (ApiException ex) {
       if(ex.getCode() == 404) {
       	return null;
@@ -344,6 +321,9 @@ public class WorkspaceApi {
       }
     }
   }
+  public CompletableFuture<ClientApiWorkspaceUndoResponse> undoAsync (String undoData) {
+    return apiInvoker.supplyAsync(() -> undo(undoData));
+  }
   public ClientApiWorkspaceEdges getEdges (List<String> ids) throws ApiException {
     Object postBody = null;
     // create path and map variables
@@ -371,13 +351,7 @@ public class WorkspaceApi {
       throw new java.lang.RuntimeException("invalid content type");}
 
     try {
-      String response = apiInvoker.invokeAPI(basePath, path, "POST", queryParams, postBody, headerParams, formParams, contentType);
-      if(response != null){
-        return (ClientApiWorkspaceEdges) ApiInvoker.deserialize(response, "", ClientApiWorkspaceEdges.class);
-      }
-      else {
-        return null;
-      }
+      return (ClientApiWorkspaceEdges) apiInvoker.invokeAPI(basePath, path, "POST", queryParams, postBody, headerParams, formParams, contentType, "", ClientApiWorkspaceEdges.class);
     } catch (ApiException ex) {
       if(ex.getCode() == 404) {
       	return null;
@@ -387,6 +361,9 @@ public class WorkspaceApi {
       }
     }
   }
+  public CompletableFuture<ClientApiWorkspaceEdges> getEdgesAsync (List<String> ids) {
+    return apiInvoker.supplyAsync(() -> getEdges(ids));
+  }
   public ClientApiWorkspaceVertices getVertices () throws ApiException {
     Object postBody = null;
     // create path and map variables
@@ -412,13 +389,7 @@ public class WorkspaceApi {
       }
 
     try {
-      String response = apiInvoker.invokeAPI(basePath, path, "GET", queryParams, postBody, headerParams, formParams, contentType);
-      if(response != null){
-        return (ClientApiWorkspaceVertices) ApiInvoker.deserialize(response, "", ClientApiWorkspaceVertices.class);
-      }
-      else {
-        return null;
-      }
+      return (ClientApiWorkspaceVertices) apiInvoker.invokeAPI(basePath, path, "GET", queryParams, postBody, headerParams, formParams, contentType, "", ClientApiWorkspaceVertices.class);
     } catch (ApiException ex) {
       if(ex.getCode() == 404) {
       	return null;
@@ -428,5 +399,8 @@ public class WorkspaceApi {
       }
     }
   }
+  public CompletableFuture<ClientApiWorkspaceVertices> getVerticesAsync () {
+    return apiInvoker.supplyAsync(() -> getVertices());
+  }
   }
 
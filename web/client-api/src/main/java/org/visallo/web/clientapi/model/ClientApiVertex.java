@@ -5,12 +5,14 @@ import com.fasterxml.jackson.annotation.JsonTypeName;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 @JsonTypeName("vertex")
 public class ClientApiVertex extends ClientApiElement {
     private String conceptType;
     private List<String> edgeLabels = null;
     private List<ClientApiEdgeInfo> edgeInfos = null;
+    private Map<String, Integer> edgeLabelCounts = null;
 
     public String getConceptType() {
         return conceptType;
@@ -30,6 +32,18 @@ public class ClientApiVertex extends ClientApiElement {
         return edgeInfos;
     }
 
+    /**
+     * The number of edges of each label, only set when requested.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public Map<String, Integer> getEdgeLabelCounts() {
+        return edgeLabelCounts;
+    }
+
+    public void setEdgeLabelCounts(Map<String, Integer> edgeLabelCounts) {
+        this.edgeLabelCounts = edgeLabelCounts;
+    }
+
     public void addEdgeLabel(String edgeLabel) {
         if (edgeLabels == null) {
             edgeLabels = new ArrayList<String>();
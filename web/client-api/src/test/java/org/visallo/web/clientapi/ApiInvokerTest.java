@@ -0,0 +1,134 @@
+package org.visallo.web.clientapi;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.visallo.web.clientapi.codegen.ApiException;
+import org.visallo.web.clientapi.model.ClientApiWorkspace;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.*;
+
+public class ApiInvokerTest {
+    private HttpServer server;
+    private String host;
+    private ApiInvoker apiInvoker;
+
+    @Before
+    public void before() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/workspace", exchange -> respond(exchange, 200, "{\"workspaceId\":\"w1\",\"title\":\"Workspace 1\"}"));
+        server.createContext("/workspace/all", exchange -> respond(exchange, 200, "[{\"workspaceId\":\"w1\"},{\"workspaceId\":\"w2\"}]"));
+        server.createContext("/workspace/none", exchange -> respond(exchange, 204, null));
+        server.createContext("/workspace/missing", exchange -> respond(exchange, 404, "Could not find workspace"));
+        server.start();
+        host = "http://localhost:" + server.getAddress().getPort();
+        apiInvoker = new ApiInvoker();
+    }
+
+    @After
+    public void after() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testInvokeApiReadsModel() throws ApiException {
+        ClientApiWorkspace workspace = (ClientApiWorkspace) invoke("/workspace", null);
+        assertEquals("w1", workspace.getWorkspaceId());
+        assertEquals("Workspace 1", workspace.getTitle());
+    }
+
+    @Test
+    public void testInvokeApiReadsListOfModels() throws ApiException {
+        List<?> workspaces = (List<?>) invoke("/workspace/all", "List");
+        assertEquals(2, workspaces.size());
+        assertEquals("w2", ((ClientApiWorkspace) workspaces.get(1)).getWorkspaceId());
+    }
+
+    @Test
+    public void testInvokeApiWithoutContent() throws ApiException {
+        assertNull(invoke("/workspace/none", null));
+    }
+
+    @Test
+    public void testInvokeApiError() {
+        try {
+            invoke("/workspace/missing", null);
+            fail("expected an error");
+        } catch (ApiException ex) {
+            assertEquals(404, ex.getCode());
+            assertEquals("Could not find workspace", ex.getMessage());
+        }
+    }
+
+    @Test
+    public void testSupplyAsync() throws Exception {
+        CompletableFuture<ClientApiWorkspace> future = apiInvoker.supplyAsync(() -> (ClientApiWorkspace) invoke("/workspace", null));
+        assertEquals("w1", future.get().getWorkspaceId());
+    }
+
+    @Test
+    public void testSupplyAsyncWrapsApiException() throws InterruptedException {
+        apiInvoker.setAsyncPoolSize(1);
+        CompletableFuture<Object> future = apiInvoker.supplyAsync(() -> invoke("/workspace/missing", null));
+        try {
+            future.get();
+            fail("expected an error");
+        } catch (ExecutionException ex) {
+            assertTrue(ex.getCause() instanceof ApiException);
+            assertEquals(404, ((ApiException) ex.getCause()).getCode());
+        }
+        try {
+            future.join();
+            fail("expected an error");
+        } catch (CompletionException ex) {
+            assertTrue(ex.getCause() instanceof ApiException);
+        }
+        assertTrue(future.isCompletedExceptionally());
+    }
+
+    private Object invoke(String path, String containerType) throws ApiException {
+        return apiInvoker.invokeAPI(
+                host,
+                path,
+                "GET",
+                new HashMap<>(),
+                null,
+                new HashMap<>(),
+                new HashMap<>(),
+                "application/json",
+                containerType,
+                ClientApiWorkspace.class
+        );
+    }
+
+    private static void respond(HttpExchange exchange, int code, String body) throws IOException {
+        if (body == null) {
+            exchange.sendResponseHeaders(code, -1);
+            exchange.close();
+            return;
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        boolean gzip = code == 200 && acceptEncoding != null && acceptEncoding.contains("gzip");
+        if (gzip) {
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+        exchange.sendResponseHeaders(code, 0);
+        try (OutputStream out = gzip ? new GZIPOutputStream(exchange.getResponseBody()) : exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
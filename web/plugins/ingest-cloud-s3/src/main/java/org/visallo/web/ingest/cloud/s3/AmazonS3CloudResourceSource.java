@@ -72,6 +72,11 @@ public class AmazonS3CloudResourceSource implements CloudResourceSource {
             return name;
         }
 
+        @Override
+        public String getId() {
+            return key;
+        }
+
         @Override
         public Long getSize() {
             return getObject().getObjectMetadata().getContentLength();
@@ -437,7 +437,7 @@ define([
                                     var componentPath = handler.finishedComponentPath,
                                         Component = componentPath && finishedComponents[componentPath];
 
-                                    if (Component && datum.endTime) {
+                                    if (Component && (datum.endTime || handler.showWhileRunning)) {
                                         Attacher()
                                             .node(this)
                                             .component(Component)
@@ -24,6 +24,9 @@ define([
         });
 
         this.after('initialize', function() {
+            // paths pushed while the process runs, the results are only saved when it finishes
+            this.paths = [];
+            this.showingPaths = false;
 
             this.on('click', {
                 pathsSelector: this.onPathClick,
@@ -35,8 +38,27 @@ define([
             this.on(document, 'focusPaths', this.onFocusPaths);
             this.on(document, 'defocusPaths', this.onDefocusPaths);
             this.on(document, 'workspaceLoaded', this.onWorkspaceLoaded);
+            this.on(document, 'longRunningProcessChanged', this.onLongRunningProcessChanged);
         });
 
+        this.onLongRunningProcessChanged = function(event, data) {
+            var process = data.process;
+
+            if (process.id !== this.attr.process.id) {
+                return;
+            }
+            if (process.newPaths) {
+                this.paths = this.paths.concat(process.newPaths);
+            }
+            // progress updates do not carry the count of paths found so far
+            this.attr.process = _.extend({}, process, {
+                resultsCount: Math.max(process.resultsCount || 0, this.paths.length)
+            });
+            if (!this.showingPaths) {
+                this.loadDefaultContent();
+            }
+        };
+
         this.updateButton = function($button, workspaceId) {
             var self = this,
                 onDifferentWorkspace = workspaceId !== this.attr.process.workspaceId,
@@ -69,6 +91,7 @@ define([
 
             this.updateButton($button, visalloData.currentWorkspaceId);
 
+            this.showingPaths = false;
             this.$node.empty().append($button);
         };
 
@@ -91,29 +114,38 @@ define([
             var self = this,
                 $target = $(event.target).addClass('loading').attr('disabled', true);
 
+            this.showingPaths = true;
+            if (!this.attr.process.endTime) {
+                this.focusPaths($target, this.paths);
+                return;
+            }
+
             this.dataRequest('longRunningProcess', 'get', this.attr.process.id)
                 .done(function(process) {
-                    var paths = process.results && process.results.paths || [],
-                        vertices = _.chain(paths).flatten().uniq().value();
+                    self.focusPaths($target, process.results && process.results.paths || []);
+                })
+        };
 
-                    self.trigger('focusPaths', {
-                        paths: paths,
-                        sourceId: self.attr.process.outVertexId,
-                        targetId: self.attr.process.inVertexId,
-                        processId: self.attr.process.id
-                    });
+        this.focusPaths = function($target, paths) {
+            var vertices = _.chain(paths).flatten().uniq().value();
 
-                    $target.hide();
+            this.trigger('focusPaths', {
+                paths: paths,
+                sourceId: this.attr.process.outVertexId,
+                targetId: this.attr.process.inVertexId,
+                processId: this.attr.process.id
+            });
 
-                    var $addButton = $('<button>').addClass('btn btn-mini btn-primary add-vertices');
+            $target.hide();
 
-                    if (vertices.length === 0) {
-                        $addButton.attr('disabled', true);
-                    }
+            var $addButton = $('<button>').addClass('btn btn-mini btn-primary add-vertices');
 
-                    $addButton.text(i18n('popovers.find_path.add'));
-                    self.$node.append($addButton);
-                })
+            if (vertices.length === 0) {
+                $addButton.attr('disabled', true);
+            }
+
+            $addButton.text(i18n('popovers.find_path.add'));
+            this.$node.append($addButton);
         };
     }
 });
@@ -59,7 +59,8 @@ define([], function() {
             onRemove: function() {
                 this.trigger('defocusPaths');
             },
-            finishedComponentPath: 'activity/builtin/findPath'
+            finishedComponentPath: 'activity/builtin/findPath',
+            showWhileRunning: true
         }
     ];
 })
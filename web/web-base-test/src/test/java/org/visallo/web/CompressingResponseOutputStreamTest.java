@@ -0,0 +1,127 @@
+package org.visallo.web;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CompressingResponseOutputStreamTest {
+    private ByteArrayOutputStream output;
+
+    @Mock
+    private HttpServletResponse response;
+
+    @Before
+    public void before() throws IOException {
+        output = new ByteArrayOutputStream();
+        when(response.getOutputStream()).thenReturn(new ServletOutputStream() {
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+            }
+
+            @Override
+            public void write(int b) {
+                output.write(b);
+            }
+        });
+    }
+
+    @Test
+    public void testNegotiateEncoding() {
+        assertNull(CompressingResponseOutputStream.negotiateEncoding(null));
+        assertNull(CompressingResponseOutputStream.negotiateEncoding("identity"));
+        assertEquals("gzip", CompressingResponseOutputStream.negotiateEncoding("gzip, deflate, br"));
+        assertEquals("deflate", CompressingResponseOutputStream.negotiateEncoding("deflate"));
+        assertEquals("deflate", CompressingResponseOutputStream.negotiateEncoding("gzip;q=0.5, deflate"));
+        assertEquals("deflate", CompressingResponseOutputStream.negotiateEncoding("gzip;q=0, *"));
+        assertEquals("gzip", CompressingResponseOutputStream.negotiateEncoding("*"));
+        assertNull(CompressingResponseOutputStream.negotiateEncoding("*;q=0"));
+    }
+
+    @Test
+    public void testSmallResponsesAreNotCompressed() throws IOException {
+        byte[] data = "{\"small\":true}".getBytes();
+        try (CompressingResponseOutputStream out = new CompressingResponseOutputStream(response, "gzip", 1024)) {
+            out.write(data);
+        }
+        assertArrayEquals(data, output.toByteArray());
+        verify(response).setContentLength(data.length);
+        verify(response).addHeader("Vary", "Accept-Encoding");
+        verify(response, never()).setHeader(eq("Content-Encoding"), anyString());
+    }
+
+    @Test
+    public void testCompressedResponsesGetEncodedETag() throws IOException {
+        when(response.getHeader("ETag")).thenReturn("\"abc\"");
+        byte[] data = new byte[10000];
+        try (CompressingResponseOutputStream out = new CompressingResponseOutputStream(response, "gzip", 1024)) {
+            out.write(data);
+        }
+        verify(response).setHeader("ETag", "\"abc-gzip\"");
+
+        assertEquals("W/\"abc\"", CompressingResponseOutputStream.addEncodingToETag("W/\"abc\"", "gzip"));
+        assertEquals("abc", CompressingResponseOutputStream.removeEncodingFromETag("abc-gzip"));
+        assertEquals("abc", CompressingResponseOutputStream.removeEncodingFromETag("abc-deflate"));
+        assertEquals("abc", CompressingResponseOutputStream.removeEncodingFromETag("abc"));
+    }
+
+    @Test
+    public void testSmallResponsesKeepETag() throws IOException {
+        when(response.getHeader("ETag")).thenReturn("\"abc\"");
+        try (CompressingResponseOutputStream out = new CompressingResponseOutputStream(response, "gzip", 1024)) {
+            out.write("{}".getBytes());
+        }
+        verify(response, never()).setHeader(eq("ETag"), anyString());
+    }
+
+    @Test
+    public void testLargeResponsesAreCompressed() throws IOException {
+        byte[] data = new byte[10000];
+        Arrays.fill(data, (byte) 'a');
+        try (CompressingResponseOutputStream out = new CompressingResponseOutputStream(response, "gzip", 1024)) {
+            out.write(data, 0, 1000);
+            out.write(data, 1000, 9000);
+        }
+        verify(response).setHeader("Content-Encoding", "gzip");
+        assertTrue(output.size() < data.length);
+        assertArrayEquals(data, IOUtils.toByteArray(new GZIPInputStream(new ByteArrayInputStream(output.toByteArray()))));
+
+        output.reset();
+        try (CompressingResponseOutputStream out = new CompressingResponseOutputStream(response, "deflate", 1024)) {
+            out.write(data);
+        }
+        assertArrayEquals(data, IOUtils.toByteArray(new InflaterInputStream(new ByteArrayInputStream(output.toByteArray()))));
+    }
+
+    @Test
+    public void testResponsesAreNotCompressedWithoutAnEncoding() throws IOException {
+        byte[] data = new byte[10000];
+        try (CompressingResponseOutputStream out = new CompressingResponseOutputStream(response, null, 1024)) {
+            out.write(data);
+        }
+        assertArrayEquals(data, output.toByteArray());
+        verify(response, never()).addHeader(eq("Vary"), anyString());
+    }
+}
@@ -0,0 +1,155 @@
+package org.visallo.web;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.visallo.core.config.Configuration;
+import org.visallo.core.config.HashMapConfigurationLoader;
+import org.visallo.core.status.JmxMetricsManager;
+
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+
+public class MessagingEventCoalescerTest {
+    private MessagingEventCoalescer coalescer;
+    private List<BroadcastMessage> sent;
+
+    @Before
+    public void before() {
+        MessagingSubscriptionIndex subscriptionIndex = new MessagingSubscriptionIndex();
+        subscriptionIndex.add("uuid1", "user1", "session1", "workspace1");
+        subscriptionIndex.add("uuid2", "user2", "session2", "workspace2");
+
+        Map<String, String> config = new HashMap<>();
+        config.put(WebConfiguration.THROTTLE_MESSAGING_SECONDS, "600");
+        config.put(MessagingEventCoalescer.CONFIG_MAX_PENDING_EVENTS, "5");
+        Configuration configuration = new HashMapConfigurationLoader(config).createConfiguration();
+        coalescer = new MessagingEventCoalescer(configuration, new JmxMetricsManager(), subscriptionIndex);
+        sent = new ArrayList<>();
+        coalescer.setSender(sent::add);
+    }
+
+    @Test
+    public void testFirstEventIsSentImmediately() {
+        coalescer.add(propertyChange("v1", null));
+        assertEquals(1, sent.size());
+        assertEquals("propertyChange", sent.get(0).getType());
+        assertEquals(set("uuid1", "uuid2"), sent.get(0).getRecipientUuids());
+
+        coalescer.add(propertyChange("v2", null));
+        assertEquals(1, sent.size());
+    }
+
+    @Test
+    public void testLaterEventsSupersedeEarlierEvents() {
+        coalescer.add(propertyChange("v0", null));
+        sent.clear();
+
+        JSONObject first = propertyChange("v1", null);
+        first.getJSONObject("data").put("version", 1);
+        JSONObject second = propertyChange("v1", null);
+        second.getJSONObject("data").put("version", 2);
+        coalescer.add(first);
+        coalescer.add(propertyChange("v2", null));
+        coalescer.add(second);
+        coalescer.add(notification("hello"));
+        coalescer.add(notification("hello"));
+        coalescer.flush();
+
+        assertEquals(1, sent.size());
+        assertEquals(MessagingEventCoalescer.TYPE_BATCH, sent.get(0).getType());
+        JSONArray data = sent.get(0).getJson().getJSONArray("data");
+        assertEquals(3, data.length());
+        assertEquals(2, data.getJSONObject(0).getJSONObject("data").getInt("version"));
+        assertEquals("v2", data.getJSONObject(1).getJSONObject("data").getString("graphVertexId"));
+        assertEquals("notification", data.getJSONObject(2).getString("type"));
+    }
+
+    @Test
+    public void testPublishEventsOfOtherTypesAreKept() {
+        coalescer.add(propertyChange("v0", null));
+        sent.clear();
+
+        coalescer.add(publish("v1", "toPublic", "vertex"));
+        coalescer.add(publish("v1", "undo", "property"));
+        coalescer.add(publish("v1", "undo", "property"));
+        coalescer.add(publish("v1", "delete", "vertex"));
+        coalescer.flush();
+
+        JSONArray data = sent.get(0).getJson().getJSONArray("data");
+        assertEquals(3, data.length());
+        assertEquals("toPublic", data.getJSONObject(0).getJSONObject("data").getString("publishType"));
+        assertEquals("undo", data.getJSONObject(1).getJSONObject("data").getString("publishType"));
+        assertEquals("delete", data.getJSONObject(2).getJSONObject("data").getString("publishType"));
+    }
+
+    @Test
+    public void testConnectionsReceivingTheSameEventsShareAFrame() {
+        coalescer.add(propertyChange("v0", null));
+        sent.clear();
+
+        coalescer.add(propertyChange("v1", "workspace1"));
+        coalescer.add(propertyChange("v2", null));
+        coalescer.add(propertyChange("v3", "workspace3"));
+        coalescer.flush();
+
+        assertEquals(2, sent.size());
+        Map<Set<String>, BroadcastMessage> messagesByRecipients = new HashMap<>();
+        for (BroadcastMessage message : sent) {
+            messagesByRecipients.put(message.getRecipientUuids(), message);
+        }
+        assertEquals(2, messagesByRecipients.get(set("uuid1")).getJson().getJSONArray("data").length());
+        assertEquals("propertyChange", messagesByRecipients.get(set("uuid2")).getType());
+    }
+
+    @Test
+    public void testPendingEventsAreBounded() {
+        coalescer.add(propertyChange("v0", null));
+        sent.clear();
+
+        for (int i = 1; i <= 5; i++) {
+            coalescer.add(propertyChange("v" + i, null));
+        }
+        assertEquals(1, sent.size());
+        assertEquals(5, sent.get(0).getJson().getJSONArray("data").length());
+    }
+
+    private static JSONObject propertyChange(String vertexId, String workspaceId) {
+        JSONObject json = new JSONObject();
+        json.put("type", "propertyChange");
+        JSONObject data = new JSONObject();
+        data.put("graphVertexId", vertexId);
+        data.putOpt("workspaceId", workspaceId);
+        json.put("data", data);
+        if (workspaceId != null) {
+            JSONObject permissions = new JSONObject();
+            permissions.put("workspaces", new JSONArray(Collections.singletonList(workspaceId)));
+            json.put("permissions", permissions);
+        }
+        return json;
+    }
+
+    private static JSONObject publish(String vertexId, String publishType, String objectType) {
+        JSONObject json = new JSONObject();
+        json.put("type", "publish");
+        JSONObject data = new JSONObject();
+        data.put("graphVertexId", vertexId);
+        data.put("publishType", publishType);
+        data.put("objectType", objectType);
+        json.put("data", data);
+        return json;
+    }
+
+    private static JSONObject notification(String message) {
+        JSONObject json = new JSONObject();
+        json.put("type", "notification");
+        json.put("data", new JSONObject().put("message", message));
+        return json;
+    }
+
+    private static Set<String> set(String... values) {
+        return new HashSet<>(Arrays.asList(values));
+    }
+}
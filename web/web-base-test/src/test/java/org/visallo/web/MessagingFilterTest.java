@@ -9,6 +9,8 @@ import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.visallo.core.model.user.UserRepository;
 
+import java.util.Collections;
+
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.when;
@@ -151,4 +153,42 @@ public class MessagingFilterTest {
 
         assertFalse(messagingFilter.shouldSendMessage(message, session));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testShouldSendBroadcastMessageToRecipients() {
+        BroadcastMessage message = new BroadcastMessage(
+                new JSONObject("{ permissions: { users: ['user123'] } }"),
+                Collections.singleton("uuid1")
+        );
+
+        assertTrue(messagingFilter.shouldSendMessage(message, "uuid1", session));
+        assertFalse(messagingFilter.shouldSendMessage(message, "uuid2", session));
+        assertFalse(messagingFilter.shouldSendMessage(message, "uuid1", null));
+    }
+
+    @Test
+    public void testShouldSendBroadcastSessionExpirationWithoutSession() {
+        MessagingSubscriptionIndex subscriptionIndex = new MessagingSubscriptionIndex();
+        subscriptionIndex.add("uuid1", "user123", "session123", null);
+        subscriptionIndex.add("uuid2", "user456", "session456", null);
+        JSONObject json = new JSONObject("{ permissions: { sessionIds: ['session123'] } }");
+        json.put("type", MessagingFilter.TYPE_SESSION_EXPIRATION);
+        BroadcastMessage message = new BroadcastMessage(json, subscriptionIndex.getRecipientUuids(json.optJSONObject("permissions")));
+
+        assertTrue(messagingFilter.shouldSendMessage(message, "uuid1", null));
+        assertFalse(messagingFilter.shouldSendMessage(message, "uuid2", null));
+    }
+
+    @Test
+    public void testShouldNotSendBroadcastSessionExpirationToOtherSessions() {
+        MessagingSubscriptionIndex subscriptionIndex = new MessagingSubscriptionIndex();
+        subscriptionIndex.add("uuid1", "user123", "session123", null);
+        subscriptionIndex.add("uuid2", "user456", "session456", null);
+        JSONObject json = new JSONObject("{ permissions: { sessionIds: ['session456'] } }");
+        json.put("type", MessagingFilter.TYPE_SESSION_EXPIRATION);
+        BroadcastMessage message = new BroadcastMessage(json, subscriptionIndex.getRecipientUuids(json.optJSONObject("permissions")));
+
+        assertFalse(messagingFilter.shouldSendMessage(message, "uuid1", session));
+        assertTrue(messagingFilter.shouldSendMessage(message, "uuid2", session));
+    }
+}
@@ -0,0 +1,75 @@
+package org.visallo.web;
+
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+
+public class MessagingSubscriptionIndexTest {
+    private MessagingSubscriptionIndex index;
+
+    @Before
+    public void before() {
+        index = new MessagingSubscriptionIndex();
+        index.add("uuid1", "user1", "session1", "workspace1");
+        index.add("uuid2", "user1", "session2", "workspace1");
+        index.add("uuid3", "user2", "session3", "workspace2");
+        index.add("uuid4", "user3", "session4", null);
+    }
+
+    @Test
+    public void testNoPermissions() {
+        assertEquals(set("uuid1", "uuid2", "uuid3", "uuid4"), index.getRecipientUuids(null));
+        assertEquals(set("uuid1", "uuid2", "uuid3", "uuid4"), index.getRecipientUuids(new JSONObject()));
+    }
+
+    @Test
+    public void testUsers() {
+        assertEquals(set("uuid1", "uuid2"), getRecipientUuids("{ users: ['user1'] }"));
+        assertEquals(set("uuid1", "uuid2", "uuid3"), getRecipientUuids("{ users: ['user1', 'user2', 'unknown'] }"));
+    }
+
+    @Test
+    public void testSessionIds() {
+        assertEquals(set("uuid2"), getRecipientUuids("{ sessionIds: ['session2'] }"));
+        assertEquals(set(), getRecipientUuids("{ sessionIds: ['session2'], users: ['user2'] }"));
+    }
+
+    @Test
+    public void testWorkspaces() {
+        assertEquals(set("uuid1", "uuid2"), getRecipientUuids("{ workspaces: ['workspace1'] }"));
+        assertEquals(set("uuid3"), getRecipientUuids("{ workspaces: ['workspace1', 'workspace2'], users: ['user2', 'user3'] }"));
+
+        index.setCurrentWorkspace("user1", "workspace2");
+        index.setCurrentWorkspace("user3", "workspace2");
+        assertEquals(set(), getRecipientUuids("{ workspaces: ['workspace1'] }"));
+        assertEquals(set("uuid1", "uuid2", "uuid3", "uuid4"), getRecipientUuids("{ workspaces: ['workspace2'] }"));
+    }
+
+    @Test
+    public void testRemove() {
+        index.remove("uuid1");
+        assertEquals(set("uuid2"), getRecipientUuids("{ users: ['user1'] }"));
+
+        index.remove("uuid2");
+        assertEquals(set(), getRecipientUuids("{ workspaces: ['workspace1'] }"));
+        assertEquals(2, index.size());
+
+        // users without resources are not tracked
+        index.setCurrentWorkspace("user1", "workspace2");
+        assertEquals(set("uuid3"), getRecipientUuids("{ workspaces: ['workspace2'] }"));
+    }
+
+    private Set<String> getRecipientUuids(String permissionsJson) {
+        return index.getRecipientUuids(new JSONObject(permissionsJson));
+    }
+
+    private static Set<String> set(String... values) {
+        return new HashSet<>(Arrays.asList(values));
+    }
+}
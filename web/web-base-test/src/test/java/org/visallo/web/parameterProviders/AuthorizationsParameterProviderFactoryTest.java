@@ -105,4 +105,21 @@ public class AuthorizationsParameterProviderFactoryTest {
         verify(authorizationRepository, never()).getGraphAuthorizations(any());
         verify(authorizationRepository, never()).getGraphAuthorizations(any(), any());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testGetAuthorizationsKeptInRequest() {
+        Authorizations authorizations = new InMemoryAuthorizations("a", "workspace123");
+
+        when(request.getAttribute(eq(VisalloBaseParameterProvider.WORKSPACE_ID_ATTRIBUTE_NAME))).thenReturn("workspace123");
+        when(request.getAttribute(eq(VisalloBaseParameterProvider.USER_REQUEST_ATTRIBUTE_NAME))).thenReturn(proxyUser);
+        when(request.getAttribute(eq("authorizations.workspace123"))).thenReturn(authorizations);
+        Authorizations auth = AuthorizationsParameterProviderFactory.getAuthorizations(
+                request,
+                userRepository,
+                authorizationRepository,
+                workspaceRepository
+        );
+        assertSame(authorizations, auth);
+        verifyZeroInteractions(authorizationRepository, workspaceRepository);
+    }
+}
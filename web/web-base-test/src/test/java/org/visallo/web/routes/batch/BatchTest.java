@@ -0,0 +1,201 @@
+package org.visallo.web.routes.batch;
+
+import com.v5analytics.webster.App;
+import com.v5analytics.webster.RequestResponseHandler;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.visallo.core.config.Configuration;
+import org.visallo.core.config.HashMapConfigurationLoader;
+import org.visallo.core.exception.VisalloResourceNotFoundException;
+import org.visallo.web.BadRequestException;
+
+import javax.servlet.ServletContext;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BatchTest {
+    private Batch batch;
+    private ByteArrayOutputStream output;
+    private AtomicBoolean slowFinished = new AtomicBoolean();
+
+    @Mock
+    private ServletContext servletContext;
+
+    @Mock
+    private HttpServletRequest request;
+
+    @Mock
+    private HttpServletResponse response;
+
+    @Before
+    public void before() throws IOException {
+        App app = new App(servletContext);
+        app.get("/echo", (RequestResponseHandler) (req, resp, chain) -> {
+            req.setAttribute("echoed", true);
+            JSONObject json = new JSONObject();
+            json.put("value", req.getParameter("value"));
+            String[] values = req.getParameterValues("values[]");
+            json.put("values", values == null ? new JSONArray() : new JSONArray(values));
+            json.put("header", req.getHeader("X-Test"));
+            json.put("acceptEncoding", req.getHeader("Accept-Encoding"));
+            resp.setContentType("application/json");
+            resp.setHeader("ETag", "\"echo\"");
+            resp.getWriter().write(json.toString());
+        });
+        app.post("/missing", (RequestResponseHandler) (req, resp, chain) -> {
+            throw new VisalloResourceNotFoundException("missing thing");
+        });
+        app.get("/slow", (RequestResponseHandler) (req, resp, chain) -> {
+            Thread.sleep(300);
+            slowFinished.set(true);
+            resp.getWriter().write("slow");
+        });
+
+        when(request.getAttribute(App.WEBSTER_APP_ATTRIBUTE_NAME)).thenReturn(app);
+        when(request.getContextPath()).thenReturn("");
+        when(request.getRequestURI()).thenReturn("/batch");
+        when(request.getHeader("Accept-Encoding")).thenReturn("gzip");
+        when(request.getHeader("X-Test")).thenReturn("batch header");
+
+        output = new ByteArrayOutputStream();
+        when(response.getOutputStream()).thenReturn(new ServletOutputStream() {
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+            }
+
+            @Override
+            public void write(int b) {
+                output.write(b);
+            }
+        });
+
+        Map<String, String> config = new HashMap<>();
+        config.put(Batch.CONFIG_MAX_REQUESTS, "3");
+        // keep the batch response small enough to be sent uncompressed
+        config.put("web.response.compression.minSizeBytes", "100000");
+        Configuration configuration = new HashMapConfigurationLoader(config).createConfiguration();
+        batch = new Batch(configuration);
+    }
+
+    @Test
+    public void testRequestsAreRunAndCombined() throws Exception {
+        JSONArray requests = new JSONArray();
+        requests.put(new JSONObject()
+                .put("id", "first")
+                .put("path", "/echo?value=a%20b")
+                .put("parameters", new JSONObject().put("values[]", new JSONArray().put("1").put("2"))));
+        requests.put(new JSONObject()
+                .put("path", "/echo")
+                .put("headers", new JSONObject().put("X-Test", "own header")));
+        requests.put(new JSONObject()
+                .put("method", "post")
+                .put("path", "/missing"));
+        batch.handle(request, response, requests.toString(), null, null);
+
+        JSONObject result = new JSONObject(output.toString("UTF-8"));
+        JSONArray responses = result.getJSONArray("responses");
+        assertEquals(3, responses.length());
+        assertTrue(result.has("timeMs"));
+        Map<Integer, JSONObject> responsesByIndex = new HashMap<>();
+        for (int i = 0; i < responses.length(); i++) {
+            JSONObject r = responses.getJSONObject(i);
+            assertTrue(r.has("timeMs"));
+            responsesByIndex.put(r.getInt("index"), r);
+        }
+
+        JSONObject first = responsesByIndex.get(0);
+        assertEquals("first", first.getString("id"));
+        assertEquals(200, first.getInt("status"));
+        assertEquals("\"echo\"", first.getJSONObject("headers").getString("ETag"));
+        JSONObject firstBody = first.getJSONObject("body");
+        assertEquals("a b", firstBody.getString("value"));
+        assertEquals(2, firstBody.getJSONArray("values").length());
+        assertEquals("batch header", firstBody.getString("header"));
+        assertFalse(firstBody.has("acceptEncoding"));
+
+        assertEquals("own header", responsesByIndex.get(1).getJSONObject("body").getString("header"));
+
+        JSONObject missing = responsesByIndex.get(2);
+        assertEquals(404, missing.getInt("status"));
+        assertEquals("missing thing", missing.getString("body"));
+
+        verify(request, never()).setAttribute(eq("echoed"), any());
+    }
+
+    @Test
+    public void testRunningRequestsFinishBeforeFailedResponseReturns() throws Exception {
+        Map<String, String> config = new HashMap<>();
+        config.put("web.response.compression.enabled", "false");
+        batch = new Batch(new HashMapConfigurationLoader(config).createConfiguration());
+        when(response.getOutputStream()).thenAnswer(invocation -> {
+            throw new IOException("connection closed");
+        });
+
+        JSONArray requests = new JSONArray();
+        requests.put(new JSONObject().put("path", "/echo"));
+        requests.put(new JSONObject().put("path", "/slow"));
+        try {
+            batch.handle(request, response, requests.toString(), null, null);
+            fail("expected the response to fail");
+        } catch (IOException ex) {
+            assertEquals("connection closed", ex.getMessage());
+        }
+        assertTrue("the slow request should have finished", slowFinished.get());
+    }
+
+    @Test
+    public void testSubRequestDateHeaders() {
+        when(request.getDateHeader("Date")).thenReturn(1000L);
+        Map<String, String> headers = new HashMap<>();
+        headers.put("if-modified-since", "Sun, 06 Nov 1994 08:49:37 GMT");
+        headers.put("if-unmodified-since", "Sunday, 06-Nov-94 08:49:37 GMT");
+        headers.put("expires", "Sun Nov  6 08:49:37 1994");
+        BatchSubRequest subRequest = new BatchSubRequest(request, "GET", "/echo", new HashMap<>(), headers);
+
+        assertEquals(784111777000L, subRequest.getDateHeader("If-Modified-Since"));
+        assertEquals(784111777000L, subRequest.getDateHeader("If-Unmodified-Since"));
+        assertEquals(784111777000L, subRequest.getDateHeader("Expires"));
+        assertEquals(1000L, subRequest.getDateHeader("Date"));
+
+        headers.remove("if-modified-since");
+        when(request.getDateHeader("If-Modified-Since")).thenReturn(1000L);
+        assertEquals(-1, subRequest.getDateHeader("If-Modified-Since"));
+    }
+
+    @Test(expected = BadRequestException.class)
+    public void testTooManyRequests() throws Exception {
+        JSONArray requests = new JSONArray();
+        for (int i = 0; i < 4; i++) {
+            requests.put(new JSONObject().put("path", "/echo"));
+        }
+        batch.handle(request, response, requests.toString(), null, null);
+    }
+
+    @Test(expected = BadRequestException.class)
+    public void testNestedBatches() throws Exception {
+        JSONArray requests = new JSONArray();
+        requests.put(new JSONObject().put("path", Batch.PATH));
+        batch.handle(request, response, requests.toString(), null, null);
+    }
+}
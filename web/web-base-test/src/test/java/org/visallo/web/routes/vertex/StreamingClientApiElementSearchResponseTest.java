@@ -0,0 +1,152 @@
+package org.visallo.web.routes.vertex;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.vertexium.Element;
+import org.visallo.web.StreamingElementList;
+import org.visallo.web.clientapi.model.ClientApiElement;
+import org.visallo.web.clientapi.model.ClientApiElementSearchResponse;
+import org.visallo.web.clientapi.model.ClientApiVertex;
+import org.visallo.web.clientapi.util.ObjectMapperFactory;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class StreamingClientApiElementSearchResponseTest {
+    private final ObjectMapper objectMapper = ObjectMapperFactory.getInstance();
+    private boolean closed;
+
+    @Test
+    public void testWriteJsonMatchesMaterializedResponse() throws Exception {
+        StreamingClientApiElementSearchResponse streaming = createResponse();
+        List<String> prepared = new ArrayList<>();
+        StringWriter out = new StringWriter();
+        JsonGenerator jsonGenerator = objectMapper.getFactory().createGenerator(out);
+        streaming.writeJson(jsonGenerator, objectMapper, element -> prepared.add(element.getId()));
+        jsonGenerator.flush();
+        assertTrue(closed);
+
+        ClientApiElementSearchResponse expected = new ClientApiElementSearchResponse();
+        expected.setNextOffset(2);
+        expected.setTotalHits(10L);
+        expected.getElements().add(createClientApiVertex("v1"));
+        expected.getElements().add(createClientApiVertex("v2"));
+
+        JsonNode actualJson = objectMapper.readTree(out.toString());
+        assertEquals(objectMapper.readTree(objectMapper.writeValueAsString(expected)), actualJson);
+        assertEquals(2, actualJson.get("itemCount").asInt());
+        assertEquals("[v1, v2]", prepared.toString());
+    }
+
+    @Test
+    public void testGetElementsConvertsElements() throws Exception {
+        StreamingClientApiElementSearchResponse streaming = createResponse();
+        assertEquals(2, streaming.getElements().size());
+        assertEquals(2, streaming.getItemCount());
+        assertTrue(closed);
+
+        StringWriter out = new StringWriter();
+        JsonGenerator jsonGenerator = objectMapper.getFactory().createGenerator(out);
+        streaming.writeJson(jsonGenerator, objectMapper, element -> {
+        });
+        jsonGenerator.flush();
+        assertEquals(2, objectMapper.readTree(out.toString()).get("elements").size());
+    }
+
+    @Test
+    public void testElementsAreConvertedInBatches() throws Exception {
+        List<Element> elements = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            elements.add(createElement("v" + i));
+        }
+        List<Integer> batchSizes = new ArrayList<>();
+        StreamingElementList<Element, ClientApiElement> streamingElements = new StreamingElementList<>(
+                elements,
+                2,
+                batch -> {
+                    batchSizes.add(batch.size());
+                    List<ClientApiElement> results = new ArrayList<>();
+                    for (Element element : batch) {
+                        results.add(createClientApiVertex(element.getId()));
+                    }
+                    return results;
+                },
+                () -> closed = true
+        );
+        List<String> prepared = new ArrayList<>();
+        StringWriter out = new StringWriter();
+        JsonGenerator jsonGenerator = objectMapper.getFactory().createGenerator(out);
+        new StreamingClientApiElementSearchResponse(streamingElements)
+                .writeJson(jsonGenerator, objectMapper, element -> prepared.add(element.getId()));
+        jsonGenerator.flush();
+
+        assertEquals("[2, 2, 1]", batchSizes.toString());
+        assertEquals("[v1, v2, v3, v4, v5]", prepared.toString());
+        assertTrue(closed);
+    }
+
+    @Test
+    public void testAddAllToIsRepeatable() {
+        List<Element> elements = new ArrayList<>();
+        elements.add(createElement("v1"));
+        List<String> convertedIds = new ArrayList<>();
+        StreamingElementList<Element, ClientApiElement> streamingElements = new StreamingElementList<>(
+                elements,
+                element -> {
+                    convertedIds.add(element.getId());
+                    return createClientApiVertex(element.getId());
+                },
+                null
+        );
+        List<ClientApiElement> first = new ArrayList<>();
+        streamingElements.addAllTo(first);
+        List<ClientApiElement> second = new ArrayList<>();
+        streamingElements.addAllTo(second);
+
+        assertEquals(1, first.size());
+        assertEquals(1, second.size());
+        assertEquals("[v1]", convertedIds.toString());
+    }
+
+    @Test
+    public void testGetElementsTwiceDoesNotDuplicate() {
+        StreamingClientApiElementSearchResponse streaming = createResponse();
+        streaming.getElements();
+        assertEquals(2, streaming.getElements().size());
+    }
+
+    private StreamingClientApiElementSearchResponse createResponse() {
+        List<Element> elements = new ArrayList<>();
+        elements.add(createElement("v1"));
+        elements.add(createElement("v2"));
+        StreamingElementList<Element, ClientApiElement> streamingElements = new StreamingElementList<>(
+                elements,
+                element -> createClientApiVertex(element.getId()),
+                () -> closed = true
+        );
+        StreamingClientApiElementSearchResponse response = new StreamingClientApiElementSearchResponse(streamingElements);
+        response.setNextOffset(2);
+        response.setTotalHits(10L);
+        return response;
+    }
+
+    private Element createElement(String id) {
+        Element element = mock(Element.class);
+        when(element.getId()).thenReturn(id);
+        return element;
+    }
+
+    private ClientApiVertex createClientApiVertex(String id) {
+        ClientApiVertex vertex = new ClientApiVertex();
+        vertex.setId(id);
+        return vertex;
+    }
+}
@@ -0,0 +1,118 @@
+package org.visallo.web.routes.vertex;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.vertexium.Authorizations;
+import org.vertexium.Vertex;
+import org.vertexium.Visibility;
+import org.visallo.core.exception.VisalloResourceNotFoundException;
+import org.visallo.web.clientapi.model.ClientApiVertexEdges;
+import org.visallo.web.routes.RouteTestBase;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(MockitoJUnitRunner.class)
+public class VertexEdgesTest extends RouteTestBase {
+    private VertexEdges vertexEdges;
+    private Authorizations authorizations;
+
+    @Before
+    public void before() throws IOException {
+        super.before();
+        authorizations = graph.createAuthorizations();
+        Authorizations secretAuthorizations = graph.createAuthorizations("secret");
+        Visibility visibility = new Visibility("");
+        Vertex hub = graph.addVertex("hub", visibility, authorizations);
+        for (int i = 0; i < 10; i++) {
+            Vertex other = graph.addVertex("v" + i, visibility, authorizations);
+            graph.addEdge("e" + i, hub, other, i % 2 == 0 ? "even" : "odd", visibility, authorizations);
+        }
+        Vertex secret = graph.addVertex("secret", new Visibility("secret"), secretAuthorizations);
+        graph.addEdge("eSecret", hub, secret, "even", visibility, secretAuthorizations);
+        graph.addEdge("eRelated", hub, graph.getVertex("v0", authorizations), "odd", visibility, authorizations);
+        graph.flush();
+
+        vertexEdges = new VertexEdges(graph);
+    }
+
+    @Test
+    public void testPage() throws Exception {
+        ClientApiVertexEdges result = vertexEdges.handle("hub", 2, 3, null, null, "BOTH", WORKSPACE_ID, authorizations);
+        assertEquals(3, result.getRelationships().size());
+
+        // the edge to the secret vertex is counted but not returned
+        result = vertexEdges.handle("hub", 0, 25, null, null, "OUT", WORKSPACE_ID, authorizations);
+        assertEquals(11, result.getRelationships().size());
+        assertEquals(12, result.getTotalReferences());
+
+        result = vertexEdges.handle("hub", 9, 25, null, null, "OUT", WORKSPACE_ID, authorizations);
+        assertEquals(2, result.getRelationships().size());
+        assertEquals(12, result.getTotalReferences());
+
+        result = vertexEdges.handle("hub", 25, 25, null, null, "OUT", WORKSPACE_ID, authorizations);
+        assertEquals(0, result.getRelationships().size());
+
+        result = vertexEdges.handle("hub", 0, 25, null, null, "IN", WORKSPACE_ID, authorizations);
+        assertEquals(0, result.getRelationships().size());
+        assertEquals(0, result.getTotalReferences());
+    }
+
+    @Test
+    public void testPagesDoNotOverlap() throws Exception {
+        Set<String> edgeIds = new HashSet<>();
+        long totalReferences = -1;
+        for (int offset = 0; offset < 12; offset += 3) {
+            ClientApiVertexEdges result = vertexEdges.handle("hub", offset, 3, null, null, "OUT", WORKSPACE_ID, authorizations);
+            if (totalReferences >= 0) {
+                assertEquals(totalReferences, result.getTotalReferences());
+            }
+            totalReferences = result.getTotalReferences();
+            for (ClientApiVertexEdges.Edge edge : result.getRelationships()) {
+                assertTrue(edgeIds.add(edge.getRelationship().getId()));
+            }
+        }
+        assertEquals(11, edgeIds.size());
+    }
+
+    @Test
+    public void testEdgeLabel() throws Exception {
+        ClientApiVertexEdges result = vertexEdges.handle("hub", 0, 25, "odd", null, "BOTH", WORKSPACE_ID, authorizations);
+        assertEquals(6, result.getRelationships().size());
+        assertEquals(6, result.getTotalReferences());
+    }
+
+    @Test
+    public void testRelatedVertex() throws Exception {
+        ClientApiVertexEdges result = vertexEdges.handle("hub", 0, 25, null, "v0", "BOTH", WORKSPACE_ID, authorizations);
+        assertEquals(2, result.getRelationships().size());
+        assertEquals(2, result.getTotalReferences());
+        for (ClientApiVertexEdges.Edge edge : result.getRelationships()) {
+            assertEquals("v0", edge.getVertex().getId());
+        }
+
+        result = vertexEdges.handle("hub", 0, 25, "odd", "v0", "BOTH", WORKSPACE_ID, authorizations);
+        assertEquals(1, result.getRelationships().size());
+        assertEquals("eRelated", result.getRelationships().get(0).getRelationship().getId());
+
+        result = vertexEdges.handle("hub", 1, 25, null, "v0", "BOTH", WORKSPACE_ID, authorizations);
+        assertEquals(1, result.getRelationships().size());
+        assertEquals(2, result.getTotalReferences());
+
+        result = vertexEdges.handle("hub", 0, 25, null, "v0", "IN", WORKSPACE_ID, authorizations);
+        assertEquals(0, result.getRelationships().size());
+        assertEquals(0, result.getTotalReferences());
+    }
+
+    @Test(expected = VisalloResourceNotFoundException.class)
+    public void testRelatedVertexNotFound() throws Exception {
+        // not visible with the authorizations
+        vertexEdges.handle("hub", 0, 25, null, "secret", "BOTH", WORKSPACE_ID, authorizations);
+    }
+}
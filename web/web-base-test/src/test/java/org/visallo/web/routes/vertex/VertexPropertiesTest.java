@@ -0,0 +1,121 @@
+package org.visallo.web.routes.vertex;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.vertexium.Authorizations;
+import org.vertexium.Visibility;
+import org.visallo.core.model.user.PrivilegeRepository;
+import org.visallo.web.VisalloResponse;
+import org.visallo.web.clientapi.model.ClientApiElement;
+import org.visallo.web.routes.RouteTestBase;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class VertexPropertiesTest extends RouteTestBase {
+    private VertexProperties vertexProperties;
+    private Authorizations authorizations;
+
+    @Mock
+    private PrivilegeRepository privilegeRepository;
+
+    @Before
+    public void before() throws IOException {
+        super.before();
+        authorizations = graph.createAuthorizations();
+        graph.prepareVertex("v1", new Visibility(""))
+                .addPropertyValue("k1", "http://visallo.org/test#name", "value1", new Visibility(""))
+                .save(authorizations);
+        graph.flush();
+        when(privilegeRepository.getPrivileges(user)).thenReturn(Collections.singleton("READ"));
+        vertexProperties = new VertexProperties(graph, privilegeRepository);
+    }
+
+    @Test
+    public void testNotModified() throws Exception {
+        ClientApiElement element = vertexProperties.handle("v1", WORKSPACE_ID, user, authorizations, new VisalloResponse(request, response));
+        assertNotNull(element);
+        String eTag = getETag();
+
+        reset(response);
+        when(request.getHeader("If-None-Match")).thenReturn(eTag);
+        assertNull(vertexProperties.handle("v1", WORKSPACE_ID, user, authorizations, new VisalloResponse(request, response)));
+        verify(response).sendError(HttpServletResponse.SC_NOT_MODIFIED);
+    }
+
+    @Test
+    public void testNotModifiedWithEncodedETag() throws Exception {
+        vertexProperties.handle("v1", WORKSPACE_ID, user, authorizations, new VisalloResponse(request, response));
+        String eTag = getETag();
+        String encodedETag = eTag.substring(0, eTag.length() - 1) + "-gzip\"";
+
+        reset(response);
+        when(request.getHeader("If-None-Match")).thenReturn(encodedETag);
+        assertNull(vertexProperties.handle("v1", WORKSPACE_ID, user, authorizations, new VisalloResponse(request, response)));
+        verify(response).sendError(HttpServletResponse.SC_NOT_MODIFIED);
+        verify(response).setHeader("ETag", encodedETag);
+    }
+
+    @Test
+    public void testChangedPropertyChangesETag() throws Exception {
+        vertexProperties.handle("v1", WORKSPACE_ID, user, authorizations, new VisalloResponse(request, response));
+        String eTag = getETag();
+
+        graph.getVertex("v1", authorizations).prepareMutation()
+                .addPropertyValue("k1", "http://visallo.org/test#name", "value2", new Visibility(""))
+                .save(authorizations);
+        graph.flush();
+
+        reset(response);
+        when(request.getHeader("If-None-Match")).thenReturn(eTag);
+        assertNotNull(vertexProperties.handle("v1", WORKSPACE_ID, user, authorizations, new VisalloResponse(request, response)));
+        verify(response, never()).sendError(HttpServletResponse.SC_NOT_MODIFIED);
+        assertNotEquals(eTag, getETag());
+    }
+
+    @Test
+    public void testChangedMetadataChangesETag() throws Exception {
+        vertexProperties.handle("v1", WORKSPACE_ID, user, authorizations, new VisalloResponse(request, response));
+        String eTag = getETag();
+
+        graph.getVertex("v1", authorizations).prepareMutation()
+                .setPropertyMetadata("k1", "http://visallo.org/test#name", "http://visallo.org#confidence", 0.5, new Visibility(""))
+                .save(authorizations);
+        graph.flush();
+
+        reset(response);
+        when(request.getHeader("If-None-Match")).thenReturn(eTag);
+        assertNotNull(vertexProperties.handle("v1", WORKSPACE_ID, user, authorizations, new VisalloResponse(request, response)));
+        assertNotEquals(eTag, getETag());
+    }
+
+    @Test
+    public void testChangedPrivilegesChangeETag() throws Exception {
+        vertexProperties.handle("v1", WORKSPACE_ID, user, authorizations, new VisalloResponse(request, response));
+        String eTag = getETag();
+
+        when(privilegeRepository.getPrivileges(user)).thenReturn(new HashSet<>(Arrays.asList("READ", "EDIT")));
+
+        reset(response);
+        when(request.getHeader("If-None-Match")).thenReturn(eTag);
+        assertNotNull(vertexProperties.handle("v1", WORKSPACE_ID, user, authorizations, new VisalloResponse(request, response)));
+        assertNotEquals(eTag, getETag());
+    }
+
+    private String getETag() {
+        ArgumentCaptor<String> eTag = ArgumentCaptor.forClass(String.class);
+        verify(response).setHeader(eq("ETag"), eTag.capture());
+        return eTag.getValue();
+    }
+}
@@ -0,0 +1,65 @@
+package org.visallo.web.util;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ByteRangeTest {
+    @Test
+    public void testParseSingleRange() {
+        List<ByteRange> ranges = ByteRange.parse("bytes=10-19", 100);
+        assertEquals(1, ranges.size());
+        assertEquals(10, ranges.get(0).getStart());
+        assertEquals(19, ranges.get(0).getEnd());
+        assertEquals(10, ranges.get(0).getLength());
+        assertEquals("bytes 10-19/100", ranges.get(0).toContentRange(100));
+    }
+
+    @Test
+    public void testParseOpenEndedAndSuffixRanges() {
+        List<ByteRange> ranges = ByteRange.parse("bytes=0-9, 90-, -5", 100);
+        assertEquals(2, ranges.size());
+        assertEquals("bytes 0-9/100", ranges.get(0).toContentRange(100));
+        assertEquals("bytes 90-99/100", ranges.get(1).toContentRange(100));
+
+        assertEquals("bytes 0-99/100", ByteRange.parse("bytes=-500", 100).get(0).toContentRange(100));
+    }
+
+    @Test
+    public void testParseMergesOverlappingAndAdjacentRanges() {
+        List<ByteRange> ranges = ByteRange.parse("bytes=50-59, 0-9, 5-19, 20-29, 95-200, 60-60", 100);
+        assertEquals(3, ranges.size());
+        assertEquals("bytes 0-29/100", ranges.get(0).toContentRange(100));
+        assertEquals("bytes 50-60/100", ranges.get(1).toContentRange(100));
+        assertEquals("bytes 95-99/100", ranges.get(2).toContentRange(100));
+    }
+
+    @Test
+    public void testParseTooManyRanges() {
+        StringBuilder rangeHeader = new StringBuilder("bytes=0-0");
+        for (int i = 1; i <= ByteRange.MAX_RANGES; i++) {
+            rangeHeader.append(",").append(i * 2).append("-").append(i * 2);
+        }
+        assertNull(ByteRange.parse(rangeHeader.toString(), 100));
+    }
+
+    @Test
+    public void testParseUnsatisfiableRanges() {
+        assertTrue(ByteRange.parse("bytes=100-", 100).isEmpty());
+        assertTrue(ByteRange.parse("bytes=-0", 100).isEmpty());
+    }
+
+    @Test
+    public void testParseInvalidRanges() {
+        assertNull(ByteRange.parse(null, 100));
+        assertNull(ByteRange.parse("items=0-10", 100));
+        assertNull(ByteRange.parse("bytes=a-10", 100));
+        assertNull(ByteRange.parse("bytes=20-10", 100));
+        assertNull(ByteRange.parse("bytes=-", 100));
+        assertNull(ByteRange.parse("bytes=10", 100));
+    }
+}
@@ -0,0 +1,161 @@
+package org.visallo.web.util;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.visallo.core.config.Configuration;
+import org.visallo.core.config.HashMapConfigurationLoader;
+import org.visallo.core.status.JmxMetricsManager;
+import org.visallo.web.VisalloResponse;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DiskContentCacheTest {
+    private static final byte[] DATA = "image data".getBytes();
+    private File directory;
+    private DiskContentCache contentCache;
+    private ByteArrayOutputStream output;
+
+    @Mock
+    private HttpServletRequest request;
+
+    @Mock
+    private HttpServletResponse response;
+
+    @Before
+    public void before() throws IOException {
+        directory = Files.createTempDirectory("content-cache-test").toFile();
+        contentCache = new DiskContentCache(createConfiguration(), new JmxMetricsManager());
+
+        output = new ByteArrayOutputStream();
+        when(response.getOutputStream()).thenReturn(new ServletOutputStream() {
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+            }
+
+            @Override
+            public void write(int b) {
+                output.write(b);
+            }
+        });
+    }
+
+    @After
+    public void after() throws IOException {
+        FileUtils.deleteDirectory(directory);
+    }
+
+    @Test
+    public void testOtherFilesInTheDirectoryAreKept() throws IOException {
+        File otherFile = new File(directory, "other.txt");
+        FileUtils.writeStringToFile(otherFile, "other");
+        JmxMetricsManager metricsManager = spy(new JmxMetricsManager());
+
+        new DiskContentCache(createConfiguration(), metricsManager);
+
+        assertEquals("other", FileUtils.readFileToString(otherFile));
+        verify(metricsManager, times(5)).counter(startsWith(DiskContentCache.class.getName() + "."));
+        verify(metricsManager, never()).counter(startsWith("null"));
+    }
+
+    @Test
+    public void testRespondLoadsOnce() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        for (int i = 0; i < 2; i++) {
+            output.reset();
+            contentCache.respond(new VisalloResponse(request, response), "v1", "k1", "200x200", "1", () -> {
+                loads.incrementAndGet();
+                return new DiskContentCache.Content("image/png", "thumbnail200.png", DATA);
+            });
+            assertArrayEquals(DATA, output.toByteArray());
+        }
+        assertEquals(1, loads.get());
+        String eTag = contentCache.get("v1", "k1", "200x200", "1").getETag();
+        verify(response, times(2)).setHeader("ETag", "\"" + eTag + "\"");
+        verify(response, times(2)).addHeader("Content-Disposition", "inline; filename=thumbnail200.png");
+        verify(response, times(2)).setContentLengthLong(DATA.length);
+
+        assertNull(contentCache.get("v1", "k1", "200x200", "2"));
+    }
+
+    @Test
+    public void testRespondNotModified() throws Exception {
+        DiskContentCache.Entry entry = contentCache.put("v1", "k1", "200x200", "1", new DiskContentCache.Content("image/png", null, DATA));
+        when(request.getHeader("If-None-Match")).thenReturn("\"" + entry.getETag() + "\"");
+        contentCache.respond(new VisalloResponse(request, response), "v1", "k1", "200x200", "1", () -> {
+            throw new AssertionError("should not load");
+        });
+        verify(response).sendError(HttpServletResponse.SC_NOT_MODIFIED);
+        assertEquals(0, output.size());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntriesAreEvicted() {
+        contentCache.put("v1", "k1", "200x200", "1", new DiskContentCache.Content("image/png", null, DATA));
+        contentCache.put("v2", "k1", "200x200", "1", new DiskContentCache.Content("image/png", null, DATA));
+        assertNotNull(contentCache.get("v1", "k1", "200x200", "1"));
+        contentCache.put("v3", "k1", "200x200", "1", new DiskContentCache.Content("image/png", null, DATA));
+
+        assertNotNull(contentCache.get("v1", "k1", "200x200", "1"));
+        assertNull(contentCache.get("v2", "k1", "200x200", "1"));
+        assertNotNull(contentCache.get("v3", "k1", "200x200", "1"));
+        assertEquals(2 * DATA.length, contentCache.getSizeBytes());
+        assertEquals(2, new File(directory, "visallo-content-cache").listFiles().length);
+    }
+
+    @Test
+    public void testContentBiggerThanTheCacheIsNotKept() throws Exception {
+        byte[] data = new byte[100];
+        contentCache.respond(new VisalloResponse(request, response), "v1", "k1", "original", "1", () -> new DiskContentCache.Content("image/png", null, data));
+        assertArrayEquals(data, output.toByteArray());
+        assertNull(contentCache.get("v1", "k1", "original", "1"));
+        assertEquals(0, contentCache.getSizeBytes());
+    }
+
+    @Test
+    public void testStreamedContentCanBeReadAtAnyPosition() throws Exception {
+        DiskContentCache.Entry entry = contentCache.put("v1", "k1", "spool", "1", "video/mp4", new ByteArrayInputStream(DATA));
+        assertEquals(DATA.length, entry.getLength());
+        assertEquals(new VisalloResponse(request, response).generateETag(DATA), entry.getETag());
+
+        try (FileChannel channel = contentCache.open(entry)) {
+            contentCache.transferTo(channel, 6, 4, output);
+        }
+        assertEquals("data", output.toString());
+
+        assertNull(contentCache.put("v2", "k1", "spool", "1", "video/mp4", new ByteArrayInputStream(new byte[100])));
+        assertEquals(1, directory.listFiles().length);
+    }
+
+    private Configuration createConfiguration() {
+        Map<String, String> config = new HashMap<>();
+        config.put(DiskContentCache.CONFIG_DIRECTORY, directory.getAbsolutePath());
+        config.put(DiskContentCache.CONFIG_MAX_SIZE_BYTES, "25");
+        return new HashMapConfigurationLoader(config).createConfiguration();
+    }
+}
@@ -0,0 +1,53 @@
+package org.visallo.web;
+
+import org.json.JSONObject;
+
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A message from {@link org.visallo.core.model.workQueue.WorkQueueRepository#broadcast} on its way to the connected
+ * clients. The message is parsed and serialized once and its recipients are looked up once in the
+ * {@link MessagingSubscriptionIndex}, so {@link MessagingFilter} does not have to parse it for every connection.
+ */
+public class BroadcastMessage {
+    private final JSONObject json;
+    private final String type;
+    private final String message;
+    private final Set<String> recipientUuids;
+
+    /**
+     * @param recipientUuids the uuids of the resources the message is sent to.
+     */
+    public BroadcastMessage(JSONObject json, Set<String> recipientUuids) {
+        this.json = json;
+        this.type = json.optString("type", null);
+        this.message = json.toString();
+        this.recipientUuids = checkNotNull(recipientUuids, "recipientUuids is required");
+    }
+
+    public JSONObject getJson() {
+        return json;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public Set<String> getRecipientUuids() {
+        return recipientUuids;
+    }
+
+    public boolean isRecipient(String uuid) {
+        return recipientUuids.contains(uuid);
+    }
+
+    /**
+     * The serialized message, written to the clients.
+     */
+    @Override
+    public String toString() {
+        return message;
+    }
+}
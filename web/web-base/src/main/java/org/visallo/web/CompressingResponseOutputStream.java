@@ -0,0 +1,184 @@
+package org.visallo.web;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes a response body compressed with the encoding negotiated from the request's Accept-Encoding header.
+ * <p/>
+ * The first bytes are buffered until there are more than the minimum size, so small responses are sent uncompressed
+ * with a Content-Length instead of paying for compression which would not make them any smaller.
+ * <p/>
+ * A compressed response is a different representation than the uncompressed one, so a strong ETag set on the response
+ * gets the encoding appended to it when the response is compressed.
+ */
+public class CompressingResponseOutputStream extends OutputStream {
+    public static final String ENCODING_GZIP = "gzip";
+    public static final String ENCODING_DEFLATE = "deflate";
+    private static final int BUFFER_SIZE = 8 * 1024;
+    private final HttpServletResponse response;
+    private final String encoding;
+    private final int minSizeBytes;
+    private ByteArrayOutputStream buffer;
+    private OutputStream out;
+    private boolean closed;
+
+    /**
+     * @param encoding the negotiated encoding, null to write the response uncompressed.
+     */
+    public CompressingResponseOutputStream(HttpServletResponse response, String encoding, int minSizeBytes) {
+        this.response = response;
+        this.encoding = encoding;
+        this.minSizeBytes = minSizeBytes;
+        if (encoding != null) {
+            response.addHeader("Vary", "Accept-Encoding");
+            this.buffer = new ByteArrayOutputStream(Math.min(minSizeBytes + 1, BUFFER_SIZE));
+        }
+    }
+
+    /**
+     * Picks the encoding to compress a response with, preferring gzip over deflate.
+     *
+     * @return the encoding, null if the client does not accept a supported encoding.
+     */
+    public static String negotiateEncoding(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return null;
+        }
+        float gzipQuality = 0;
+        float deflateQuality = 0;
+        float anyQuality = 0;
+        boolean anyGzip = false;
+        boolean anyDeflate = false;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            String name = parts[0].trim().toLowerCase();
+            float quality = 1;
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        quality = Float.parseFloat(param.substring(2));
+                    } catch (NumberFormatException ex) {
+                        quality = 0;
+                    }
+                }
+            }
+            if (ENCODING_GZIP.equals(name) || "x-gzip".equals(name)) {
+                gzipQuality = quality;
+                anyGzip = true;
+            } else if (ENCODING_DEFLATE.equals(name)) {
+                deflateQuality = quality;
+                anyDeflate = true;
+            } else if ("*".equals(name)) {
+                anyQuality = quality;
+            }
+        }
+        if (!anyGzip) {
+            gzipQuality = anyQuality;
+        }
+        if (!anyDeflate) {
+            deflateQuality = anyQuality;
+        }
+        if (gzipQuality > 0 && gzipQuality >= deflateQuality) {
+            return ENCODING_GZIP;
+        }
+        if (deflateQuality > 0) {
+            return ENCODING_DEFLATE;
+        }
+        return null;
+    }
+
+    /**
+     * @param eTag the ETag header, with its quotes.
+     * @return the ETag of the representation compressed with the encoding. Weak ETags are left as they are.
+     */
+    public static String addEncodingToETag(String eTag, String encoding) {
+        if (eTag.startsWith("W/") || eTag.length() < 2 || !eTag.endsWith("\"")) {
+            return eTag;
+        }
+        return eTag.substring(0, eTag.length() - 1) + "-" + encoding + "\"";
+    }
+
+    /**
+     * @param eTag an entity tag without its quotes.
+     * @return the tag without the encoding added by {@link #addEncodingToETag(String, String)}.
+     */
+    public static String removeEncodingFromETag(String eTag) {
+        for (String encoding : new String[]{ENCODING_GZIP, ENCODING_DEFLATE}) {
+            if (eTag.endsWith("-" + encoding)) {
+                return eTag.substring(0, eTag.length() - encoding.length() - 1);
+            }
+        }
+        return eTag;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (out == null) {
+            if (buffer != null && buffer.size() + len <= minSizeBytes) {
+                buffer.write(b, off, len);
+                return;
+            }
+            startOutput(true);
+        }
+        out.write(b, off, len);
+    }
+
+    private void startOutput(boolean compress) throws IOException {
+        OutputStream responseOut = response.getOutputStream();
+        if (compress && encoding != null) {
+            response.setHeader("Content-Encoding", encoding);
+            String eTag = response.getHeader("ETag");
+            if (eTag != null) {
+                response.setHeader("ETag", addEncodingToETag(eTag, encoding));
+            }
+            if (ENCODING_GZIP.equals(encoding)) {
+                out = new GZIPOutputStream(responseOut, BUFFER_SIZE);
+            } else {
+                out = new DeflaterOutputStream(responseOut, new Deflater(), BUFFER_SIZE);
+            }
+        } else {
+            out = responseOut;
+        }
+        if (buffer != null) {
+            buffer.writeTo(out);
+            buffer = null;
+        }
+    }
+
+    /**
+     * Buffered bytes are kept until there are enough of them to decide whether to compress the response.
+     */
+    @Override
+    public void flush() throws IOException {
+        if (out != null) {
+            out.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (out == null) {
+            if (buffer != null) {
+                response.setContentLength(buffer.size());
+            }
+            startOutput(false);
+        }
+        out.close();
+    }
+}
@@ -25,11 +25,10 @@ import org.visallo.core.util.VisalloLogger;
 import org.visallo.core.util.VisalloLoggerFactory;
 import org.visallo.web.clientapi.model.UserStatus;
 
+import javax.servlet.http.HttpSession;
 import java.io.BufferedReader;
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -45,6 +44,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
         })
 public class Messaging implements AtmosphereHandler { //extends AbstractReflectorAtmosphereHandler {
     public static final String PATH = "/messaging";
+    public static final String TYPE_USER_WORKSPACE_CHANGE = "userWorkspaceChange";
 
     private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(Messaging.class);
 
@@ -56,6 +56,8 @@ public class Messaging implements AtmosphereHandler { //extends AbstractReflecto
     private WorkspaceRepository workspaceRepository;
     private WorkQueueRepository workQueueRepository;
     private UserSessionCounterRepository userSessionCounterRepository;
+    private MessagingSubscriptionIndex subscriptionIndex;
+    private MessagingEventCoalescer eventCoalescer;
     private boolean subscribedToBroadcast = false;
     private Map<AtmosphereResource.TRANSPORT, Counter> requestsCounters = new HashMap<>();
 
@@ -102,11 +104,12 @@ public class Messaging implements AtmosphereHandler { //extends AbstractReflecto
         }
 
         if (!subscribedToBroadcast) {
+            eventCoalescer.setSender(this::send);
             this.workQueueRepository.subscribeToBroadcastMessages(new WorkQueueRepository.BroadcastConsumer() {
                 @Override
                 public void broadcastReceived(JSONObject json) {
                     if (broadcaster != null) {
-                        broadcaster.broadcast(json.toString());
+                        broadcast(json);
                     }
                 }
             });
@@ -115,6 +118,62 @@ public class Messaging implements AtmosphereHandler { //extends AbstractReflecto
         broadcaster = resource.getBroadcaster();
     }
 
+    /**
+     * Hands the message to the {@link MessagingEventCoalescer}, which finds its recipients in the subscription index
+     * once for all connections.
+     */
+    private void broadcast(JSONObject json) {
+        String type = json.optString("type", null);
+        if (TYPE_USER_WORKSPACE_CHANGE.equals(type)) {
+            JSONObject data = json.optJSONObject("data");
+            if (data != null) {
+                subscriptionIndex.setCurrentWorkspace(data.optString("id", null), data.optString("workspaceId", null));
+            }
+        }
+        if (MessagingFilter.isInternalType(type)) {
+            return;
+        }
+        if (MessagingFilter.TYPE_SESSION_EXPIRATION.equals(type)) {
+            // not delayed by the coalescer, the resources of the expired session are still in the subscription index
+            send(new BroadcastMessage(json, subscriptionIndex.getRecipientUuids(json.optJSONObject("permissions"))));
+            return;
+        }
+
+        eventCoalescer.add(json);
+    }
+
+    /**
+     * When all of the recipients are connected by websocket the message is only delivered to them, otherwise it is
+     * sent to every resource and {@link MessagingFilter} drops it for those which are not recipients.
+     */
+    private void send(BroadcastMessage message) {
+        if (broadcaster == null) {
+            return;
+        }
+        Set<AtmosphereResource> recipients = findWebSocketResources(message.getRecipientUuids());
+        if (recipients == null) {
+            broadcaster.broadcast(message);
+        } else if (recipients.size() > 0) {
+            broadcaster.broadcast(message, recipients);
+        }
+    }
+
+    /**
+     * @return the resources or null if one of them is not connected by websocket.
+     */
+    private Set<AtmosphereResource> findWebSocketResources(Set<String> uuids) {
+        AtmosphereResourceFactory resourceFactory = broadcaster.getBroadcasterConfig().getAtmosphereConfig().resourcesFactory();
+        Set<AtmosphereResource> resources = new HashSet<>();
+        for (String uuid : uuids) {
+            AtmosphereResource resource = resourceFactory.find(uuid);
+            if (resource == null || resource.transport() != AtmosphereResource.TRANSPORT.WEBSOCKET) {
+                return null;
+            }
+            resources.add(resource);
+        }
+        return resources;
+    }
+
     @Override
     public void destroy() {
         LOGGER.debug("destroy");
@@ -126,15 +185,15 @@ public class Messaging implements AtmosphereHandler { //extends AbstractReflecto
         AtmosphereResponse response = ((AtmosphereResourceImpl) event.getResource()).getResponse(false);
 
         if (event.getMessage() != null && List.class.isAssignableFrom(event.getMessage().getClass())) {
-            List<String> messages = List.class.cast(event.getMessage());
-            for (String t : messages) {
-                onMessage(event, response, t);
+            List<?> messages = List.class.cast(event.getMessage());
+            for (Object t : messages) {
+                onMessage(event, response, t == null ? null : t.toString());
             }
 
         } else if (event.isClosedByApplication() || event.isClosedByClient() || event.isCancelled()) {
             onDisconnect(event, response);
         } else if (event.isSuspended()) {
-            onMessage(event, response, (String) event.getMessage());
+            onMessage(event, response, event.getMessage() == null ? null : event.getMessage().toString());
         } else if (event.isResuming()) {
             onResume(event, response);
         } else if (event.isResumedOnTimeout()) {
@@ -145,6 +204,17 @@ public class Messaging implements AtmosphereHandler { //extends AbstractReflecto
     public void onOpen(AtmosphereResource resource) throws IOException {
         setStatus(resource, UserStatus.ACTIVE);
         incrementUserSessionCount(resource);
+        subscribe(resource);
+    }
+
+    private void subscribe(AtmosphereResource resource) {
+        HttpSession session = resource.getRequest().getSession();
+        String userId = getCurrentUserId(resource);
+        if (session == null || userId == null) {
+            return;
+        }
+        String workspaceId = userRepository.getCurrentWorkspaceId(userId);
+        subscriptionIndex.add(resource.uuid(), userId, session.getId(), workspaceId);
     }
 
     public void onResume(AtmosphereResourceEvent event, AtmosphereResponse response) throws IOException {
@@ -164,6 +234,8 @@ public class Messaging implements AtmosphereHandler { //extends AbstractReflecto
     }
 
     private void onDisconnectOrClose(AtmosphereResourceEvent event) {
+        subscriptionIndex.remove(event.getResource().uuid());
+
         // If POST /logout was called first the session will be invalidated.
         if (event.getResource().getRequest().getSession() == null) {
             return;
@@ -286,6 +358,16 @@ public class Messaging implements AtmosphereHandler { //extends AbstractReflecto
         this.userSessionCounterRepository = userSessionCounterRepository;
     }
 
+    @Inject
+    public void setSubscriptionIndex(MessagingSubscriptionIndex subscriptionIndex) {
+        this.subscriptionIndex = subscriptionIndex;
+    }
+
+    @Inject
+    public void setEventCoalescer(MessagingEventCoalescer eventCoalescer) {
+        this.eventCoalescer = eventCoalescer;
+    }
+
     @Inject
     public void setMetricsManager(JmxMetricsManager metricsManager) {
         String namePrefix = metricsManager.getNamePrefix(this);
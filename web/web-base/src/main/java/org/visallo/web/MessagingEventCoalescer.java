@@ -0,0 +1,212 @@
+package org.visallo.web;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.visallo.core.config.Configuration;
+import org.visallo.core.status.JmxMetricsManager;
+import org.visallo.core.util.VisalloLogger;
+import org.visallo.core.util.VisalloLoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Coalesces the broadcast events sent to the clients once for all connections, before they are fanned out.
+ * <p/>
+ * The first event after a quiet window is sent right away, the events which follow are held until the window ends.
+ * Events about the same element in the same workspace with the same type and permissions supersede each other, so
+ * only the latest is sent in the place of the first, and identical events without an element are only sent once.
+ * Publish events also need the same publish and object type to supersede each other. When the window ends the
+ * recipients of every event are looked up in the {@link MessagingSubscriptionIndex} and the connections receiving
+ * the same events get the same <code>batch</code> frame.
+ */
+@Singleton
+public class MessagingEventCoalescer {
+    private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(MessagingEventCoalescer.class);
+    public static final String CONFIG_MAX_PENDING_EVENTS = MessagingEventCoalescer.class.getName() + ".maxPendingEvents";
+    public static final int DEFAULT_MAX_PENDING_EVENTS = 10000;
+    public static final String TYPE_BATCH = "batch";
+    private final MessagingSubscriptionIndex subscriptionIndex;
+    private final long windowMillis;
+    private final int maxPendingEvents;
+    private final Counter eventsInCounter;
+    private final Counter framesOutCounter;
+    private final Histogram batchSizeHistogram;
+    private final ScheduledExecutorService scheduler;
+    private LinkedHashMap<String, JSONObject> pendingEvents = new LinkedHashMap<>();
+    private long lastFlushTime;
+    private boolean flushScheduled;
+    private volatile Consumer<BroadcastMessage> sender;
+
+    @Inject
+    public MessagingEventCoalescer(
+            Configuration configuration,
+            JmxMetricsManager metricsManager,
+            MessagingSubscriptionIndex subscriptionIndex
+    ) {
+        this.subscriptionIndex = subscriptionIndex;
+        this.windowMillis = configuration.getInt(WebConfiguration.THROTTLE_MESSAGING_SECONDS, 2) * 1000L;
+        this.maxPendingEvents = configuration.getInt(CONFIG_MAX_PENDING_EVENTS, DEFAULT_MAX_PENDING_EVENTS);
+        String namePrefix = metricsManager.getNamePrefix(this);
+        this.eventsInCounter = metricsManager.counter(namePrefix + "eventsIn");
+        this.framesOutCounter = metricsManager.counter(namePrefix + "framesOut");
+        this.batchSizeHistogram = metricsManager.histogram(namePrefix + "batchSize");
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "visallo-messaging-coalescer");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * @param sender delivers the frames to the connections.
+     */
+    public void setSender(Consumer<BroadcastMessage> sender) {
+        this.sender = sender;
+    }
+
+    public void add(JSONObject json) {
+        eventsInCounter.inc();
+        if (windowMillis <= 0) {
+            deliver(Collections.singletonList(json));
+            return;
+        }
+
+        List<JSONObject> flushEvents = null;
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            if (pendingEvents.isEmpty() && now - lastFlushTime >= windowMillis) {
+                lastFlushTime = now;
+                flushEvents = Collections.singletonList(json);
+            } else {
+                // the latest event takes the place of the one it supersedes, keeping the order of the batch
+                pendingEvents.put(getCoalesceKey(json), json);
+                if (pendingEvents.size() >= maxPendingEvents) {
+                    flushEvents = takePendingEvents(now);
+                } else if (!flushScheduled) {
+                    flushScheduled = true;
+                    scheduler.schedule(this::flush, Math.max(0, lastFlushTime + windowMillis - now), TimeUnit.MILLISECONDS);
+                }
+            }
+        }
+        if (flushEvents != null) {
+            deliver(flushEvents);
+        }
+    }
+
+    void flush() {
+        List<JSONObject> events;
+        synchronized (this) {
+            flushScheduled = false;
+            events = takePendingEvents(System.currentTimeMillis());
+        }
+        try {
+            deliver(events);
+        } catch (Exception ex) {
+            LOGGER.error("Could not send %d messages", events.size(), ex);
+        }
+    }
+
+    private List<JSONObject> takePendingEvents(long now) {
+        List<JSONObject> events = new ArrayList<>(pendingEvents.values());
+        pendingEvents = new LinkedHashMap<>();
+        lastFlushTime = now;
+        return events;
+    }
+
+    private void deliver(List<JSONObject> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        Consumer<BroadcastMessage> sender = this.sender;
+        if (sender == null) {
+            LOGGER.warn("no sender, dropping %d messages", events.size());
+            return;
+        }
+        if (events.size() == 1) {
+            JSONObject json = events.get(0);
+            send(sender, json, subscriptionIndex.getRecipientUuids(json.optJSONObject("permissions")), 1);
+            return;
+        }
+
+        // group the connections receiving the same events so each group's frame is only built once
+        Map<String, List<Integer>> eventIndexesByUuid = new HashMap<>();
+        for (int i = 0; i < events.size(); i++) {
+            for (String uuid : subscriptionIndex.getRecipientUuids(events.get(i).optJSONObject("permissions"))) {
+                eventIndexesByUuid.computeIfAbsent(uuid, k -> new ArrayList<>()).add(i);
+            }
+        }
+        Map<List<Integer>, Set<String>> uuidsByEventIndexes = new HashMap<>();
+        for (Map.Entry<String, List<Integer>> entry : eventIndexesByUuid.entrySet()) {
+            uuidsByEventIndexes.computeIfAbsent(entry.getValue(), k -> new HashSet<>()).add(entry.getKey());
+        }
+
+        for (Map.Entry<List<Integer>, Set<String>> entry : uuidsByEventIndexes.entrySet()) {
+            List<Integer> eventIndexes = entry.getKey();
+            if (eventIndexes.size() == 1) {
+                send(sender, events.get(eventIndexes.get(0)), entry.getValue(), 1);
+                continue;
+            }
+            JSONArray data = new JSONArray();
+            for (Integer eventIndex : eventIndexes) {
+                data.put(events.get(eventIndex));
+            }
+            JSONObject batch = new JSONObject();
+            batch.put("type", TYPE_BATCH);
+            batch.put("data", data);
+            send(sender, batch, entry.getValue(), eventIndexes.size());
+        }
+    }
+
+    private void send(Consumer<BroadcastMessage> sender, JSONObject json, Set<String> recipientUuids, int eventCount) {
+        if (recipientUuids.isEmpty()) {
+            return;
+        }
+        sender.accept(new BroadcastMessage(json, recipientUuids));
+        framesOutCounter.inc();
+        batchSizeHistogram.update(eventCount);
+    }
+
+    /**
+     * Events about the same element in the same workspace with the same type, publish type, object type and
+     * permissions share a key, other events are keyed by their content.
+     */
+    static String getCoalesceKey(JSONObject json) {
+        JSONObject data = json.optJSONObject("data");
+        String elementId = null;
+        String workspaceId = json.optString("workspaceId", null);
+        String publishType = null;
+        String objectType = null;
+        if (data != null) {
+            elementId = data.optString("graphVertexId", null);
+            if (elementId == null) {
+                elementId = data.optString("graphEdgeId", null);
+            }
+            if (elementId == null) {
+                elementId = data.optString("edgeId", null);
+            }
+            if (workspaceId == null) {
+                workspaceId = data.optString("workspaceId", null);
+            }
+            publishType = data.optString("publishType", null);
+            objectType = data.optString("objectType", null);
+        }
+        if (elementId == null) {
+            return "message\u001f" + json.toString();
+        }
+        JSONObject permissions = json.optJSONObject("permissions");
+        return "element\u001f" + json.optString("type", null)
+                + '\u001f' + workspaceId
+                + '\u001f' + elementId
+                + '\u001f' + publishType
+                + '\u001f' + objectType
+                + '\u001f' + (permissions == null ? "" : permissions.toString());
+    }
+}
@@ -7,6 +7,8 @@ import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 import org.visallo.core.bootstrap.InjectHelper;
+import org.visallo.core.model.search.ConceptTypeCountCache;
+import org.visallo.core.model.search.SearchResultCache;
 import org.visallo.core.model.user.UserRepository;
 import org.visallo.core.util.JSONUtil;
 import org.visallo.core.util.VisalloLogger;
@@ -35,6 +37,13 @@ public class MessagingFilter implements PerRequestBroadcastFilter {
             if (message == null || r.isCancelled()) {
                 return new BroadcastAction(BroadcastAction.ACTION.ABORT, null);
             }
+            if (message instanceof BroadcastMessage) {
+                if (shouldSendMessage((BroadcastMessage) message, r.uuid(), r.getRequest().getSession())) {
+                    return new BroadcastAction(message);
+                } else {
+                    return new BroadcastAction(BroadcastAction.ACTION.ABORT, message);
+                }
+            }
             JSONObject json = new JSONObject(message.toString());
 
             if (shouldSendMessage(json, r.getRequest().getSession())) {
@@ -49,24 +58,57 @@ public class MessagingFilter implements PerRequestBroadcastFilter {
     }
 
     boolean shouldSendMessage(JSONObject json, HttpSession session) {
-        String type = json.optString("type", null);
-        if (type != null) {
-            switch (type) {
-                case TYPE_SET_ACTIVE_WORKSPACE:
-                    return false;
-                case TYPE_SESSION_EXPIRATION:
-                    if (session == null) {
-                        return true;
-                    }
-                    break;
-            }
+        Boolean shouldSendType = shouldSendMessageType(json.optString("type", null), session);
+        if (shouldSendType != null) {
+            return shouldSendType;
         }
+        return shouldSendMessageByPermissions(json, session);
+    }
 
-        if (session == null) {
+    /**
+     * The recipients of broadcast messages were already found from their permissions by
+     * {@link MessagingSubscriptionIndex}, so a resource which is not one of them is never sent the message, even a
+     * session expiration.
+     */
+    boolean shouldSendMessage(BroadcastMessage message, String uuid, HttpSession session) {
+        if (!message.isRecipient(uuid)) {
             return false;
         }
+        Boolean shouldSendType = shouldSendMessageType(message.getType(), session);
+        if (shouldSendType != null) {
+            return shouldSendType;
+        }
+        return true;
+    }
 
-        return shouldSendMessageByPermissions(json, session);
+    /**
+     * @return whether to send the message or null if it depends on the message permissions.
+     */
+    private Boolean shouldSendMessageType(String type, HttpSession session) {
+        if (isInternalType(type)) {
+            return false;
+        }
+        if (session == null) {
+            return TYPE_SESSION_EXPIRATION.equals(type);
+        }
+        return null;
+    }
+
+    /**
+     * Messages of these types are only used by the web servers and are never sent to the clients.
+     */
+    public static boolean isInternalType(String type) {
+        if (type == null) {
+            return false;
+        }
+        switch (type) {
+            case TYPE_SET_ACTIVE_WORKSPACE:
+            case ConceptTypeCountCache.BROADCAST_TYPE:
+            case SearchResultCache.BROADCAST_TYPE:
+                return true;
+            default:
+                return false;
+        }
     }
 
     private boolean shouldSendMessageByPermissions(JSONObject json, HttpSession session) {
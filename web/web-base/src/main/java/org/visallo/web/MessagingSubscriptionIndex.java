@@ -0,0 +1,166 @@
+package org.visallo.web;
+
+import com.google.inject.Singleton;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Indexes the connected messaging resources by user, session and current workspace so the recipients of a broadcast
+ * can be found from its <code>permissions</code> without checking every connection.
+ */
+@Singleton
+public class MessagingSubscriptionIndex {
+    private final Map<String, Subscription> subscriptionsByUuid = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> uuidsByUserId = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> uuidsBySessionId = new ConcurrentHashMap<>();
+    private final Map<String, String> workspaceIdsByUserId = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> userIdsByWorkspaceId = new ConcurrentHashMap<>();
+
+    public synchronized void add(String uuid, String userId, String sessionId, String workspaceId) {
+        checkNotNull(uuid, "uuid is required");
+        checkNotNull(userId, "userId is required");
+        checkNotNull(sessionId, "sessionId is required");
+        remove(uuid);
+        subscriptionsByUuid.put(uuid, new Subscription(userId, sessionId));
+        addToIndex(uuidsByUserId, userId, uuid);
+        addToIndex(uuidsBySessionId, sessionId, uuid);
+        if (workspaceId != null) {
+            setCurrentWorkspace(userId, workspaceId);
+        }
+    }
+
+    public synchronized void remove(String uuid) {
+        Subscription subscription = subscriptionsByUuid.remove(uuid);
+        if (subscription == null) {
+            return;
+        }
+        removeFromIndex(uuidsByUserId, subscription.userId, uuid);
+        removeFromIndex(uuidsBySessionId, subscription.sessionId, uuid);
+        if (!uuidsByUserId.containsKey(subscription.userId)) {
+            String workspaceId = workspaceIdsByUserId.remove(subscription.userId);
+            if (workspaceId != null) {
+                removeFromIndex(userIdsByWorkspaceId, workspaceId, subscription.userId);
+            }
+        }
+    }
+
+    /**
+     * Records the user's current workspace, ignored if the user has no connected resources.
+     */
+    public synchronized void setCurrentWorkspace(String userId, String workspaceId) {
+        if (userId == null || !uuidsByUserId.containsKey(userId)) {
+            return;
+        }
+        String previousWorkspaceId = workspaceId == null
+                ? workspaceIdsByUserId.remove(userId)
+                : workspaceIdsByUserId.put(userId, workspaceId);
+        if (previousWorkspaceId != null) {
+            removeFromIndex(userIdsByWorkspaceId, previousWorkspaceId, userId);
+        }
+        if (workspaceId != null) {
+            addToIndex(userIdsByWorkspaceId, workspaceId, userId);
+        }
+    }
+
+    /**
+     * Finds the resources a message with the permissions is sent to. Every restriction in the permissions has to
+     * match, as in {@link MessagingFilter}.
+     *
+     * @param permissionsJson the <code>permissions</code> of the message, null if it has none.
+     * @return the uuids of the resources.
+     */
+    public Set<String> getRecipientUuids(JSONObject permissionsJson) {
+        Set<String> userIds = toSet(permissionsJson == null ? null : permissionsJson.optJSONArray("users"));
+        Set<String> sessionIds = toSet(permissionsJson == null ? null : permissionsJson.optJSONArray("sessionIds"));
+        Set<String> workspaceIds = toSet(permissionsJson == null ? null : permissionsJson.optJSONArray("workspaces"));
+
+        // start from the most selective restriction
+        Set<String> candidateUuids = new HashSet<>();
+        if (sessionIds != null) {
+            addAllFromIndex(candidateUuids, uuidsBySessionId, sessionIds);
+        } else if (userIds != null) {
+            addAllFromIndex(candidateUuids, uuidsByUserId, userIds);
+        } else if (workspaceIds != null) {
+            Set<String> workspaceUserIds = new HashSet<>();
+            addAllFromIndex(workspaceUserIds, userIdsByWorkspaceId, workspaceIds);
+            addAllFromIndex(candidateUuids, uuidsByUserId, workspaceUserIds);
+        } else {
+            return new HashSet<>(subscriptionsByUuid.keySet());
+        }
+
+        Set<String> recipientUuids = new HashSet<>();
+        for (String uuid : candidateUuids) {
+            Subscription subscription = subscriptionsByUuid.get(uuid);
+            if (subscription == null) {
+                continue;
+            }
+            if (userIds != null && !userIds.contains(subscription.userId)) {
+                continue;
+            }
+            if (sessionIds != null && !sessionIds.contains(subscription.sessionId)) {
+                continue;
+            }
+            if (workspaceIds != null) {
+                String workspaceId = workspaceIdsByUserId.get(subscription.userId);
+                if (workspaceId == null || !workspaceIds.contains(workspaceId)) {
+                    continue;
+                }
+            }
+            recipientUuids.add(uuid);
+        }
+        return recipientUuids;
+    }
+
+    public int size() {
+        return subscriptionsByUuid.size();
+    }
+
+    private static Set<String> toSet(JSONArray array) {
+        if (array == null) {
+            return null;
+        }
+        Set<String> results = new HashSet<>();
+        for (int i = 0; i < array.length(); i++) {
+            results.add(array.optString(i));
+        }
+        return results;
+    }
+
+    private static void addAllFromIndex(Set<String> results, Map<String, Set<String>> index, Set<String> keys) {
+        for (String key : keys) {
+            Set<String> values = index.get(key);
+            if (values != null) {
+                results.addAll(values);
+            }
+        }
+    }
+
+    private static void addToIndex(Map<String, Set<String>> index, String key, String value) {
+        index.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(value);
+    }
+
+    private static void removeFromIndex(Map<String, Set<String>> index, String key, String value) {
+        Set<String> values = index.get(key);
+        if (values != null) {
+            values.remove(value);
+            if (values.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    private static class Subscription {
+        private final String userId;
+        private final String sessionId;
+
+        public Subscription(String userId, String sessionId) {
+            this.userId = userId;
+            this.sessionId = sessionId;
+        }
+    }
+}
@@ -10,7 +10,9 @@ import org.json.JSONObject;
 import org.visallo.core.config.Configuration;
 import org.visallo.core.exception.VisalloAccessDeniedException;
 import org.visallo.core.exception.VisalloException;
+import org.visallo.core.exception.VisalloInvalidParameterException;
 import org.visallo.core.exception.VisalloResourceNotFoundException;
+import org.visallo.core.exception.VisalloServiceUnavailableException;
 import org.visallo.core.geocoding.DefaultGeocoderRepository;
 import org.visallo.core.geocoding.GeocoderRepository;
 import org.visallo.core.trace.Trace;
@@ -23,6 +25,7 @@ import org.visallo.web.routes.Index;
 import org.visallo.web.routes.admin.AdminList;
 import org.visallo.web.routes.admin.AdminUploadOntology;
 import org.visallo.web.routes.admin.PluginList;
+import org.visallo.web.routes.batch.Batch;
 import org.visallo.web.routes.dashboard.*;
 import org.visallo.web.routes.directory.DirectoryGet;
 import org.visallo.web.routes.directory.DirectorySearch;
@@ -89,6 +92,9 @@ public class Router extends HttpServlet {
 
             app.get("/ontology", authenticator, csrfProtector, ReadPrivilegeFilter.class, Ontology.class);
 
+            // the requests of a batch go through the filters of their own routes
+            app.post(Batch.PATH, authenticator, csrfProtector, Batch.class);
+
             app.get("/notification/all", authenticator, csrfProtector, ReadPrivilegeFilter.class, Notifications.class);
             app.post("/notification/mark-read", authenticator, csrfProtector, ReadPrivilegeFilter.class, UserNotificationMarkRead.class);
             app.post("/notification/system", authenticator, csrfProtector, AdminPrivilegeFilter.class, SystemNotificationSave.class);
@@ -283,19 +289,7 @@ public class Router extends HttpServlet {
 
     private void handleException(HttpServletRequest request, HttpServletResponse response, Throwable e)
             throws IOException, ServletException {
-        if (e.getCause() instanceof VisalloResourceNotFoundException) {
-            handleNotFound(response, (VisalloResourceNotFoundException) e.getCause());
-            return;
-        }
-        if (e.getCause() instanceof BadRequestException) {
-            handleBadRequest(response, (BadRequestException) e.getCause());
-            return;
-        }
-        if (e.getCause() instanceof VisalloAccessDeniedException) {
-            handleAccessDenied(response, (VisalloAccessDeniedException) e.getCause());
-            return;
-        }
-        if (handleIllegalState(request, response, e)) {
+        if (handleRequestException(request, response, e)) {
             return;
         }
 
@@ -308,7 +302,40 @@ public class Router extends HttpServlet {
         }
     }
 
-    private boolean handleIllegalState(HttpServletRequest request, HttpServletResponse response, Throwable e) throws IOException {
+    /**
+     * Writes the response for the exceptions routes throw to reject a request.
+     *
+     * @return false if the exception is not one of them and still needs to be handled.
+     */
+    public static boolean handleRequestException(HttpServletRequest request, HttpServletResponse response, Throwable e)
+            throws IOException {
+        // exceptions from handlers can come wrapped or not depending on how the handler was called
+        Throwable cause = e.getCause() == null ? e : e.getCause();
+        if (cause instanceof VisalloResourceNotFoundException) {
+            handleNotFound(response, (VisalloResourceNotFoundException) cause);
+            return true;
+        }
+        if (cause instanceof BadRequestException) {
+            handleBadRequest(response, (BadRequestException) cause);
+            return true;
+        }
+        if (cause instanceof VisalloInvalidParameterException) {
+            VisalloInvalidParameterException invalidParameter = (VisalloInvalidParameterException) cause;
+            handleBadRequest(response, new BadRequestException(invalidParameter.getParameterName(), invalidParameter.getMessage()));
+            return true;
+        }
+        if (cause instanceof VisalloAccessDeniedException) {
+            handleAccessDenied(response, (VisalloAccessDeniedException) cause);
+            return true;
+        }
+        if (cause instanceof VisalloServiceUnavailableException) {
+            handleServiceUnavailable(response, (VisalloServiceUnavailableException) cause);
+            return true;
+        }
+        return handleIllegalState(request, response, e);
+    }
+
+    private static boolean handleIllegalState(HttpServletRequest request, HttpServletResponse response, Throwable e) throws IOException {
         boolean isMultipart = request.getContentType() != null && request.getContentType().startsWith("multipart/");
         if (isMultipart) {
             String TOMCAT_MAX_REQUEST_MESSAGE = "$SizeLimitExceededException";
@@ -333,15 +360,20 @@ public class Router extends HttpServlet {
         return false;
     }
 
-    private void handleAccessDenied(HttpServletResponse response, VisalloAccessDeniedException accessDenied) throws IOException {
+    private static void handleAccessDenied(HttpServletResponse response, VisalloAccessDeniedException accessDenied) throws IOException {
         response.sendError(HttpServletResponse.SC_FORBIDDEN, accessDenied.getMessage());
     }
 
-    private void handleNotFound(HttpServletResponse response, VisalloResourceNotFoundException notFoundException) throws IOException {
+    private static void handleServiceUnavailable(HttpServletResponse response, VisalloServiceUnavailableException serviceUnavailableException) throws IOException {
+        LOGGER.warn("service unavailable: %s", serviceUnavailableException.getMessage());
+        response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, serviceUnavailableException.getMessage());
+    }
+
+    private static void handleNotFound(HttpServletResponse response, VisalloResourceNotFoundException notFoundException) throws IOException {
         response.sendError(HttpServletResponse.SC_NOT_FOUND, notFoundException.getMessage());
     }
 
-    private void handleBadRequest(HttpServletResponse response, BadRequestException badRequestException) {
+    private static void handleBadRequest(HttpServletResponse response, BadRequestException badRequestException) {
         LOGGER.error("bad request", badRequestException);
         JSONObject error = new JSONObject();
         error.put(badRequestException.getParameterName(), badRequestException.getMessage());
@@ -0,0 +1,25 @@
+package org.visallo.web;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.visallo.web.clientapi.model.ClientApiElement;
+import org.visallo.web.clientapi.model.ClientApiObject;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * A response which converts and writes its elements one at a time instead of building the whole response before
+ * it is serialized. {@link VisalloDefaultResultWriterFactory} writes these responses with {@link #writeJson} and
+ * closes them afterwards.
+ */
+public interface StreamingClientApiObject extends ClientApiObject, AutoCloseable {
+    /**
+     * @param prepareElement called with every element before it is written, used to append the ACL.
+     */
+    void writeJson(
+            JsonGenerator jsonGenerator,
+            ObjectMapper objectMapper,
+            Consumer<ClientApiElement> prepareElement
+    ) throws IOException;
+}
@@ -0,0 +1,153 @@
+package org.visallo.web;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.google.common.collect.Iterators;
+import org.vertexium.Element;
+import org.visallo.core.exception.VisalloException;
+import org.visallo.web.clientapi.model.ClientApiElement;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * The elements of a {@link StreamingClientApiObject}, converted to client API objects while they are written.
+ * <p/>
+ * Reading the list before it is written converts all of the elements, so handlers and tests can still inspect
+ * the response. The source is closed once it has been read. Elements can be converted in batches so conversions which
+ * read more data from the graph can do it once per batch.
+ */
+public class StreamingElementList<TElement extends Element, TClientApi extends ClientApiElement> implements AutoCloseable {
+    public static final int DEFAULT_BATCH_SIZE = 100;
+    private final Iterable<? extends TElement> source;
+    private final Function<List<TElement>, List<TClientApi>> batchConverter;
+    private final int batchSize;
+    private final AutoCloseable closeable;
+    private List<TClientApi> converted;
+    private boolean closed;
+
+    /**
+     * @param closeable closed after the source has been read, can be null.
+     */
+    public StreamingElementList(
+            Iterable<? extends TElement> source,
+            Function<TElement, TClientApi> converter,
+            AutoCloseable closeable
+    ) {
+        this(
+                source,
+                1,
+                batch -> batch.stream().map(converter).collect(Collectors.toList()),
+                closeable
+        );
+    }
+
+    /**
+     * @param batchConverter converts up to batchSize elements at a time, returning them in the same order.
+     * @param closeable      closed after the source has been read, can be null.
+     */
+    public StreamingElementList(
+            Iterable<? extends TElement> source,
+            int batchSize,
+            Function<List<TElement>, List<TClientApi>> batchConverter,
+            AutoCloseable closeable
+    ) {
+        this.source = source;
+        this.batchSize = batchSize;
+        this.batchConverter = batchConverter;
+        this.closeable = closeable;
+    }
+
+    /**
+     * Adds all of the elements to the list. The elements are converted on the first call, later calls add the same
+     * converted elements again.
+     */
+    public void addAllTo(List<TClientApi> list) {
+        if (converted == null) {
+            List<TClientApi> results = new ArrayList<>();
+            try {
+                Iterator<TClientApi> elements = convert();
+                while (elements.hasNext()) {
+                    results.add(elements.next());
+                }
+            } finally {
+                close();
+            }
+            converted = results;
+        }
+        list.addAll(converted);
+    }
+
+    /**
+     * Writes the elements as an array field.
+     *
+     * @return the number of elements written.
+     */
+    public int write(
+            JsonGenerator jsonGenerator,
+            ObjectMapper objectMapper,
+            String fieldName,
+            Consumer<ClientApiElement> prepareElement
+    ) throws IOException {
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        jsonGenerator.writeArrayFieldStart(fieldName);
+        int count = 0;
+        try {
+            Iterator<TClientApi> elements = converted == null ? convert() : converted.iterator();
+            while (elements.hasNext()) {
+                TClientApi clientApiElement = elements.next();
+                prepareElement.accept(clientApiElement);
+                writer.writeValue(jsonGenerator, clientApiElement);
+                count++;
+            }
+        } finally {
+            close();
+        }
+        jsonGenerator.writeEndArray();
+        return count;
+    }
+
+    private Iterator<TClientApi> convert() {
+        return Iterators.concat(Iterators.transform(
+                Iterators.partition(source.iterator(), batchSize),
+                batch -> batchConverter.apply(Collections.unmodifiableList(batch)).iterator()
+        ));
+    }
+
+    /**
+     * Writes the fields of the rest of the response, skipping the streamed fields.
+     */
+    public static void writeFields(JsonGenerator jsonGenerator, JsonNode node, String... skipFieldNames) throws IOException {
+        Set<String> skip = new HashSet<>(Arrays.asList(skipFieldNames));
+        Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            if (skip.contains(field.getKey())) {
+                continue;
+            }
+            jsonGenerator.writeFieldName(field.getKey());
+            jsonGenerator.writeTree(field.getValue());
+        }
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (Exception ex) {
+                throw new VisalloException("Could not close streamed elements", ex);
+            }
+        }
+    }
+}
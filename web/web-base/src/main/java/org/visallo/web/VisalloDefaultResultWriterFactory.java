@@ -1,7 +1,10 @@
 package org.visallo.web;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.inject.Inject;
+import com.v5analytics.webster.HandlerChain;
 import com.v5analytics.webster.resultWriters.ResultWriter;
 import com.v5analytics.webster.resultWriters.ResultWriterBase;
 import com.v5analytics.webster.resultWriters.ResultWriterFactory;
@@ -20,14 +23,20 @@ import org.visallo.web.parameterProviders.VisalloBaseParameterProvider;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.io.IOException;
-import java.io.InputStream;
+import java.io.*;
 import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
 
 public class VisalloDefaultResultWriterFactory implements ResultWriterFactory {
     public static final String WEB_RESPONSE_HEADER_X_FRAME_OPTIONS = "web.response.header.X-Frame-Options";
     public static final String WEB_RESPONSE_HEADER_X_FRAME_OPTIONS_DEFAULT = "DENY";
+    public static final String WEB_RESPONSE_COMPRESSION_ENABLED = "web.response.compression.enabled";
+    public static final boolean WEB_RESPONSE_COMPRESSION_ENABLED_DEFAULT = true;
+    public static final String WEB_RESPONSE_COMPRESSION_MIN_SIZE_BYTES = "web.response.compression.minSizeBytes";
+    public static final int WEB_RESPONSE_COMPRESSION_MIN_SIZE_BYTES_DEFAULT = 1024;
     private final String responseHeaderXFrameOptions;
+    private final boolean compressionEnabled;
+    private final int compressionMinSizeBytes;
     private ACLProvider aclProvider;
     private UserRepository userRepository;
 
@@ -40,6 +49,8 @@ public class VisalloDefaultResultWriterFactory implements ResultWriterFactory {
         this.aclProvider = aclProvider;
         this.userRepository = userRepository;
         this.responseHeaderXFrameOptions = configuration.get(WEB_RESPONSE_HEADER_X_FRAME_OPTIONS, WEB_RESPONSE_HEADER_X_FRAME_OPTIONS_DEFAULT);
+        this.compressionEnabled = configuration.getBoolean(WEB_RESPONSE_COMPRESSION_ENABLED, WEB_RESPONSE_COMPRESSION_ENABLED_DEFAULT);
+        this.compressionMinSizeBytes = configuration.getInt(WEB_RESPONSE_COMPRESSION_MIN_SIZE_BYTES, WEB_RESPONSE_COMPRESSION_MIN_SIZE_BYTES_DEFAULT);
     }
 
     @Override
@@ -63,10 +74,23 @@ public class VisalloDefaultResultWriterFactory implements ResultWriterFactory {
                 return super.getContentType(handleMethod);
             }
 
+            @Override
+            public void write(Object result, HttpServletRequest request, HttpServletResponse response, HandlerChain chain)
+                    throws Exception {
+                // handlers return null when they have already answered a conditional request with a 304
+                if (result == null && isNotModified(response)) {
+                    return;
+                }
+                super.write(result, request, response, chain);
+            }
+
             @Override
             protected void writeResult(HttpServletRequest request, HttpServletResponse response, Object result)
                     throws IOException {
                 if (result != null) {
+                    if (isNotModified(response)) {
+                        return;
+                    }
                     if (!response.containsHeader("X-Frame-Options")) {
                         response.addHeader("X-Frame-Options", responseHeaderXFrameOptions);
                     }
@@ -75,11 +99,18 @@ public class VisalloDefaultResultWriterFactory implements ResultWriterFactory {
                     }
                     response.setCharacterEncoding("UTF-8");
                     if (resultIsClientApiObject || result instanceof JSONObject) {
-                        response.addHeader("Cache-Control", "no-cache, no-store, must-revalidate");
-                        response.addHeader("Pragma", "no-cache");
-                        response.addHeader("Expires", "0");
+                        if (response.containsHeader("ETag")) {
+                            // kept by the browser but revalidated with If-None-Match on every request
+                            response.addHeader("Cache-Control", "private, no-cache");
+                        } else {
+                            response.addHeader("Cache-Control", "no-cache, no-store, must-revalidate");
+                            response.addHeader("Pragma", "no-cache");
+                            response.addHeader("Expires", "0");
+                        }
                     }
-                    if (resultIsClientApiObject) {
+                    if (result instanceof StreamingClientApiObject) {
+                        writeStreamingClientApiObject(request, response, (StreamingClientApiObject) result);
+                    } else if (resultIsClientApiObject) {
                         ClientApiObject clientApiObject = (ClientApiObject) result;
                         User user = VisalloBaseParameterProvider.getUser(request, userRepository);
                         try (TraceSpan ignored = Trace.start("aclProvider.appendACL")) {
@@ -91,7 +122,9 @@ public class VisalloDefaultResultWriterFactory implements ResultWriterFactory {
                         } catch (JsonProcessingException e) {
                             throw new VisalloException("Could not convert clientApiObject to string", e);
                         }
-                        response.getWriter().write(jsonObject);
+                        writeJson(request, response, jsonObject);
+                    } else if (result instanceof JSONObject) {
+                        writeJson(request, response, result.toString());
                     } else if (resultIsInputStream) {
                         try (InputStream in = (InputStream) result) {
                             IOUtils.copy(in, response.getOutputStream());
@@ -105,4 +138,50 @@ public class VisalloDefaultResultWriterFactory implements ResultWriterFactory {
             }
         };
     }
+
+    private void writeStreamingClientApiObject(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            StreamingClientApiObject result
+    ) throws IOException {
+        User user = VisalloBaseParameterProvider.getUser(request, userRepository);
+        ObjectMapper objectMapper = ObjectMapperFactory.getInstance();
+        try (
+                TraceSpan ignored = Trace.start("writeStreamingClientApiObject");
+                Writer writer = createJsonWriter(request, response)
+        ) {
+            JsonGenerator jsonGenerator = objectMapper.getFactory().createGenerator(writer);
+            result.writeJson(jsonGenerator, objectMapper, aclProvider.createElementACLAppender(user));
+            jsonGenerator.flush();
+        } finally {
+            try {
+                result.close();
+            } catch (Exception ex) {
+                throw new VisalloException("Could not close " + result.getClass().getName(), ex);
+            }
+        }
+    }
+
+    private void writeJson(HttpServletRequest request, HttpServletResponse response, String json) throws IOException {
+        try (Writer writer = createJsonWriter(request, response)) {
+            writer.write(json);
+        }
+    }
+
+    /**
+     * Creates a writer of the response body, compressed if the client accepts a supported encoding and the body is
+     * bigger than the configured minimum size.
+     */
+    private Writer createJsonWriter(HttpServletRequest request, HttpServletResponse response) {
+        String encoding = null;
+        if (compressionEnabled) {
+            encoding = CompressingResponseOutputStream.negotiateEncoding(request.getHeader("Accept-Encoding"));
+        }
+        OutputStream out = new CompressingResponseOutputStream(response, encoding, compressionMinSizeBytes);
+        return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    }
+
+    private static boolean isNotModified(HttpServletResponse response) {
+        return response.getStatus() == HttpServletResponse.SC_NOT_MODIFIED;
+    }
 }
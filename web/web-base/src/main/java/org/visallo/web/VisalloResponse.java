@@ -95,14 +95,20 @@ public class VisalloResponse {
         response.setHeader("ETag", "\"" + eTag + "\"");
     }
 
+    /**
+     * Responds with 304 Not Modified when the If-None-Match header matches the ETag, either as it is or with the
+     * encoding added by {@link CompressingResponseOutputStream}.
+     *
+     * @return true if the response was sent.
+     */
     public boolean testEtagHeaders(String eTag) throws IOException {
         String ifNoneMatch = request.getHeader("If-None-Match");
         if (ifNoneMatch != null) {
             if (ifNoneMatch.startsWith("\"") && ifNoneMatch.length() > 2) {
                 ifNoneMatch = ifNoneMatch.substring(1, ifNoneMatch.length() - 1);
             }
-            if (eTag.equalsIgnoreCase(ifNoneMatch)) {
-                addETagHeader(eTag);
+            if (eTag.equalsIgnoreCase(CompressingResponseOutputStream.removeEncodingFromETag(ifNoneMatch))) {
+                addETagHeader(ifNoneMatch);
                 respondWithNotModified();
                 return true;
             }
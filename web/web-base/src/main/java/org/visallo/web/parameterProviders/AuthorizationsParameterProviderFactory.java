@@ -19,6 +19,7 @@ import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 
 public class AuthorizationsParameterProviderFactory extends ParameterProviderFactory<Authorizations> {
+    private static final String AUTHORIZATIONS_ATTRIBUTE_NAME_PREFIX = "authorizations.";
     private final ParameterProvider<Authorizations> parameterProvider;
 
     @Inject
@@ -40,6 +41,10 @@ public class AuthorizationsParameterProviderFactory extends ParameterProviderFac
         };
     }
 
+    /**
+     * The authorizations are kept in a request attribute, so requests dispatched with the attributes of another
+     * request, like the sub-requests of a batch, do not look them up again.
+     */
     public static Authorizations getAuthorizations(
             HttpServletRequest request,
             UserRepository userRepository,
@@ -51,6 +56,21 @@ public class AuthorizationsParameterProviderFactory extends ParameterProviderFac
             return null;
         }
         String workspaceId = VisalloBaseParameterProvider.getActiveWorkspaceIdOrDefault(request);
+        String attributeName = AUTHORIZATIONS_ATTRIBUTE_NAME_PREFIX + (workspaceId == null ? "" : workspaceId);
+        Authorizations authorizations = (Authorizations) request.getAttribute(attributeName);
+        if (authorizations == null) {
+            authorizations = getAuthorizations(user, workspaceId, authorizationRepository, workspaceRepository);
+            request.setAttribute(attributeName, authorizations);
+        }
+        return authorizations;
+    }
+
+    private static Authorizations getAuthorizations(
+            User user,
+            String workspaceId,
+            AuthorizationRepository authorizationRepository,
+            WorkspaceRepository workspaceRepository
+    ) {
         if (workspaceId != null) {
             try {
                 if (!workspaceRepository.hasReadPermissions(workspaceId, user)) {
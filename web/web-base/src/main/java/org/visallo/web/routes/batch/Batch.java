@@ -0,0 +1,380 @@
+package org.visallo.web.routes.batch;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.google.inject.Inject;
+import com.v5analytics.webster.App;
+import com.v5analytics.webster.ParameterizedHandler;
+import com.v5analytics.webster.annotations.Handle;
+import com.v5analytics.webster.annotations.Required;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.vertexium.Authorizations;
+import org.visallo.core.config.Configuration;
+import org.visallo.core.user.User;
+import org.visallo.core.util.VisalloLogger;
+import org.visallo.core.util.VisalloLoggerFactory;
+import org.visallo.web.BadRequestException;
+import org.visallo.web.CompressingResponseOutputStream;
+import org.visallo.web.Router;
+import org.visallo.web.VisalloDefaultResultWriterFactory;
+import org.visallo.web.clientapi.util.ObjectMapperFactory;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs many requests in one round trip. The requests are given as a JSON array in the <code>requests</code>
+ * parameter, each with an optional <code>id</code>, a <code>method</code> (GET by default), a <code>path</code>, and
+ * optional <code>parameters</code> and <code>headers</code> objects. Parameters with array values are sent as multiple
+ * values.
+ * <p/>
+ * The requests run at the same time on a bounded pool and go through the same routes, filters and result writers as
+ * if they were sent alone. The user and the authorizations are resolved once for the batch and shared by all of its
+ * requests. Responses are streamed back as they complete, each with the index of its request, its id, status,
+ * headers, body and the time it took. JSON bodies are embedded as JSON, other bodies as strings.
+ */
+public class Batch implements ParameterizedHandler {
+    private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(Batch.class);
+    public static final String PATH = "/batch";
+    public static final String CONFIG_THREADS = Batch.class.getName() + ".threads";
+    public static final int DEFAULT_THREADS = 8;
+    public static final String CONFIG_MAX_REQUESTS = Batch.class.getName() + ".maxRequests";
+    public static final int DEFAULT_MAX_REQUESTS = 50;
+    private static final int MAX_PENDING_REQUESTS = 200;
+    private final int maxRequests;
+    private final ThreadPoolExecutor executor;
+    private final boolean compressionEnabled;
+    private final int compressionMinSizeBytes;
+
+    @Inject
+    public Batch(Configuration configuration) {
+        this.maxRequests = configuration.getInt(CONFIG_MAX_REQUESTS, DEFAULT_MAX_REQUESTS);
+        this.compressionEnabled = configuration.getBoolean(
+                VisalloDefaultResultWriterFactory.WEB_RESPONSE_COMPRESSION_ENABLED,
+                VisalloDefaultResultWriterFactory.WEB_RESPONSE_COMPRESSION_ENABLED_DEFAULT
+        );
+        this.compressionMinSizeBytes = configuration.getInt(
+                VisalloDefaultResultWriterFactory.WEB_RESPONSE_COMPRESSION_MIN_SIZE_BYTES,
+                VisalloDefaultResultWriterFactory.WEB_RESPONSE_COMPRESSION_MIN_SIZE_BYTES_DEFAULT
+        );
+
+        int threads = configuration.getInt(CONFIG_THREADS, DEFAULT_THREADS);
+        this.executor = new ThreadPoolExecutor(
+                threads,
+                threads,
+                60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(MAX_PENDING_REQUESTS),
+                r -> {
+                    Thread t = new Thread(r, "visallo-batch-request");
+                    t.setDaemon(true);
+                    return t;
+                },
+                // once the pool is busy, requests run on the thread of their batch instead of queueing behind others
+                new ThreadPoolExecutor.CallerRunsPolicy()
+        );
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    @Handle
+    public void handle(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            @Required(name = "requests") String requestsJson,
+            User user,
+            Authorizations authorizations
+    ) throws Exception {
+        // the user and authorizations parameters resolve them once, the requests read them from the batch request
+        List<SubRequest> subRequests = parseRequests(new JSONArray(requestsJson));
+        App app = App.getApp(request);
+
+        long startTime = System.currentTimeMillis();
+        CompletionService<SubResult> completionService = new ExecutorCompletionService<>(executor);
+        List<SubRequestTask> tasks = new ArrayList<>();
+        try {
+            for (SubRequest subRequest : subRequests) {
+                SubRequestTask task = new SubRequestTask(app, request, response, subRequest);
+                tasks.add(task);
+                completionService.submit(task);
+            }
+            writeResults(request, response, subRequests.size(), completionService, startTime);
+        } finally {
+            // the requests read from the batch request, which the container reuses once this returns
+            for (SubRequestTask task : tasks) {
+                task.cancelOrAwait();
+            }
+        }
+    }
+
+    private void writeResults(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            int count,
+            CompletionService<SubResult> completionService,
+            long startTime
+    ) throws Exception {
+        String encoding = null;
+        if (compressionEnabled) {
+            encoding = CompressingResponseOutputStream.negotiateEncoding(request.getHeader("Accept-Encoding"));
+        }
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        response.addHeader("Cache-Control", "no-cache, no-store, must-revalidate");
+        try (
+                OutputStream out = new CompressingResponseOutputStream(response, encoding, compressionMinSizeBytes);
+                JsonGenerator jsonGenerator = ObjectMapperFactory.getInstance().getFactory().createGenerator(out, JsonEncoding.UTF8)
+        ) {
+            jsonGenerator.writeStartObject();
+            jsonGenerator.writeArrayFieldStart("responses");
+            for (int i = 0; i < count; i++) {
+                SubResult result = completionService.take().get();
+                writeResult(jsonGenerator, result);
+                jsonGenerator.flush();
+            }
+            jsonGenerator.writeEndArray();
+            jsonGenerator.writeNumberField("timeMs", System.currentTimeMillis() - startTime);
+            jsonGenerator.writeEndObject();
+        }
+    }
+
+    private List<SubRequest> parseRequests(JSONArray requestsJson) {
+        if (requestsJson.length() > maxRequests) {
+            throw new BadRequestException("requests", "A batch can have at most " + maxRequests + " requests");
+        }
+        List<SubRequest> subRequests = new ArrayList<>();
+        for (int i = 0; i < requestsJson.length(); i++) {
+            JSONObject requestJson = requestsJson.getJSONObject(i);
+            String path = requestJson.optString("path", null);
+            if (path == null || !path.startsWith("/")) {
+                throw new BadRequestException("requests", "Request " + i + " needs a path starting with /");
+            }
+            Map<String, String[]> parameters = new LinkedHashMap<>();
+            int queryStart = path.indexOf('?');
+            if (queryStart >= 0) {
+                parseQueryString(path.substring(queryStart + 1), parameters);
+                path = path.substring(0, queryStart);
+            }
+            if (PATH.equals(path)) {
+                throw new BadRequestException("requests", "Batches can not be nested");
+            }
+            JSONObject parametersJson = requestJson.optJSONObject("parameters");
+            if (parametersJson != null && parametersJson.length() > 0) {
+                for (String name : JSONObject.getNames(parametersJson)) {
+                    parameters.put(name, toParameterValues(parametersJson.get(name)));
+                }
+            }
+            Map<String, String> headers = new HashMap<>();
+            JSONObject headersJson = requestJson.optJSONObject("headers");
+            if (headersJson != null && headersJson.length() > 0) {
+                for (String name : JSONObject.getNames(headersJson)) {
+                    headers.put(name.toLowerCase(), headersJson.get(name).toString());
+                }
+            }
+            subRequests.add(new SubRequest(
+                    i,
+                    requestJson.has("id") ? requestJson.get("id").toString() : null,
+                    requestJson.optString("method", "GET").toUpperCase(),
+                    path,
+                    parameters,
+                    headers
+            ));
+        }
+        return subRequests;
+    }
+
+    private static void parseQueryString(String queryString, Map<String, String[]> parameters) {
+        for (String pair : queryString.split("&")) {
+            if (pair.isEmpty()) {
+                continue;
+            }
+            int equals = pair.indexOf('=');
+            String name = decode(equals < 0 ? pair : pair.substring(0, equals));
+            String value = equals < 0 ? "" : decode(pair.substring(equals + 1));
+            String[] values = parameters.get(name);
+            if (values == null) {
+                values = new String[]{value};
+            } else {
+                values = Arrays.copyOf(values, values.length + 1);
+                values[values.length - 1] = value;
+            }
+            parameters.put(name, values);
+        }
+    }
+
+    private static String decode(String value) {
+        try {
+            return URLDecoder.decode(value, StandardCharsets.UTF_8.name());
+        } catch (UnsupportedEncodingException ex) {
+            throw new BadRequestException("requests", "Could not decode: " + value);
+        }
+    }
+
+    private static String[] toParameterValues(Object value) {
+        if (value instanceof JSONArray) {
+            JSONArray array = (JSONArray) value;
+            String[] values = new String[array.length()];
+            for (int i = 0; i < array.length(); i++) {
+                values[i] = array.get(i).toString();
+            }
+            return values;
+        }
+        return new String[]{value.toString()};
+    }
+
+    private SubResult run(App app, HttpServletRequest request, HttpServletResponse response, SubRequest subRequest)
+            throws IOException {
+        long startTime = System.currentTimeMillis();
+        BatchSubRequest batchSubRequest = new BatchSubRequest(
+                request,
+                subRequest.method,
+                subRequest.path,
+                subRequest.parameters,
+                subRequest.headers
+        );
+        BatchSubResponse batchSubResponse = new BatchSubResponse(response);
+        try {
+            app.handle(batchSubRequest, batchSubResponse);
+        } catch (Throwable ex) {
+            handleException(subRequest, batchSubRequest, batchSubResponse, ex);
+        }
+        return new SubResult(subRequest, batchSubResponse, System.currentTimeMillis() - startTime);
+    }
+
+    private void handleException(
+            SubRequest subRequest,
+            BatchSubRequest request,
+            BatchSubResponse response,
+            Throwable ex
+    ) throws IOException {
+        response.reset();
+        if (!Router.handleRequestException(request, response, ex)) {
+            LOGGER.warn("Unhandled exception for batch request %s %s", subRequest.method, subRequest.path, ex);
+            response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, ex.getMessage());
+        }
+    }
+
+    private void writeResult(JsonGenerator jsonGenerator, SubResult result) throws IOException {
+        BatchSubResponse response = result.response;
+        jsonGenerator.writeStartObject();
+        jsonGenerator.writeNumberField("index", result.request.index);
+        if (result.request.id != null) {
+            jsonGenerator.writeStringField("id", result.request.id);
+        }
+        jsonGenerator.writeNumberField("status", response.getStatus());
+        jsonGenerator.writeNumberField("timeMs", result.timeMs);
+        jsonGenerator.writeObjectFieldStart("headers");
+        if (response.getContentType() != null) {
+            jsonGenerator.writeStringField("Content-Type", response.getContentType());
+        }
+        for (String name : response.getHeaderNames()) {
+            jsonGenerator.writeStringField(name, response.getHeader(name));
+        }
+        jsonGenerator.writeEndObject();
+
+        byte[] body = response.getBody();
+        if (body.length > 0) {
+            String bodyString = new String(body, StandardCharsets.UTF_8);
+            jsonGenerator.writeFieldName("body");
+            if (isJson(response.getContentType())) {
+                jsonGenerator.writeRawValue(bodyString);
+            } else {
+                jsonGenerator.writeString(bodyString);
+            }
+        }
+        jsonGenerator.writeEndObject();
+    }
+
+    private static boolean isJson(String contentType) {
+        return contentType != null && contentType.toLowerCase().startsWith("application/json");
+    }
+
+    /**
+     * Runs a request unless the batch gave up on it before it started.
+     */
+    private class SubRequestTask implements Callable<SubResult> {
+        private final App app;
+        private final HttpServletRequest request;
+        private final HttpServletResponse response;
+        private final SubRequest subRequest;
+        private final AtomicBoolean started = new AtomicBoolean();
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        SubRequestTask(App app, HttpServletRequest request, HttpServletResponse response, SubRequest subRequest) {
+            this.app = app;
+            this.request = request;
+            this.response = response;
+            this.subRequest = subRequest;
+        }
+
+        @Override
+        public SubResult call() throws Exception {
+            if (!started.compareAndSet(false, true)) {
+                return null;
+            }
+            try {
+                return run(app, request, response, subRequest);
+            } finally {
+                done.countDown();
+            }
+        }
+
+        /**
+         * Keeps the request from starting, or waits for it to finish if it already started.
+         */
+        void cancelOrAwait() {
+            if (started.compareAndSet(false, true)) {
+                return;
+            }
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    done.await();
+                    break;
+                } catch (InterruptedException ex) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static class SubRequest {
+        private final int index;
+        private final String id;
+        private final String method;
+        private final String path;
+        private final Map<String, String[]> parameters;
+        private final Map<String, String> headers;
+
+        SubRequest(int index, String id, String method, String path, Map<String, String[]> parameters, Map<String, String> headers) {
+            this.index = index;
+            this.id = id;
+            this.method = method;
+            this.path = path;
+            this.parameters = parameters;
+            this.headers = headers;
+        }
+    }
+
+    private static class SubResult {
+        private final SubRequest request;
+        private final BatchSubResponse response;
+        private final long timeMs;
+
+        SubResult(SubRequest request, BatchSubResponse response, long timeMs) {
+            this.request = request;
+            this.response = response;
+            this.timeMs = timeMs;
+        }
+    }
+}
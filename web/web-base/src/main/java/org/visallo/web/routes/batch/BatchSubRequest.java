@@ -0,0 +1,271 @@
+package org.visallo.web.routes.batch;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A request of a batch, dispatched with the session, headers and attributes of the batch request but its own method,
+ * path and parameters.
+ * <p/>
+ * Attributes set while handling the sub-request are kept by the sub-request, so sub-requests running at the same time
+ * only read the batch request. Headers which only apply to the batch request as a whole, like the accepted encodings
+ * and conditional headers, are replaced by the headers given with the sub-request.
+ */
+class BatchSubRequest extends HttpServletRequestWrapper {
+    private static final Set<String> BATCH_ONLY_HEADERS = new HashSet<>(Arrays.asList(
+            "accept-encoding",
+            "content-length",
+            "content-type",
+            "if-match",
+            "if-modified-since",
+            "if-none-match",
+            "if-range",
+            "if-unmodified-since",
+            "range"
+    ));
+    private static final String[] DATE_FORMATS = {
+            "EEE, dd MMM yyyy HH:mm:ss zzz",
+            "EEEE, dd-MMM-yy HH:mm:ss zzz",
+            "EEE MMM d HH:mm:ss yyyy"
+    };
+    private static final Object REMOVED = new Object();
+    private final String method;
+    private final String path;
+    private final Map<String, String[]> parameters;
+    private final Map<String, String> headers;
+    private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+
+    /**
+     * @param headers the headers of the sub-request, keyed by lower case name.
+     */
+    BatchSubRequest(
+            HttpServletRequest request,
+            String method,
+            String path,
+            Map<String, String[]> parameters,
+            Map<String, String> headers
+    ) {
+        super(request);
+        this.method = method;
+        this.path = path;
+        this.parameters = Collections.unmodifiableMap(parameters);
+        this.headers = headers;
+    }
+
+    @Override
+    public String getMethod() {
+        return method;
+    }
+
+    @Override
+    public String getRequestURI() {
+        return getContextPath() + path;
+    }
+
+    @Override
+    public StringBuffer getRequestURL() {
+        StringBuffer url = super.getRequestURL();
+        String batchUri = super.getRequestURI();
+        int uriStart = url.length() - batchUri.length();
+        if (uriStart >= 0) {
+            url.setLength(uriStart);
+        }
+        return url.append(getRequestURI());
+    }
+
+    @Override
+    public String getServletPath() {
+        return "";
+    }
+
+    @Override
+    public String getPathInfo() {
+        return path;
+    }
+
+    @Override
+    public String getQueryString() {
+        return null;
+    }
+
+    @Override
+    public String getParameter(String name) {
+        String[] values = parameters.get(name);
+        return values == null || values.length == 0 ? null : values[0];
+    }
+
+    @Override
+    public String[] getParameterValues(String name) {
+        return parameters.get(name);
+    }
+
+    @Override
+    public Map<String, String[]> getParameterMap() {
+        return parameters;
+    }
+
+    @Override
+    public Enumeration<String> getParameterNames() {
+        return Collections.enumeration(parameters.keySet());
+    }
+
+    @Override
+    public String getHeader(String name) {
+        String lowerCaseName = name.toLowerCase();
+        if (headers.containsKey(lowerCaseName)) {
+            return headers.get(lowerCaseName);
+        }
+        if (BATCH_ONLY_HEADERS.contains(lowerCaseName)) {
+            return null;
+        }
+        return super.getHeader(name);
+    }
+
+    @Override
+    public Enumeration<String> getHeaders(String name) {
+        String value = getHeader(name);
+        if (value == null) {
+            return Collections.emptyEnumeration();
+        }
+        String lowerCaseName = name.toLowerCase();
+        if (headers.containsKey(lowerCaseName)) {
+            return Collections.enumeration(Collections.singletonList(value));
+        }
+        return super.getHeaders(name);
+    }
+
+    @Override
+    public Enumeration<String> getHeaderNames() {
+        Set<String> names = new LinkedHashSet<>();
+        Enumeration<String> batchNames = super.getHeaderNames();
+        while (batchNames != null && batchNames.hasMoreElements()) {
+            String name = batchNames.nextElement();
+            if (!BATCH_ONLY_HEADERS.contains(name.toLowerCase())) {
+                names.add(name);
+            }
+        }
+        names.addAll(headers.keySet());
+        return Collections.enumeration(names);
+    }
+
+    @Override
+    public long getDateHeader(String name) {
+        String lowerCaseName = name.toLowerCase();
+        if (headers.containsKey(lowerCaseName)) {
+            String value = headers.get(lowerCaseName);
+            return value == null ? -1 : parseDate(name, value);
+        }
+        if (BATCH_ONLY_HEADERS.contains(lowerCaseName)) {
+            return -1;
+        }
+        return super.getDateHeader(name);
+    }
+
+    /**
+     * Parses the date formats HTTP/1.1 accepts, as the servlet container does for the batch request.
+     *
+     * @throws IllegalArgumentException if the value is not a date.
+     */
+    private static long parseDate(String name, String value) {
+        for (String dateFormat : DATE_FORMATS) {
+            SimpleDateFormat format = new SimpleDateFormat(dateFormat, Locale.US);
+            format.setTimeZone(TimeZone.getTimeZone("GMT"));
+            try {
+                return format.parse(value.trim()).getTime();
+            } catch (ParseException ex) {
+                // try the next format
+            }
+        }
+        throw new IllegalArgumentException("Header " + name + " is not a date: " + value);
+    }
+
+    @Override
+    public int getIntHeader(String name) {
+        String value = getHeader(name);
+        return value == null ? -1 : Integer.parseInt(value);
+    }
+
+    @Override
+    public String getContentType() {
+        return null;
+    }
+
+    @Override
+    public int getContentLength() {
+        return -1;
+    }
+
+    @Override
+    public long getContentLengthLong() {
+        return -1;
+    }
+
+    @Override
+    public ServletInputStream getInputStream() {
+        return new ServletInputStream() {
+            @Override
+            public boolean isFinished() {
+                return true;
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setReadListener(ReadListener readListener) {
+            }
+
+            @Override
+            public int read() {
+                return -1;
+            }
+        };
+    }
+
+    @Override
+    public BufferedReader getReader() {
+        return new BufferedReader(new StringReader(""));
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        Object value = attributes.get(name);
+        if (value == REMOVED) {
+            return null;
+        }
+        return value == null ? super.getAttribute(name) : value;
+    }
+
+    @Override
+    public Enumeration<String> getAttributeNames() {
+        Set<String> names = new LinkedHashSet<>(Collections.list(super.getAttributeNames()));
+        for (Map.Entry<String, Object> attribute : attributes.entrySet()) {
+            if (attribute.getValue() == REMOVED) {
+                names.remove(attribute.getKey());
+            } else {
+                names.add(attribute.getKey());
+            }
+        }
+        return Collections.enumeration(names);
+    }
+
+    @Override
+    public void setAttribute(String name, Object value) {
+        attributes.put(name, value == null ? REMOVED : value);
+    }
+
+    @Override
+    public void removeAttribute(String name) {
+        attributes.put(name, REMOVED);
+    }
+}
@@ -6,23 +6,31 @@ import com.v5analytics.webster.annotations.Handle;
 import com.v5analytics.webster.annotations.Required;
 import org.vertexium.*;
 import org.visallo.core.exception.VisalloResourceNotFoundException;
+import org.visallo.core.model.user.PrivilegeRepository;
+import org.visallo.core.user.User;
 import org.visallo.core.util.ClientApiConverter;
+import org.visallo.web.VisalloResponse;
 import org.visallo.web.clientapi.model.ClientApiEdge;
 import org.visallo.web.parameterProviders.ActiveWorkspaceId;
+import org.visallo.web.util.ElementETag;
 
 public class EdgeProperties implements ParameterizedHandler {
     private final Graph graph;
+    private final PrivilegeRepository privilegeRepository;
 
     @Inject
-    public EdgeProperties(final Graph graph) {
+    public EdgeProperties(final Graph graph, final PrivilegeRepository privilegeRepository) {
         this.graph = graph;
+        this.privilegeRepository = privilegeRepository;
     }
 
     @Handle
     public ClientApiEdge handle(
             @Required(name = "graphEdgeId") String graphEdgeId,
             @ActiveWorkspaceId String workspaceId,
-            Authorizations authorizations
+            User user,
+            Authorizations authorizations,
+            VisalloResponse response
     ) throws Exception {
         Edge edge = graph.getEdge(graphEdgeId, authorizations);
         if (edge == null) {
@@ -39,6 +47,11 @@ public class EdgeProperties implements ParameterizedHandler {
             throw new VisalloResourceNotFoundException("Could not find inVertex: " + edge.getVertexId(Direction.IN));
         }
 
+        String eTag = ElementETag.create(workspaceId, user, privilegeRepository.getPrivileges(user), authorizations, edge, outVertex, inVertex);
+        if (response.testEtagHeaders(eTag)) {
+            return null;
+        }
+        response.addETagHeader(eTag);
         return ClientApiConverter.toClientApiEdgeWithVertexData(edge, outVertex, inVertex, workspaceId, authorizations);
     }
 }
@@ -6,19 +6,24 @@ import com.v5analytics.webster.annotations.Handle;
 import com.v5analytics.webster.annotations.Optional;
 import com.v5analytics.webster.annotations.Required;
 import org.json.JSONObject;
+import org.visallo.core.model.user.PrivilegeRepository;
 import org.visallo.core.model.workspace.WorkspaceRepository;
 import org.visallo.core.model.workspace.product.Product;
 import org.visallo.core.user.User;
 import org.visallo.core.util.ClientApiConverter;
+import org.visallo.web.VisalloResponse;
 import org.visallo.web.clientapi.model.ClientApiProduct;
 import org.visallo.web.parameterProviders.ActiveWorkspaceId;
+import org.visallo.web.util.ElementETag;
 
 public class ProductGet implements ParameterizedHandler {
     private final WorkspaceRepository workspaceRepository;
+    private final PrivilegeRepository privilegeRepository;
 
     @Inject
-    public ProductGet(WorkspaceRepository workspaceRepository) {
+    public ProductGet(WorkspaceRepository workspaceRepository, PrivilegeRepository privilegeRepository) {
         this.workspaceRepository = workspaceRepository;
+        this.privilegeRepository = privilegeRepository;
     }
 
 
@@ -28,10 +33,19 @@ public class ProductGet implements ParameterizedHandler {
             @Optional(name = "includeExtended", defaultValue = "true") boolean includeExtended,
             @Optional(name = "params") String paramsStr,
             @ActiveWorkspaceId String workspaceId,
-            User user
+            User user,
+            VisalloResponse response
     ) throws Exception {
         JSONObject params = paramsStr == null ? new JSONObject() : new JSONObject(paramsStr);
         Product product = workspaceRepository.findProductById(workspaceId, productId, params, includeExtended, user);
-        return ClientApiConverter.toClientApiProduct(product);
+        ClientApiProduct clientApiProduct = ClientApiConverter.toClientApiProduct(product);
+
+        // the extended data is built by the work product, so it is hashed after it is built
+        String eTag = ElementETag.create(workspaceId, user, privilegeRepository.getPrivileges(user), clientApiProduct);
+        if (response.testEtagHeaders(eTag)) {
+            return null;
+        }
+        response.addETagHeader(eTag);
+        return clientApiProduct;
     }
 }
@@ -4,20 +4,26 @@ import com.google.inject.Inject;
 import com.v5analytics.webster.ParameterizedHandler;
 import com.v5analytics.webster.annotations.Handle;
 import com.v5analytics.webster.annotations.Required;
+import org.apache.commons.io.IOUtils;
+import org.visallo.core.exception.VisalloResourceNotFoundException;
 import org.visallo.core.model.workspace.WorkspaceRepository;
+import org.visallo.core.model.workspace.product.Product;
 import org.visallo.core.user.User;
 import org.visallo.web.VisalloResponse;
 import org.visallo.web.parameterProviders.ActiveWorkspaceId;
+import org.visallo.web.util.DiskContentCache;
 
 import javax.servlet.http.HttpServletResponse;
 import java.io.InputStream;
 
 public class ProductPreview implements ParameterizedHandler {
     private final WorkspaceRepository workspaceRepository;
+    private final DiskContentCache contentCache;
 
     @Inject
-    public ProductPreview(WorkspaceRepository workspaceRepository) {
+    public ProductPreview(WorkspaceRepository workspaceRepository, DiskContentCache contentCache) {
         this.workspaceRepository = workspaceRepository;
+        this.contentCache = contentCache;
     }
 
 
@@ -28,6 +34,20 @@ public class ProductPreview implements ParameterizedHandler {
             User user,
             VisalloResponse response
     ) throws Exception {
+        Product product = workspaceRepository.findProductById(workspaceId, productId, null, false, user);
+        String previewImageMD5 = product == null ? null : product.getPreviewImageMD5();
+        if (previewImageMD5 != null) {
+            contentCache.respond(response, productId, "preview", "preview", previewImageMD5, () -> {
+                try (InputStream preview = workspaceRepository.getProductPreviewById(workspaceId, productId, user)) {
+                    if (preview == null) {
+                        throw new VisalloResourceNotFoundException("Could not find preview of product: " + productId);
+                    }
+                    return new DiskContentCache.Content("image/png", null, IOUtils.toByteArray(preview));
+                }
+            });
+            return;
+        }
+
         try (InputStream preview = workspaceRepository.getProductPreviewById(workspaceId, productId, user)) {
             if (preview == null) {
                 response.setStatus(HttpServletResponse.SC_NOT_FOUND);
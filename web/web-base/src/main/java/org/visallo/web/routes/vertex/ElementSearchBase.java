@@ -1,5 +1,6 @@
 package org.visallo.web.routes.vertex;
 
+import com.google.inject.Inject;
 import com.v5analytics.webster.annotations.Handle;
 import org.vertexium.Authorizations;
 import org.vertexium.Edge;
@@ -12,10 +13,14 @@ import org.visallo.core.model.search.ElementSearchRunnerBase;
 import org.visallo.core.model.search.SearchOptions;
 import org.visallo.core.user.User;
 import org.visallo.core.util.ClientApiConverter;
+import org.visallo.core.util.ClientApiFetchProfile;
+import org.visallo.core.util.ClientApiFetchProfiles;
 import org.visallo.core.util.VisalloLogger;
 import org.visallo.core.util.VisalloLoggerFactory;
+import org.visallo.web.StreamingElementList;
 import org.visallo.web.clientapi.model.ClientApiElement;
 import org.visallo.web.clientapi.model.ClientApiElementSearchResponse;
+import org.visallo.web.clientapi.model.ClientApiVertex;
 import org.visallo.web.clientapi.model.ClientApiSearchResponse;
 import org.visallo.web.parameterProviders.ActiveWorkspaceId;
 import org.visallo.web.routes.search.WebSearchOptionsFactory;
@@ -26,6 +31,7 @@ import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -33,12 +39,18 @@ public abstract class ElementSearchBase {
     private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(ElementSearchBase.class);
     private static final Pattern DATE_TIME_PATTERN = Pattern.compile("^\\d{4}-\\d{2}-\\d{2}T.*");
     private final ElementSearchRunnerBase searchRunner;
+    private ClientApiFetchProfiles clientApiFetchProfiles;
 
     public ElementSearchBase(ElementSearchRunnerBase searchRunner) {
         checkNotNull(searchRunner, "searchRunner is required");
         this.searchRunner = searchRunner;
     }
 
+    @Inject
+    public void setClientApiFetchProfiles(ClientApiFetchProfiles clientApiFetchProfiles) {
+        this.clientApiFetchProfiles = clientApiFetchProfiles;
+    }
+
     @Handle
     public ClientApiElementSearchResponse handle(
             HttpServletRequest request,
@@ -47,30 +59,53 @@ public abstract class ElementSearchBase {
             Authorizations authorizations
     ) throws Exception {
         SearchOptions searchOptions = WebSearchOptionsFactory.create(request, workspaceId);
-        try (QueryResultsIterableSearchResults searchResults = this.searchRunner.run(searchOptions, user, authorizations)) {
-            Map<String, Double> scores = null;
+        ClientApiFetchProfile fetchProfile = getFetchProfile(searchOptions);
+        boolean includeEdgeLabelCounts = searchOptions.getOptionalParameter("includeEdgeLabelCounts", false);
+        QueryResultsIterableSearchResults searchResults = this.searchRunner.run(searchOptions, user, authorizations);
+        try {
+            Map<String, Double> scores;
             if (searchResults.getQueryResultsIterable() instanceof IterableWithScores) {
                 scores = ((IterableWithScores<?>) searchResults.getQueryResultsIterable()).getScores();
+            } else {
+                scores = null;
             }
 
-            List<ClientApiElement> elementList = convertElementsToClientApi(
-                    searchResults.getQueryAndData(),
+            // the elements are converted while the response is written, which closes the search results
+            StreamingElementList<Element, ClientApiElement> elements = new StreamingElementList<>(
                     searchResults.getQueryResultsIterable(),
-                    scores,
-                    searchOptions.getWorkspaceId(),
-                    authorizations
+                    StreamingElementList.DEFAULT_BATCH_SIZE,
+                    batch -> convertElementsToClientApi(
+                            searchResults.getQueryAndData(),
+                            batch,
+                            scores,
+                            searchOptions.getWorkspaceId(),
+                            fetchProfile,
+                            includeEdgeLabelCounts,
+                            authorizations
+                    ),
+                    searchResults
             );
 
-            ClientApiElementSearchResponse results = new ClientApiElementSearchResponse();
-            results.getElements().addAll(elementList);
+            ClientApiElementSearchResponse results = new StreamingClientApiElementSearchResponse(elements);
             results.setNextOffset((int) (searchResults.getOffset() + searchResults.getSize()));
+            results.setNextCursor(searchResults.getNextCursor());
 
             addSearchResultsDataToResults(results, searchResults.getQueryAndData(), searchResults.getQueryResultsIterable());
 
             return results;
+        } catch (Exception ex) {
+            searchResults.close();
+            throw ex;
         }
     }
 
+    private ClientApiFetchProfile getFetchProfile(SearchOptions searchOptions) {
+        String fetchProfileName = searchOptions.getOptionalParameter(ClientApiFetchProfiles.PARAMETER_NAME, String.class);
+        if (fetchProfileName == null || clientApiFetchProfiles == null) {
+            return null;
+        }
+        return clientApiFetchProfiles.getRequired(fetchProfileName);
+    }
 
     private void addSearchResultsDataToResults(
             ClientApiElementSearchResponse results,
@@ -198,30 +233,62 @@ public abstract class ElementSearchBase {
         return result;
     }
 
-    protected List<ClientApiElement> convertElementsToClientApi(
+    private List<ClientApiElement> convertElementsToClientApi(
             ElementSearchRunnerBase.QueryAndData queryAndData,
-            Iterable<? extends Element> searchResults,
+            List<Element> elements,
             Map<String, Double> scores,
             String workspaceId,
+            ClientApiFetchProfile fetchProfile,
+            boolean includeEdgeLabelCounts,
             Authorizations authorizations
     ) {
-        List<ClientApiElement> elementsList = new ArrayList<>();
-        for (Element element : searchResults) {
-            Integer commonCount = getCommonCount(queryAndData, element);
-            ClientApiElement elem;
-            if (element instanceof Vertex) {
-                elem = ClientApiConverter.toClientApiVertex((Vertex) element, workspaceId, commonCount, authorizations);
-            } else if (element instanceof Edge) {
-                elem = ClientApiConverter.toClientApiEdge((Edge) element, workspaceId);
-            } else {
-                throw new VisalloException("Unhandled element type: " + element.getClass().getName());
-            }
-            if (scores != null) {
-                elem.setScore(scores.get(element.getId()));
+        // the edge labels are loaded with the vertices, the counts are read for the whole batch at once
+        Map<String, Map<String, Integer>> edgeLabelCounts = null;
+        List<Vertex> vertices = elements.stream()
+                .filter(element -> element instanceof Vertex)
+                .map(element -> (Vertex) element)
+                .collect(Collectors.toList());
+        if (includeEdgeLabelCounts && vertices.size() > 0
+                && (fetchProfile == null || fetchProfile.isIncludeEdgeLabels())) {
+            edgeLabelCounts = ClientApiConverter.getEdgeLabelCounts(
+                    vertices.get(0).getGraph(),
+                    vertices.stream().map(Vertex::getId).collect(Collectors.toList()),
+                    authorizations
+            );
+        }
+
+        List<ClientApiElement> results = new ArrayList<>(elements.size());
+        for (Element element : elements) {
+            ClientApiElement clientApiElement = convertElementToClientApi(queryAndData, element, scores, workspaceId, fetchProfile, authorizations);
+            if (edgeLabelCounts != null && clientApiElement instanceof ClientApiVertex) {
+                ((ClientApiVertex) clientApiElement).setEdgeLabelCounts(edgeLabelCounts.get(element.getId()));
             }
-            elementsList.add(elem);
+            results.add(clientApiElement);
+        }
+        return results;
+    }
+
+    protected ClientApiElement convertElementToClientApi(
+            ElementSearchRunnerBase.QueryAndData queryAndData,
+            Element element,
+            Map<String, Double> scores,
+            String workspaceId,
+            ClientApiFetchProfile fetchProfile,
+            Authorizations authorizations
+    ) {
+        Integer commonCount = getCommonCount(queryAndData, element);
+        ClientApiElement elem;
+        if (element instanceof Vertex) {
+            elem = ClientApiConverter.toClientApiVertex((Vertex) element, workspaceId, commonCount, false, fetchProfile, authorizations);
+        } else if (element instanceof Edge) {
+            elem = ClientApiConverter.toClientApiEdge((Edge) element, workspaceId, fetchProfile);
+        } else {
+            throw new VisalloException("Unhandled element type: " + element.getClass().getName());
+        }
+        if (scores != null) {
+            elem.setScore(scores.get(element.getId()));
         }
-        return elementsList;
+        return elem;
     }
 
     protected Integer getCommonCount(ElementSearchRunnerBase.QueryAndData queryAndData, Element element) {
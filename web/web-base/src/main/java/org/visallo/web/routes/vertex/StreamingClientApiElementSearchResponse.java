@@ -0,0 +1,52 @@
+package org.visallo.web.routes.vertex;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.vertexium.Element;
+import org.visallo.web.StreamingClientApiObject;
+import org.visallo.web.StreamingElementList;
+import org.visallo.web.clientapi.model.ClientApiElement;
+import org.visallo.web.clientapi.model.ClientApiElementSearchResponse;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Consumer;
+
+public class StreamingClientApiElementSearchResponse extends ClientApiElementSearchResponse implements StreamingClientApiObject {
+    private final StreamingElementList<Element, ClientApiElement> streamingElements;
+    private boolean writing;
+    private boolean added;
+
+    public StreamingClientApiElementSearchResponse(StreamingElementList<Element, ClientApiElement> streamingElements) {
+        this.streamingElements = streamingElements;
+    }
+
+    @Override
+    public List<ClientApiElement> getElements() {
+        List<ClientApiElement> elements = super.getElements();
+        if (!writing && !added) {
+            streamingElements.addAllTo(elements);
+            added = true;
+        }
+        return elements;
+    }
+
+    @Override
+    public void writeJson(
+            JsonGenerator jsonGenerator,
+            ObjectMapper objectMapper,
+            Consumer<ClientApiElement> prepareElement
+    ) throws IOException {
+        writing = true;
+        jsonGenerator.writeStartObject();
+        int itemCount = streamingElements.write(jsonGenerator, objectMapper, "elements", prepareElement);
+        StreamingElementList.writeFields(jsonGenerator, objectMapper.valueToTree(this), "elements", "itemCount");
+        jsonGenerator.writeNumberField("itemCount", itemCount);
+        jsonGenerator.writeEndObject();
+    }
+
+    @Override
+    public void close() {
+        streamingElements.close();
+    }
+}
@@ -0,0 +1,52 @@
+package org.visallo.web.routes.vertex;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.vertexium.Vertex;
+import org.visallo.web.StreamingClientApiObject;
+import org.visallo.web.StreamingElementList;
+import org.visallo.web.clientapi.model.ClientApiElement;
+import org.visallo.web.clientapi.model.ClientApiVertex;
+import org.visallo.web.clientapi.model.ClientApiVertexMultipleResponse;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Consumer;
+
+public class StreamingClientApiVertexMultipleResponse extends ClientApiVertexMultipleResponse implements StreamingClientApiObject {
+    private final StreamingElementList<Vertex, ClientApiVertex> streamingVertices;
+    private boolean writing;
+    private boolean added;
+
+    public StreamingClientApiVertexMultipleResponse(StreamingElementList<Vertex, ClientApiVertex> streamingVertices) {
+        this.streamingVertices = streamingVertices;
+    }
+
+    @Override
+    public List<ClientApiVertex> getVertices() {
+        List<ClientApiVertex> vertices = super.getVertices();
+        if (!writing && !added) {
+            streamingVertices.addAllTo(vertices);
+            added = true;
+        }
+        return vertices;
+    }
+
+    @Override
+    public void writeJson(
+            JsonGenerator jsonGenerator,
+            ObjectMapper objectMapper,
+            Consumer<ClientApiElement> prepareElement
+    ) throws IOException {
+        writing = true;
+        jsonGenerator.writeStartObject();
+        streamingVertices.write(jsonGenerator, objectMapper, "vertices", prepareElement);
+        StreamingElementList.writeFields(jsonGenerator, objectMapper.valueToTree(this), "vertices");
+        jsonGenerator.writeEndObject();
+    }
+
+    @Override
+    public void close() {
+        streamingVertices.close();
+    }
+}
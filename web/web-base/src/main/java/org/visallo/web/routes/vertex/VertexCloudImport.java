@@ -84,6 +84,7 @@ public class VertexCloudImport implements ParameterizedHandler {
             @Required(name = "cloudConfiguration") String cloudConfiguration,
             @Optional(name = "publish", defaultValue = "false") boolean shouldPublish,
             @Optional(name = "findExistingByFileHash", defaultValue = "true") boolean findExistingByFileHash,
+            @Optional(name = "resumeLongRunningProcessId") String resumeLongRunningProcessId,
             @ActiveWorkspaceId String workspaceId,
             Authorizations authorizations,
             User user
@@ -97,8 +98,15 @@ public class VertexCloudImport implements ParameterizedHandler {
             cloudConfiguration,
             user.getUserId(),
             workspaceId,
-            authorizations
+            authorizations,
+            resumeLongRunningProcessId
         );
+        if (resumeLongRunningProcessId != null) {
+            JSONObject resumedProcess = this.longRunningProcessRepository.findById(resumeLongRunningProcessId, user);
+            if (resumedProcess == null || !item.getType().equals(resumedProcess.optString("type"))) {
+                throw new BadRequestException("resumeLongRunningProcessId", "Could not find cloud import: " + resumeLongRunningProcessId);
+            }
+        }
         String id = this.longRunningProcessRepository.enqueue(item.toJson(), user, authorizations);
 
         return new ClientApiLongRunningProcessSubmitResponse(id);
@@ -1,7 +1,5 @@
 package org.visallo.web.routes.vertex;
 
-import com.google.common.collect.Iterables;
-import com.google.common.collect.Lists;
 import com.google.inject.Inject;
 import com.v5analytics.webster.ParameterizedHandler;
 import com.v5analytics.webster.annotations.Handle;
@@ -16,9 +14,16 @@ import org.visallo.web.clientapi.model.ClientApiVertex;
 import org.visallo.web.clientapi.model.ClientApiVertexEdges;
 import org.visallo.web.parameterProviders.ActiveWorkspaceId;
 
-import java.util.List;
+import java.util.*;
 
 public class VertexEdges implements ParameterizedHandler {
+    private static final EnumSet<FetchHint> EDGE_FETCH_HINTS = EnumSet.of(FetchHint.PROPERTIES, FetchHint.PROPERTY_METADATA);
+    private static final EnumSet<FetchHint> OTHER_VERTEX_FETCH_HINTS = EnumSet.of(
+            FetchHint.PROPERTIES,
+            FetchHint.PROPERTY_METADATA,
+            FetchHint.IN_EDGE_LABELS,
+            FetchHint.OUT_EDGE_LABELS
+    );
     private final Graph graph;
 
     @Inject
@@ -26,6 +31,13 @@ public class VertexEdges implements ParameterizedHandler {
         this.graph = graph;
     }
 
+    /**
+     * Returns a page of the edges of a vertex. The edges can be limited to one label and, with relatedVertexId, to the
+     * edges between the vertex and one other vertex, which must be visible with the authorizations.
+     * <p/>
+     * The offset, size and total references count the edge infos of the vertex, so pages line up however many of
+     * their edges are left out because the other vertex is not visible. Those pages are shorter than the size.
+     */
     @Handle
     public ClientApiVertexEdges handle(
             @Required(name = "graphVertexId") String graphVertexId,
@@ -38,44 +50,81 @@ public class VertexEdges implements ParameterizedHandler {
             Authorizations authorizations
     ) throws Exception {
         Vertex vertex;
-        Vertex relatedVertex = null;
         try (TraceSpan trace = Trace.start("getOriginalVertex").data("graphVertexId", graphVertexId)) {
-            vertex = graph.getVertex(graphVertexId, authorizations);
+            vertex = graph.getVertex(graphVertexId, FetchHint.EDGE_REFS, authorizations);
             if (vertex == null) {
                 throw new VisalloResourceNotFoundException("Could not find vertex: " + graphVertexId);
             }
         }
 
         if (relatedVertexId != null) {
-            relatedVertex = graph.getVertex(relatedVertexId, authorizations);
+            Vertex relatedVertex = graph.getVertex(relatedVertexId, FetchHint.NONE, authorizations);
             if (relatedVertex == null) {
                 throw new VisalloResourceNotFoundException("Could not find related vertex: " + relatedVertexId);
             }
         }
 
         Direction direction = Direction.valueOf(directionStr.toUpperCase());
-        Iterable<Edge> edges = vertex.getEdges(direction, edgeLabel, authorizations);
+        List<EdgeInfo> edgeInfos = new ArrayList<>();
+        try (TraceSpan trace = Trace.start("getEdgeInfos")) {
+            Iterable<EdgeInfo> allEdgeInfos = edgeLabel == null
+                    ? vertex.getEdgeInfos(direction, authorizations)
+                    : vertex.getEdgeInfos(direction, edgeLabel, authorizations);
+            for (EdgeInfo edgeInfo : allEdgeInfos) {
+                if (relatedVertexId == null || relatedVertexId.equals(edgeInfo.getVertexId())) {
+                    edgeInfos.add(edgeInfo);
+                }
+            }
+        }
 
         ClientApiVertexEdges result = new ClientApiVertexEdges();
+        int pageStart = Math.min(edgeInfos.size(), Math.max(0, offset));
+        int pageEnd = (int) Math.min(edgeInfos.size(), (long) pageStart + Math.max(0, size));
+        addRelationships(result, edgeInfos.subList(pageStart, pageEnd), graphVertexId, workspaceId, authorizations);
+        result.setTotalReferences(edgeInfos.size());
 
-        long count = 0;
-        for (Edge edge : edges) {
-            String otherVertexId = edge.getOtherVertexId(graphVertexId);
-            Vertex otherVertex = graph.getVertex(otherVertexId, authorizations);
-            if (otherVertex == null) continue;
+        return result;
+    }
 
-            if (count < offset || count >= size + offset) {
-                count++;
-                continue;
+    /**
+     * Loads the edges and other vertices of a page of edge infos with one call each and adds them to the result,
+     * leaving out the edge infos whose edge or other vertex could not be found.
+     */
+    private void addRelationships(
+            ClientApiVertexEdges result,
+            List<EdgeInfo> page,
+            String graphVertexId,
+            String workspaceId,
+            Authorizations authorizations
+    ) {
+        if (page.isEmpty()) {
+            return;
+        }
+        try (TraceSpan trace = Trace.start("getPage").data("size", Integer.toString(page.size()))) {
+            List<String> edgeIds = new ArrayList<>(page.size());
+            Set<String> otherVertexIds = new LinkedHashSet<>();
+            for (EdgeInfo edgeInfo : page) {
+                edgeIds.add(edgeInfo.getEdgeId());
+                otherVertexIds.add(edgeInfo.getVertexId());
+            }
+            Map<String, Edge> edgesById = new HashMap<>();
+            for (Edge edge : graph.getEdges(edgeIds, EDGE_FETCH_HINTS, authorizations)) {
+                edgesById.put(edge.getId(), edge);
+            }
+            Map<String, Vertex> otherVerticesById = new HashMap<>();
+            for (Vertex otherVertex : graph.getVertices(otherVertexIds, OTHER_VERTEX_FETCH_HINTS, authorizations)) {
+                otherVerticesById.put(otherVertex.getId(), otherVertex);
             }
 
-            result.getRelationships().add(convertEdgeToClientApi(edge, otherVertex, workspaceId, authorizations));
-            count++;
+            for (EdgeInfo edgeInfo : page) {
+                Edge edge = edgesById.get(edgeInfo.getEdgeId());
+                Vertex otherVertex = edge == null ? null : otherVerticesById.get(edge.getOtherVertexId(graphVertexId));
+                if (otherVertex == null) {
+                    continue;
+                }
+                result.getRelationships().add(convertEdgeToClientApi(edge, otherVertex, workspaceId, authorizations));
+            }
         }
-
-        result.setTotalReferences(count);
-
-        return result;
     }
 
     /**
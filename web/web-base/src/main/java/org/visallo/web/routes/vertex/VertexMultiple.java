@@ -6,6 +6,7 @@ import com.v5analytics.webster.annotations.Handle;
 import com.v5analytics.webster.annotations.Optional;
 import com.v5analytics.webster.annotations.Required;
 import org.vertexium.Authorizations;
+import org.vertexium.FetchHint;
 import org.vertexium.Graph;
 import org.vertexium.Vertex;
 import org.visallo.core.exception.VisalloAccessDeniedException;
@@ -14,12 +15,17 @@ import org.visallo.core.model.user.UserRepository;
 import org.visallo.core.model.workspace.WorkspaceRepository;
 import org.visallo.core.user.User;
 import org.visallo.core.util.ClientApiConverter;
+import org.visallo.core.util.ClientApiFetchProfile;
+import org.visallo.core.util.ClientApiFetchProfiles;
+import org.visallo.web.StreamingElementList;
+import org.visallo.web.clientapi.model.ClientApiVertex;
 import org.visallo.web.clientapi.model.ClientApiVertexMultipleResponse;
 import org.visallo.web.parameterProviders.ActiveWorkspaceId;
 import org.visallo.web.parameterProviders.AuthorizationsParameterProviderFactory;
 
 import javax.servlet.http.HttpServletRequest;
 import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.HashSet;
 
 public class VertexMultiple implements ParameterizedHandler {
@@ -27,18 +33,21 @@ public class VertexMultiple implements ParameterizedHandler {
     private final UserRepository userRepository;
     private final WorkspaceRepository workspaceRepository;
     private final AuthorizationRepository authorizationRepository;
+    private final ClientApiFetchProfiles clientApiFetchProfiles;
 
     @Inject
     public VertexMultiple(
             Graph graph,
             UserRepository userRepository,
             WorkspaceRepository workspaceRepository,
-            AuthorizationRepository authorizationRepository
+            AuthorizationRepository authorizationRepository,
+            ClientApiFetchProfiles clientApiFetchProfiles
     ) {
         this.graph = graph;
         this.userRepository = userRepository;
         this.workspaceRepository = workspaceRepository;
         this.authorizationRepository = authorizationRepository;
+        this.clientApiFetchProfiles = clientApiFetchProfiles;
     }
 
     @Handle
@@ -46,26 +55,41 @@ public class VertexMultiple implements ParameterizedHandler {
             HttpServletRequest request,
             @Required(name = "vertexIds[]") String[] vertexIdsParam,
             @Optional(name = "fallbackToPublic", defaultValue = "false") boolean fallbackToPublic,
+            @Optional(name = ClientApiFetchProfiles.PARAMETER_NAME) String fetchProfileName,
+            @Optional(name = "includeEdgeLabelCounts", defaultValue = "false") boolean includeEdgeLabelCounts,
             @ActiveWorkspaceId(required = false) String workspaceId,
             User user
     ) throws Exception {
+        ClientApiFetchProfile fetchProfile = clientApiFetchProfiles.getRequired(fetchProfileName);
         HashSet<String> vertexStringIds = new HashSet<>(Arrays.asList(vertexIdsParam));
         GetAuthorizationsResult getAuthorizationsResult = getAuthorizations(request, fallbackToPublic, user);
 
+        EnumSet<FetchHint> fetchHints = fetchProfile.getFetchHints();
+        if (includeEdgeLabelCounts) {
+            // the edge labels come with the counts read for each batch of vertices when they are converted
+            fetchHints.remove(FetchHint.IN_EDGE_LABELS);
+            fetchHints.remove(FetchHint.OUT_EDGE_LABELS);
+        }
         Iterable<Vertex> graphVertices = graph.getVertices(
                 vertexStringIds,
-                ClientApiConverter.SEARCH_FETCH_HINTS,
+                fetchHints,
                 getAuthorizationsResult.authorizations
         );
-        ClientApiVertexMultipleResponse result = new ClientApiVertexMultipleResponse();
+        StreamingElementList<Vertex, ClientApiVertex> vertices = new StreamingElementList<>(
+                graphVertices,
+                StreamingElementList.DEFAULT_BATCH_SIZE,
+                batch -> ClientApiConverter.toClientApiVertices(
+                        graph,
+                        batch,
+                        workspaceId,
+                        includeEdgeLabelCounts,
+                        fetchProfile,
+                        getAuthorizationsResult.authorizations
+                ),
+                null
+        );
+        ClientApiVertexMultipleResponse result = new StreamingClientApiVertexMultipleResponse(vertices);
         result.setRequiredFallback(getAuthorizationsResult.requiredFallback);
-        for (Vertex v : graphVertices) {
-            result.getVertices().add(ClientApiConverter.toClientApiVertex(
-                    v,
-                    workspaceId,
-                    getAuthorizationsResult.authorizations
-            ));
-        }
         return result;
     }
 
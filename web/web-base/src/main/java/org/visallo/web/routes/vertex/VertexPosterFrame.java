@@ -15,25 +15,25 @@ import org.visallo.core.exception.VisalloResourceNotFoundException;
 import org.visallo.core.model.artifactThumbnails.ArtifactThumbnailRepository;
 import org.visallo.core.model.properties.MediaVisalloProperties;
 import org.visallo.core.user.User;
-import org.visallo.core.util.VisalloLogger;
-import org.visallo.core.util.VisalloLoggerFactory;
 import org.visallo.web.VisalloResponse;
+import org.visallo.web.util.DiskContentCache;
 
 import java.io.InputStream;
-import java.io.OutputStream;
 
 public class VertexPosterFrame implements ParameterizedHandler {
-    private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(VertexPosterFrame.class);
     private final Graph graph;
     private final ArtifactThumbnailRepository artifactThumbnailRepository;
+    private final DiskContentCache contentCache;
 
     @Inject
     public VertexPosterFrame(
             final Graph graph,
-            final ArtifactThumbnailRepository artifactThumbnailRepository
+            final ArtifactThumbnailRepository artifactThumbnailRepository,
+            final DiskContentCache contentCache
     ) {
         this.graph = graph;
         this.artifactThumbnailRepository = artifactThumbnailRepository;
+        this.contentCache = contentCache;
     }
 
     @Handle
@@ -51,47 +51,28 @@ public class VertexPosterFrame implements ParameterizedHandler {
             throw new VisalloResourceNotFoundException("Could not find vertex with id: " + graphVertexId);
         }
 
-        if (width != null) {
-            boundaryDims[0] = boundaryDims[1] = width;
-
-            response.setContentType("image/jpeg");
-            response.addHeader("Content-Disposition", "inline; filename=thumbnail" + boundaryDims[0] + ".jpg");
-            response.setMaxAge(VisalloResponse.EXPIRES_1_HOUR);
-
-            byte[] thumbnailData = artifactThumbnailRepository.getThumbnailData(artifactVertex.getId(), "poster-frame", boundaryDims[0], boundaryDims[1], user);
-            if (thumbnailData != null) {
-                LOGGER.debug("Cache hit for: %s (poster-frame) %d x %d", graphVertexId, boundaryDims[0], boundaryDims[1]);
-                try (OutputStream out = response.getOutputStream()) {
-                    out.write(thumbnailData);
-                }
-                return;
-            }
-        }
-
         Property rawPosterFrame = MediaVisalloProperties.RAW_POSTER_FRAME.getOnlyProperty(artifactVertex);
         StreamingPropertyValue rawPosterFrameValue = MediaVisalloProperties.RAW_POSTER_FRAME.getPropertyValue(rawPosterFrame);
         if (rawPosterFrameValue == null) {
             throw new VisalloResourceNotFoundException("Could not find raw poster from for artifact: " + artifactVertex.getId());
         }
 
-        try (InputStream in = rawPosterFrameValue.getInputStream()) {
-            if (width != null) {
-                LOGGER.info("Cache miss for: %s (poster-frame) %d x %d", graphVertexId, boundaryDims[0], boundaryDims[1]);
-
-                response.setContentType("image/jpeg");
-                response.addHeader("Content-Disposition", "inline; filename=thumbnail" + boundaryDims[0] + ".jpg");
-                response.setMaxAge(VisalloResponse.EXPIRES_1_HOUR);
+        String version = Long.toString(rawPosterFrame.getTimestamp());
+        if (width != null) {
+            boundaryDims[0] = boundaryDims[1] = width;
+            response.setMaxAge(VisalloResponse.EXPIRES_1_HOUR);
+            String size = "poster-frame-" + boundaryDims[0] + "x" + boundaryDims[1];
+            contentCache.respond(response, artifactVertex.getId(), rawPosterFrame.getKey(), size, version, () -> {
+                byte[] thumbnailData = artifactThumbnailRepository.getOrCreateThumbnail(artifactVertex, rawPosterFrame, "poster-frame", boundaryDims, user).getData();
+                return new DiskContentCache.Content("image/jpeg", "thumbnail" + boundaryDims[0] + ".jpg", thumbnailData);
+            });
+            return;
+        }
 
-                byte[] thumbnailData = artifactThumbnailRepository.createThumbnail(artifactVertex, rawPosterFrame.getKey(), "poster-frame", in, boundaryDims, user).getData();
-                try (OutputStream out = response.getOutputStream()) {
-                    out.write(thumbnailData);
-                }
-            } else {
-                response.setContentType("image/png");
-                try (OutputStream out = response.getOutputStream()) {
-                    IOUtils.copy(in, out);
-                }
+        contentCache.respond(response, artifactVertex.getId(), rawPosterFrame.getKey(), "poster-frame", version, () -> {
+            try (InputStream in = rawPosterFrameValue.getInputStream()) {
+                return new DiskContentCache.Content("image/png", null, IOUtils.toByteArray(in));
             }
-        }
+        });
     }
 }
@@ -8,28 +8,42 @@ import org.vertexium.Authorizations;
 import org.vertexium.Graph;
 import org.vertexium.Vertex;
 import org.visallo.core.exception.VisalloResourceNotFoundException;
+import org.visallo.core.model.user.PrivilegeRepository;
+import org.visallo.core.user.User;
 import org.visallo.core.util.ClientApiConverter;
+import org.visallo.web.VisalloResponse;
 import org.visallo.web.clientapi.model.ClientApiElement;
 import org.visallo.web.parameterProviders.ActiveWorkspaceId;
+import org.visallo.web.util.ElementETag;
 
 public class VertexProperties implements ParameterizedHandler {
     private final Graph graph;
+    private final PrivilegeRepository privilegeRepository;
 
     @Inject
-    public VertexProperties(final Graph graph) {
+    public VertexProperties(final Graph graph, final PrivilegeRepository privilegeRepository) {
         this.graph = graph;
+        this.privilegeRepository = privilegeRepository;
     }
 
     @Handle
     public ClientApiElement handle(
             @Required(name = "graphVertexId") String graphVertexId,
             @ActiveWorkspaceId String workspaceId,
-            Authorizations authorizations
+            User user,
+            Authorizations authorizations,
+            VisalloResponse response
     ) throws Exception {
         Vertex vertex = graph.getVertex(graphVertexId, authorizations);
         if (vertex == null) {
             throw new VisalloResourceNotFoundException("Could not find vertex: " + graphVertexId);
         }
+
+        String eTag = ElementETag.create(workspaceId, user, privilegeRepository.getPrivileges(user), authorizations, vertex);
+        if (response.testEtagHeaders(eTag)) {
+            return null;
+        }
+        response.addETagHeader(eTag);
         return ClientApiConverter.toClientApi(vertex, workspaceId, authorizations);
     }
 }
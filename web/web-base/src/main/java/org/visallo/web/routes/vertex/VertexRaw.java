@@ -5,40 +5,51 @@ import com.v5analytics.webster.ParameterizedHandler;
 import com.v5analytics.webster.annotations.Handle;
 import com.v5analytics.webster.annotations.Optional;
 import com.v5analytics.webster.annotations.Required;
+import org.apache.commons.io.IOUtils;
 import org.vertexium.Authorizations;
 import org.vertexium.Graph;
+import org.vertexium.Property;
 import org.vertexium.Vertex;
 import org.vertexium.property.StreamingPropertyValue;
 import org.visallo.core.exception.VisalloException;
 import org.visallo.core.exception.VisalloResourceNotFoundException;
 import org.visallo.core.model.properties.MediaVisalloProperties;
 import org.visallo.core.model.properties.VisalloProperties;
+import org.visallo.core.model.properties.types.StreamingSingleValueVisalloProperty;
 import org.visallo.core.util.LimitInputStream;
 import org.visallo.web.BadRequestException;
 import org.visallo.web.VisalloResponse;
+import org.visallo.web.util.ByteRange;
+import org.visallo.web.util.DiskContentCache;
+import org.visallo.web.util.StreamingPropertyValueSpool;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
 public class VertexRaw implements ParameterizedHandler {
-    private static final Pattern RANGE_PATTERN = Pattern.compile("bytes=([0-9]*)-([0-9]*)");
-
     private final Graph graph;
+    private final StreamingPropertyValueSpool spool;
 
     @Inject
-    public VertexRaw(final Graph graph) {
+    public VertexRaw(
+            final Graph graph,
+            final StreamingPropertyValueSpool spool
+    ) {
         this.graph = graph;
+        this.spool = spool;
     }
 
     @Handle
-    public InputStream handle(
+    public void handle(
             HttpServletRequest request,
             @Required(name = "graphVertexId") String graphVertexId,
             @Optional(name = "download", defaultValue = "false") boolean download,
@@ -55,7 +66,7 @@ public class VertexRaw implements ParameterizedHandler {
         String fileName = VisalloProperties.FILE_NAME.getOnlyPropertyValue(artifactVertex);
 
         if (playback) {
-            return handlePartialPlayback(request, response, artifactVertex, fileName, type);
+            handlePartialPlayback(request, response, artifactVertex, fileName, type);
         } else {
             String mimeType = getMimeType(artifactVertex);
             response.setContentType(mimeType);
@@ -67,94 +78,165 @@ public class VertexRaw implements ParameterizedHandler {
                 response.addHeader("Content-Disposition", "inline; filename=\"" + fileNameWithoutQuotes + "\"");
             }
 
+            Property rawProperty = VisalloProperties.RAW.getProperty(artifactVertex);
             StreamingPropertyValue rawValue = VisalloProperties.RAW.getPropertyValue(artifactVertex);
-            if (rawValue == null) {
+            if (rawProperty == null || rawValue == null) {
                 throw new VisalloResourceNotFoundException("Could not find raw on artifact: " + artifactVertex.getId());
             }
-            return rawValue.getInputStream();
+            respond(request, response, artifactVertex, rawProperty, rawValue, mimeType);
         }
     }
 
-    private InputStream handlePartialPlayback(HttpServletRequest request, VisalloResponse response, Vertex artifactVertex, String fileName, String type) throws IOException {
+    private void handlePartialPlayback(HttpServletRequest request, VisalloResponse response, Vertex artifactVertex, String fileName, String type) throws IOException {
         if (type == null) {
             throw new BadRequestException("type is required for partial playback");
         }
 
-        InputStream in;
-        Long totalLength;
-        long partialStart = 0;
-        Long partialEnd = null;
-        String range = request.getHeader("Range");
-
-        if (range != null) {
-            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
-
-            Matcher m = RANGE_PATTERN.matcher(range);
-            if (m.matches()) {
-                partialStart = Long.parseLong(m.group(1));
-                if (m.group(2).length() > 0) {
-                    partialEnd = Long.parseLong(m.group(2));
-                }
-            }
-        }
-
         response.setCharacterEncoding(null);
         response.setContentType(type);
         response.addHeader("Content-Disposition", "attachment; filename=" + fileName);
 
-        StreamingPropertyValue mediaPropertyValue = getStreamingPropertyValue(artifactVertex, type);
+        StreamingSingleValueVisalloProperty mediaProperty = getMediaProperty(type);
+        Property property = mediaProperty.getProperty(artifactVertex);
+        StreamingPropertyValue mediaPropertyValue = mediaProperty.getPropertyValue(artifactVertex);
+        checkNotNull(property, String.format("Could not find %s property on artifact %s", type, artifactVertex.getId()));
+        checkNotNull(mediaPropertyValue, String.format("Could not find %s property on artifact %s", type, artifactVertex.getId()));
 
-        totalLength = mediaPropertyValue.getLength();
-        in = mediaPropertyValue.getInputStream();
+        respond(request, response, artifactVertex, property, mediaPropertyValue, type);
+    }
 
-        if (partialEnd == null) {
-            partialEnd = totalLength;
+    /**
+     * Writes the value, or the ranges of it asked for by the Range header. The first range request of a value spools
+     * it to local disk so later ranges are sent from the spooled file at their position, until then ranges are read
+     * from the graph.
+     */
+    private void respond(
+            HttpServletRequest request,
+            VisalloResponse response,
+            Vertex vertex,
+            Property property,
+            StreamingPropertyValue value,
+            String contentType
+    ) throws IOException {
+        String eTag = StreamingPropertyValueSpool.getETag(vertex, property);
+        if (response.testEtagHeaders(eTag)) {
+            return;
+        }
+        response.addETagHeader(eTag);
+
+        long totalLength = value.getLength();
+        List<ByteRange> ranges = null;
+        if (totalLength >= 0) {
+            response.setHeader("Accept-Ranges", "bytes");
+            String range = request.getHeader("Range");
+            if (range != null && isIfRangeSatisfied(request.getHeader("If-Range"), eTag)) {
+                ranges = ByteRange.parse(range, totalLength);
+            }
         }
 
-        // Ensure that the last byte position is less than the instance-length
-        partialEnd = Math.min(partialEnd, totalLength - 1);
-        long partialLength = totalLength;
+        if (ranges != null && ranges.isEmpty()) {
+            response.setHeader("Content-Range", "bytes */" + totalLength);
+            response.getHttpServletResponse().sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            return;
+        }
+        if (ranges != null) {
+            spool.spool(vertex, property, value);
+        }
 
-        if (range != null) {
-            partialLength = partialEnd - partialStart + 1;
-            response.addHeader("Content-Range", "bytes " + partialStart + "-" + partialEnd + "/" + totalLength);
-            if (partialStart > 0) {
-                in.skip(partialStart);
+        DiskContentCache.Entry entry = spool.get(vertex, property);
+        FileChannel channel = entry == null ? null : spool.getCache().open(entry);
+        try {
+            HttpServletResponse httpResponse = response.getHttpServletResponse();
+            if (ranges == null) {
+                if (totalLength >= 0) {
+                    httpResponse.setContentLengthLong(totalLength);
+                }
+                try (OutputStream out = response.getOutputStream()) {
+                    if (channel == null) {
+                        try (InputStream in = value.getInputStream()) {
+                            IOUtils.copy(in, out);
+                        }
+                    } else {
+                        spool.getCache().transferTo(channel, 0, entry.getLength(), out);
+                    }
+                }
+                return;
+            }
+
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            if (ranges.size() == 1) {
+                ByteRange range = ranges.get(0);
+                response.setHeader("Content-Range", range.toContentRange(totalLength));
+                httpResponse.setContentLengthLong(range.getLength());
+                try (OutputStream out = response.getOutputStream()) {
+                    writeRange(channel, value, range, out);
+                }
+                return;
+            }
+
+            String boundary = UUID.randomUUID().toString();
+            response.setContentType("multipart/byteranges; boundary=" + boundary);
+            try (OutputStream out = response.getOutputStream()) {
+                for (ByteRange range : ranges) {
+                    String partHeaders = "\r\n--" + boundary + "\r\n"
+                            + "Content-Type: " + contentType + "\r\n"
+                            + "Content-Range: " + range.toContentRange(totalLength) + "\r\n"
+                            + "\r\n";
+                    out.write(partHeaders.getBytes(StandardCharsets.US_ASCII));
+                    writeRange(channel, value, range, out);
+                }
+                out.write(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+            }
+        } finally {
+            if (channel != null) {
+                channel.close();
             }
         }
+    }
 
-        response.addHeader("Content-Length", "" + partialLength);
+    private void writeRange(FileChannel channel, StreamingPropertyValue value, ByteRange range, OutputStream out) throws IOException {
+        if (channel != null) {
+            spool.getCache().transferTo(channel, range.getStart(), range.getLength(), out);
+            return;
+        }
+        try (InputStream in = value.getInputStream()) {
+            long skip = range.getStart();
+            while (skip > 0) {
+                long skipped = in.skip(skip);
+                if (skipped <= 0) {
+                    throw new VisalloException("Could not skip to byte " + range.getStart());
+                }
+                skip -= skipped;
+            }
+            IOUtils.copyLarge(new LimitInputStream(in, range.getLength()), out);
+        }
+    }
 
-        return new LimitInputStream(in, partialLength);
+    /**
+     * Ranges are only sent if the client's copy, named by the If-Range header, is still current.
+     */
+    private static boolean isIfRangeSatisfied(String ifRange, String eTag) {
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") && ifRange.endsWith("\"") && ifRange.length() > 2) {
+            ifRange = ifRange.substring(1, ifRange.length() - 1);
+        }
+        return eTag.equals(ifRange);
     }
 
-    private StreamingPropertyValue getStreamingPropertyValue(Vertex artifactVertex, String type) {
-        StreamingPropertyValue mediaPropertyValue;
+    private StreamingSingleValueVisalloProperty getMediaProperty(String type) {
         if (MediaVisalloProperties.MIME_TYPE_AUDIO_MP4.equals(type)) {
-            mediaPropertyValue = MediaVisalloProperties.AUDIO_MP4.getPropertyValue(artifactVertex);
-            checkNotNull(mediaPropertyValue, String.format("Could not find %s property on artifact %s", MediaVisalloProperties.MIME_TYPE_AUDIO_MP4, artifactVertex.getId()));
+            return MediaVisalloProperties.AUDIO_MP4;
         } else if (MediaVisalloProperties.MIME_TYPE_AUDIO_OGG.equals(type)) {
-            mediaPropertyValue = MediaVisalloProperties.AUDIO_OGG.getPropertyValue(artifactVertex);
-            checkNotNull(mediaPropertyValue, String.format("Could not find %s property on artifact %s", MediaVisalloProperties.MIME_TYPE_AUDIO_OGG, artifactVertex.getId()));
+            return MediaVisalloProperties.AUDIO_OGG;
         } else if (MediaVisalloProperties.MIME_TYPE_VIDEO_MP4.equals(type)) {
-            mediaPropertyValue = MediaVisalloProperties.VIDEO_MP4.getPropertyValue(artifactVertex);
-            checkNotNull(mediaPropertyValue, String.format("Could not find %s property on artifact %s", MediaVisalloProperties.MIME_TYPE_VIDEO_MP4, artifactVertex.getId()));
+            return MediaVisalloProperties.VIDEO_MP4;
         } else if (MediaVisalloProperties.MIME_TYPE_VIDEO_WEBM.equals(type)) {
-            mediaPropertyValue = MediaVisalloProperties.VIDEO_WEBM.getPropertyValue(artifactVertex);
-            checkNotNull(mediaPropertyValue, String.format("Could not find %s property on artifact %s", MediaVisalloProperties.MIME_TYPE_VIDEO_WEBM, artifactVertex.getId()));
+            return MediaVisalloProperties.VIDEO_WEBM;
         } else {
             throw new VisalloException("Invalid video type: " + type);
         }
-        return mediaPropertyValue;
-    }
-
-    private void copy(InputStream in, OutputStream out, Long length) throws IOException {
-        byte[] buffer = new byte[1024];
-        int read;
-        while (length > 0 && (read = in.read(buffer, 0, (int) Math.min(length, buffer.length))) > 0) {
-            out.write(buffer, 0, read);
-            length -= read;
-        }
     }
 
     private String getMimeType(Vertex artifactVertex) {
@@ -9,32 +9,28 @@ import org.vertexium.Authorizations;
 import org.vertexium.Graph;
 import org.vertexium.Property;
 import org.vertexium.Vertex;
-import org.vertexium.property.StreamingPropertyValue;
 import org.visallo.core.exception.VisalloResourceNotFoundException;
 import org.visallo.core.model.artifactThumbnails.ArtifactThumbnail;
 import org.visallo.core.model.artifactThumbnails.ArtifactThumbnailRepository;
 import org.visallo.core.model.properties.VisalloProperties;
 import org.visallo.core.user.User;
-import org.visallo.core.util.VisalloLogger;
-import org.visallo.core.util.VisalloLoggerFactory;
 import org.visallo.web.VisalloResponse;
-
-import java.io.InputStream;
-import java.io.OutputStream;
+import org.visallo.web.util.DiskContentCache;
 
 public class VertexThumbnail implements ParameterizedHandler {
-    private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(VertexThumbnail.class);
-
     private final ArtifactThumbnailRepository artifactThumbnailRepository;
     private final Graph graph;
+    private final DiskContentCache contentCache;
 
     @Inject
     public VertexThumbnail(
             final ArtifactThumbnailRepository artifactThumbnailRepository,
-            final Graph graph
+            final Graph graph,
+            final DiskContentCache contentCache
     ) {
         this.artifactThumbnailRepository = artifactThumbnailRepository;
         this.graph = graph;
+        this.contentCache = contentCache;
     }
 
     @Handle
@@ -55,43 +51,17 @@ public class VertexThumbnail implements ParameterizedHandler {
             boundaryDims[0] = boundaryDims[1] = width;
         }
 
-        byte[] thumbnailData;
-        ArtifactThumbnail thumbnail = artifactThumbnailRepository.getThumbnail(artifactVertex.getId(), "raw", boundaryDims[0], boundaryDims[1], user);
-        if (thumbnail != null) {
-            String format = thumbnail.getFormat();
-            response.setContentType("image/" + format);
-            response.addHeader("Content-Disposition", "inline; filename=thumbnail" + boundaryDims[0] + "." + format);
-            response.setMaxAge(VisalloResponse.EXPIRES_1_HOUR);
-
-            thumbnailData = thumbnail.getData();
-            if (thumbnailData != null) {
-                LOGGER.debug("Cache hit for: %s (raw) %d x %d", artifactVertex.getId(), boundaryDims[0], boundaryDims[1]);
-                try (OutputStream out = response.getOutputStream()) {
-                    out.write(thumbnailData);
-                }
-                return;
-            }
-        }
-
-        LOGGER.info("Cache miss for: %s (raw) %d x %d", artifactVertex.getId(), boundaryDims[0], boundaryDims[1]);
         Property rawProperty = VisalloProperties.RAW.getProperty(artifactVertex);
-        StreamingPropertyValue rawPropertyValue = VisalloProperties.RAW.getPropertyValue(artifactVertex);
-        if (rawPropertyValue == null) {
+        if (rawProperty == null) {
             throw new VisalloResourceNotFoundException("Could not find raw property on vertex: " + artifactVertex.getId());
         }
 
-        try (InputStream in = rawPropertyValue.getInputStream()) {
-            thumbnail = artifactThumbnailRepository.createThumbnail(artifactVertex, rawProperty.getKey(), "raw", in, boundaryDims, user);
-
+        response.setMaxAge(VisalloResponse.EXPIRES_1_HOUR);
+        String size = "thumbnail-" + boundaryDims[0] + "x" + boundaryDims[1];
+        contentCache.respond(response, artifactVertex.getId(), rawProperty.getKey(), size, Long.toString(rawProperty.getTimestamp()), () -> {
+            ArtifactThumbnail thumbnail = artifactThumbnailRepository.getOrCreateThumbnail(artifactVertex, rawProperty, "raw", boundaryDims, user);
             String format = thumbnail.getFormat();
-            response.setContentType("image/" + format);
-            response.addHeader("Content-Disposition", "inline; filename=thumbnail" + boundaryDims[0] + "." + format);
-            response.setMaxAge(VisalloResponse.EXPIRES_1_HOUR);
-
-            thumbnailData = thumbnail.getData();
-        }
-        try (OutputStream out = response.getOutputStream()) {
-            out.write(thumbnailData);
-        }
+            return new DiskContentCache.Content("image/" + format, "thumbnail" + boundaryDims[0] + "." + format, thumbnail.getData());
+        });
     }
 }
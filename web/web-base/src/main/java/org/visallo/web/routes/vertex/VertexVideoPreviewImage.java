@@ -17,9 +17,9 @@ import org.visallo.core.user.User;
 import org.visallo.core.util.VisalloLogger;
 import org.visallo.core.util.VisalloLoggerFactory;
 import org.visallo.web.VisalloResponse;
+import org.visallo.web.util.DiskContentCache;
 
 import java.io.InputStream;
-import java.io.OutputStream;
 
 import static org.visallo.core.model.properties.MediaVisalloProperties.VIDEO_PREVIEW_IMAGE;
 
@@ -27,14 +27,17 @@ public class VertexVideoPreviewImage implements ParameterizedHandler {
     private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(VertexVideoPreviewImage.class);
     private final Graph graph;
     private final ArtifactThumbnailRepository artifactThumbnailRepository;
+    private final DiskContentCache contentCache;
 
     @Inject
     public VertexVideoPreviewImage(
             final Graph graph,
-            final ArtifactThumbnailRepository artifactThumbnailRepository
+            final ArtifactThumbnailRepository artifactThumbnailRepository,
+            final DiskContentCache contentCache
     ) {
         this.graph = graph;
         this.artifactThumbnailRepository = artifactThumbnailRepository;
+        this.contentCache = contentCache;
     }
 
     @Handle
@@ -50,26 +53,6 @@ public class VertexVideoPreviewImage implements ParameterizedHandler {
             throw new VisalloResourceNotFoundException("Could not find vertex with id: " + graphVertexId);
         }
 
-        int[] boundaryDims = new int[]{200 * ArtifactThumbnailRepository.FRAMES_PER_PREVIEW, 200};
-
-        if (width != null) {
-            boundaryDims[0] = width * ArtifactThumbnailRepository.FRAMES_PER_PREVIEW;
-            boundaryDims[1] = width;
-
-            response.setContentType("image/jpeg");
-            response.addHeader("Content-Disposition", "inline; filename=videoPreview" + boundaryDims[0] + ".jpg");
-            response.setMaxAge(VisalloResponse.EXPIRES_1_HOUR);
-
-            byte[] thumbnailData = artifactThumbnailRepository.getThumbnailData(artifactVertex.getId(), "video-preview", boundaryDims[0], boundaryDims[1], user);
-            if (thumbnailData != null) {
-                LOGGER.debug("Cache hit for: %s (video-preview) %d x %d", artifactVertex.getId(), boundaryDims[0], boundaryDims[1]);
-                try (OutputStream out = response.getOutputStream()) {
-                    out.write(thumbnailData);
-                }
-                return;
-            }
-        }
-
         Property videoPreviewImage = VIDEO_PREVIEW_IMAGE.getProperty(artifactVertex);
         StreamingPropertyValue videoPreviewImageValue = VIDEO_PREVIEW_IMAGE.getPropertyValue(artifactVertex);
         if (videoPreviewImageValue == null) {
@@ -77,24 +60,23 @@ public class VertexVideoPreviewImage implements ParameterizedHandler {
             response.respondWithNotFound();
             return;
         }
-        try (InputStream in = videoPreviewImageValue.getInputStream()) {
-            if (width != null) {
-                LOGGER.info("Cache miss for: %s (video-preview) %d x %d", artifactVertex.getId(), boundaryDims[0], boundaryDims[1]);
 
-                response.setContentType("image/jpeg");
-                response.addHeader("Content-Disposition", "inline; filename=videoPreview" + boundaryDims[0] + ".jpg");
-                response.setMaxAge(VisalloResponse.EXPIRES_1_HOUR);
+        String version = Long.toString(videoPreviewImage.getTimestamp());
+        if (width != null) {
+            int[] boundaryDims = new int[]{width * ArtifactThumbnailRepository.FRAMES_PER_PREVIEW, width};
+            response.setMaxAge(VisalloResponse.EXPIRES_1_HOUR);
+            String size = "video-preview-" + boundaryDims[0] + "x" + boundaryDims[1];
+            contentCache.respond(response, artifactVertex.getId(), videoPreviewImage.getKey(), size, version, () -> {
+                byte[] thumbnailData = artifactThumbnailRepository.getOrCreateThumbnail(artifactVertex, videoPreviewImage, "video-preview", boundaryDims, user).getData();
+                return new DiskContentCache.Content("image/jpeg", "videoPreview" + boundaryDims[0] + ".jpg", thumbnailData);
+            });
+            return;
+        }
 
-                byte[] thumbnailData = artifactThumbnailRepository.createThumbnail(artifactVertex, videoPreviewImage.getKey(), "video-preview", in, boundaryDims, user).getData();
-                try (OutputStream out = response.getOutputStream()) {
-                    out.write(thumbnailData);
-                }
-            } else {
-                response.setContentType("image/png");
-                try (OutputStream out = response.getOutputStream()) {
-                    IOUtils.copy(in, out);
-                }
+        contentCache.respond(response, artifactVertex.getId(), videoPreviewImage.getKey(), "video-preview", version, () -> {
+            try (InputStream in = videoPreviewImageValue.getInputStream()) {
+                return new DiskContentCache.Content("image/png", null, IOUtils.toByteArray(in));
             }
-        }
+        });
     }
 }
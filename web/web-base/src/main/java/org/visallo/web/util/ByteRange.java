@@ -0,0 +1,129 @@
+package org.visallo.web.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A range of bytes requested with an HTTP <code>Range</code> header.
+ */
+public class ByteRange {
+    /**
+     * Headers with more ranges than this are ignored and the whole content is sent, so a request can not ask for many
+     * small or overlapping ranges which are much larger to send than the content itself.
+     */
+    public static final int MAX_RANGES = 16;
+    private static final String BYTES_UNIT = "bytes=";
+    private final long start;
+    private final long end;
+
+    public ByteRange(long start, long end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Parses a <code>Range</code> header, resolving suffix and open ended ranges against the length of the content.
+     * Overlapping and adjacent ranges are merged, as RFC 7233 section 6.1 allows.
+     *
+     * @return the satisfiable ranges in order, empty if none can be satisfied, null if the header can not be parsed
+     * or has more than {@link #MAX_RANGES} ranges and the whole content should be sent.
+     */
+    public static List<ByteRange> parse(String rangeHeader, long totalLength) {
+        if (rangeHeader == null || !rangeHeader.startsWith(BYTES_UNIT)) {
+            return null;
+        }
+        String[] rangeSpecs = rangeHeader.substring(BYTES_UNIT.length()).split(",");
+        if (rangeSpecs.length > MAX_RANGES) {
+            return null;
+        }
+        List<ByteRange> ranges = new ArrayList<>();
+        for (String rangeSpec : rangeSpecs) {
+            rangeSpec = rangeSpec.trim();
+            int dash = rangeSpec.indexOf('-');
+            if (dash < 0) {
+                return null;
+            }
+            String startString = rangeSpec.substring(0, dash).trim();
+            String endString = rangeSpec.substring(dash + 1).trim();
+            long start;
+            long end;
+            try {
+                if (startString.isEmpty()) {
+                    if (endString.isEmpty()) {
+                        return null;
+                    }
+                    long suffixLength = Long.parseLong(endString);
+                    start = Math.max(0, totalLength - suffixLength);
+                    end = totalLength - 1;
+                    if (suffixLength == 0) {
+                        continue;
+                    }
+                } else {
+                    start = Long.parseLong(startString);
+                    if (endString.isEmpty()) {
+                        end = totalLength - 1;
+                    } else {
+                        long lastBytePosition = Long.parseLong(endString);
+                        if (lastBytePosition < start) {
+                            return null;
+                        }
+                        end = Math.min(lastBytePosition, totalLength - 1);
+                    }
+                }
+            } catch (NumberFormatException ex) {
+                return null;
+            }
+            if (start < totalLength && start <= end) {
+                ranges.add(new ByteRange(start, end));
+            }
+        }
+        return merge(ranges);
+    }
+
+    private static List<ByteRange> merge(List<ByteRange> ranges) {
+        if (ranges.size() < 2) {
+            return ranges;
+        }
+        ranges.sort(Comparator.comparingLong(ByteRange::getStart));
+        List<ByteRange> results = new ArrayList<>();
+        ByteRange current = ranges.get(0);
+        for (ByteRange range : ranges.subList(1, ranges.size())) {
+            if (range.getStart() <= current.getEnd() + 1) {
+                current = new ByteRange(current.getStart(), Math.max(current.getEnd(), range.getEnd()));
+            } else {
+                results.add(current);
+                current = range;
+            }
+        }
+        results.add(current);
+        return results;
+    }
+
+    public long getStart() {
+        return start;
+    }
+
+    /**
+     * The last byte of the range, inclusive.
+     */
+    public long getEnd() {
+        return end;
+    }
+
+    public long getLength() {
+        return end - start + 1;
+    }
+
+    public String toContentRange(long totalLength) {
+        return "bytes " + start + "-" + end + "/" + totalLength;
+    }
+
+    @Override
+    public String toString() {
+        return "ByteRange{" +
+                "start=" + start +
+                ", end=" + end +
+                '}';
+    }
+}
@@ -0,0 +1,351 @@
+package org.visallo.web.util;
+
+import com.codahale.metrics.Counter;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.visallo.core.config.Configuration;
+import org.visallo.core.exception.VisalloException;
+import org.visallo.core.status.JmxMetricsManager;
+import org.visallo.core.util.VisalloLogger;
+import org.visallo.core.util.VisalloLoggerFactory;
+import org.visallo.web.VisalloResponse;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * A size bounded, least recently used cache of images and other content on the local disk of a web server, so
+ * content read from the graph or the SimpleOrm store is only read once per server.
+ * <p/>
+ * Content is keyed by the element id, the property key, a size and the version of the content, so a new version of a
+ * property is never served from an older entry. Entries are served with {@link FileChannel#transferTo} and the MD5 of
+ * every entry is kept to be used as its strong ETag. The index is kept in memory and the cache is kept in a
+ * visallo-content-cache directory inside the configured directory, which is emptied when the server starts.
+ */
+@Singleton
+public class DiskContentCache {
+    private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(DiskContentCache.class);
+    public static final String CONFIG_DIRECTORY = DiskContentCache.class.getName() + ".directory";
+    public static final String CONFIG_MAX_SIZE_BYTES = DiskContentCache.class.getName() + ".maxSizeBytes";
+    public static final long DEFAULT_MAX_SIZE_BYTES = 512L * 1024 * 1024;
+    private static final String SUBDIRECTORY = "visallo-content-cache";
+    private final File directory;
+    private final long maxSizeBytes;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long sizeBytes;
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter evictionCounter;
+    private final Counter bytesServedCounter;
+    private final Counter bytesStoredCounter;
+
+    @Inject
+    public DiskContentCache(Configuration configuration, JmxMetricsManager metricsManager) {
+        this(
+                new File(configuration.get(CONFIG_DIRECTORY, System.getProperty("java.io.tmpdir")), SUBDIRECTORY),
+                configuration.getLong(CONFIG_MAX_SIZE_BYTES, DEFAULT_MAX_SIZE_BYTES),
+                metricsManager,
+                null
+        );
+    }
+
+    /**
+     * Creates a cache with its own directory and size, for content which should not compete for space with the
+     * content of the shared cache.
+     *
+     * @param directory  the directory of the cache, which is emptied so it should not be shared with anything else.
+     * @param namePrefix the prefix of the metrics of the cache, null for a prefix of its own.
+     */
+    public DiskContentCache(File directory, long maxSizeBytes, JmxMetricsManager metricsManager, String namePrefix) {
+        this.directory = directory;
+        this.maxSizeBytes = maxSizeBytes;
+        if (namePrefix == null) {
+            namePrefix = metricsManager.getNamePrefix(this);
+        }
+        this.hitCounter = metricsManager.counter(namePrefix + "hits");
+        this.missCounter = metricsManager.counter(namePrefix + "misses");
+        this.evictionCounter = metricsManager.counter(namePrefix + "evictions");
+        this.bytesServedCounter = metricsManager.counter(namePrefix + "bytesServed");
+        this.bytesStoredCounter = metricsManager.counter(namePrefix + "bytesStored");
+
+        try {
+            if (directory.exists()) {
+                FileUtils.cleanDirectory(directory);
+            } else {
+                FileUtils.forceMkdir(directory);
+            }
+        } catch (IOException ex) {
+            throw new VisalloException("Could not prepare content cache directory: " + directory.getAbsolutePath(), ex);
+        }
+    }
+
+    /**
+     * Writes the content to the response from the cache, loading and caching it first if it is not cached. Requests
+     * with an If-None-Match header matching the content's ETag get a 304.
+     */
+    public void respond(
+            VisalloResponse response,
+            String elementId,
+            String propertyKey,
+            String size,
+            String version,
+            Callable<Content> loader
+    ) throws Exception {
+        Entry entry = get(elementId, propertyKey, size, version);
+        if (entry != null && respond(entry, response)) {
+            return;
+        }
+
+        Content content = loader.call();
+        entry = put(elementId, propertyKey, size, version, content);
+        if (entry != null && respond(entry, response)) {
+            return;
+        }
+        String eTag = response.generateETag(content.getData());
+        if (response.testEtagHeaders(eTag)) {
+            return;
+        }
+        response.addETagHeader(eTag);
+        setContentHeaders(response, content.getContentType(), content.getFileName());
+        response.write(content.getData());
+    }
+
+    /**
+     * @return the cached content, null if it is not cached.
+     */
+    public Entry get(String elementId, String propertyKey, String size, String version) {
+        String key = createKey(elementId, propertyKey, size, version);
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        if (entry == null) {
+            missCounter.inc();
+        } else {
+            hitCounter.inc();
+        }
+        return entry;
+    }
+
+    /**
+     * @return the cached content, null if the content is bigger than the cache.
+     */
+    public Entry put(String elementId, String propertyKey, String size, String version, Content content) {
+        byte[] data = content.getData();
+        if (data.length > maxSizeBytes) {
+            return null;
+        }
+        File file;
+        try {
+            file = File.createTempFile("content", ".bin", directory);
+            FileUtils.writeByteArrayToFile(file, data);
+        } catch (IOException ex) {
+            throw new VisalloException("Could not write content cache file in: " + directory.getAbsolutePath(), ex);
+        }
+        Entry entry = new Entry(file, data.length, DigestUtils.md5Hex(data), content.getContentType(), content.getFileName());
+        add(createKey(elementId, propertyKey, size, version), entry);
+        return entry;
+    }
+
+    /**
+     * Copies content too big to be held in memory to the cache.
+     *
+     * @return the cached content, null if the content is bigger than the cache.
+     */
+    public Entry put(String elementId, String propertyKey, String size, String version, String contentType, InputStream in) throws IOException {
+        File file = File.createTempFile("content", ".bin", directory);
+        Entry entry;
+        try {
+            MessageDigest digest = DigestUtils.getMd5Digest();
+            long length = 0;
+            try (OutputStream out = new FileOutputStream(file)) {
+                byte[] buffer = new byte[64 * 1024];
+                int read;
+                DigestInputStream digestIn = new DigestInputStream(in, digest);
+                while ((read = digestIn.read(buffer)) > 0) {
+                    length += read;
+                    if (length > maxSizeBytes) {
+                        deleteFile(file);
+                        return null;
+                    }
+                    out.write(buffer, 0, read);
+                }
+            }
+            entry = new Entry(file, length, Hex.encodeHexString(digest.digest()), contentType, null);
+        } catch (IOException | RuntimeException ex) {
+            deleteFile(file);
+            throw ex;
+        }
+        add(createKey(elementId, propertyKey, size, version), entry);
+        return entry;
+    }
+
+    private void add(String key, Entry entry) {
+        bytesStoredCounter.inc(entry.getLength());
+        synchronized (entries) {
+            Entry previousEntry = entries.put(key, entry);
+            if (previousEntry != null) {
+                sizeBytes -= previousEntry.getLength();
+                deleteFile(previousEntry.file);
+            }
+            sizeBytes += entry.getLength();
+            Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+            while (sizeBytes > maxSizeBytes && it.hasNext()) {
+                Entry evictedEntry = it.next().getValue();
+                it.remove();
+                sizeBytes -= evictedEntry.getLength();
+                evictionCounter.inc();
+                // responses still reading the file keep it open until they are done
+                deleteFile(evictedEntry.file);
+            }
+        }
+    }
+
+    public long getSizeBytes() {
+        synchronized (entries) {
+            return sizeBytes;
+        }
+    }
+
+    /**
+     * @return false if the entry was evicted before it could be opened, nothing is written to the response.
+     */
+    boolean respond(Entry entry, VisalloResponse response) throws IOException {
+        FileChannel channel = open(entry);
+        if (channel == null) {
+            return false;
+        }
+        try {
+            if (response.testEtagHeaders(entry.getETag())) {
+                return true;
+            }
+            response.addETagHeader(entry.getETag());
+            setContentHeaders(response, entry.getContentType(), entry.getFileName());
+            response.getHttpServletResponse().setContentLengthLong(entry.getLength());
+            try (OutputStream out = response.getOutputStream()) {
+                transferTo(channel, 0, entry.getLength(), out);
+            }
+            return true;
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Opens the content of an entry. The content stays readable until the channel is closed, even if the entry is
+     * evicted.
+     *
+     * @return the channel, null if the entry was evicted before it could be opened.
+     */
+    public FileChannel open(Entry entry) throws IOException {
+        try {
+            return FileChannel.open(entry.file.toPath(), StandardOpenOption.READ);
+        } catch (NoSuchFileException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Writes part of an opened entry.
+     */
+    public void transferTo(FileChannel channel, long position, long count, OutputStream out) throws IOException {
+        WritableByteChannel outChannel = Channels.newChannel(out);
+        long end = position + count;
+        while (position < end) {
+            position += channel.transferTo(position, end - position, outChannel);
+        }
+        bytesServedCounter.inc(count);
+    }
+
+    private static void setContentHeaders(VisalloResponse response, String contentType, String fileName) {
+        response.setContentType(contentType);
+        if (fileName != null) {
+            response.addHeader("Content-Disposition", "inline; filename=" + fileName);
+        }
+    }
+
+    private static String createKey(String elementId, String propertyKey, String size, String version) {
+        return elementId + '\u001f' + propertyKey + '\u001f' + size + '\u001f' + version;
+    }
+
+    private static void deleteFile(File file) {
+        if (!file.delete() && file.exists()) {
+            LOGGER.warn("Could not delete content cache file: %s", file.getAbsolutePath());
+        }
+    }
+
+    public static class Entry {
+        private final File file;
+        private final long length;
+        private final String eTag;
+        private final String contentType;
+        private final String fileName;
+
+        private Entry(File file, long length, String eTag, String contentType, String fileName) {
+            this.file = file;
+            this.length = length;
+            this.eTag = eTag;
+            this.contentType = contentType;
+            this.fileName = fileName;
+        }
+
+        public long getLength() {
+            return length;
+        }
+
+        /**
+         * The MD5 of the content.
+         */
+        public String getETag() {
+            return eTag;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getFileName() {
+            return fileName;
+        }
+    }
+
+    public static class Content {
+        private final String contentType;
+        private final String fileName;
+        private final byte[] data;
+
+        /**
+         * @param fileName the file name of the inline Content-Disposition header, null to not send the header.
+         */
+        public Content(String contentType, String fileName, byte[] data) {
+            this.contentType = contentType;
+            this.fileName = fileName;
+            this.data = data;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getFileName() {
+            return fileName;
+        }
+
+        public byte[] getData() {
+            return data;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package org.visallo.web.util;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.vertexium.*;
+import org.visallo.core.exception.VisalloException;
+import org.visallo.core.user.User;
+import org.visallo.web.clientapi.model.ClientApiObject;
+import org.visallo.web.clientapi.util.ObjectMapperFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.vertexium.util.IterableUtils.toSet;
+
+/**
+ * Creates strong ETags of responses built from elements, without converting the elements.
+ * <p/>
+ * The ETag covers the ids, visibilities, property timestamps and property metadata of the elements, so setting, adding
+ * or removing a property or changing its metadata gives the elements a new ETag. The workspace and the authorizations
+ * are included because they change which properties and edges are visible. The user and their privileges are included
+ * because the ACL added to the response depends on them.
+ */
+public class ElementETag {
+    private static final byte SEPARATOR = 0x1f;
+
+    public static String create(
+            String workspaceId,
+            User user,
+            Set<String> privileges,
+            Authorizations authorizations,
+            Element... elements
+    ) {
+        MessageDigest digest = createDigest(workspaceId, user, privileges);
+        String[] auths = authorizations.getAuthorizations().clone();
+        Arrays.sort(auths);
+        for (String auth : auths) {
+            update(digest, auth);
+        }
+        for (Element element : elements) {
+            update(digest, element.getClass().getSimpleName());
+            update(digest, element.getId());
+            update(digest, element.getVisibility().getVisibilityString());
+            for (Property property : element.getProperties()) {
+                update(digest, property.getName());
+                update(digest, property.getKey());
+                update(digest, property.getVisibility().getVisibilityString());
+                update(digest, Long.toString(property.getTimestamp()));
+                // metadata can be changed without changing the property timestamp
+                Set<String> metadata = new TreeSet<>();
+                for (Metadata.Entry entry : property.getMetadata().entrySet()) {
+                    metadata.add(entry.getKey() + (char) SEPARATOR
+                            + entry.getVisibility().getVisibilityString() + (char) SEPARATOR
+                            + entry.getValue());
+                }
+                for (String entry : metadata) {
+                    update(digest, entry);
+                }
+            }
+            if (element instanceof Vertex) {
+                // edges do not change the vertex, the edge labels sent with it are hashed instead
+                Set<String> edgeLabels = new TreeSet<>(toSet(((Vertex) element).getEdgeLabels(Direction.BOTH, authorizations)));
+                for (String edgeLabel : edgeLabels) {
+                    update(digest, edgeLabel);
+                }
+            } else if (element instanceof Edge) {
+                Edge edge = (Edge) element;
+                update(digest, edge.getLabel());
+                update(digest, edge.getVertexId(Direction.OUT));
+                update(digest, edge.getVertexId(Direction.IN));
+            }
+        }
+        return Hex.encodeHexString(digest.digest());
+    }
+
+    /**
+     * Creates an ETag from an already converted response, for responses that cannot be told apart before they are
+     * built. This saves sending the response again but not building it.
+     */
+    public static String create(String workspaceId, User user, Set<String> privileges, ClientApiObject clientApiObject) {
+        MessageDigest digest = createDigest(workspaceId, user, privileges);
+        try {
+            digest.update(ObjectMapperFactory.getInstance().writeValueAsBytes(clientApiObject));
+        } catch (JsonProcessingException e) {
+            throw new VisalloException("Could not convert clientApiObject to bytes", e);
+        }
+        return Hex.encodeHexString(digest.digest());
+    }
+
+    private static MessageDigest createDigest(String workspaceId, User user, Set<String> privileges) {
+        MessageDigest digest = DigestUtils.getMd5Digest();
+        update(digest, workspaceId);
+        update(digest, user.getUserId());
+        for (String privilege : new TreeSet<>(privileges)) {
+            update(digest, privilege);
+        }
+        update(digest, null);
+        return digest;
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        if (value != null) {
+            digest.update(value.getBytes(StandardCharsets.UTF_8));
+        }
+        digest.update(SEPARATOR);
+    }
+}
@@ -0,0 +1,118 @@
+package org.visallo.web.util;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.vertexium.Element;
+import org.vertexium.Property;
+import org.vertexium.property.StreamingPropertyValue;
+import org.visallo.core.config.Configuration;
+import org.visallo.core.status.JmxMetricsManager;
+import org.visallo.core.util.VisalloLogger;
+import org.visallo.core.util.VisalloLoggerFactory;
+
+import java.io.File;
+import java.io.InputStream;
+import java.util.Set;
+import java.util.concurrent.*;
+
+/**
+ * Spools large streaming property values, like the raw artifacts and media of video and audio, to the local disk of a
+ * web server so byte ranges can be read at their position instead of reading and discarding the content before them.
+ * <p/>
+ * Values are spooled in the background the first time a range of them is requested, requests made before the value is
+ * spooled read it from the graph.
+ */
+@Singleton
+public class StreamingPropertyValueSpool {
+    private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(StreamingPropertyValueSpool.class);
+    public static final String CONFIG_DIRECTORY = StreamingPropertyValueSpool.class.getName() + ".directory";
+    public static final String CONFIG_MAX_SIZE_BYTES = StreamingPropertyValueSpool.class.getName() + ".maxSizeBytes";
+    public static final long DEFAULT_MAX_SIZE_BYTES = 10L * 1024 * 1024 * 1024;
+    public static final String CONFIG_SPOOL_THREADS = StreamingPropertyValueSpool.class.getName() + ".spoolThreads";
+    public static final int DEFAULT_SPOOL_THREADS = 2;
+    private static final int MAX_PENDING_SPOOLS = 100;
+    private static final String SUBDIRECTORY = "visallo-spool";
+    private final long maxSizeBytes;
+    private final DiskContentCache cache;
+    private final ThreadPoolExecutor spoolExecutor;
+    private final Set<String> spoolingKeys = ConcurrentHashMap.newKeySet();
+
+    @Inject
+    public StreamingPropertyValueSpool(Configuration configuration, JmxMetricsManager metricsManager) {
+        File directory = new File(configuration.get(CONFIG_DIRECTORY, System.getProperty("java.io.tmpdir")), SUBDIRECTORY);
+        this.maxSizeBytes = configuration.getLong(CONFIG_MAX_SIZE_BYTES, DEFAULT_MAX_SIZE_BYTES);
+        this.cache = new DiskContentCache(directory, maxSizeBytes, metricsManager, metricsManager.getNamePrefix(this));
+
+        int spoolThreads = configuration.getInt(CONFIG_SPOOL_THREADS, DEFAULT_SPOOL_THREADS);
+        this.spoolExecutor = new ThreadPoolExecutor(
+                spoolThreads,
+                spoolThreads,
+                60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(MAX_PENDING_SPOOLS),
+                r -> {
+                    Thread t = new Thread(r, "visallo-streaming-property-spool");
+                    t.setDaemon(true);
+                    return t;
+                }
+        );
+        this.spoolExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * A strong ETag of the property's value, which changes whenever the property is changed.
+     */
+    public static String getETag(Element element, Property property) {
+        return DigestUtils.md5Hex(element.getId()
+                + '\u001f' + property.getName()
+                + '\u001f' + property.getKey()
+                + '\u001f' + property.getTimestamp());
+    }
+
+    /**
+     * @return the spooled value, null if it is not spooled.
+     */
+    public DiskContentCache.Entry get(Element element, Property property) {
+        return cache.get(element.getId(), getPropertyKey(property), "spool", Long.toString(property.getTimestamp()));
+    }
+
+    /**
+     * Starts spooling the value in the background, unless it is already being spooled or is bigger than the spool.
+     */
+    public void spool(Element element, Property property, StreamingPropertyValue value) {
+        if (value.getLength() > maxSizeBytes) {
+            return;
+        }
+        String elementId = element.getId();
+        String propertyKey = getPropertyKey(property);
+        String version = Long.toString(property.getTimestamp());
+        String spoolingKey = elementId + '\u001f' + propertyKey + '\u001f' + version;
+        if (!spoolingKeys.add(spoolingKey)) {
+            return;
+        }
+        try {
+            spoolExecutor.execute(() -> {
+                try (InputStream in = value.getInputStream()) {
+                    if (cache.put(elementId, propertyKey, "spool", version, null, in) == null) {
+                        LOGGER.debug("%s %s is too big to spool", elementId, propertyKey);
+                    }
+                } catch (Exception ex) {
+                    LOGGER.error("Could not spool %s %s", elementId, propertyKey, ex);
+                } finally {
+                    spoolingKeys.remove(spoolingKey);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            // requests keep reading from the graph until a later request gets it spooled
+            spoolingKeys.remove(spoolingKey);
+        }
+    }
+
+    public DiskContentCache getCache() {
+        return cache;
+    }
+
+    private static String getPropertyKey(Property property) {
+        return property.getName() + '\u001f' + property.getKey();
+    }
+}